@@ -20,7 +20,10 @@ import org.apache.commons.cli.Options;
 import org.apache.log4j.Logger;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator.SBomGenerator;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator.UnixSBomGenerator;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.LowImpactPolicy;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.PipelineRunner;
 
 /**
  * (U) This Spring Boot application is used to build a Software Build Of Materials (SBOM) for a Unix
@@ -121,6 +124,64 @@ public class UnixSbomGeneratorApplication
 						"Version value to assign to top level component."));
 		cliOptions.addOption(new Option("nc", "no-components", false, "Will only campture master " +
 						"component.  Will not include any components in the list of Components."));
+		cliOptions.addOption(new Option("t", "threads", true, "Most packages to look up at once, " +
+						"the number actually used adapts to the package manager.  Defaults to the " +
+						"number of available processors."));
+		cliOptions.addOption(new Option("qd", "queue-depth", true, "Most batches of packages " +
+						"left waiting on each stage of the lookup (" +
+						String.join(", ", PipelineRunner.PIPELINE_STAGES) + "), either one " +
+						"number for every stage, or stage=number pairs separated by commas.  " +
+						"Defaults to " + PipelineRunner.DEFAULT_QUEUE_DEPTH + "."));
+		cliOptions.addOption(new Option("li", "low-impact", false, "Runs the package manager " +
+						"commands at the lowest CPU and disk priority (and in a cgroup with a " +
+						"CPU quota, given --cgroup), and starts at most " +
+						UnixSBomGenerator.LOW_IMPACT_SPAWN_RATE + " per second, for scanning live " +
+						"servers."));
+		cliOptions.addOption(new Option("cg", "cgroup", true, "With --low-impact, a cgroup (v2) " +
+						"delegated to the scanner, that already has the cpu controller enabled " +
+						"for its children, to run the package manager commands in a child cgroup " +
+						"of, under the CPU quota.  The cgroup itself is never changed, nor the " +
+						"scanner moved, and nice alone is relied on if it is not usable."));
+		cliOptions.addOption(new Option("cq", "cpu-quota", true, "With --low-impact and " +
+						"--cgroup, percent of a processor the package manager commands may use " +
+						"between them (cpu.max, over " + LowImpactPolicy.CPU_PERIOD +
+						" microseconds).  Defaults to " + LowImpactPolicy.DEFAULT_CPU_PERCENT +
+						"."));
+		cliOptions.addOption(new Option("sr", "spawn-rate", true, "Most package manager " +
+						"commands to start per second, 0 for no limit.  Defaults to no limit, or " +
+						UnixSBomGenerator.LOW_IMPACT_SPAWN_RATE + " with --low-impact."));
+		cliOptions.addOption(new Option("ss", "shell-sessions", false, "Sends the quick " +
+						"per-package queries to a long lived shell (/bin/sh) per thread, saving " +
+						"a process start per query.  By default each one is started as a " +
+						"process of its own, without a shell."));
+		cliOptions.addOption(new Option("qt", "query-timings", true, "File to keep how long " +
+						"each package took to look up in, from one scan to the next, so those " +
+						"expected to take longest are looked up first, within each " +
+						PipelineRunner.SCHEDULE_WINDOW + " packages listed.  Created if it " +
+						"does not exist."));
+		cliOptions.addOption(new Option("res", "resume", false, "Resumes a scan that was cut " +
+						"short, from the journal of the packages it finished (in the output " +
+						"directory).  Packages in it, at the version installed now, are not " +
+						"looked up again.  Without it, the journal of a scan cut short is moved " +
+						"aside (to checkpoint.journal.old), never overwritten.  The journal is " +
+						"deleted once a scan finishes, and not kept with --replay."));
+		cliOptions.addOption(new Option("rf", "retry-failed", true, "Times to look up the " +
+						"packages that failed again, once every package has been looked up.  " +
+						"Packages still failing are listed in the SBOM's metadata, and their " +
+						"components only have their name, version, and why they failed.  " +
+						"Defaults to 0."));
+		cliOptions.addOption(new Option("rec", "record", true, "File to record every package " +
+						"manager command run (and its output), and every license file read, in.  " +
+						"The package databases are not read directly while recording."));
+		cliOptions.addOption(new Option("rep", "replay", true, "File recorded with --record, " +
+						"to build the SBOM from instead of this host, without running any " +
+						"package manager commands."));
+		cliOptions.addOption(new Option("ct", "command-timeout", true, "Seconds a single " +
+						"package manager command may run before it is killed, 0 for no limit.  " +
+						"Defaults to 300."));
+		cliOptions.addOption(new Option("d", "deadline", true, "Seconds the whole scan may " +
+						"take.  Once they are up, the SBOM is written with the components finished " +
+						"so far, and its metadata lists the packages that were not."));
 
 		return cliOptions;
 	}
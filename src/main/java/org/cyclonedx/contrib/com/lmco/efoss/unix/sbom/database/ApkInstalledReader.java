@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This class reads the APK installed database (/lib/apk/db/installed) directly. Each package
+ * is a block of single letter "X:value" lines, and blocks are separated by a blank line. Only the
+ * fields we use to build a Component are kept, the (many) file and checksum lines are skipped.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class ApkInstalledReader implements PackageDatabaseReader
+{
+	private static final Logger logger = Logger.getLogger(ApkInstalledReader.class.getName());
+	
+	public static final String APK_INSTALLED_FILE = "/lib/apk/db/installed";
+	
+	private static final Map<Character, String> FIELD_NAMES = Map.of(
+			'P', "Package",
+			'V', "Version",
+			'A', "Architecture",
+			'T', "Description",
+			'U', "URL",
+			'L', "License",
+			'o', "Origin",
+			'm', "Maintainer");
+	
+	private final Path installedFile;
+	
+	/**
+	 * (U) Base Constructor, reads the installed database of the running system.
+	 */
+	public ApkInstalledReader()
+	{
+		this(APK_INSTALLED_FILE);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param installedFile String value of the installed database to read, allows a mounted
+	 *                      image to be read.
+	 */
+	public ApkInstalledReader(String installedFile)
+	{
+		this.installedFile = Paths.get(installedFile);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the APK installed database can be read on this system.
+	 * 
+	 * @return boolean true if the installed database exists and is readable, false otherwise.
+	 */
+	@Override
+	public boolean isAvailable()
+	{
+		return Files.isReadable(installedFile);
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the APK installed database.
+	 * 
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we are unable to read the installed database.
+	 */
+	@Override
+	public Map<String, Map<String, String>> readInstalledPackages()
+	{
+		if (logger.isDebugEnabled())
+			logger.debug("Reading installed packages from " + installedFile + ".");
+		
+		try (BufferedReader reader = Files.newBufferedReader(installedFile,
+				StandardCharsets.UTF_8))
+		{
+			return readInstalledPackages(reader);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read the APK installed database (" + installedFile + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the contents of an APK
+	 * installed database.
+	 * 
+	 * @param reader BufferedReader that contains the installed database contents.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> readInstalledPackages(BufferedReader reader)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		try
+		{
+			Map<String, String> detailMap = new HashMap<>();
+			String line;
+			String fieldName;
+			
+			while ((line = reader.readLine()) != null)
+			{
+				if (line.isEmpty())
+				{
+					addPackage(packages, detailMap);
+					detailMap = new HashMap<>();
+				}
+				else if ((line.length() > 1) && (line.charAt(1) == ':'))
+				{
+					fieldName = FIELD_NAMES.get(line.charAt(0));
+					if (fieldName != null)
+						detailMap.put(fieldName, line.substring(2).trim());
+				}
+			}
+			addPackage(packages, detailMap);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to process the contents of the APK installed database!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + packages.size() + " installed packages.");
+		
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to add a package block to the map of installed packages.
+	 * 
+	 * @param packages  Map of installed packages to add the block to.
+	 * @param detailMap Map containing the fields of a single package block.
+	 */
+	private void addPackage(Map<String, Map<String, String>> packages,
+			Map<String, String> detailMap)
+	{
+		String software = detailMap.get("Package");
+		
+		if (software != null)
+			packages.put(software, detailMap);
+	}
+}
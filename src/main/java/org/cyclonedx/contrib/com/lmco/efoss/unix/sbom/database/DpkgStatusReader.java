@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ByteLineReader;
+
+/**
+ * (U) This class reads the dpkg status file (/var/lib/dpkg/status) directly. The status file
+ * holds one stanza per package, in the same "Field: value" layout that "apt show" prints, so the
+ * detail maps produced here carry the same keys the UbuntuSBomGenerator already uses.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class DpkgStatusReader implements PackageDatabaseReader
+{
+	private static final Logger logger = Logger.getLogger(DpkgStatusReader.class.getName());
+	
+	public static final String DPKG_STATUS_FILE = "/var/lib/dpkg/status";
+	
+	private static final String INSTALLED = "installed";
+	
+	// Fields we need ourselves, to tell which packages are installed and key them.
+	private static final Set<String> OWN_FIELDS = Set.of("Architecture", "Package", "Status");
+	
+	private final Path statusFile;
+	private final Set<String> fields;
+	
+	/**
+	 * (U) Base Constructor, reads the status file of the running system.
+	 */
+	public DpkgStatusReader()
+	{
+		this(DPKG_STATUS_FILE);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param statusFile String value of the status file to read, allows a mounted image to be
+	 *                   read.
+	 */
+	public DpkgStatusReader(String statusFile)
+	{
+		this(statusFile, null);
+	}
+	
+	/**
+	 * (U) Constructor, keeping only some of the fields of each package. The rest (ie. the
+	 * Conffiles list, or Depends) are skipped without being decoded.
+	 * 
+	 * @param statusFile String value of the status file to read, allows a mounted image to be
+	 *                   read.
+	 * @param fields     Set of the field names to keep, null to keep every field.
+	 */
+	public DpkgStatusReader(String statusFile, Set<String> fields)
+	{
+		this.statusFile = Paths.get(statusFile);
+		if (fields == null)
+			this.fields = null;
+		else
+		{
+			Set<String> kept = new HashSet<>(fields);
+			kept.addAll(OWN_FIELDS);
+			this.fields = kept;
+		}
+	}
+	
+	/**
+	 * (U) This method is used to tell if the dpkg status file can be read on this system.
+	 * 
+	 * @return boolean true if the status file exists and is readable, false otherwise.
+	 */
+	@Override
+	public boolean isAvailable()
+	{
+		return Files.isReadable(statusFile);
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the dpkg status file.
+	 * 
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we are unable to read the status file.
+	 */
+	@Override
+	public Map<String, Map<String, String>> readInstalledPackages()
+	{
+		if (logger.isDebugEnabled())
+			logger.debug("Reading installed packages from " + statusFile + ".");
+		
+		try (ByteLineReader lines = new ByteLineReader(Files.newInputStream(statusFile)))
+		{
+			return readInstalledPackages(lines);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read the dpkg status file (" + statusFile + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the contents of a dpkg status
+	 * file. Stanzas are separated by a blank line, continuation lines start with white space and
+	 * are appended to the previous field as is, just like the "apt show" parsing does.
+	 * 
+	 * @param reader BufferedReader that contains the status file contents.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> readInstalledPackages(BufferedReader reader)
+	{
+		return readInstalledPackages(ByteLineReader.fromReader(reader));
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the contents of a dpkg status
+	 * file, straight from its bytes (the file, or the output of "dpkg-query"). Only the field
+	 * names and values are decoded, each name just once.
+	 * 
+	 * @param lines ByteLineReader that reads the status file contents.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read the contents.
+	 */
+	public Map<String, Map<String, String>> readInstalledPackages(ByteLineReader lines)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		try
+		{
+			Map<String, String> detailMap = new HashMap<>();
+			String componentDetailName = null;
+			StringBuilder componentDetailValue = new StringBuilder();
+			int index = 0;
+			
+			while (lines.nextLine())
+			{
+				if ((lines.startsWith(" ")) || (lines.startsWith("\t")))
+				{
+					// Only the field kept gets a name, so a skipped field's lines are dropped.
+					if (componentDetailName != null)
+						lines.appendTo(componentDetailValue, 0, lines.length());
+				}
+				else
+				{
+					if (componentDetailName != null)
+					{
+						putValue(detailMap, componentDetailName, componentDetailValue);
+						componentDetailName = null;
+						componentDetailValue.setLength(0);
+					}
+					
+					if (lines.length() == 0)
+					{
+						addPackage(packages, detailMap);
+						detailMap = new HashMap<>();
+					}
+					else if ((index = lines.indexOf(':')) > 0)
+					{
+						componentDetailName = lines.getName(0, index);
+						if ((fields != null) && (!fields.contains(componentDetailName)))
+							componentDetailName = null;
+						else
+							lines.appendTrimmedTo(componentDetailValue, index + 1, lines.length());
+					}
+				}
+			}
+			if (componentDetailName != null)
+				putValue(detailMap, componentDetailName, componentDetailValue);
+			addPackage(packages, detailMap);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to process the contents of the dpkg status file!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + packages.size() + " installed packages.");
+		
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to add a package stanza to the map of installed packages. Stanzas
+	 * that are not installed (removed packages that left configuration files behind, for
+	 * instance) are skipped. A second architecture of the same package is keyed the way "apt
+	 * list" names it (name:arch).
+	 * 
+	 * @param packages  Map of installed packages to add the stanza to.
+	 * @param detailMap Map containing the fields of a single stanza.
+	 */
+	private void addPackage(Map<String, Map<String, String>> packages,
+			Map<String, String> detailMap)
+	{
+		String software = detailMap.get("Package");
+		
+		if ((software != null) && (isInstalled(detailMap.get("Status"))))
+		{
+			String architecture = detailMap.get("Architecture");
+			if ((packages.containsKey(software)) && (architecture != null))
+				software = software + ":" + architecture;
+			
+			packages.put(software, detailMap);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to put a field in the detail map. Empty fields (dpkg-query writes
+	 * "Homepage: " for a package without one, for instance) are left out.
+	 * 
+	 * @param detailMap Map to put the field in.
+	 * @param name      String value of the field name.
+	 * @param value     StringBuilder containing the field value.
+	 */
+	private static void putValue(Map<String, String> detailMap, String name, StringBuilder value)
+	{
+		if (value.length() > 0)
+			detailMap.put(name, value.toString());
+	}
+	
+	/**
+	 * (U) This method is used to tell if the Status field of a stanza marks the package as
+	 * installed (ie. "install ok installed" or "hold ok installed").
+	 * 
+	 * @param status String value of the Status field.
+	 * @return boolean true if the package is installed, false otherwise.
+	 */
+	private boolean isInstalled(String status)
+	{
+		if (status == null)
+			return false;
+		
+		int index = status.lastIndexOf(' ');
+		return INSTALLED.equals(status.substring(index + 1));
+	}
+}
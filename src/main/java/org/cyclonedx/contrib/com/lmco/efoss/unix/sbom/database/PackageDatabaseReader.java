@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.util.Map;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This interface is implemented by the classes that read a package manager's installed
+ * package database directly, rather than asking the package manager for it one package at a
+ * time.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public interface PackageDatabaseReader
+{
+	/**
+	 * (U) This method is used to tell if the package database can be read on this system.
+	 * 
+	 * @return boolean true if the database exists and is readable, false otherwise.
+	 */
+	boolean isAvailable();
+	
+	/**
+	 * (U) This method is used to read every installed package from the package database.
+	 * 
+	 * @return Map keyed by software name, containing the detail map (the same keys produced by
+	 *         the package manager's detail command) of each installed package.
+	 * @throws SBomException if we are unable to read the database.
+	 */
+	Map<String, Map<String, String>> readInstalledPackages();
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This class reads the RPM database used by RHEL 7 and CentOS 7 (/var/lib/rpm/Packages)
+ * directly. That file is a BerkeleyDB hash database, where each value is an RPM header blob. The
+ * file is memory mapped read-only and decoded page by page, so neither the rpm binary nor the
+ * BerkeleyDB library is needed (which also means a mounted image can be read).
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class RpmBerkeleyDbReader implements PackageDatabaseReader
+{
+	private static final Logger logger = Logger.getLogger(RpmBerkeleyDbReader.class.getName());
+	
+	public static final String RPMDB_PACKAGES_FILE = "/var/lib/rpm/Packages";
+	
+	private static final int HASH_MAGIC = 0x00061561;
+	private static final int META_MAGIC_OFFSET = 12;
+	private static final int META_PAGE_SIZE_OFFSET = 20;
+	private static final int META_TYPE_OFFSET = 25;
+	private static final int META_LAST_PAGE_OFFSET = 32;
+	
+	private static final int PAGE_HEADER_SIZE = 26;
+	private static final int PAGE_NEXT_OFFSET = 16;
+	private static final int PAGE_ENTRIES_OFFSET = 20;
+	private static final int PAGE_HF_OFFSET = 22;
+	private static final int PAGE_TYPE_OFFSET = 25;
+	
+	private static final int P_HASH_UNSORTED = 2;
+	private static final int P_OVERFLOW = 7;
+	private static final int P_HASHMETA = 8;
+	private static final int P_HASH = 13;
+	
+	private static final int H_KEYDATA = 1;
+	private static final int H_OFFPAGE = 3;
+	
+	private final Path packagesFile;
+	
+	/**
+	 * (U) Base Constructor, reads the RPM database of the running system.
+	 */
+	public RpmBerkeleyDbReader()
+	{
+		this(RPMDB_PACKAGES_FILE);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param packagesFile String value of the Packages file to read, allows a mounted image to be
+	 *                     read.
+	 */
+	public RpmBerkeleyDbReader(String packagesFile)
+	{
+		this.packagesFile = Paths.get(packagesFile);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the RPM Packages file can be read on this system.
+	 * 
+	 * @return boolean true if the Packages file exists and is readable, false otherwise.
+	 */
+	@Override
+	public boolean isAvailable()
+	{
+		return Files.isReadable(packagesFile);
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the RPM Packages file.
+	 * 
+	 * @return Map keyed by the full name of each installed package (RpmHeader.getNevra()), so
+	 *         versions installed side by side are all kept, containing its detail map.
+	 * @throws SBomException if we are unable to read the Packages file.
+	 */
+	@Override
+	public Map<String, Map<String, String>> readInstalledPackages()
+	{
+		if (logger.isDebugEnabled())
+			logger.debug("Reading installed packages from " + packagesFile + ".");
+		
+		try (FileChannel channel = FileChannel.open(packagesFile, StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("Unsupported RPM Packages file size (" + size + ")!");
+			
+			ByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			
+			Map<String, Map<String, String>> packages = readInstalledPackages(file);
+			
+			if (logger.isDebugEnabled())
+				logger.debug("Found " + packages.size() + " installed packages.");
+			
+			return packages;
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read the RPM Packages file (" + packagesFile + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the contents of a BerkeleyDB
+	 * hash database. Every hash page is visited, and each value on it is decoded as an RPM
+	 * header.
+	 * 
+	 * @param file ByteBuffer containing the database file.
+	 * @return Map keyed by the full name of each installed package (RpmHeader.getNevra()), so
+	 *         versions installed side by side are all kept, containing its detail map.
+	 * @throws IOException if the file is not a BerkeleyDB hash database, or is corrupt.
+	 */
+	public Map<String, Map<String, String>> readInstalledPackages(ByteBuffer file)
+			throws IOException
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		if (file.limit() < PAGE_HEADER_SIZE + 64)
+			throw new IOException("RPM Packages file is too short!");
+		
+		// BerkeleyDB writes in the byte order of the host that created it.
+		file.order(ByteOrder.LITTLE_ENDIAN);
+		if (file.getInt(META_MAGIC_OFFSET) != HASH_MAGIC)
+		{
+			file.order(ByteOrder.BIG_ENDIAN);
+			if (file.getInt(META_MAGIC_OFFSET) != HASH_MAGIC)
+				throw new IOException("RPM Packages file is not a BerkeleyDB hash database!");
+		}
+		if ((file.get(META_TYPE_OFFSET) & 0xFF) != P_HASHMETA)
+			throw new IOException("RPM Packages file does not start with a hash meta page!");
+		
+		int pageSize = file.getInt(META_PAGE_SIZE_OFFSET);
+		if ((pageSize < 512) || (pageSize > 65536))
+			throw new IOException("Invalid BerkeleyDB page size (" + pageSize + ")!");
+		
+		long lastPage = Math.min(file.getInt(META_LAST_PAGE_OFFSET) & 0xFFFFFFFFL,
+				(file.limit() / pageSize) - 1L);
+		
+		for (long pageNumber = 1; pageNumber <= lastPage; pageNumber++)
+		{
+			int page = (int) (pageNumber * pageSize);
+			int pageType = file.get(page + PAGE_TYPE_OFFSET) & 0xFF;
+			
+			if ((pageType == P_HASH) || (pageType == P_HASH_UNSORTED))
+				readHashPage(file, page, pageSize, packages);
+		}
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to read the values of a single hash page. Entries alternate
+	 * between keys and values, so only the odd entries are looked at.
+	 * 
+	 * @param file     ByteBuffer containing the database file.
+	 * @param page     int value of the offset of the page in the file.
+	 * @param pageSize int value of the page size.
+	 * @param packages Map to add the decoded packages to.
+	 * @throws IOException if a value is corrupt.
+	 */
+	private void readHashPage(ByteBuffer file, int page, int pageSize,
+			Map<String, Map<String, String>> packages) throws IOException
+	{
+		int entries = file.getShort(page + PAGE_ENTRIES_OFFSET) & 0xFFFF;
+		
+		for (int index = 1; index < entries; index += 2)
+		{
+			int itemOffset = file.getShort(page + PAGE_HEADER_SIZE + (index * 2)) & 0xFFFF;
+			if ((itemOffset < PAGE_HEADER_SIZE) || (itemOffset >= pageSize))
+				throw new IOException("Invalid BerkeleyDB hash entry offset (" + itemOffset +
+						")!");
+			
+			int item = page + itemOffset;
+			int itemType = file.get(item) & 0xFF;
+			ByteBuffer value = null;
+			
+			if (itemType == H_OFFPAGE)
+			{
+				long overflowPage = file.getInt(item + 4) & 0xFFFFFFFFL;
+				int length = file.getInt(item + 8);
+				value = ByteBuffer.wrap(readOverflow(file, overflowPage, length, pageSize));
+			}
+			else if (itemType == H_KEYDATA)
+			{
+				// Items grow down from the end of the page, so this one ends where the
+				// previous one starts. The header is decoded in place, without a copy.
+				int end = file.getShort(page + PAGE_HEADER_SIZE + ((index - 1) * 2)) & 0xFFFF;
+				if (end <= itemOffset)
+					end = pageSize;
+				value = slice(file, item + 1, end - itemOffset - 1);
+			}
+			
+			if ((value != null) && (value.remaining() > 8))
+				addPackage(packages, value);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read a value that was stored on a chain of overflow pages.
+	 * 
+	 * @param file         ByteBuffer containing the database file.
+	 * @param overflowPage long value of the first overflow page.
+	 * @param length       int value of the total length of the value.
+	 * @param pageSize     int value of the page size.
+	 * @return byte array containing the value.
+	 * @throws IOException if the overflow chain is corrupt.
+	 */
+	private byte[] readOverflow(ByteBuffer file, long overflowPage, int length, int pageSize)
+			throws IOException
+	{
+		if (length < 0)
+			throw new IOException("Invalid BerkeleyDB overflow length (" + length + ")!");
+		
+		byte[] value = new byte[length];
+		int copied = 0;
+		long pageNumber = overflowPage;
+		
+		while ((copied < length) && (pageNumber != 0))
+		{
+			long page = pageNumber * pageSize;
+			if (page + pageSize > file.limit())
+				throw new IOException("BerkeleyDB overflow page " + pageNumber + " is outside " +
+						"of the file!");
+			if ((file.get((int) page + PAGE_TYPE_OFFSET) & 0xFF) != P_OVERFLOW)
+				throw new IOException("BerkeleyDB page " + pageNumber + " is not an overflow " +
+						"page!");
+			
+			long nextPage = file.getInt((int) page + PAGE_NEXT_OFFSET) & 0xFFFFFFFFL;
+			int available = (nextPage == 0) ?
+					file.getShort((int) page + PAGE_HF_OFFSET) & 0xFFFF :
+					pageSize - PAGE_HEADER_SIZE;
+			int chunk = Math.min(available, length - copied);
+			
+			copy(file, (int) page + PAGE_HEADER_SIZE, value, copied, chunk);
+			copied += chunk;
+			pageNumber = nextPage;
+		}
+		
+		if (copied < length)
+			throw new IOException("BerkeleyDB overflow chain ended early!");
+		
+		return value;
+	}
+	
+	/**
+	 * (U) This method is used to decode a header blob and add it to the map of installed
+	 * packages.
+	 * 
+	 * @param packages Map to add the decoded package to.
+	 * @param blob     ByteBuffer containing the header blob.
+	 */
+	private void addPackage(Map<String, Map<String, String>> packages, ByteBuffer blob)
+	{
+		try
+		{
+			RpmHeader header = new RpmHeader(blob);
+			String software = header.getNevra();
+			if (software != null)
+				packages.put(software, header.toDetailMap());
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Skipping an RPM Packages value that is not a valid header.", ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to copy bytes out of the mapped file.
+	 * 
+	 * @param file        ByteBuffer containing the database file.
+	 * @param offset      int value of where to start copying from.
+	 * @param destination byte array to copy to.
+	 * @param start       int value of where in the destination to start copying to.
+	 * @param length      int value of the number of bytes to copy.
+	 * @throws IOException if the bytes are not within the file.
+	 */
+	private static void copy(ByteBuffer file, int offset, byte[] destination, int start,
+			int length) throws IOException
+	{
+		if ((offset < 0) || (length < 0) || (offset + length > file.limit()))
+			throw new IOException("BerkeleyDB item is outside of the file!");
+		
+		ByteBuffer source = file.duplicate();
+		source.position(offset);
+		source.get(destination, start, length);
+	}
+	
+	/**
+	 * (U) This method is used to get a view of part of the mapped file.
+	 * 
+	 * @param file   ByteBuffer containing the database file.
+	 * @param offset int value of where the view starts.
+	 * @param length int value of the length of the view.
+	 * @return ByteBuffer the view, sharing the content of the file.
+	 * @throws IOException if the bytes are not within the file.
+	 */
+	private static ByteBuffer slice(ByteBuffer file, int offset, int length) throws IOException
+	{
+		if ((offset < 0) || (length < 0) || (offset + length > file.limit()))
+			throw new IOException("BerkeleyDB item is outside of the file!");
+		
+		ByteBuffer view = file.duplicate();
+		view.position(offset);
+		view.limit(offset + length);
+		return view.slice();
+	}
+}
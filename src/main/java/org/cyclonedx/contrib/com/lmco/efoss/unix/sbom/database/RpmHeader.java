@@ -0,0 +1,297 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * (U) This class decodes an RPM header blob, as it is stored in the RPM database. The blob is
+ * the index entry count and data length (two big endian 32 bit integers), followed by the index
+ * entries (tag, type, offset, count) and then the data store the entries point into.
+ * <p>
+ * Only the index is parsed when the header is created. A header has around a hundred tags, and
+ * we only ever want a handful of them, so the data of a tag is decoded from the underlying
+ * buffer when it is asked for.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class RpmHeader
+{
+	public static final int TAG_NAME = 1000;
+	public static final int TAG_VERSION = 1001;
+	public static final int TAG_RELEASE = 1002;
+	public static final int TAG_EPOCH = 1003;
+	public static final int TAG_SUMMARY = 1004;
+	public static final int TAG_DESCRIPTION = 1005;
+	public static final int TAG_VENDOR = 1011;
+	public static final int TAG_LICENSE = 1014;
+	public static final int TAG_URL = 1020;
+	public static final int TAG_ARCH = 1022;
+	public static final int TAG_SOURCERPM = 1044;
+	
+	private static final int TYPE_INT32 = 4;
+	private static final int TYPE_STRING = 6;
+	private static final int TYPE_STRING_ARRAY = 8;
+	private static final int TYPE_I18NSTRING = 9;
+	
+	private static final int ENTRY_SIZE = 16;
+	private static final int MAX_ENTRIES = 0x0000FFFF;
+	
+	private final ByteBuffer buffer;
+	private final int dataStart;
+	private final int dataLength;
+	
+	private final int[] entryTags;
+	private final int[] entryTypes;
+	private final int[] entryOffsets;
+	private final int[] entryCounts;
+	private final boolean sorted;
+	
+	/**
+	 * (U) Constructor, parses the index of the header blob.
+	 * 
+	 * @param blob byte array containing the header blob.
+	 * @throws IOException if the blob is not a valid RPM header.
+	 */
+	public RpmHeader(byte[] blob) throws IOException
+	{
+		this(ByteBuffer.wrap(blob));
+	}
+	
+	/**
+	 * (U) Constructor, parses the index of the header blob. The blob runs from the buffer's
+	 * position to its limit. The buffer is not copied, so it must not change while this header
+	 * is in use.
+	 * 
+	 * @param blob ByteBuffer containing the header blob.
+	 * @throws IOException if the blob is not a valid RPM header.
+	 */
+	public RpmHeader(ByteBuffer blob) throws IOException
+	{
+		buffer = blob.slice().order(ByteOrder.BIG_ENDIAN);
+		
+		if (buffer.limit() < 8)
+			throw new IOException("RPM header blob is too short!");
+		
+		int indexCount = buffer.getInt(0);
+		dataLength = buffer.getInt(4);
+		dataStart = 8 + (indexCount * ENTRY_SIZE);
+		
+		if ((indexCount <= 0) || (indexCount > MAX_ENTRIES) || (dataLength < 0) ||
+				((long) dataStart + dataLength > buffer.limit()))
+			throw new IOException("Invalid RPM header (entries: " + indexCount + ", data " +
+					"length: " + dataLength + ")!");
+		
+		entryTags = new int[indexCount];
+		entryTypes = new int[indexCount];
+		entryOffsets = new int[indexCount];
+		entryCounts = new int[indexCount];
+		
+		boolean inOrder = true;
+		for (int i = 0; i < indexCount; i++)
+		{
+			int entry = 8 + (i * ENTRY_SIZE);
+			entryTags[i] = buffer.getInt(entry);
+			entryTypes[i] = buffer.getInt(entry + 4);
+			entryOffsets[i] = buffer.getInt(entry + 8);
+			entryCounts[i] = buffer.getInt(entry + 12);
+			
+			if ((i > 0) && (entryTags[i] < entryTags[i - 1]))
+				inOrder = false;
+		}
+		// rpm writes the index sorted by tag, but we do not count on it.
+		sorted = inOrder;
+	}
+	
+	/**
+	 * (U) This method is used to get the value of a string tag. For the internationalized and
+	 * array types this is the first (default locale) string.
+	 * 
+	 * @param tag int value of the tag to get.
+	 * @return String the value of the tag, null if the header does not have it.
+	 */
+	public String getString(int tag)
+	{
+		int entry = findEntry(tag);
+		if (entry < 0)
+			return null;
+		
+		int type = entryTypes[entry];
+		int offset = entryOffsets[entry];
+		
+		if (((type != TYPE_STRING) && (type != TYPE_I18NSTRING) &&
+				(type != TYPE_STRING_ARRAY)) || (offset < 0) || (offset >= dataLength))
+			return null;
+		
+		return readString(dataStart + offset, dataStart + dataLength);
+	}
+	
+	/**
+	 * (U) This method is used to get the (first) value of a 32 bit integer tag.
+	 * 
+	 * @param tag int value of the tag to get.
+	 * @return Integer the value of the tag, null if the header does not have it.
+	 */
+	public Integer getInt(int tag)
+	{
+		int entry = findEntry(tag);
+		if (entry < 0)
+			return null;
+		
+		int offset = entryOffsets[entry];
+		
+		if ((entryTypes[entry] != TYPE_INT32) || (entryCounts[entry] <= 0) || (offset < 0) ||
+				(offset + 4 > dataLength))
+			return null;
+		
+		return buffer.getInt(dataStart + offset);
+	}
+	
+	/**
+	 * (U) This method is used to build the detail map for this package, using the same keys
+	 * "yum info" gives us.
+	 * 
+	 * @return Map containing the key value pairs about the software.
+	 */
+	public Map<String, String> toDetailMap()
+	{
+		Map<String, String> detailMap = new HashMap<>();
+		
+		putIfPresent(detailMap, "Name", getString(TAG_NAME));
+		putIfPresent(detailMap, "Arch", getString(TAG_ARCH));
+		putIfPresent(detailMap, "Version", getString(TAG_VERSION));
+		putIfPresent(detailMap, "Release", getString(TAG_RELEASE));
+		putIfPresent(detailMap, "Summary", getString(TAG_SUMMARY));
+		putIfPresent(detailMap, "Description", getString(TAG_DESCRIPTION));
+		putIfPresent(detailMap, "URL", getString(TAG_URL));
+		putIfPresent(detailMap, "License", getString(TAG_LICENSE));
+		putIfPresent(detailMap, "Vendor", getString(TAG_VENDOR));
+		putIfPresent(detailMap, "Source RPM", getString(TAG_SOURCERPM));
+		
+		Integer epoch = getInt(TAG_EPOCH);
+		if (epoch != null)
+			detailMap.put("Epoch", epoch.toString());
+		
+		return detailMap;
+	}
+	
+	/**
+	 * (U) This method is used to get the software name, as "yum list installed" shows it
+	 * (name.arch).
+	 * 
+	 * @return String the software name, null if the header does not have a name.
+	 */
+	public String getSoftwareName()
+	{
+		String name = getString(TAG_NAME);
+		String arch = getString(TAG_ARCH);
+		
+		if ((name != null) && (arch != null))
+			name = name + "." + arch;
+		
+		return name;
+	}
+	
+	/**
+	 * (U) This method is used to get the full name of the package, as "rpm -q" shows it
+	 * (name-[epoch:]version-release.arch). Unlike the software name, it tells apart the versions
+	 * of a package installed side by side (ie. several kernels, or gpg-pubkey).
+	 * 
+	 * @return String the full name, null if the header does not have a name.
+	 */
+	public String getNevra()
+	{
+		String name = getString(TAG_NAME);
+		if (name == null)
+			return null;
+		
+		StringBuilder nevra = new StringBuilder(name);
+		String version = getString(TAG_VERSION);
+		if (version != null)
+		{
+			nevra.append('-');
+			Integer epoch = getInt(TAG_EPOCH);
+			if (epoch != null)
+				nevra.append(epoch).append(':');
+			nevra.append(version);
+		}
+		String release = getString(TAG_RELEASE);
+		if (release != null)
+			nevra.append('-').append(release);
+		String arch = getString(TAG_ARCH);
+		if (arch != null)
+			nevra.append('.').append(arch);
+		
+		return nevra.toString();
+	}
+	
+	/**
+	 * (U) This method is used to put a value in the map, if it is present.
+	 * 
+	 * @param detailMap Map to put the value in.
+	 * @param key       String value of the key.
+	 * @param value     String value to put, skipped if null.
+	 */
+	private static void putIfPresent(Map<String, String> detailMap, String key, String value)
+	{
+		if (value != null)
+			detailMap.put(key, value);
+	}
+	
+	/**
+	 * (U) This method is used to find the index entry of a tag.
+	 * 
+	 * @param tag int value of the tag to find.
+	 * @return int the index entry of the tag, negative if the header does not have it.
+	 */
+	private int findEntry(int tag)
+	{
+		if (sorted)
+			return Arrays.binarySearch(entryTags, tag);
+		
+		for (int i = 0; i < entryTags.length; i++)
+		{
+			if (entryTags[i] == tag)
+				return i;
+		}
+		return -1;
+	}
+	
+	/**
+	 * (U) This method is used to read a NUL terminated string out of the data store.
+	 * 
+	 * @param start int value of where the string starts.
+	 * @param end   int value of the end of the data store.
+	 * @return String the string read.
+	 */
+	private String readString(int start, int end)
+	{
+		int stop = start;
+		while ((stop < end) && (buffer.get(stop) != 0))
+			stop++;
+		
+		if (buffer.hasArray())
+			return new String(buffer.array(), buffer.arrayOffset() + start, stop - start,
+					StandardCharsets.UTF_8);
+		
+		byte[] bytes = new byte[stop - start];
+		ByteBuffer source = buffer.duplicate();
+		source.position(start);
+		source.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This class reads the RPM database used by RHEL 8+ and Fedora (/var/lib/rpm/rpmdb.sqlite)
+ * directly. Every installed package is a header blob in the "Packages" table, so a single scan of
+ * that table gives us the details of every package, without running yum or rpm.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class RpmSqliteReader implements PackageDatabaseReader
+{
+	private static final Logger logger = Logger.getLogger(RpmSqliteReader.class.getName());
+	
+	public static final String RPMDB_SQLITE_FILE = "/var/lib/rpm/rpmdb.sqlite";
+	
+	private static final String PACKAGES_TABLE = "Packages";
+	private static final int BLOB_COLUMN = 1;
+	private static final String WAL_SUFFIX = "-wal";
+	
+	private final Path databaseFile;
+	
+	/**
+	 * (U) Base Constructor, reads the RPM database of the running system.
+	 */
+	public RpmSqliteReader()
+	{
+		this(RPMDB_SQLITE_FILE);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param databaseFile String value of the rpmdb.sqlite file to read, allows a mounted image
+	 *                     to be read.
+	 */
+	public RpmSqliteReader(String databaseFile)
+	{
+		this.databaseFile = Paths.get(databaseFile);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the RPM database can be read on this system. We do not
+	 * read the write ahead log, so a database with changes still sitting in a (non-empty) log is
+	 * reported as not available, rather than giving back a stale list of packages.
+	 * 
+	 * @return boolean true if the database exists, is readable and fully check pointed.
+	 */
+	@Override
+	public boolean isAvailable()
+	{
+		if (!Files.isReadable(databaseFile))
+			return false;
+		
+		Path walFile = Paths.get(databaseFile.toString() + WAL_SUFFIX);
+		try
+		{
+			if ((Files.exists(walFile)) && (Files.size(walFile) > 0))
+			{
+				logger.warn("RPM database write ahead log (" + walFile + ") is not empty, " +
+						"unable to read the RPM database directly.");
+				return false;
+			}
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to check the RPM database write ahead log (" + walFile + ").",
+					ioe);
+			return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * (U) This method is used to read every installed package from the RPM database.
+	 * 
+	 * @return Map keyed by the full name of each installed package (RpmHeader.getNevra()), so
+	 *         versions installed side by side are all kept, containing its detail map.
+	 * @throws SBomException if we are unable to read the database.
+	 */
+	@Override
+	public Map<String, Map<String, String>> readInstalledPackages()
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Reading installed packages from " + databaseFile + ".");
+		
+		try (SqliteDatabase database = new SqliteDatabase(databaseFile))
+		{
+			database.scanTable(PACKAGES_TABLE, (rowId, columns) ->
+			{
+				Object blob = (columns.size() > BLOB_COLUMN) ? columns.get(BLOB_COLUMN) : null;
+				if (blob instanceof byte[])
+				{
+					RpmHeader header = new RpmHeader((byte[]) blob);
+					String software = header.getNevra();
+					if (software != null)
+						packages.put(software, header.toDetailMap());
+				}
+				else
+					logger.warn("Skipping RPM database row (" + rowId + "), it has no header.");
+			});
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read the RPM database (" + databaseFile + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + packages.size() + " installed packages.");
+		
+		return packages;
+	}
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * (U) This class is a minimal, read-only reader of the SQLite database file format. It only knows
+ * how to walk the table b-trees and decode their records, which is all we need to pull the RPM
+ * header blobs out of rpmdb.sqlite without a JDBC driver (or any native library).
+ * 
+ * The file is memory mapped read-only, nothing is ever written to it, and the write ahead log
+ * (if any) is NOT consulted.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class SqliteDatabase implements Closeable
+{
+	/**
+	 * (U) Call back used to hand each row of a table to the caller.
+	 */
+	public interface RowHandler
+	{
+		/**
+		 * (U) This method is called once for each row of the table being scanned.
+		 * 
+		 * @param rowId   long value of the row id.
+		 * @param columns List of the column values (Long, Double, String, byte[] or null).
+		 * @throws IOException if the row can NOT be processed.
+		 */
+		void handleRow(long rowId, List<Object> columns) throws IOException;
+	}
+	
+	private static final byte[] MAGIC = "SQLite format 3\0".getBytes(StandardCharsets.US_ASCII);
+	
+	private static final int FILE_HEADER_SIZE = 100;
+	private static final int MAX_TREE_DEPTH = 64;
+	private static final int PAGE_INTERIOR_TABLE = 0x05;
+	private static final int PAGE_LEAF_TABLE = 0x0D;
+	private static final int TEXT_ENCODING_UTF8 = 1;
+	
+	private final FileChannel channel;
+	private final ByteBuffer file;
+	private final int pageSize;
+	private final int usableSize;
+	
+	/**
+	 * (U) Constructor, opens (read-only) and validates the database file.
+	 * 
+	 * @param databaseFile Path of the SQLite database file to read.
+	 * @throws IOException if the file can NOT be read, or is not a SQLite database we can read.
+	 */
+	public SqliteDatabase(Path databaseFile) throws IOException
+	{
+		channel = FileChannel.open(databaseFile, StandardOpenOption.READ);
+		try
+		{
+			long size = channel.size();
+			if ((size < FILE_HEADER_SIZE) || (size > Integer.MAX_VALUE))
+				throw new IOException("Unsupported SQLite database size (" + size + ")!");
+			
+			file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			
+			for (int i = 0; i < MAGIC.length; i++)
+			{
+				if (file.get(i) != MAGIC[i])
+					throw new IOException(databaseFile + " is not a SQLite database!");
+			}
+			
+			int rawPageSize = file.getShort(16) & 0xFFFF;
+			pageSize = (rawPageSize == 1) ? 65536 : rawPageSize;
+			usableSize = pageSize - (file.get(20) & 0xFF);
+			
+			int encoding = file.getInt(56);
+			if ((encoding != 0) && (encoding != TEXT_ENCODING_UTF8))
+				throw new IOException("Unsupported SQLite text encoding (" + encoding + ")!");
+		}
+		catch (IOException ioe)
+		{
+			channel.close();
+			throw ioe;
+		}
+	}
+	
+	/**
+	 * (U) This method is used to close the database file.
+	 * 
+	 * @throws IOException if the file can NOT be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		channel.close();
+	}
+	
+	/**
+	 * (U) This method is used to scan every row of a table, in row id order.
+	 * 
+	 * @param tableName String value of the name of the table to scan.
+	 * @param handler   RowHandler to hand each row to.
+	 * @throws IOException if the table does not exist, or the file is corrupt.
+	 */
+	public void scanTable(String tableName, RowHandler handler) throws IOException
+	{
+		long[] rootPage = { -1 };
+		
+		// Page 1 is the root of the schema table (type, name, tbl_name, rootpage, sql).
+		scanPage(1, 0, (rowId, columns) ->
+		{
+			if ((columns.size() > 3) && ("table".equals(columns.get(0))) &&
+					(tableName.equals(columns.get(1))) && (columns.get(3) instanceof Long))
+				rootPage[0] = (Long) columns.get(3);
+		});
+		
+		if (rootPage[0] <= 0)
+			throw new IOException("Unable to find the table (" + tableName + ")!");
+		
+		scanPage(rootPage[0], 0, handler);
+	}
+	
+	/**
+	 * (U) This method is used to walk a table b-tree page (and all its children).
+	 * 
+	 * @param pageNumber long value of the page to walk.
+	 * @param depth      int value of how deep in the tree we are.
+	 * @param handler    RowHandler to hand each row to.
+	 * @throws IOException if the page is corrupt.
+	 */
+	private void scanPage(long pageNumber, int depth, RowHandler handler) throws IOException
+	{
+		if (depth > MAX_TREE_DEPTH)
+			throw new IOException("SQLite b-tree is too deep, the database is corrupt!");
+		
+		int pageStart = pageStart(pageNumber);
+		int header = (pageNumber == 1) ? pageStart + FILE_HEADER_SIZE : pageStart;
+		int pageType = file.get(header) & 0xFF;
+		int cellCount = file.getShort(header + 3) & 0xFFFF;
+		
+		if (pageType == PAGE_INTERIOR_TABLE)
+		{
+			for (int i = 0; i < cellCount; i++)
+			{
+				int cell = pageStart + (file.getShort(header + 12 + (i * 2)) & 0xFFFF);
+				scanPage(file.getInt(cell) & 0xFFFFFFFFL, depth + 1, handler);
+			}
+			scanPage(file.getInt(header + 8) & 0xFFFFFFFFL, depth + 1, handler);
+		}
+		else if (pageType == PAGE_LEAF_TABLE)
+		{
+			for (int i = 0; i < cellCount; i++)
+			{
+				int cell = pageStart + (file.getShort(header + 8 + (i * 2)) & 0xFFFF);
+				readLeafCell(cell, handler);
+			}
+		}
+		else
+			throw new IOException("Unexpected SQLite page type (" + pageType + ") on page " +
+					pageNumber + "!");
+	}
+	
+	/**
+	 * (U) This method is used to read a single table leaf cell, following its overflow pages.
+	 * 
+	 * @param cell    int value of the offset of the cell in the file.
+	 * @param handler RowHandler to hand the row to.
+	 * @throws IOException if the cell is corrupt.
+	 */
+	private void readLeafCell(int cell, RowHandler handler) throws IOException
+	{
+		int[] position = { cell };
+		long payloadSize = readVarint(file, position);
+		long rowId = readVarint(file, position);
+		
+		if ((payloadSize < 0) || (payloadSize > Integer.MAX_VALUE))
+			throw new IOException("Invalid SQLite payload size (" + payloadSize + ")!");
+		
+		byte[] payload = new byte[(int) payloadSize];
+		int local = localPayloadSize((int) payloadSize);
+		copy(position[0], payload, 0, local);
+		
+		int copied = local;
+		long overflowPage = (local < payload.length) ?
+				file.getInt(position[0] + local) & 0xFFFFFFFFL : 0;
+		while ((copied < payload.length) && (overflowPage > 0))
+		{
+			int overflowStart = pageStart(overflowPage);
+			int length = Math.min(usableSize - 4, payload.length - copied);
+			copy(overflowStart + 4, payload, copied, length);
+			copied += length;
+			overflowPage = file.getInt(overflowStart) & 0xFFFFFFFFL;
+		}
+		if (copied < payload.length)
+			throw new IOException("SQLite overflow chain ended early for row " + rowId + "!");
+		
+		handler.handleRow(rowId, decodeRecord(payload));
+	}
+	
+	/**
+	 * (U) This method is used to decode a record into its column values.
+	 * 
+	 * @param payload byte array of the record.
+	 * @return List of the column values (Long, Double, String, byte[] or null).
+	 * @throws IOException if the record is corrupt.
+	 */
+	private List<Object> decodeRecord(byte[] payload) throws IOException
+	{
+		ByteBuffer record = ByteBuffer.wrap(payload);
+		int[] position = { 0 };
+		long headerSize = readVarint(record, position);
+		
+		List<Long> serialTypes = new ArrayList<>();
+		while (position[0] < headerSize)
+			serialTypes.add(readVarint(record, position));
+		
+		List<Object> columns = new ArrayList<>(serialTypes.size());
+		int offset = (int) headerSize;
+		for (long serialType : serialTypes)
+		{
+			int length = serialTypeLength(serialType);
+			if (offset + length > payload.length)
+				throw new IOException("SQLite record is truncated!");
+			
+			if (serialType == 0)
+				columns.add(null);
+			else if (serialType <= 6)
+				columns.add(readInteger(payload, offset, length));
+			else if (serialType == 7)
+				columns.add(record.getDouble(offset));
+			else if (serialType == 8)
+				columns.add(0L);
+			else if (serialType == 9)
+				columns.add(1L);
+			else if ((serialType % 2) == 0)
+				columns.add(Arrays.copyOfRange(payload, offset, offset + length));
+			else
+				columns.add(new String(payload, offset, length, StandardCharsets.UTF_8));
+			
+			offset += length;
+		}
+		return columns;
+	}
+	
+	/**
+	 * (U) This method is used to compute how much of a table leaf payload is stored on the
+	 * b-tree page itself (the rest spills onto overflow pages).
+	 * 
+	 * @param payloadSize int value of the total size of the payload.
+	 * @return int the number of bytes stored locally.
+	 */
+	private int localPayloadSize(int payloadSize)
+	{
+		int maxLocal = usableSize - 35;
+		if (payloadSize <= maxLocal)
+			return payloadSize;
+		
+		int minLocal = (((usableSize - 12) * 32) / 255) - 23;
+		int local = minLocal + ((payloadSize - minLocal) % (usableSize - 4));
+		return (local <= maxLocal) ? local : minLocal;
+	}
+	
+	/**
+	 * (U) This method is used to get the offset of a page within the file.
+	 * 
+	 * @param pageNumber long value of the page number (starting at 1).
+	 * @return int the offset of the page in the file.
+	 * @throws IOException if the page is not within the file.
+	 */
+	private int pageStart(long pageNumber) throws IOException
+	{
+		long start = (pageNumber - 1) * pageSize;
+		if ((pageNumber < 1) || (start + pageSize > file.limit()))
+			throw new IOException("SQLite page " + pageNumber + " is outside of the file!");
+		return (int) start;
+	}
+	
+	/**
+	 * (U) This method is used to copy bytes out of the mapped file.
+	 * 
+	 * @param offset      int value of where to start copying from.
+	 * @param destination byte array to copy to.
+	 * @param start       int value of where in the destination to start copying to.
+	 * @param length      int value of the number of bytes to copy.
+	 * @throws IOException if the bytes are not within the file.
+	 */
+	private void copy(int offset, byte[] destination, int start, int length) throws IOException
+	{
+		if ((offset < 0) || (offset + length > file.limit()))
+			throw new IOException("SQLite cell is outside of the file!");
+		
+		ByteBuffer source = file.duplicate();
+		source.position(offset);
+		source.get(destination, start, length);
+	}
+	
+	/**
+	 * (U) This method is used to read a big endian, two's complement integer.
+	 * 
+	 * @param bytes  byte array to read from.
+	 * @param offset int value of where to start reading.
+	 * @param length int value of the number of bytes (1 to 8).
+	 * @return Long the integer read.
+	 */
+	private static Long readInteger(byte[] bytes, int offset, int length)
+	{
+		long value = bytes[offset];
+		for (int i = 1; i < length; i++)
+			value = (value << 8) | (bytes[offset + i] & 0xFF);
+		return value;
+	}
+	
+	/**
+	 * (U) This method is used to read a SQLite variable length integer.
+	 * 
+	 * @param buffer   ByteBuffer to read from.
+	 * @param position int array holding the position to read at, updated past the varint.
+	 * @return long the integer read.
+	 */
+	private static long readVarint(ByteBuffer buffer, int[] position)
+	{
+		long value = 0;
+		for (int i = 0; i < 8; i++)
+		{
+			int b = buffer.get(position[0]++) & 0xFF;
+			value = (value << 7) | (b & 0x7F);
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		return (value << 8) | (buffer.get(position[0]++) & 0xFF);
+	}
+	
+	/**
+	 * (U) This method is used to get the number of bytes a column of the given serial type takes.
+	 * 
+	 * @param serialType long value of the serial type.
+	 * @return int the number of bytes.
+	 * @throws IOException if the serial type is not valid.
+	 */
+	private static int serialTypeLength(long serialType) throws IOException
+	{
+		if (serialType >= 12)
+			return (int) ((serialType - 12) / 2);
+		
+		switch ((int) serialType)
+		{
+			case 0:
+			case 8:
+			case 9:
+				return 0;
+			case 1:
+				return 1;
+			case 2:
+				return 2;
+			case 3:
+				return 3;
+			case 4:
+				return 4;
+			case 5:
+				return 6;
+			case 6:
+			case 7:
+				return 8;
+			default:
+				throw new IOException("Invalid SQLite serial type (" + serialType + ")!");
+		}
+	}
+}
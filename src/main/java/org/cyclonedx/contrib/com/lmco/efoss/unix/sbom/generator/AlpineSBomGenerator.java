@@ -11,14 +11,18 @@ package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
 import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.ApkInstalledReader;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ProcessIOPump;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.StagedPipeline;
 
 /**
  * (U) This class is responsible for generating the Software Bill Of Materials (SBOM) for all Alpine
@@ -32,44 +36,220 @@ public class AlpineSBomGenerator extends UnixSBomGenerator
 	private static final CharSequence POLICY = "policy:";
 	// Unix Commands.
 	private static final String PACKAGE_MANAGER = "apk";
-	private static final String SOFTWARE_DETAIL_CMD = "apk -vv info ";
-	private static final String SOFTWARE_LIST_CMD = "apk info";
+	private static final List<String> BULK_DETAIL_CMD = List.of("apk", "info", "-vv");
+	// Followed by the names of the installed packages, in batches.
+	private static final List<String> BULK_WEBPAGE_CMD = List.of("apk", "-vv", "info", "-w");
+	private static final List<String> SOFTWARE_DETAIL_CMD = List.of("apk", "-vv", "info");
+	private static final List<String> SOFTWARE_LIST_CMD = List.of("apk", "list", "--installed");
+	// Older apk versions do not have "list", their "info" only gives us the names.
+	private static final List<String> SOFTWARE_NAME_LIST_CMD = List.of("apk", "info");
 	
-	private static final String SOFTWARE_VERSION_CMD = "apk policy ";
+	private static final List<String> SOFTWARE_VERSION_CMD = List.of("apk", "policy");
 	
-	private ProcessBuilder processBuilder = new ProcessBuilder();
+	private ApkInstalledReader installedReader = new ApkInstalledReader();
 	
 	/**
-	 * (U) This method is used to generate the Software Bill Of Materials (SBOM) for all RedHat
-	 * Linux Operating systems.
+	 * (U) This method is used to generate the Software Bill Of Materials (SBOM) for all Alpine
+	 * Linux Operating systems. If the APK installed database is readable, the installed packages
+	 * are read from it directly. Otherwise we ask apk about every package at once, and only if
+	 * that fails do we fall back to asking apk about each package.
 	 * 
-	 * @return Bom The Software Bill Of Materials for this RedHat Linux Operating System.
+	 * @return Bom The Software Bill Of Materials for this Alpine Linux Operating System.
 	 * @throws SBomException if we are unable to build the SBOM.
 	 */
 	public Bom generateSBom()
 	{
-		List<String> softwareList = generateListOfSoftware(SOFTWARE_LIST_CMD, '\n',
-				null);
-		
 		Bom bom = new Bom();
 		
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = readInstalledPackages();
+			
+			if (installedPackages != null)
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("Processing " + installedPackages.size() + " software programs.");
+				
+				for (Component component : buildComponents(PendingComponent.of(
+						installedPackages), false))
+					bom.addComponent(component);
+			}
+			else
+			{
+				List<InstalledPackage> softwareList = listInstalledSoftware();
+				
+				if (logger.isDebugEnabled())
+					logger.debug("Processing " + softwareList.size() + " software programs.");
+				
+				for (Component component : buildComponents(PendingComponent.of(
+						softwareList.iterator()), true))
+					bom.addComponent(component);
+			}
+		}
+		catch (SBomException sbe)
+		{
+			checkDeadline(sbe);
+		}
+		finally
+		{
+			finishCommands();
+		}
+		addScanStatus(bom);
+		
+		return bom;
+	}
+	
+	/**
+	 * (U) This method is used to create the Components of the software, as it goes through the
+	 * pipeline: asking apk for its details and version (if we do not have them yet), then
+	 * creating its Component.
+	 * 
+	 * @param software      Iterator over the software.
+	 * @param lookUpDetails boolean true if the details of the software still have to be looked
+	 *                      up, false if we already have them.
+	 * @return List of Components, in the order of the software.
+	 * @throws SBomException if we are unable to create the Components.
+	 */
+	private List<Component> buildComponents(Iterator<PendingComponent> software,
+			boolean lookUpDetails)
+	{
+		StagedPipeline<List<PendingComponent>> pipeline = createPipeline();
+		if (lookUpDetails)
+		{
+			addStage(pipeline, DETAILS_STAGE, null, this::produceDetailMap);
+			addStage(pipeline, VERSION_STAGE, null, this::lookUpVersion);
+		}
+		addStage(pipeline, CREATE_STAGE, null, this::createComponent);
+		
+		return createPipelinedComponents(software, pipeline);
+	}
+	
+	/**
+	 * (U) This method is used to create the Component for a piece of software from its detail
+	 * map and version.
+	 * 
+	 * @param software PendingComponent to create the Component for.
+	 */
+	private void createComponent(PendingComponent software)
+	{
 		if (logger.isDebugEnabled())
-			logger.debug("Processing " + softwareList.size() + " software programs.");
+			logger.debug("Generating Component (" + software.getName() + ")");
 		
-		Map<String, String> detailMap = null;
-		String version = null;
-		Component component = null;
-		for (String software : softwareList)
+		Map<String, String> detailMap = software.getDetailMap();
+		String arch = detailMap.get("Architecture");
+		if ((arch == null) && (software.getListed() != null))
+			arch = software.getListed().getArch();
+		
+		Component component = createComponents(software.getName(), detailMap,
+				parseLicenseName(detailMap.get("License")), null, software.getVersion(),
+				getPackageUrlBuilder().buildApkPurl(software.getName(), software.getVersion(),
+						arch), null);
+		
+		software.setComponent(addPackageManager(component, PACKAGE_MANAGER));
+	}
+	
+	/**
+	 * (U) This method is used to ask apk for the details of a listed package, unless we already
+	 * have them (when retrying a package a later stage failed on).
+	 * 
+	 * @param software PendingComponent to produce the detail map of.
+	 * @throws SBomException in the event we can NOT get the details of the software.
+	 */
+	private void produceDetailMap(PendingComponent software)
+	{
+		if (software.getDetailMap() == null)
+			software.setDetailMap(timeQuery(software.getName(),
+					() -> produceDetailMap(software.getName())));
+	}
+	
+	/**
+	 * (U) This method is used to ask apk for the version of a listed package, if the listing
+	 * did not show it.
+	 * 
+	 * @param software PendingComponent to get the version of.
+	 * @throws SBomException if we are unable to run the command to get the version.
+	 */
+	private void lookUpVersion(PendingComponent software)
+	{
+		if (software.getVersion() == null)
+			software.setVersion(timeQuery(software.getName(),
+					() -> getVersion(software.getName())));
+	}
+	
+	/**
+	 * (U) This method is used to get the list of software installed. Older apk versions do not
+	 * have "apk list", so if it fails we fall back to "apk info", which only gives us the names.
+	 * 
+	 * @return List of InstalledPackage for the Software found.
+	 * @throws SBomException if neither command gives us the list of software.
+	 */
+	private List<InstalledPackage> listInstalledSoftware()
+	{
+		try
 		{
-			if (logger.isDebugEnabled())
-				logger.debug("Generating Component (" + software + ")");
-			detailMap = produceDetailMap(software);
-			version = getVersion(software);
-			component = createComponents(software, detailMap, null, null,
-					version, null, null);
-			bom.addComponent(addPackageManager(component, PACKAGE_MANAGER));
+			return generateListOfSoftware(SOFTWARE_LIST_CMD, AVAILABLE_LINUX_FLAVORS.ALPINE, null);
 		}
-		return bom;
+		catch (SBomException sbe)
+		{
+			logger.warn("Unable to list the installed software, falling back to \"" +
+					String.join(" ", SOFTWARE_NAME_LIST_CMD) + "\".", sbe);
+		}
+		return generateListOfSoftware(SOFTWARE_NAME_LIST_CMD, AVAILABLE_LINUX_FLAVORS.ALPINE,
+				null);
+	}
+	
+	/**
+	 * (U) This method is used to ask apk about every installed package at once. The first query
+	 * gives us each package's version and description, the second (given the package names, in
+	 * batches that fit on a command line) its web page. A package whose batch fails is left
+	 * without a web page.
+	 * 
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException in the event the first query fails.
+	 */
+	private Map<String, Map<String, String>> queryInstalledPackages()
+	{
+		Map<String, Map<String, String>> packages = produceBulkDetailMaps(BULK_DETAIL_CMD,
+				AVAILABLE_LINUX_FLAVORS.ALPINE);
+		
+		if (!packages.isEmpty())
+		{
+			Map<String, String> detailMap = null;
+			for (Map.Entry<String, Map<String, String>> webPage : produceBatchedDetailMaps(
+					BULK_WEBPAGE_CMD, new ArrayList<>(packages.keySet()),
+					AVAILABLE_LINUX_FLAVORS.ALPINE).entrySet())
+			{
+				detailMap = packages.get(webPage.getKey());
+				if ((detailMap != null) && (webPage.getValue().containsKey("URL")))
+					detailMap.put("URL", webPage.getValue().get("URL"));
+			}
+		}
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to read the details of every installed package at once. From the
+	 * APK installed database if we can read it, otherwise with a single apk query.
+	 * 
+	 * @return Map keyed by software name, containing the detail map of each installed package,
+	 *         null if neither worked.
+	 * @throws SBomException if the APK installed database is readable, but we fail to read it.
+	 */
+	private Map<String, Map<String, String>> readInstalledPackages()
+	{
+		if (isDatabaseReadable(installedReader))
+			return installedReader.readInstalledPackages();
+		
+		try
+		{
+			return queryInstalledPackages();
+		}
+		catch (SBomException sbe)
+		{
+			logger.warn("Unable to query every installed package at once, falling back to " +
+					"querying each package.", sbe);
+		}
+		return null;
 	}
 	
 	/**
@@ -82,18 +262,18 @@ public class AlpineSBomGenerator extends UnixSBomGenerator
 	{
 		String version = null;
 		
-		String cmd = SOFTWARE_VERSION_CMD + software;
-		
-		processBuilder.command("bash", "-c", cmd);
+		List<String> cmd = new ArrayList<>(SOFTWARE_VERSION_CMD);
+		cmd.add(software);
 		
 		try
 		{
-			Process process = processBuilder.start();
-			version = parseVersion(process, cmd);
+			Process process = commandRunner.query(cmd);
+			version = parseVersion(process, String.join(" ", cmd));
 		}
 		catch (IOException ioe)
 		{
-			String error = "Unable to build unix process to get software version (" + cmd + ")!";
+			String error = "Unable to build unix process to get software version (" +
+					String.join(" ", cmd) + ")!";
 			logger.error(error, ioe);
 			throw new SBomException(error, ioe);
 		}
@@ -157,17 +337,19 @@ public class AlpineSBomGenerator extends UnixSBomGenerator
 	{
 		String version = null;
 		
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream())))
+		ProcessIOPump pump = new ProcessIOPump(process);
+		
+		try (BufferedReader reader = pump.getOutputReader())
 		{
 			version = parseVersion(reader);
 			
-			int exitVal = process.waitFor();
+			int exitVal = pump.waitFor();
 			if (exitVal != 0)
 			{
 				String error = "Unexpected process exit value (" + exitVal + "), while " +
 						"attempting to get Software Version (" + cmd + ")!";
 				logger.error(error);
+				logErrorOutput(pump);
 				throw new SBomException(error);
 			}
 		}
@@ -195,7 +377,8 @@ public class AlpineSBomGenerator extends UnixSBomGenerator
 	 */
 	private Map<String, String> produceDetailMap(String software)
 	{
-		String cmd = SOFTWARE_DETAIL_CMD + software;
+		List<String> cmd = new ArrayList<>(SOFTWARE_DETAIL_CMD);
+		cmd.add(software);
 		
 		return (produceDetailMap(cmd, AVAILABLE_LINUX_FLAVORS.ALPINE));
 	}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ByteLineReader;
+
+/**
+ * (U) This class is used to build the detail map of a package, a line at a time, from the
+ * "Name : value" output of "apt show" and "yum info". A line starting with a space carries on
+ * the value of the field before it.
+ * 
+ * The line is read straight from its bytes: only the field name and the value kept are ever
+ * decoded. Given the fields wanted, every other field is skipped, value and all, and the parser
+ * can tell once it has every one of those the package manager always prints.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class DetailMapParser
+{
+	private final boolean redHat;
+	private final Set<String> fields;
+	private final Set<String> required;
+	
+	private Map<String, String> detailMap = new HashMap<>();
+	private String name = null;
+	private final StringBuilder value = new StringBuilder();
+	// Set while passing over a field that is not wanted, and the lines carrying it on.
+	private boolean skipping = false;
+	
+	/**
+	 * (U) Constructor, keeping every field.
+	 * 
+	 * @param redHat boolean true if parsing yum's output, where the lines carrying on a value
+	 *               start with a colon.
+	 */
+	DetailMapParser(boolean redHat)
+	{
+		this(redHat, null, null);
+	}
+	
+	/**
+	 * (U) Constructor, every field kept is always printed.
+	 * 
+	 * @param redHat boolean true if parsing yum's output, where the lines carrying on a value
+	 *               start with a colon.
+	 * @param fields Set of the field names to keep, null to keep every field.
+	 */
+	DetailMapParser(boolean redHat, Set<String> fields)
+	{
+		this(redHat, fields, fields);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param redHat   boolean true if parsing yum's output, where the lines carrying on a value
+	 *                 start with a colon.
+	 * @param fields   Set of the field names to keep, null to keep every field.
+	 * @param required Set of the field names kept that are always printed, the others are only
+	 *                 kept if they come before the last of these.
+	 */
+	DetailMapParser(boolean redHat, Set<String> fields, Set<String> required)
+	{
+		this.redHat = redHat;
+		this.fields = fields;
+		this.required = required;
+	}
+	
+	/**
+	 * (U) This method is used to add the current line of a reader to the detail map.
+	 * 
+	 * @param lines ByteLineReader positioned on the line to add.
+	 */
+	void addLine(ByteLineReader lines)
+	{
+		int length = lines.length();
+		
+		if (lines.startsWith(" "))
+		{
+			if (skipping)
+				return;
+			if (redHat)
+			{
+				int start = lines.skipWhitespace(0, length);
+				int end = lines.trimEnd(start, length);
+				int colon = lines.indexOf(':', start);
+				lines.appendTo(value, (colon < 0) ? start : colon + 1, end);
+			}
+			else
+				lines.appendTo(value, 0, length);
+			return;
+		}
+		
+		if (name != null)
+		{
+			detailMap.put(name, value.toString());
+			name = null;
+			value.setLength(0);
+		}
+		
+		skipping = false;
+		
+		int colon = lines.indexOf(':');
+		if (colon >= 0)
+		{
+			String fieldName = lines.getName(0, colon);
+			if ((fields != null) && (!fields.contains(fieldName)))
+			{
+				skipping = true;
+				return;
+			}
+			name = fieldName;
+			lines.appendTrimmedTo(value, colon + 1, length);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to tell if every field always printed has been read in full. A
+	 * field is only known to be complete once the next one starts.
+	 * 
+	 * @return boolean true if it has, false if there is more to read (or every field is kept).
+	 */
+	boolean isComplete()
+	{
+		return ((fields != null) && (required != null) && (detailMap.size() >= required.size()) &&
+				(detailMap.keySet().containsAll(required)));
+	}
+	
+	/**
+	 * (U) This method is used to finish the detail map, once every line has been added. The
+	 * parser is then ready to start on the next package.
+	 * 
+	 * @return Map with the key value pairs of the lines added.
+	 */
+	Map<String, String> finish()
+	{
+		// The output may end without a blank line after the last field.
+		if (name != null)
+			detailMap.put(name, value.toString());
+		
+		Map<String, String> finished = detailMap;
+		detailMap = new HashMap<>();
+		name = null;
+		value.setLength(0);
+		skipping = false;
+		return finished;
+	}
+}
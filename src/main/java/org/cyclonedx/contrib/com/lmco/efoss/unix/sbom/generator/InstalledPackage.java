@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
+
+/**
+ * (U) This class holds a single package, as the package manager's list of installed software
+ * shows it ("apt list --installed", "yum list installed" or "apk list --installed"). Anything
+ * the listing does not show is null.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class InstalledPackage
+{
+	private final String name;
+	private final String version;
+	private final String arch;
+	private final String repo;
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param name    String value of the package name, as the package manager looks it up.
+	 * @param version String value of the installed version.
+	 * @param arch    String value of the architecture.
+	 * @param repo    String value of the repository the package was installed from.
+	 */
+	public InstalledPackage(String name, String version, String arch, String repo)
+	{
+		this.name = name;
+		this.version = version;
+		this.arch = arch;
+		this.repo = repo;
+	}
+	
+	/**
+	 * (U) This method is used to get the package name.
+	 * 
+	 * @return String the package name.
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * (U) This method is used to get the installed version.
+	 * 
+	 * @return String the installed version, null if the listing did not show it.
+	 */
+	public String getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * (U) This method is used to get the architecture.
+	 * 
+	 * @return String the architecture, null if the listing did not show it.
+	 */
+	public String getArch()
+	{
+		return arch;
+	}
+	
+	/**
+	 * (U) This method is used to get the repository the package was installed from.
+	 * 
+	 * @return String the repository, null if the listing did not show it.
+	 */
+	public String getRepo()
+	{
+		return repo;
+	}
+	
+	/**
+	 * (U) This method is used to get the package as a String, which is its name.
+	 * 
+	 * @return String the package name.
+	 */
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+}
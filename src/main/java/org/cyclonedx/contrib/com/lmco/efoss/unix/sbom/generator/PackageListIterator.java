@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator.UnixSBomGenerator.AVAILABLE_LINUX_FLAVORS;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ByteLineReader;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ProcessIOPump;
+
+/**
+ * (U) This class is used to read the list of installed software a package at a time, as the
+ * package manager lists it. Each line is only read when the next package is asked for, so the
+ * packages listed first can be looked up while the command is still listing the rest, and the
+ * list is never held in full.
+ * 
+ * When reading a command's output, the command's exit value is checked once the last package has
+ * been read. Closing the iterator before then kills the command.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class PackageListIterator implements Iterator<InstalledPackage>, Closeable
+{
+	private static final Logger logger = Logger.getLogger(PackageListIterator.class.getName());
+	
+	private final UnixSBomGenerator generator;
+	private final ByteLineReader lines;
+	private final AVAILABLE_LINUX_FLAVORS linuxFlavor;
+	private final String preProcessingString;
+	private final ProcessIOPump pump;
+	private final List<String> cmd;
+	
+	private boolean preProcessed;
+	// yum puts the rest of a package with a long name on the next line.
+	private String wrappedName = null;
+	private InstalledPackage next = null;
+	private boolean done = false;
+	
+	/**
+	 * (U) Constructor, reading output that has already been captured. The reader is left open.
+	 * 
+	 * @param generator           UnixSBomGenerator to parse each line with.
+	 * @param lines               ByteLineReader that contains the output to read.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
+	 * @param preProcessingString String value used to tell us when to start looking for
+	 *                            packages.
+	 */
+	PackageListIterator(UnixSBomGenerator generator, ByteLineReader lines,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
+	{
+		this(generator, lines, linuxFlavor, preProcessingString, null, null);
+	}
+	
+	/**
+	 * (U) Constructor, reading the output of a running command.
+	 * 
+	 * @param generator           UnixSBomGenerator to parse each line with.
+	 * @param pump                ProcessIOPump of the command listing the software.
+	 * @param cmd                 List of Strings, the command (and its arguments), for errors.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
+	 * @param preProcessingString String value used to tell us when to start looking for
+	 *                            packages.
+	 */
+	PackageListIterator(UnixSBomGenerator generator, ProcessIOPump pump, List<String> cmd,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
+	{
+		this(generator, pump.getOutputLines(), linuxFlavor, preProcessingString, pump, cmd);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param generator           UnixSBomGenerator to parse each line with.
+	 * @param lines               ByteLineReader that contains the output to read.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
+	 * @param preProcessingString String value used to tell us when to start looking for
+	 *                            packages.
+	 * @param pump                ProcessIOPump of the command, null if there is none.
+	 * @param cmd                 List of Strings, the command (and its arguments), null if there
+	 *                            is none.
+	 */
+	private PackageListIterator(UnixSBomGenerator generator, ByteLineReader lines,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString, ProcessIOPump pump,
+			List<String> cmd)
+	{
+		this.generator = generator;
+		this.lines = lines;
+		this.linuxFlavor = linuxFlavor;
+		this.preProcessingString = preProcessingString;
+		this.pump = pump;
+		this.cmd = cmd;
+		preProcessed = (preProcessingString == null);
+	}
+	
+	/**
+	 * (U) This method is used to tell if there is another package, reading the list until we
+	 * find one (or reach its end).
+	 * 
+	 * @return boolean true if there is, false once the list is done.
+	 * @throws SBomException if we are unable to read the list, or the command fails.
+	 */
+	@Override
+	public boolean hasNext()
+	{
+		if (next != null)
+			return true;
+		if (done)
+			return false;
+		
+		try
+		{
+			while (lines.nextLine())
+			{
+				next = parseLine();
+				if (next != null)
+					return true;
+			}
+		}
+		catch (IOException ioe)
+		{
+			done = true;
+			String error = "Unable to process output from unix process to get list of installed " +
+					"software on the server!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+		
+		done = true;
+		checkExitValue();
+		return false;
+	}
+	
+	/**
+	 * (U) This method is used to get the next package.
+	 * 
+	 * @return InstalledPackage the next package listed.
+	 * @throws NoSuchElementException if the list is done.
+	 * @throws SBomException          if we are unable to read the list, or the command fails.
+	 */
+	@Override
+	public InstalledPackage next()
+	{
+		if (!hasNext())
+			throw new NoSuchElementException();
+		
+		InstalledPackage installedPackage = next;
+		next = null;
+		return installedPackage;
+	}
+	
+	/**
+	 * (U) This method is used to close the command's output. If we stopped before the end of the
+	 * list, the command is killed rather than left to finish it.
+	 */
+	@Override
+	public void close()
+	{
+		if (pump == null)
+			return;
+		
+		try
+		{
+			if (!done)
+			{
+				done = true;
+				pump.stop();
+			}
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+		}
+		
+		try
+		{
+			lines.close();
+		}
+		catch (IOException ioe)
+		{
+			if (logger.isDebugEnabled())
+				logger.debug("Unable to close the output of the process.", ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to check the exit value of the command, once the list is done.
+	 * 
+	 * @throws SBomException if the command failed, or we are interrupted waiting for it.
+	 */
+	private void checkExitValue()
+	{
+		if (pump == null)
+			return;
+		
+		int exitVal;
+		try
+		{
+			exitVal = pump.waitFor();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			String error = "Unexpected error while attempting to get the list of software " +
+					"installed (" + String.join(" ", cmd) + ")!";
+			logger.error(error, ie);
+			throw new SBomException(error, ie);
+		}
+		
+		if (exitVal != 0)
+		{
+			String error = "Unexpected process exit value (" + exitVal + "), while attempting " +
+					"to get the list of software installed (" + String.join(" ", cmd) + ")!";
+			logger.error(error);
+			generator.logErrorOutput(pump);
+			throw new SBomException(error);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to parse the current line of the list.
+	 * 
+	 * @return InstalledPackage the package on the line, null if the line is not a package.
+	 */
+	private InstalledPackage parseLine()
+	{
+		if (lines.startsWith("WARNING:", lines.skipWhitespace(0, lines.length())))
+		{
+			logger.info("Ignoring line for package! (" + lines.getLine() + ").");
+			return null;
+		}
+		
+		if (!preProcessed)
+		{
+			if (lines.startsWith(preProcessingString))
+				preProcessed = true;
+			return null;
+		}
+		
+		boolean redHat = linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT);
+		InstalledPackage installedPackage;
+		if ((redHat) && (wrappedName != null) && (lines.startsWith(" ")))
+			installedPackage = generator.parseListLine(wrappedName + lines.getLine(), linuxFlavor);
+		else
+			installedPackage = generator.parseListLine(lines, linuxFlavor);
+		wrappedName = null;
+		
+		if ((installedPackage == null) && (redHat) && (lines.length() > 0) &&
+				(lines.indexOf(' ') < 0))
+			wrappedName = lines.getLine();
+		return installedPackage;
+	}
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import org.cyclonedx.model.Component;
+import org.cyclonedx.model.LicenseChoice;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.PipelineRunner;
+
+/**
+ * (U) This class holds a single package on its way through the stages of building its
+ * Component. Each stage fills in what it found (the detail map, version, license, and at last
+ * the Component itself), for the stages after it. Anything not found yet is null. A package a
+ * stage fails on records why, and the stages after it leave it alone.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class PendingComponent implements PipelineRunner.Item
+{
+	private final String name;
+	private final InstalledPackage listed;
+	
+	private volatile Map<String, String> detailMap;
+	private volatile String version;
+	private volatile LicenseChoice license;
+	private volatile Component component;
+	private volatile String failure;
+	
+	/**
+	 * (U) Constructor, for a package whose details have already been read.
+	 * 
+	 * @param name      String value of the package name.
+	 * @param detailMap Map containing the key value pairs about the package.
+	 */
+	public PendingComponent(String name, Map<String, String> detailMap)
+	{
+		this.name = name;
+		this.listed = null;
+		this.detailMap = detailMap;
+		this.version = (detailMap != null) ? detailMap.get("Version") : null;
+	}
+	
+	/**
+	 * (U) Constructor, for a package as the package manager listed it.
+	 * 
+	 * @param listed InstalledPackage as it was listed.
+	 */
+	public PendingComponent(InstalledPackage listed)
+	{
+		this.name = listed.getName();
+		this.listed = listed;
+		this.version = listed.getVersion();
+	}
+	
+	/**
+	 * (U) This method is used to get the packages whose details have already been read.
+	 * 
+	 * @param packages Map keyed by software name, containing the detail map of each package.
+	 * @return Iterator over the packages, in the order of the Map.
+	 */
+	public static Iterator<PendingComponent> of(Map<String, Map<String, String>> packages)
+	{
+		Iterator<Map.Entry<String, Map<String, String>>> entries = packages.entrySet().iterator();
+		return new Iterator<PendingComponent>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return entries.hasNext();
+			}
+			
+			@Override
+			public PendingComponent next()
+			{
+				Map.Entry<String, Map<String, String>> entry = entries.next();
+				return new PendingComponent(entry.getKey(), entry.getValue());
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to get the packages as they are listed.
+	 * 
+	 * @param software Iterator over the packages, as they are listed.
+	 * @return Iterator over the packages, reading the listing no further ahead than it is read.
+	 */
+	public static Iterator<PendingComponent> of(Iterator<InstalledPackage> software)
+	{
+		return new Iterator<PendingComponent>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return software.hasNext();
+			}
+			
+			@Override
+			public PendingComponent next()
+			{
+				return new PendingComponent(software.next());
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to get the package name.
+	 * 
+	 * @return String the package name.
+	 */
+	@Override
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * (U) This method is used to get the package as it was listed.
+	 * 
+	 * @return InstalledPackage as it was listed, null if its details were read instead.
+	 */
+	public InstalledPackage getListed()
+	{
+		return listed;
+	}
+	
+	/**
+	 * (U) This method is used to get the details of the package.
+	 * 
+	 * @return Map containing the key value pairs about the package, null until they are found.
+	 */
+	@Override
+	public Map<String, String> getDetailMap()
+	{
+		return detailMap;
+	}
+	
+	/**
+	 * (U) This method is used to set the details of the package.
+	 * 
+	 * @param detailMap Map containing the key value pairs about the package.
+	 */
+	@Override
+	public void setDetailMap(Map<String, String> detailMap)
+	{
+		this.detailMap = detailMap;
+	}
+	
+	/**
+	 * (U) This method is used to get the installed version.
+	 * 
+	 * @return String the installed version, null until it is found.
+	 */
+	@Override
+	public String getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * (U) This method is used to set the installed version.
+	 * 
+	 * @param version String value of the installed version.
+	 */
+	public void setVersion(String version)
+	{
+		this.version = version;
+	}
+	
+	/**
+	 * (U) This method is used to get the license of the package.
+	 * 
+	 * @return LicenseChoice the license, null if it has not been (or could not be) found.
+	 */
+	public LicenseChoice getLicense()
+	{
+		return license;
+	}
+	
+	/**
+	 * (U) This method is used to set the license of the package.
+	 * 
+	 * @param license LicenseChoice the license.
+	 */
+	public void setLicense(LicenseChoice license)
+	{
+		this.license = license;
+	}
+	
+	/**
+	 * (U) This method is used to get the Component built for the package.
+	 * 
+	 * @return Component the Component, null until the last stage has built it.
+	 */
+	public Component getComponent()
+	{
+		return component;
+	}
+	
+	/**
+	 * (U) This method is used to set the Component built for the package.
+	 * 
+	 * @param component Component built for the package.
+	 */
+	public void setComponent(Component component)
+	{
+		this.component = component;
+	}
+	
+	/**
+	 * (U) This method is used to tell if the last stage has built the package's Component.
+	 * 
+	 * @return boolean true once its Component has been built.
+	 */
+	@Override
+	public boolean isDone()
+	{
+		return component != null;
+	}
+	
+	/**
+	 * (U) This method is used to get why a stage failed on the package.
+	 * 
+	 * @return String the stage and its error, null if no stage has failed on it.
+	 */
+	@Override
+	public String getFailure()
+	{
+		return failure;
+	}
+	
+	/**
+	 * (U) This method is used to set why a stage failed on the package.
+	 * 
+	 * @param failure String value of the stage and its error, null to try it again.
+	 */
+	@Override
+	public void setFailure(String failure)
+	{
+		this.failure = failure;
+	}
+}
@@ -10,20 +10,23 @@
 package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
 
 import java.io.BufferedReader;
-import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 import org.cyclonedx.model.LicenseChoice;
 
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.PackageDatabaseReader;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.RpmBerkeleyDbReader;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.RpmSqliteReader;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ProcessIOPump;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.StagedPipeline;
 
 /**
  * * (U) This class is responsible for generating the Software Bill Of Materials (SBOM) for all
@@ -41,49 +44,193 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 	private static final String PACKAGE_MANAGER = "yum";
 	
 	// Unix Commands.
-	private static final String PURL_CMD = "yumdownloader --urls";
-	private static final String SOFTWARE_DETAIL_CMD = "yum info";
-	private static final String SOFTWARE_LIST_CMD = "yum list installed";
+	// Fields are separated by the unit separator, and packages by the record separator.
+	private static final List<String> BULK_DETAIL_CMD = List.of("rpm", "-qa", "--queryformat",
+			"%{NAME}\u001f%{ARCH}\u001f%{VERSION}\u001f%{RELEASE}\u001f%{EPOCH}\u001f" +
+			"%{LICENSE}\u001f%{URL}\u001f%{VENDOR}\u001f%{SOURCERPM}\u001f%{SUMMARY}\u001f" +
+			"%{DESCRIPTION}\u001e");
+	private static final List<String> PURL_CMD = List.of("yumdownloader", "--urls");
+	private static final List<String> SOFTWARE_DETAIL_CMD = List.of("yum", "info");
+	private static final List<String> SOFTWARE_LIST_CMD = List.of("yum", "list", "installed");
 	
-	private ProcessBuilder processBuilder = new ProcessBuilder();
+	// Detail map fields we read, every other field is skipped while parsing.
+	private static final Set<String> DETAIL_FIELDS = Set.of("Arch", "Description", "Epoch",
+			"From repo", "License", "Name", "Release", "URL", "Vendor", "Version");
+	// The fields yum prints for every package, Description last. Epoch, From repo, and Vendor
+	// are left out for some, and come before Description when they are not.
+	private static final Set<String> REQUIRED_DETAIL_FIELDS = Set.of("Arch", "Description",
+			"License", "Name", "Release", "URL", "Version");
+	
+	private RpmSqliteReader sqliteReader = new RpmSqliteReader();
+	
+	private RpmBerkeleyDbReader berkeleyDbReader = new RpmBerkeleyDbReader();
 	
 	/**
 	 * (U) This method is used to generate the Software Bill Of Materials (SBOM) for all RedHat
-	 * Linux Operating systems.
+	 * Linux Operating systems. If the RPM database (rpmdb.sqlite, or the older BerkeleyDB
+	 * Packages file) is readable, the installed packages are read from it directly. Otherwise we
+	 * ask rpm about every package at once, and only if that fails do we fall back to asking yum
+	 * about the listed packages, in batches, as they are listed. Any package a batch did not
+	 * give us is asked about on its own.
 	 * 
 	 * @return Bom The Software Bill Of Materials for this RedHat Linux Operating System.
 	 * @throws SBomException if we are unable to build the SBOM.
 	 */
 	public Bom generateSBom()
 	{
-		List<String> softwareList = generateListOfSoftware(SOFTWARE_LIST_CMD, ' ',
-				"Installed Packages");
-		
 		Bom bom = new Bom();
 		
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = readInstalledPackages();
+			
+			if (installedPackages != null)
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("Processing " + installedPackages.size() + " software programs.");
+				
+				for (Component component : buildComponents(PendingComponent.of(
+						installedPackages), false))
+					bom.addComponent(component);
+			}
+			else
+			{
+				try (PackageListIterator softwareList = streamListOfSoftware(SOFTWARE_LIST_CMD,
+						AVAILABLE_LINUX_FLAVORS.REDHAT, "Installed Packages"))
+				{
+					for (Component component : buildComponents(PendingComponent.of(
+							softwareList), true))
+						bom.addComponent(component);
+				}
+			}
+		}
+		catch (SBomException sbe)
+		{
+			checkDeadline(sbe);
+		}
+		finally
+		{
+			finishCommands();
+		}
+		addScanStatus(bom);
+		
+		return bom;
+	}
+	
+	/**
+	 * (U) This method is used to get the RPM database reader to use. The sqlite database (RHEL 8+
+	 * and Fedora) is preferred over the BerkeleyDB Packages file (RHEL 7 and CentOS 7).
+	 * 
+	 * @return PackageDatabaseReader the reader to use, null if neither database can be read.
+	 */
+	private PackageDatabaseReader getDatabaseReader()
+	{
+		if (isDatabaseReadable(sqliteReader))
+			return sqliteReader;
+		else if (isDatabaseReadable(berkeleyDbReader))
+			return berkeleyDbReader;
+		return null;
+	}
+	
+	/**
+	 * (U) This method is used to read the details of every installed package at once. From the
+	 * RPM database if we can read it, otherwise with a single rpm query.
+	 * 
+	 * @return Map keyed by the full name of each installed package (name-[epoch:]version-
+	 *         release.arch), containing its detail map, null if neither worked.
+	 * @throws SBomException if the RPM database is readable, but we fail to read it.
+	 */
+	private Map<String, Map<String, String>> readInstalledPackages()
+	{
+		PackageDatabaseReader databaseReader = getDatabaseReader();
+		if (databaseReader != null)
+			return databaseReader.readInstalledPackages();
+		
+		try
+		{
+			return produceBulkDetailMaps(BULK_DETAIL_CMD, AVAILABLE_LINUX_FLAVORS.REDHAT);
+		}
+		catch (SBomException sbe)
+		{
+			logger.warn("Unable to query every installed package at once, falling back to " +
+					"querying each package.", sbe);
+		}
+		return null;
+	}
+	
+	/**
+	 * (U) This method is used to create the Components of the software, as it goes through the
+	 * pipeline: looking up its details (if we do not have them yet), reading its license file,
+	 * then creating its Component.
+	 * 
+	 * @param software      Iterator over the software.
+	 * @param lookUpDetails boolean true if the details of the software still have to be looked
+	 *                      up, false if we already have them.
+	 * @return List of Components, in the order of the software.
+	 * @throws SBomException if we are unable to create the Components.
+	 */
+	private List<Component> buildComponents(Iterator<PendingComponent> software,
+			boolean lookUpDetails)
+	{
+		StagedPipeline<List<PendingComponent>> pipeline = createPipeline();
+		if (lookUpDetails)
+			addStage(pipeline, DETAILS_STAGE, this::produceDetailMaps, this::produceDetailMap);
+		addStage(pipeline, LICENSE_STAGE, null, this::processLicense);
+		addStage(pipeline, CREATE_STAGE, null, this::createComponent);
+		
+		return createPipelinedComponents(software, pipeline);
+	}
+	
+	/**
+	 * (U) This method is used to create the Component for a piece of software from its detail
+	 * map and license.
+	 * 
+	 * @param software PendingComponent to create the Component for.
+	 */
+	private void createComponent(PendingComponent software)
+	{
 		if (logger.isDebugEnabled())
-			logger.debug("Processing " + softwareList.size() + " software programs.");
+			logger.debug("Generating Component (" + software.getName() + ")");
 		
-		Map<String, String> detailMap = null;
-		String version = null;
-		String group = null;
-		LicenseChoice license = null;
-		String purl = null;
-		Component component = null;
-		for (String software : softwareList)
+		Map<String, String> detailMap = software.getDetailMap();
+		String version = detailMap.get("Version");
+		String softwareName = getSoftwareName(software);
+		
+		String name = detailMap.get("Name");
+		if (name == null)
 		{
-			if (logger.isDebugEnabled())
-				logger.debug("Generating Component (" + software + ")");
-			detailMap = produceDetailMap(software);
-			version = detailMap.get("Version");
-			group = detailMap.get("Release");
-			license = processLicense(software, version);
-			purl = getPurl(software);
-			component = createComponents(software, detailMap, license, group,
-					version, purl, detailMap.get("Priority"));
-			bom.addComponent(addPackageManager(component, PACKAGE_MANAGER));
+			int archIndex = softwareName.lastIndexOf('.');
+			name = (archIndex > 0) ? softwareName.substring(0, archIndex) : softwareName;
 		}
-		return bom;
+		
+		String purl = getPackageUrlBuilder().buildRpmPurl(name, detailMap.get("Epoch"),
+				version, detailMap.get("Release"), detailMap.get("Arch"));
+		
+		Component component = createComponents(softwareName, detailMap,
+				software.getLicense(), detailMap.get("Release"), version, purl,
+				detailMap.get("Priority"));
+		
+		software.setComponent(addPackageManager(component, PACKAGE_MANAGER));
+	}
+	
+	/**
+	 * (U) This method is used to get the name of a piece of software, the way "yum list
+	 * installed" names it (name.arch, or just the name if it has no arch, ie. gpg-pubkey).
+	 * Packages read from the RPM database are keyed by their full name, so each version
+	 * installed side by side gets a Component, all named alike.
+	 * 
+	 * @param software PendingComponent to get the name of.
+	 * @return String the software name.
+	 */
+	private static String getSoftwareName(PendingComponent software)
+	{
+		Map<String, String> detailMap = software.getDetailMap();
+		String name = detailMap.get("Name");
+		String arch = detailMap.get("Arch");
+		
+		if (name == null)
+			return software.getName();
+		return (arch == null) ? name : (name + "." + arch);
 	}
 	
 	/**
@@ -96,8 +243,6 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 	 */
 	public String getLicenseFileName(String software, String version)
 	{
-		File tempFile = null;
-		
 		software = software.trim();
 		
 		if (software.endsWith(".x86_64"))
@@ -112,9 +257,9 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 		
 		for (String fileToTry : POSSIBLE_LICENSE_FILES)
 		{
-			tempFile = new File(SOFTWARE_LICENSE_DIR + software, fileToTry);
-			if (tempFile.exists())
-				return (SOFTWARE_LICENSE_DIR + software + "/" + fileToTry);
+			String licenseFile = SOFTWARE_LICENSE_DIR + software + "/" + fileToTry;
+			if (fileExists(licenseFile))
+				return licenseFile;
 		}
 		return null;
 	}
@@ -126,27 +271,30 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 	 * @param software String value of the software to get the PURL for.
 	 * @return String the URL that will be used to download this software product.
 	 * @throws SBomException in the event we are unable to get the PURL from the server.
+	 * @deprecated This costs a network round trip per package, and gives back a download URL,
+	 *             not a Package URL. Components now get their Package URL from the
+	 *             PackageUrlBuilder.
 	 */
+	@Deprecated
 	public String getPurl(String software)
 	{
 		String purl = null;
 		
-		String cmd = PURL_CMD + " " + software;
-		
-		processBuilder.command("bash", "-c", cmd);
+		List<String> cmd = new ArrayList<>(PURL_CMD);
+		cmd.add(software);
 		
 		if (logger.isDebugEnabled())
 			logger.debug("Attempting to get PURL for " + software + ".");
 		
 		try
 		{
-			Process process = processBuilder.start();
+			Process process = commandRunner.query(cmd);
 			purl = parsePurl(process, software);
 		}
 		catch (IOException ioe)
 		{
-			String error = "Unable to build unix process to get software package's PURL (" + cmd +
-					")!";
+			String error = "Unable to build unix process to get software package's PURL (" +
+					String.join(" ", cmd) + ")!";
 			logger.error(error, ioe);
 			throw new SBomException(error, ioe);
 		}
@@ -165,20 +313,22 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 	{
 		String purl = null;
 		
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream())))
+		ProcessIOPump pump = new ProcessIOPump(process);
+		
+		try (BufferedReader reader = pump.getOutputReader())
 		{
 			purl = parsePurlCmdOutput(reader);
 			
 			if (purl == null)
 				logger.warn("No PURL found for software package (" + software + ").");
 			
-			int exitVal = process.waitFor();
+			int exitVal = pump.waitFor();
 			if (exitVal != 0)
 			{
 				String error = "Unexpected process exit value (" + exitVal + "), while " +
 						"attempting to get a software package's (" + software + ")!";
 				logger.warn(error);
+				logErrorOutput(pump);
 			}
 		}
 		catch (SBomException sbom)
@@ -233,6 +383,23 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 		return purl;
 	}
 	
+	/**
+	 * (U) This method is used to read the license of a piece of software from its license file,
+	 * falling back to the license its details name.
+	 * 
+	 * @param software PendingComponent to read the license of.
+	 */
+	private void processLicense(PendingComponent software)
+	{
+		Map<String, String> detailMap = software.getDetailMap();
+		
+		LicenseChoice license = processLicense(getSoftwareName(software), detailMap.get(
+				"Version"));
+		if (license == null)
+			license = parseLicenseName(detailMap.get("License"));
+		software.setLicense(license);
+	}
+	
 	/**
 	 * (U) This method is responsible for getting the license (if present) and placing it in the
 	 * LicenseChoice Object passed back.
@@ -258,7 +425,7 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 				if (logger.isDebugEnabled())
 					logger.debug("Attempting to process license (" + licenseFile + ")");
 				
-				String licenseTxt = new String(Files.readAllBytes(Paths.get(licenseFile)));
+				String licenseTxt = new String(readFile(licenseFile));
 				licenseChoice = parseLicenseText(licenseTxt, AVAILABLE_LINUX_FLAVORS.REDHAT);
 			}
 			else
@@ -271,6 +438,47 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 		return licenseChoice;
 	}
 	
+	/**
+	 * (U) This method is used to produce the Detail Map of a listed package, unless its batch
+	 * already gave it to us.
+	 * 
+	 * @param software PendingComponent to produce the detail map of.
+	 * @throws SBomException in the event we can NOT produce the detail map of the software.
+	 */
+	private void produceDetailMap(PendingComponent software)
+	{
+		if (software.getDetailMap() == null)
+			software.setDetailMap(timeQuery(software.getName(),
+					() -> produceDetailMap(software.getName())));
+	}
+	
+	/**
+	 * (U) This method is used to produce the Detail Maps of a batch of listed packages, giving
+	 * yum as many of them at once as fit on a command line. Packages we already have the
+	 * details of (when retrying a package a later stage failed on) are left out.
+	 * 
+	 * @param softwareList List of PendingComponent to produce the detail maps of.
+	 */
+	private void produceDetailMaps(List<PendingComponent> softwareList)
+	{
+		List<String> names = new ArrayList<>(softwareList.size());
+		for (PendingComponent software : softwareList)
+		{
+			if (software.getDetailMap() == null)
+				names.add(software.getName());
+		}
+		if (names.isEmpty())
+			return;
+		
+		Map<String, Map<String, String>> detailMaps = produceDetailMaps(SOFTWARE_DETAIL_CMD,
+				names, AVAILABLE_LINUX_FLAVORS.REDHAT);
+		for (PendingComponent software : softwareList)
+		{
+			if (software.getDetailMap() == null)
+				software.setDetailMap(detailMaps.get(software.getName()));
+		}
+	}
+	
 	/**
 	 * (U) This method is used to produce a Detail Map of the Software in question. This will be
 	 * used to create a CycloneDx Component.
@@ -281,8 +489,31 @@ public class RedHatSBomGenerator extends UnixSBomGenerator
 	 */
 	private Map<String, String> produceDetailMap(String software)
 	{
-		String cmd = SOFTWARE_DETAIL_CMD + " " + software;
+		List<String> cmd = new ArrayList<>(SOFTWARE_DETAIL_CMD);
+		cmd.add(software);
 		
 		return (produceDetailMap(cmd, AVAILABLE_LINUX_FLAVORS.REDHAT));
 	}
+	
+	/**
+	 * (U) This method is used to get the fields of a package's details that we read.
+	 * 
+	 * @return Set of the field names to keep.
+	 */
+	@Override
+	protected Set<String> getDetailFields()
+	{
+		return DETAIL_FIELDS;
+	}
+	
+	/**
+	 * (U) This method is used to get the fields of a package's details that yum always prints.
+	 * 
+	 * @return Set of the field names always printed.
+	 */
+	@Override
+	protected Set<String> getRequiredDetailFields()
+	{
+		return REQUIRED_DETAIL_FIELDS;
+	}
 }
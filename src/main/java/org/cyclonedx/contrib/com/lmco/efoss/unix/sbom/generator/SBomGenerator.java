@@ -16,6 +16,7 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
@@ -30,7 +31,11 @@ import org.cyclonedx.contrib.com.lmco.efoss.sbom.commons.utils.SBomCommons;
 import org.cyclonedx.contrib.com.lmco.efoss.sbom.commons.utils.SBomCommonsException;
 import org.cyclonedx.contrib.com.lmco.efoss.sbom.commons.utils.StringUtils;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CheckpointJournal;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandArchive;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.LowImpactPolicy;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.OperatingSystemUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.QueryTimings;
 import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 import org.cyclonedx.model.Hash;
@@ -53,6 +58,11 @@ public class SBomGenerator
 	private static final CharSequence ALPINE = "ALPINE";
 	
 	private static final CharSequence DEBIAN = "DEBIAN";
+	
+	// Journal of the packages found, kept alongside the SBOM until the scan finishes, so a scan
+	// cut short can resume.
+	private static final String JOURNAL_FILE = "output/checkpoint.journal";
+	
 	private static final Logger logger = Logger.getLogger(SBomGenerator.class.getName());
 	private static final CharSequence UBUNTU = "UBUNTU";
 	
@@ -67,13 +77,15 @@ public class SBomGenerator
 
 	/**
 	 * (U) This method is used to create the Tools, and add the UnixSBomGenerator to
-	 * the list of tools.
+	 * the list of tools. Any metadata the generator already added (ie. the scan status) is kept.
 	 * 
 	 * @param bom Software Bom to add the UnixSbomGenerator Tool to.
 	 */
 	public static void addBomTools(Bom bom)
 	{
-		Metadata metadata = new Metadata();
+		Metadata metadata = bom.getMetadata();
+		if (metadata == null)
+			metadata = new Metadata();
 		metadata.setTimestamp(DateUtils.rightNowDate());
 		
 		Tool unixSbomGenerator = new Tool();
@@ -132,6 +144,75 @@ public class SBomGenerator
 		}
 	}
 	
+	/**
+	 * (U) This method is used to apply the command line options to the generator.
+	 * 
+	 * @param generator UnixSBomGenerator to configure.
+	 * @param cli       CommandLine arguments.
+	 * @throws SBomException if any of the options have an invalid value.
+	 */
+	public static void configureGenerator(UnixSBomGenerator generator, CommandLine cli)
+	{
+		configureGenerator(generator, cli, null);
+	}
+	
+	/**
+	 * (U) This method is used to apply the command line options to the generator, along with the
+	 * archive to record the scan in (--record), or replay it from (--replay).
+	 * 
+	 * @param generator UnixSBomGenerator to configure.
+	 * @param cli       CommandLine arguments.
+	 * @param archive   CommandArchive to record in or replay, null for neither.
+	 * @throws SBomException if any of the options have an invalid value.
+	 */
+	public static void configureGenerator(UnixSBomGenerator generator, CommandLine cli,
+			CommandArchive archive)
+	{
+		if (archive != null)
+		{
+			if (cli.hasOption("replay"))
+				generator.setReplay(archive);
+			else
+				generator.setRecorder(archive);
+		}
+		if (cli.hasOption("threads"))
+			generator.setThreads(parseIntOption(cli, "threads"));
+		if (cli.hasOption("queue-depth"))
+			configureQueueDepths(generator, cli.getOptionValue("queue-depth"));
+		if (cli.hasOption("query-timings"))
+			generator.setQueryTimings(readQueryTimings(cli.getOptionValue("query-timings")));
+		if (cli.hasOption("retry-failed"))
+			generator.setRetryFailed(parseIntOption(cli, "retry-failed"));
+		// A replayed scan finds nothing new, so is not journaled, nor resumed.
+		if (cli.hasOption("replay"))
+		{
+			if (cli.hasOption("resume"))
+			{
+				String error = "Unable to both resume and replay a scan!";
+				logger.error(error);
+				throw new SBomException(error);
+			}
+		}
+		else
+			generator.setJournal(openJournal(cli.hasOption("resume")));
+		if (cli.hasOption("low-impact"))
+		{
+			Path cgroup = cli.hasOption("cgroup") ? Paths.get(cli.getOptionValue("cgroup")) : null;
+			int cpuPercent = cli.hasOption("cpu-quota") ? parseIntOption(cli, "cpu-quota")
+					: LowImpactPolicy.DEFAULT_CPU_PERCENT;
+			generator.setLowImpact(true, cgroup, cpuPercent);
+		}
+		if (cli.hasOption("spawn-rate"))
+			generator.setSpawnRate(parseIntOption(cli, "spawn-rate"));
+		if (cli.hasOption("shell-sessions"))
+			generator.setShellSessions(true);
+		if (cli.hasOption("command-timeout"))
+			generator.setCommandTimeout(parseIntOption(cli, "command-timeout"));
+		// Last, so the time it takes to configure the generator does not count against it.
+		if (cli.hasOption("deadline"))
+			generator.setDeadline(parseIntOption(cli, "deadline"));
+	}
+	
 	/**
 	 * (U) This method prepares the master Component.
 	 * 
@@ -185,6 +266,127 @@ public class SBomGenerator
 		return master;
 	}
 	
+	/**
+	 * (U) This method is used to open the archive the scan is recorded in (--record), or replayed
+	 * from (--replay).
+	 * 
+	 * @param cli CommandLine arguments.
+	 * @return CommandArchive the archive, null if the scan is neither recorded nor replayed.
+	 * @throws SBomException if both are asked for, or we are unable to read the archive.
+	 */
+	private static CommandArchive openCommandArchive(CommandLine cli)
+	{
+		if ((cli.hasOption("record")) && (cli.hasOption("replay")))
+		{
+			String error = "Unable to both record and replay a scan!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		
+		if (cli.hasOption("record"))
+			return new CommandArchive();
+		if (!cli.hasOption("replay"))
+			return null;
+		
+		String file = cli.getOptionValue("replay");
+		try
+		{
+			return CommandArchive.read(Paths.get(file));
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read command archive (" + file + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to write the archive the scan was recorded in.
+	 * 
+	 * @param archive CommandArchive the scan was recorded in.
+	 * @param file    String path to write the archive to.
+	 * @throws SBomException if we are unable to write the archive.
+	 */
+	private static void writeCommandArchive(CommandArchive archive, String file)
+	{
+		try
+		{
+			archive.write(Paths.get(file));
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to write command archive (" + file + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read the query timings kept from one scan to the next.
+	 * 
+	 * @param file String path of the timings file.
+	 * @return QueryTimings the timings read, empty if the file does not exist yet.
+	 * @throws SBomException if the file exists, but we are unable to read it.
+	 */
+	private static QueryTimings readQueryTimings(String file)
+	{
+		try
+		{
+			return QueryTimings.read(Paths.get(file));
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to read query timings (" + file + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to open the checkpoint journal, in the output directory.
+	 * 
+	 * @param resume boolean true to resume from the packages already in it (--resume).
+	 * @return CheckpointJournal the open journal.
+	 * @throws SBomException if we are unable to open the journal.
+	 */
+	private static CheckpointJournal openJournal(boolean resume)
+	{
+		try
+		{
+			Files.createDirectories(Paths.get("output"));
+			return CheckpointJournal.open(Paths.get(JOURNAL_FILE), resume);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to open checkpoint journal (" + JOURNAL_FILE + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to delete the checkpoint journal, once the SBOM of a scan that
+	 * finished has been written, so the next scan does not resume from it. A scan cut short by
+	 * the deadline leaves it, to be resumed.
+	 * 
+	 * @param generator UnixSBomGenerator that ran the scan, null if there was none.
+	 */
+	private static void deleteJournal(UnixSBomGenerator generator)
+	{
+		if ((generator == null) || (generator.getJournal() == null) || (generator.isIncomplete()))
+			return;
+		
+		try
+		{
+			Files.deleteIfExists(Paths.get(JOURNAL_FILE));
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to delete checkpoint journal (" + JOURNAL_FILE + ").", ioe);
+		}
+	}
+	
 	/**
 	 * (U) This method is used to generate the XML and JSon files containing the Software Bill of
 	 * Materials.
@@ -222,15 +424,25 @@ public class SBomGenerator
 	 */
 	public static int generateSBom(CommandLine cli)
 	{		
-		OperatingSystemUtils osUtils = new OperatingSystemUtils();
+		CommandArchive archive = openCommandArchive(cli);
+		
+		OperatingSystemUtils osUtils;
+		if (cli.hasOption("replay"))
+			osUtils = new OperatingSystemUtils(archive.getOsRelease());
+		else
+			osUtils = new OperatingSystemUtils();
+		if (cli.hasOption("record"))
+			archive.setOsRelease(osUtils.getOsRelease());
+		
 		String vendor = osUtils.getOsVendor();
 		
 		if (logger.isDebugEnabled())
 			logger.debug("Attempting to build SBOM for " + vendor + ".");
 		
-		Component master = createMasterComponent(cli);
+		Component master = createMasterComponent(cli, osUtils);
 
 		Bom bom = null;
+		UnixSBomGenerator scanner = null;
 		
 		int softwareSize = 0;
 
@@ -246,6 +458,8 @@ public class SBomGenerator
 				if (logger.isInfoEnabled())
 					logger.info(vendor + ", uses the APK package manager.");
 				AlpineSBomGenerator generator = new AlpineSBomGenerator();
+				configureGenerator(generator, cli, archive);
+				scanner = generator;
 				bom = generator.generateSBom();
 			}
 			else if ((vendor.toUpperCase().trim().contains(UBUNTU)) ||
@@ -254,6 +468,8 @@ public class SBomGenerator
 				if (logger.isInfoEnabled())
 					logger.info(vendor + ", uses the APT package manager.");
 				UbuntuSBomGenerator generator = new UbuntuSBomGenerator();
+				configureGenerator(generator, cli, archive);
+				scanner = generator;
 				bom = generator.generateSBom();
 			}
 			else
@@ -261,16 +477,23 @@ public class SBomGenerator
 				if (logger.isInfoEnabled())
 					logger.info(vendor + ", assuming it is a redhat flavor (Yum Package Manager).");
 				RedHatSBomGenerator generator = new RedHatSBomGenerator();
+				configureGenerator(generator, cli, archive);
+				scanner = generator;
 				bom = generator.generateSBom();
 			}
 		}
 		
+		if (cli.hasOption("record"))
+			writeCommandArchive(archive, cli.getOptionValue("record"));
+		
 		if(bom != null)
 		{
 			addBomTools(bom);
 			bom.getMetadata().setComponent(master);
-			softwareSize = bom.getComponents().size();
+			if (bom.getComponents() != null)
+				softwareSize = bom.getComponents().size();
 			generateBoms(bom);
+			deleteJournal(scanner);
 		}
 		return softwareSize;
 	}
@@ -279,12 +502,14 @@ public class SBomGenerator
 	 * (U) This method is responsible for build the Master Component (upper level
 	 * Component).
 	 * 
-	 * @param cli ComandLine options used to build the master component.
+	 * @param cli     ComandLine options used to build the master component.
+	 * @param osUtils OperatingSystemUtils of the operating system being scanned.
 	 * @return Component newly created master component.
 	 * @throws SBomException in the event we are unable to get the image from the
 	 *                       image URL (if it was provided).
 	 */
-	private static Component createMasterComponent(CommandLine cli) throws SBomException
+	private static Component createMasterComponent(CommandLine cli, OperatingSystemUtils osUtils)
+			throws SBomException
 	{
 		Component master = null;
 
@@ -295,8 +520,6 @@ public class SBomGenerator
 
 		if ((!StringUtils.isValid(name)) || (!StringUtils.isValid(version)))
 		{
-			OperatingSystemUtils osUtils = new OperatingSystemUtils();
-
 			if (!StringUtils.isValid(name))
 				name = osUtils.getOsVendor();
 			if (!StringUtils.isValid(version))
@@ -404,4 +627,71 @@ public class SBomGenerator
 
 		return subPath;
 	}
+	
+	/**
+	 * (U) This method is used to apply the --queue-depth option, either a single queue depth for
+	 * every stage of the pipeline ("8"), or the queue depths of some stages
+	 * ("details=2,create=16").
+	 * 
+	 * @param generator UnixSBomGenerator to configure.
+	 * @param value     String value of the option.
+	 * @throws SBomException if the value is not valid.
+	 */
+	private static void configureQueueDepths(UnixSBomGenerator generator, String value)
+	{
+		if (value.indexOf('=') < 0)
+		{
+			generator.setQueueDepth(parseIntValue(value, "queue-depth"));
+			return;
+		}
+		
+		for (String stageDepth : value.split(","))
+		{
+			int index = stageDepth.indexOf('=');
+			if (index < 0)
+			{
+				String error = "Invalid value (" + stageDepth + ") for option queue-depth, " +
+						"expected stage=number!";
+				logger.error(error);
+				throw new SBomException(error);
+			}
+			generator.setQueueDepth(stageDepth.substring(0, index).trim(),
+					parseIntValue(stageDepth.substring(index + 1), "queue-depth"));
+		}
+	}
+	
+	/**
+	 * (U) This method is used to get the value of a numeric command line option.
+	 * 
+	 * @param cli    CommandLine arguments.
+	 * @param option String value of the option's long name.
+	 * @return int the value of the option.
+	 * @throws SBomException if the value is not a number.
+	 */
+	private static int parseIntOption(CommandLine cli, String option)
+	{
+		return parseIntValue(cli.getOptionValue(option), option);
+	}
+	
+	/**
+	 * (U) This method is used to parse a number given on the command line.
+	 * 
+	 * @param value  String value to parse.
+	 * @param option String value of the option's long name, for errors.
+	 * @return int the value as a number.
+	 * @throws SBomException if the value is not a number.
+	 */
+	private static int parseIntValue(String value, String option)
+	{
+		try
+		{
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException nfe)
+		{
+			String error = "Invalid value (" + value + ") for option " + option + "!";
+			logger.error(error, nfe);
+			throw new SBomException(error, nfe);
+		}
+	}
 }
\ No newline at end of file
@@ -11,17 +11,20 @@ package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 import org.cyclonedx.model.LicenseChoice;
 
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.DpkgStatusReader;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ProcessIOPump;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.StagedPipeline;
 
 /**
  * (U) This class is responsible for generating the Software Bill Of Materials (SBOM) for all Ubuntu
@@ -34,50 +37,146 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 {
 	private static final String PACKAGE_MANAGER = "apt";
 	
-	private static final String SOFTWARE_INSTALLED_VERSION = "apt policy";
-	private static final String SOFTWARE_DETAIL_CMD = "apt show";
-	public static final String SOFTWARE_LIST_CMD = "apt list --installed";
+	// dpkg-query expands the \n escapes in the format itself.
+	private static final List<String> BULK_DETAIL_CMD = List.of("dpkg-query", "-W",
+			"-f=Package: ${Package}\\nStatus: ${Status}\\nPriority: ${Priority}\\n" +
+			"Section: ${Section}\\nArchitecture: ${Architecture}\\nVersion: ${Version}\\n" +
+			"Source: ${Source}\\nMaintainer: ${Maintainer}\\nHomepage: ${Homepage}\\n" +
+			"Description: ${Description}\\n\\n");
+	private static final List<String> SOFTWARE_INSTALLED_VERSION = List.of("apt", "policy");
+	private static final List<String> SOFTWARE_DETAIL_CMD = List.of("apt", "show");
+	public static final List<String> SOFTWARE_LIST_CMD = List.of("apt", "list", "--installed");
 	
-	private ProcessBuilder processBuilder = new ProcessBuilder();
+	// Detail map fields we read, every other field is skipped while parsing.
+	private static final Set<String> DETAIL_FIELDS = Set.of("APT-Sources", "Architecture",
+			"Bugs", "Description", "Homepage", "Package", "Priority", "Version");
+	
+	private DpkgStatusReader statusReader = new DpkgStatusReader(
+			DpkgStatusReader.DPKG_STATUS_FILE, DETAIL_FIELDS);
 	
 	/**
 	 * (U) This method is used to generate the Software Bill Of Materials (SBOM) for all Ubuntu
-	 * Linux Operating systems.
+	 * Linux Operating systems. If the dpkg status file is readable, the installed packages are
+	 * read from it directly. Otherwise we ask dpkg-query about every package at once, and only if
+	 * that fails do we fall back to asking apt about the listed packages, in batches, as they are
+	 * listed. Any package a batch did not give us is asked about on its own.
 	 * 
 	 * @return Bom The Software Bill Of Materials for this Ubuntu Linux Operating System.
 	 * @throws SBomException if we are unable to build the SBOM.
 	 */
 	public Bom generateSBom()
 	{
-		List<String> softwareList = generateListOfSoftware(SOFTWARE_LIST_CMD, '/',
-				"");
-
 		Bom bom = new Bom();
 		
-		if (logger.isDebugEnabled())
-			logger.debug("Processing " + softwareList.size() + " software programs.");
-		
-		Map<String, String> detailMap = null;
-		String version = null;
-		String group = null;
-		LicenseChoice license = null;
-		Component component = null;
-		for (String software : softwareList)
-		{
-			if (logger.isDebugEnabled())
-				logger.debug("Generating Component (" + software + ")");
-			detailMap = produceDetailMap(software);
-			version = detailMap.get("Version");
-			group = detailMap.get("Release");
-			license = processLicense(software);
-			component = createComponents(software, detailMap, license, group,
-					version, null, detailMap.get("Priority"));
-			bom.addComponent(addPackageManager(component, PACKAGE_MANAGER));
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = readInstalledPackages();
+			
+			if (installedPackages != null)
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("Processing " + installedPackages.size() + " software programs.");
+				
+				for (Component component : buildComponents(PendingComponent.of(
+						installedPackages), false))
+					bom.addComponent(component);
+			}
+			else
+			{
+				try (PackageListIterator softwareList = streamListOfSoftware(SOFTWARE_LIST_CMD,
+						AVAILABLE_LINUX_FLAVORS.UBUNTU, ""))
+				{
+					for (Component component : buildComponents(PendingComponent.of(
+							softwareList), true))
+						bom.addComponent(component);
+				}
+			}
+		}
+		catch (SBomException sbe)
+		{
+			checkDeadline(sbe);
+		}
+		finally
+		{
+			finishCommands();
 		}
+		addScanStatus(bom);
 		
 		return bom;
 	}
 	
+	/**
+	 * (U) This method is used to read the details of every installed package at once. From the
+	 * dpkg status file if we can read it, otherwise with a single dpkg-query.
+	 * 
+	 * @return Map keyed by software name, containing the detail map of each installed package,
+	 *         null if neither worked.
+	 * @throws SBomException if the dpkg status file is readable, but we fail to read it.
+	 */
+	private Map<String, Map<String, String>> readInstalledPackages()
+	{
+		if (isDatabaseReadable(statusReader))
+			return statusReader.readInstalledPackages();
+		
+		try
+		{
+			return produceBulkDetailMaps(BULK_DETAIL_CMD, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+		}
+		catch (SBomException sbe)
+		{
+			logger.warn("Unable to query every installed package at once, falling back to " +
+					"querying each package.", sbe);
+		}
+		return null;
+	}
+	
+	/**
+	 * (U) This method is used to create the Components of the software, as it goes through the
+	 * pipeline: looking up its details (if we do not have them yet), reading its license file,
+	 * then creating its Component.
+	 * 
+	 * @param software      Iterator over the software.
+	 * @param lookUpDetails boolean true if the details of the software still have to be looked
+	 *                      up, false if we already have them.
+	 * @return List of Components, in the order of the software.
+	 * @throws SBomException if we are unable to create the Components.
+	 */
+	private List<Component> buildComponents(Iterator<PendingComponent> software,
+			boolean lookUpDetails)
+	{
+		StagedPipeline<List<PendingComponent>> pipeline = createPipeline();
+		if (lookUpDetails)
+			addStage(pipeline, DETAILS_STAGE, this::produceDetailMaps, this::produceDetailMap);
+		addStage(pipeline, LICENSE_STAGE, null, this::processLicense);
+		addStage(pipeline, CREATE_STAGE, null, this::createComponent);
+		
+		return createPipelinedComponents(software, pipeline);
+	}
+	
+	/**
+	 * (U) This method is used to create the Component for a piece of software from its detail
+	 * map and license.
+	 * 
+	 * @param software PendingComponent to create the Component for.
+	 */
+	private void createComponent(PendingComponent software)
+	{
+		if (logger.isDebugEnabled())
+			logger.debug("Generating Component (" + software.getName() + ")");
+		
+		Map<String, String> detailMap = software.getDetailMap();
+		String packageName = detailMap.getOrDefault("Package", software.getName());
+		
+		String purl = getPackageUrlBuilder().buildDebPurl(packageName,
+				detailMap.get("Version"), detailMap.get("Architecture"));
+		
+		Component component = createComponents(software.getName(), detailMap,
+				software.getLicense(), detailMap.get("Release"), detailMap.get("Version"), purl,
+				detailMap.get("Priority"));
+		
+		software.setComponent(addPackageManager(component, PACKAGE_MANAGER));
+	}
+	
 	/**
 	 * (U) This method is used to run the command to get the version of the package that is
 	 * currently installed.
@@ -90,23 +189,23 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 	{
 		String version = "";
 		
-		String cmd = SOFTWARE_INSTALLED_VERSION + " " + software;
+		List<String> cmd = new ArrayList<>(SOFTWARE_INSTALLED_VERSION);
+		cmd.add(software);
 		
 		if (logger.isDebugEnabled())
-			logger.debug("Attempting to get software (" + software + ") version via: " + cmd);
-		
-		processBuilder.command("bash", "-c", cmd);
+			logger.debug("Attempting to get software (" + software + ") version via: " +
+					String.join(" ", cmd));
 		
 		try
 		{
-			Process process = processBuilder.start();
+			Process process = commandRunner.query(cmd);
 			
 			version = readVersion(process);
 		}
 		catch (IOException ioe)
 		{
 			String error = "Unable to build unix process to get software version (" +
-					cmd +
+					String.join(" ", cmd) +
 					") on the server!";
 			logger.error(error, ioe);
 			throw new SBomException(error, ioe);
@@ -152,6 +251,17 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 		return version;
 	}
 	
+	/**
+	 * (U) This method is used to read the license of a piece of software from its license file.
+	 * 
+	 * @param software PendingComponent to read the license of.
+	 */
+	private void processLicense(PendingComponent software)
+	{
+		software.setLicense(processLicense(software.getDetailMap().getOrDefault("Package",
+				software.getName())));
+	}
+	
 	/**
 	 * (U) This method is responsible for getting the license (if present) and placing it in the
 	 * LicenseChoice Object passed back.
@@ -170,7 +280,7 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 		
 		try
 		{
-			String licenseTxt = new String(Files.readAllBytes(Paths.get(licenseFile)));
+			String licenseTxt = new String(readFile(licenseFile));
 			licenseChoice = parseLicenseText(licenseTxt, AVAILABLE_LINUX_FLAVORS.UBUNTU);
 		}
 		catch (IOException ioe)
@@ -184,17 +294,65 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 	 * (U) This method is used to produce a Detail Map of the Software in question. This will be
 	 * used to create a CycloneDx Component.
 	 * 
-	 * @param software String value of the component to build the detail map for.
+	 * @param software InstalledPackage to build the detail map for. If the listing did not show
+	 *                 its version, we ask apt for it.
 	 * @return Map containing the key value pairs about the software.
 	 * @throws SBomException in the event we can NOT produce the detail map of the software.
 	 */
-	private Map<String, String> produceDetailMap(String software)
+	private Map<String, String> produceDetailMap(InstalledPackage software)
 	{
-		String cmd = SOFTWARE_DETAIL_CMD + " " + software + "=" + getInstalledVersion(software);
+		String version = software.getVersion();
+		if (version == null)
+			version = getInstalledVersion(software.getName());
+		
+		List<String> cmd = new ArrayList<>(SOFTWARE_DETAIL_CMD);
+		cmd.add(software.getName() + "=" + version);
 		
 		return (produceDetailMap(cmd, AVAILABLE_LINUX_FLAVORS.UBUNTU));
 	}
 	
+	/**
+	 * (U) This method is used to produce the Detail Map of a listed package, unless its batch
+	 * already gave it to us.
+	 * 
+	 * @param software PendingComponent to produce the detail map of.
+	 * @throws SBomException in the event we can NOT produce the detail map of the software.
+	 */
+	private void produceDetailMap(PendingComponent software)
+	{
+		if (software.getDetailMap() == null)
+			software.setDetailMap(timeQuery(software.getName(),
+					() -> produceDetailMap(software.getListed())));
+	}
+	
+	/**
+	 * (U) This method is used to produce the Detail Maps of a batch of listed packages, giving
+	 * apt as many of them at once as fit on a command line. Packages the listing did not show
+	 * the version of are left out, to be asked about on their own, as are those we already have
+	 * the details of (when retrying a package a later stage failed on).
+	 * 
+	 * @param softwareList List of PendingComponent to produce the detail maps of.
+	 */
+	private void produceDetailMaps(List<PendingComponent> softwareList)
+	{
+		List<String> packages = new ArrayList<>(softwareList.size());
+		for (PendingComponent software : softwareList)
+		{
+			if ((software.getDetailMap() == null) && (software.getVersion() != null))
+				packages.add(software.getName() + "=" + software.getVersion());
+		}
+		if (packages.isEmpty())
+			return;
+		
+		Map<String, Map<String, String>> detailMaps = produceDetailMaps(SOFTWARE_DETAIL_CMD,
+				packages, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+		for (PendingComponent software : softwareList)
+		{
+			if (software.getDetailMap() == null)
+				software.setDetailMap(detailMaps.get(software.getName()));
+		}
+	}
+	
 	/**
 	 * (U) This method is used to read the Version from the Command Process.
 	 * 
@@ -205,17 +363,18 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 	public String readVersion(Process process)
 	{
 		String version = null;
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream())))
+		ProcessIOPump pump = new ProcessIOPump(process);
+		try (BufferedReader reader = pump.getOutputReader())
 		{
 			version = parseVersion(reader);
 			
-			int exitVal = process.waitFor();
+			int exitVal = pump.waitFor();
 			if (exitVal != 0)
 			{
 				String error = "Unexpected process exit value (" + exitVal + "), while " +
 						"attempting to get Installed Software Version!";
 				logger.error(error);
+				logErrorOutput(pump);
 				throw new SBomException(error);
 			}
 		}
@@ -231,4 +390,15 @@ public class UbuntuSBomGenerator extends UnixSBomGenerator
 		}
 		return version;
 	}
+	
+	/**
+	 * (U) This method is used to get the fields of a package's details that we read.
+	 * 
+	 * @return Set of the field names to keep.
+	 */
+	@Override
+	protected Set<String> getDetailFields()
+	{
+		return DETAIL_FIELDS;
+	}
 }
@@ -11,24 +11,50 @@ package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.apache.log4j.Logger;
 import org.cyclonedx.model.AttachmentText;
+import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 import org.cyclonedx.model.Component.Scope;
 import org.cyclonedx.model.Component.Type;
 import org.cyclonedx.model.ExternalReference;
 import org.cyclonedx.model.License;
 import org.cyclonedx.model.LicenseChoice;
+import org.cyclonedx.model.Metadata;
 import org.cyclonedx.model.Property;
 
 import com.google.common.base.CharMatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.DpkgStatusReader;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database.PackageDatabaseReader;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ByteLineReader;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CheckpointJournal;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandArchive;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandBatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandRunner;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.LowImpactPolicy;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.OperatingSystemUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.PackageUrlBuilder;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.PipelineRunner;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.ProcessIOPump;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.QueryTimings;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.StagedPipeline;
 
 /**
  * (U) This class is the UnixSBomGenerator, it contains shared methods, used by the 
@@ -51,6 +77,42 @@ public class UnixSBomGenerator
 	
 	protected static final String SOFTWARE_LICENSE_DIR = "/usr/share/doc/";
 	
+	// Fields of the bulk rpm query, in the order RedHatSBomGenerator asks for them.
+	private static final String[] RPM_BULK_FIELDS = { "Name", "Arch", "Version", "Release",
+			"Epoch", "License", "URL", "Vendor", "Source RPM", "Summary", "Description" };
+	private static final char RPM_FIELD_SEPARATOR = '\u001f';
+	private static final char RPM_RECORD_SEPARATOR = '\u001e';
+	private static final String RPM_NONE = "(none)";
+	
+	// Each thread gets this many batches, so the concurrency limiter has room to adapt.
+	private static final int BATCHES_PER_THREAD = 2;
+	
+	// Settings recorded in a command archive, deciding how package names are split between
+	// commands, so a replay splits them the same way.
+	private static final String ARGUMENT_LIMIT_SETTING = "argumentLimit";
+	private static final String BATCH_THREADS_SETTING = "batchThreads";
+	
+	// Stages of the pipeline createPipelinedComponents() sends each batch of packages through.
+	public static final String DETAILS_STAGE = PipelineRunner.DETAILS_STAGE;
+	public static final String VERSION_STAGE = PipelineRunner.VERSION_STAGE;
+	public static final String LICENSE_STAGE = PipelineRunner.LICENSE_STAGE;
+	public static final String CREATE_STAGE = PipelineRunner.CREATE_STAGE;
+	
+	// Most Unix commands started per second in low impact mode, unless told otherwise.
+	public static final int LOW_IMPACT_SPAWN_RATE = 10;
+	
+	// Runs every Unix command we need, without going through a shell.
+	protected CommandRunner commandRunner = new CommandRunner();
+	
+	// Splits package names across commands, keeping each under the argument size limit.
+	protected CommandBatcher commandBatcher = new CommandBatcher();
+	
+	private PackageUrlBuilder packageUrlBuilder = null;
+	
+	// Sends the packages down the pipeline, with the threads, journal, and deadline of the scan.
+	private final PipelineRunner<PendingComponent> pipelineRunner = new PipelineRunner<>(
+			() -> commandRunner);
+	
 	/**
 	 * (U) This method is used to build the External References. To include the Web Page, Bugs, and
 	 * documentation.
@@ -135,7 +197,10 @@ public class UnixSBomGenerator
 		component.setExternalReferences(buildExternalReferences(detailMap));
 		component.setGroup(group);
 		component.setLicenseChoice(license);
-		component.setPublisher(detailMap.get("From repo"));
+		if (detailMap.containsKey("From repo"))
+			component.setPublisher(detailMap.get("From repo"));
+		else
+			component.setPublisher(detailMap.get("Vendor"));
 		component.setPurl(purl);
 		component.setScope(buildScope(scope));
 		component.setVersion(version);
@@ -143,6 +208,158 @@ public class UnixSBomGenerator
 		return component;
 	}
 	
+	/**
+	 * (U) This method is used to create the Components of software as it goes through a
+	 * pipeline of stages (looking up its details, reading its license, creating its Component,
+	 * ...). The pipelineRunner sends the software down the pipeline in batches, as it is listed,
+	 * in the order its query timings call for, resuming it from the checkpoint journal, retrying
+	 * the packages that fail, and stopping at the deadline (see PipelineRunner.run()).
+	 * 
+	 * The Components come back in the order the software was listed. A package still failing
+	 * after its retries gets a Component with just its name, version, and why it failed.
+	 * 
+	 * @param software Iterator over the software, as it is listed.
+	 * @param pipeline StagedPipeline of the stages each batch goes through, the last of which
+	 *                 sets each package's Component.
+	 * @return List of Components, in the order the software was listed.
+	 * @throws SBomException if we fail to list the software, or a stage fails other than on a
+	 *                       single package, before the deadline.
+	 */
+	protected List<Component> createPipelinedComponents(Iterator<PendingComponent> software,
+			StagedPipeline<List<PendingComponent>> pipeline)
+	{
+		List<Component> components = new ArrayList<>();
+		for (PendingComponent pending : pipelineRunner.run(software, pipeline))
+		{
+			if (pending.getFailure() != null)
+				components.add(createFailedComponent(pending));
+			else
+				components.add(pending.getComponent());
+		}
+		return components;
+	}
+	
+	/**
+	 * (U) This method is used to create the Component of a package a stage failed on, from what
+	 * we know of it, recording why it failed in its properties.
+	 * 
+	 * @param software PendingComponent that failed.
+	 * @return Component with the package's name and version, and why it failed.
+	 */
+	private static Component createFailedComponent(PendingComponent software)
+	{
+		Component component = new Component();
+		component.setType(Type.OPERATING_SYSTEM);
+		component.setName(software.getName());
+		component.setVersion(software.getVersion());
+		
+		List<Property> properties = new ArrayList<>();
+		properties.add(createProperty("unixSbomGenerator:failed", software.getFailure()));
+		component.setProperties(properties);
+		
+		return component;
+	}
+	
+	/**
+	 * (U) This method is used to start a pipeline, for createPipelinedComponents(), with the
+	 * stages to be added to it.
+	 * 
+	 * @return StagedPipeline without any stages yet.
+	 */
+	protected StagedPipeline<List<PendingComponent>> createPipeline()
+	{
+		return new StagedPipeline<>();
+	}
+	
+	/**
+	 * (U) This method is used to add a stage to a pipeline. The batch task (if any) runs once
+	 * for each batch, then the package task for each package in it, with as many threads, and as
+	 * deep a queue, as PipelineRunner.addStage() gives the stage.
+	 * 
+	 * @param pipeline  StagedPipeline to add the stage to.
+	 * @param stage     String value of the stage, one of PipelineRunner.PIPELINE_STAGES.
+	 * @param batchTask Consumer run once for each batch, null if there is none.
+	 * @param task      Consumer run for each package, null if there is none.
+	 */
+	protected void addStage(StagedPipeline<List<PendingComponent>> pipeline, String stage,
+			Consumer<List<PendingComponent>> batchTask, Consumer<PendingComponent> task)
+	{
+		pipelineRunner.addStage(pipeline, stage, batchTask, task);
+	}
+	
+	/**
+	 * (U) This method is used to build the detail maps of every installed package, from the
+	 * output of the Alpine bulk query. The output starts with one line per package
+	 * ("name-version - description"), followed by one line per package with its web page
+	 * ("name: url"). A web page for a package we have not seen gets a detail map of its own,
+	 * holding just the package name and URL.
+	 * 
+	 * @param reader BufferedReader that contains the output to read.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> generateAlpineBulkDetailMaps(BufferedReader reader)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		try
+		{
+			String line;
+			int index = 0;
+			
+			while ((line = reader.readLine()) != null)
+			{
+				if ((line.trim().isEmpty()) || (line.trim().startsWith("WARNING:")))
+					continue;
+				
+				index = line.indexOf(": ");
+				if ((index > 0) && (line.substring(0, index).indexOf(' ') < 0))
+				{
+					String software = line.substring(0, index);
+					Map<String, String> detailMap = packages.get(software);
+					if (detailMap == null)
+					{
+						detailMap = new HashMap<>();
+						detailMap.put("Package", software);
+						packages.put(software, detailMap);
+					}
+					detailMap.put("URL", line.substring(index + 2).trim());
+					continue;
+				}
+				
+				String nameVersion = line.trim();
+				String description = null;
+				index = nameVersion.indexOf(" - ");
+				if (index > 0)
+				{
+					description = nameVersion.substring(index + 3).trim();
+					nameVersion = nameVersion.substring(0, index);
+				}
+				
+				index = findAlpineVersionStart(nameVersion);
+				if (index < 0)
+				{
+					logger.warn("Ignoring line for package! (" + line + ").");
+					continue;
+				}
+				
+				Map<String, String> detailMap = new HashMap<>();
+				detailMap.put("Package", nameVersion.substring(0, index - 1));
+				detailMap.put("Version", nameVersion.substring(index));
+				if (description != null)
+					detailMap.put("Description", description);
+				
+				packages.put(detailMap.get("Package"), detailMap);
+			}
+		}
+		catch (IOException ioe)
+		{
+			logger.error(DETAILS_ERROR, ioe);
+			throw new SBomException(DETAILS_ERROR, ioe);
+		}
+		return packages;
+	}
+	
 	/**
 	 * (U) This method is used to build the Map containing the fields and their values.
 	 * 
@@ -188,6 +405,110 @@ public class UnixSBomGenerator
 		return detailMap;
 	}
 	
+	/**
+	 * (U) This method is used to build the detail maps of a batch of packages, from the output of
+	 * a single command asking about all of them (ie. "apt show a b c", or "yum info a b c").
+	 * The output is split back into the part about each package, which is parsed the same way
+	 * as the output of asking about that package alone. For yum, only the installed packages
+	 * are kept. Alpine's output already names the package on each line, so it is parsed as a
+	 * bulk query.
+	 * 
+	 * @param reader      BufferedReader that contains the output to read.
+	 * @param linuxFlavor Enumeration that tells us what version of Linux we are generating the
+	 *                    Detail maps for.
+	 * @return Map keyed by software name, containing the detail map of each package found. Red
+	 *         Hat packages are keyed by name.arch, the way "yum list installed" names them.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> generateBatchedDetailMaps(BufferedReader reader,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
+			return generateAlpineBulkDetailMaps(reader);
+		
+		return (generateBatchedDetailMaps(ByteLineReader.fromReader(reader), linuxFlavor, null));
+	}
+	
+	/**
+	 * (U) This method is used to build the detail maps of a batch of packages, straight from the
+	 * bytes of "apt show a b c", or "yum info a b c". Each package's fields are parsed as they
+	 * are read, rather than gathered up and parsed again.
+	 * 
+	 * @param lines       ByteLineReader that contains the output to read.
+	 * @param linuxFlavor Enumeration that tells us what version of Linux we are generating the
+	 *                    Detail maps for (not Alpine).
+	 * @param timings     QueryTimings to record how long each package took in, null for none.
+	 * @return Map keyed by software name, containing the detail map of each package found.
+	 * @throws SBomException if we can NOT read the output.
+	 */
+	private Map<String, Map<String, String>> generateBatchedDetailMaps(ByteLineReader lines,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, QueryTimings timings)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		boolean redHat = linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT);
+		DetailMapParser parser = new DetailMapParser(redHat, getDetailFields());
+		
+		try
+		{
+			// yum puts its packages under section headings, we only want the installed ones.
+			boolean installed = !redHat;
+			long startNanos = 0;
+			
+			while (lines.nextLine())
+			{
+				if (startNanos == 0)
+					startNanos = System.nanoTime();
+				
+				if (lines.isBlank())
+				{
+					startNanos = recordTiming(timings, addBatchedPackage(packages, parser.finish(),
+							linuxFlavor), startNanos);
+					continue;
+				}
+				
+				if ((redHat) && (!lines.startsWith(" ")) && (lines.indexOf(':') < 0))
+				{
+					startNanos = recordTiming(timings, addBatchedPackage(packages, parser.finish(),
+							linuxFlavor), startNanos);
+					installed = lines.startsWith("Installed Packages");
+					continue;
+				}
+				
+				if (installed)
+					parser.addLine(lines);
+			}
+			recordTiming(timings, addBatchedPackage(packages, parser.finish(), linuxFlavor),
+					startNanos);
+		}
+		catch (IOException ioe)
+		{
+			logger.error(DETAILS_ERROR, ioe);
+			throw new SBomException(DETAILS_ERROR, ioe);
+		}
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to build the detail maps of every installed package, from the
+	 * output of a bulk query.
+	 * 
+	 * @param reader      BufferedReader that contains the output to read.
+	 * @param linuxFlavor Enumeration that tells us what version of Linux we are generating the
+	 *                    Detail maps for.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> generateBulkDetailMaps(BufferedReader reader,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
+			return generateAlpineBulkDetailMaps(reader);
+		else if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
+			return generateRedHatBulkDetailMaps(reader);
+		else
+			return generateUbuntuBulkDetailMaps(reader);
+	}
+	
 	/**
 	 * (U) This method is used to build the Map containing the fields and their values.
 	 * 
@@ -200,57 +521,41 @@ public class UnixSBomGenerator
 	public Map<String, String> generateDetailMap(BufferedReader reader,
 			AVAILABLE_LINUX_FLAVORS linuxFlavor)
 	{
-		Map<String, String> detailMap = new HashMap<>();
+		DetailMapParser parser = new DetailMapParser(linuxFlavor.equals(
+				AVAILABLE_LINUX_FLAVORS.REDHAT), getDetailFields(), getRequiredDetailFields());
+		parseDetailMap(ByteLineReader.fromReader(reader), parser, linuxFlavor);
+		return parser.finish();
+	}
+	
+	/**
+	 * (U) This method is used to parse the output about a single package, straight from its
+	 * bytes. Reading stops as soon as the parser has every field wanted.
+	 * 
+	 * @param lines       ByteLineReader that contains the output to read.
+	 * @param parser      DetailMapParser to add the lines to.
+	 * @param linuxFlavor Enumeration that tells us what version of Linux we are generating the
+	 *                    Detail map for.
+	 * @return boolean true if we stopped before the end of the output, false if we read it all.
+	 * @throws SBomException if we can NOT read the output.
+	 */
+	private boolean parseDetailMap(ByteLineReader lines, DetailMapParser parser,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		// yum's fields start after the "Installed Packages" line.
+		boolean foundStart = !linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT);
 		
 		try
 		{
-			String line;
-			String componentDetailName = null;
-			StringBuilder componentDetailValue = new StringBuilder();
-			int index = 0;
-			
-			boolean foundStart = false;
-			
-			if (!linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
-				foundStart = true;
-			
-			while ((line = reader.readLine()) != null)
+			while (lines.nextLine())
 			{
-				if (!foundStart)
+				if (foundStart)
 				{
-					if (line.startsWith("Installed Packages"))
-						foundStart = true;
-				}
-				else
-				{
-					if (line.startsWith(" "))
-					{
-						if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
-						{
-							line = line.trim();
-							index = line.indexOf(':');
-							line = line.substring(index + 1);
-						}
-						componentDetailValue.append(line);
-					}
-					else
-					{
-						if (componentDetailName != null)
-						{
-							detailMap.put(componentDetailName.trim(),
-									componentDetailValue.toString());
-							componentDetailName = null;
-							componentDetailValue = new StringBuilder();
-						}
-						
-						if (line.contains(":"))
-						{
-							index = line.indexOf(':');
-							componentDetailName = line.substring(0, index);
-							componentDetailValue.append(line.substring(index + 1).trim());
-						}
-					}
+					parser.addLine(lines);
+					if (parser.isComplete())
+						return true;
 				}
+				else if (lines.startsWith("Installed Packages"))
+					foundStart = true;
 			}
 		}
 		catch (IOException ioe)
@@ -258,44 +563,126 @@ public class UnixSBomGenerator
 			logger.error(DETAILS_ERROR, ioe);
 			throw new SBomException(DETAILS_ERROR, ioe);
 		}
-		return detailMap;
+		return false;
 	}
 	
 	/**
 	 * (U) This method is used to get the list of Software that is installed on this instance.
 	 * 
-	 * @param cmd                 String value for the Unix command that will give us the list of
-	 *                            software installed.
-	 * @param separator           character value for the separator, used to tell us where to stop
-	 *                            the package at.
+	 * @param cmd                 List of Strings, the Unix command (and its arguments) that will
+	 *                            give us the list of software installed.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
 	 * @param preProcessingString String value used to tell us when to start looking for packages.
 	 * @return List of Software installed on the server.
 	 * @throws SBomException in the event we are unable to get the list of software that is
 	 *                       installed on the server.
 	 */
-	protected List<String> generateListOfSoftware(String cmd, char separator,
-			String preProcessingString)
+	protected List<InstalledPackage> generateListOfSoftware(List<String> cmd,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
 	{
-		List<String> softwareList = new ArrayList<>();
-		
-		ProcessBuilder processBuilder = new ProcessBuilder();
-		
-		processBuilder.command("bash", "-c", cmd);
+		List<InstalledPackage> softwareList = new ArrayList<>();
 		
+		try (PackageListIterator packages = streamListOfSoftware(cmd, linuxFlavor,
+				preProcessingString))
+		{
+			packages.forEachRemaining(softwareList::add);
+		}
+		return softwareList;
+	}
+	
+	/**
+	 * (U) This method is used to start listing the Software that is installed on this instance,
+	 * handing out each package as soon as the command lists it. The caller must close the
+	 * iterator, which kills the command if the list was not read to its end.
+	 * 
+	 * @param cmd                 List of Strings, the Unix command (and its arguments) that will
+	 *                            give us the list of software installed.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
+	 * @param preProcessingString String value used to tell us when to start looking for packages.
+	 * @return PackageListIterator over the Software installed on the server.
+	 * @throws SBomException in the event we are unable to start the command. Failing to read
+	 *                       the list, or the command failing, is thrown by the iterator.
+	 */
+	protected PackageListIterator streamListOfSoftware(List<String> cmd,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
+	{
 		try
 		{
-			Process process = processBuilder.start();
+			Process process = commandRunner.start(cmd);
 			
-			softwareList = processListOfSoftware(process, cmd, separator, preProcessingString);
+			return new PackageListIterator(this, new ProcessIOPump(process), cmd, linuxFlavor,
+					preProcessingString);
 		}
 		catch (IOException ioe)
 		{
 			String error = "Unable to build unix process to get list of installed software (" +
-					cmd + ")!";
+					String.join(" ", cmd) + ")!";
 			logger.error(error, ioe);
 			throw new SBomException(error, ioe);
 		}
-		return softwareList;
+	}
+	
+	/**
+	 * (U) This method is used to build the detail maps of every installed package, from the
+	 * output of the rpm bulk query. Fields are separated by the unit separator, and packages by
+	 * the record separator, so multi-line descriptions come through intact.
+	 * 
+	 * @param reader BufferedReader that contains the output to read.
+	 * @return Map keyed by the full name of each installed package (name-[epoch:]version-
+	 *         release.arch), containing its detail map.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> generateRedHatBulkDetailMaps(BufferedReader reader)
+	{
+		return (generateRedHatBulkDetailMaps(ByteLineReader.fromReader(reader,
+				(byte) RPM_RECORD_SEPARATOR)));
+	}
+	
+	/**
+	 * (U) This method is used to build the detail maps of every installed package, straight from
+	 * the bytes of the rpm bulk query. Only the fields we keep are decoded.
+	 * 
+	 * @param records ByteLineReader reading the output a package (record) at a time.
+	 * @return Map keyed by the full name of each installed package (name-[epoch:]version-
+	 *         release.arch), containing its detail map.
+	 * @throws SBomException if we can NOT read the output.
+	 */
+	private Map<String, Map<String, String>> generateRedHatBulkDetailMaps(ByteLineReader records)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		Set<String> fields = getDetailFields();
+		
+		try
+		{
+			while (records.nextLine())
+			{
+				Map<String, String> detailMap = new HashMap<>();
+				int length = records.length();
+				int from = 0;
+				
+				for (int field = 0; (field < RPM_BULK_FIELDS.length) && (from <= length); field++)
+				{
+					int to = records.indexOf(RPM_FIELD_SEPARATOR, from);
+					if (to < 0)
+						to = length;
+					
+					int start = records.skipWhitespace(from, to);
+					int end = records.trimEnd(start, to);
+					if ((start < end) && (!((end - start == RPM_NONE.length()) &&
+							(records.startsWith(RPM_NONE, start)))) && ((fields == null) ||
+									(fields.contains(RPM_BULK_FIELDS[field]))))
+						detailMap.put(RPM_BULK_FIELDS[field], records.getString(start, end));
+					from = to + 1;
+				}
+				addRedHatPackage(packages, detailMap);
+			}
+		}
+		catch (IOException ioe)
+		{
+			logger.error(DETAILS_ERROR, ioe);
+			throw new SBomException(DETAILS_ERROR, ioe);
+		}
+		return packages;
 	}
 	
 	/**
@@ -310,6 +697,21 @@ public class UnixSBomGenerator
 		return (generateDetailMap(reader, AVAILABLE_LINUX_FLAVORS.REDHAT));
 	}
 	
+	/**
+	 * (U) This method is used to build the detail maps of every installed package, from the
+	 * output of the dpkg-query bulk query. The query writes the same stanzas as the dpkg status
+	 * file, so it is parsed the same way.
+	 * 
+	 * @param reader BufferedReader that contains the output to read.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException if we can NOT read from the reader passed in.
+	 */
+	public Map<String, Map<String, String>> generateUbuntuBulkDetailMaps(BufferedReader reader)
+	{
+		return (new DpkgStatusReader(DpkgStatusReader.DPKG_STATUS_FILE, getDetailFields())
+				.readInstalledPackages(reader));
+	}
+	
 	/**
 	 * (U) This method is used to build the Map containing the fields and their values.
 	 * 
@@ -322,6 +724,58 @@ public class UnixSBomGenerator
 		return (generateDetailMap(reader, AVAILABLE_LINUX_FLAVORS.UBUNTU));
 	}
 	
+	/**
+	 * (U) This method is used to get the builder for the Package URLs of the installed packages.
+	 * It is created the first time it is needed, from the operating system we are running on.
+	 * 
+	 * @return PackageUrlBuilder the builder to use.
+	 */
+	protected synchronized PackageUrlBuilder getPackageUrlBuilder()
+	{
+		if (packageUrlBuilder == null)
+		{
+			String osId = null;
+			String osVersion = null;
+			try
+			{
+				CommandArchive replay = commandRunner.getReplay();
+				OperatingSystemUtils osUtils = (replay != null) ? new OperatingSystemUtils(
+						replay.getOsRelease()) : new OperatingSystemUtils();
+				osId = osUtils.getOsName();
+				osVersion = osUtils.getOsVersion();
+			}
+			catch (Exception e)
+			{
+				logger.warn("Unable to determine the operating system, Package URLs will not " +
+						"include the distro.", e);
+			}
+			packageUrlBuilder = new PackageUrlBuilder(osId, osVersion);
+		}
+		return packageUrlBuilder;
+	}
+	
+	/**
+	 * (U) This method is used to build a LicenseChoice Object from the license name a package
+	 * database records for a package (ie. "MIT", or "GPLv2+ and LGPLv2+").
+	 * 
+	 * @param licenseName String value of the license name.
+	 * @return LicenseChoice created from the name passed in, null if there is no name.
+	 */
+	public LicenseChoice parseLicenseName(String licenseName)
+	{
+		LicenseChoice licenseChoice = null;
+		
+		if ((licenseName != null) && (licenseName.trim().length() > 0))
+		{
+			License license = new License();
+			license.setName(licenseName.trim());
+			
+			licenseChoice = new LicenseChoice();
+			licenseChoice.addLicense(license);
+		}
+		return licenseChoice;
+	}
+	
 	/**
 	 * (U) This method is used to process the String into a LicenseChoice Object.
 	 * 
@@ -364,138 +818,191 @@ public class UnixSBomGenerator
 	}
 	
 	/**
-	 * (U) This method is used to process a Unix command's output.
+	 * (U) This method is used to parse a single line of the list of installed software.
+	 * <ul>
+	 * <li>Ubuntu (apt list --installed): "zip/focal,now 3.0-11build1 amd64 [installed]"</li>
+	 * <li>RedHat (yum list installed): "zip.x86_64 3.0-11.el7 @anaconda"</li>
+	 * <li>Alpine (apk list --installed): "zip-3.0-r8 x86_64 {zip} (Info-ZIP) [installed]", or
+	 * just the name ("apk info").</li>
+	 * </ul>
 	 * 
-	 * @param process     Process associated with the Unix command.
-	 * @param linuxFlavor Enumeration that tells us the linux version we are on.
-	 * @return Map containing the key value pairs about the software.
-	 * @throws SBomException in the event we can NOT produce the detail map of the software.
+	 * @param line        String value of the line to parse.
+	 * @param linuxFlavor Enumeration that tells us how to parse the line.
+	 * @return InstalledPackage the package on the line, null if the line is not a package.
 	 */
-	public Map<String, String> processDetailMapCommand(Process process,
-			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	public InstalledPackage parseListLine(String line, AVAILABLE_LINUX_FLAVORS linuxFlavor)
 	{
-		Map<String, String> detailMap = new HashMap<>();
-
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream())))
-		{
-			if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
-				detailMap = generateAlpineDetailMap(reader);
-			else if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
-				detailMap = generateRedHatDetailMap(reader);
-			else if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.UBUNTU))
-				detailMap = generateUbuntuDetailMap(reader);
-			
-			int exitVal = process.waitFor();
-			if (exitVal != 0)
-			{
-				String error = "Unexpected process exit value (" + exitVal + "), while " +
-						"attempting to generate the Detail Map!";
-				logger.error(error);
-				throw new SBomException(error);
-			}
-		}
-		catch (SBomException sbom)
+		try (ByteLineReader lines = ByteLineReader.fromString(line))
 		{
-			throw sbom;
+			return (lines.nextLine() ? parseListLine(lines, linuxFlavor) : null);
 		}
-		catch (Exception e)
+		catch (IOException ioe)
 		{
-			String error = "Unexpected error while attempting to software details!";
-			logger.error(error, e);
-			throw new SBomException(error, e);
+			// Reading from a String does not fail.
+			throw new SBomException("Unable to parse line (" + line + ")!", ioe);
 		}
-		return detailMap;
 	}
 	
 	/**
-	 * (U) This method is used to run a Unix command, and process its output.
+	 * (U) This method is used to parse the current line of the list of installed software,
+	 * straight from its bytes.
 	 * 
-	 * @param reader              BufferedReader to read the output.
-	 * @param separator           character value for the separator, used to tell us where to stop
-	 *                            the package at.
-	 * @param preProcessingString String value used to tell us when to start looking for packages.
-	 * @return List of String for the Software found.
-	 * @throws SBomException if we are unable to get the list of software.
+	 * @param lines       ByteLineReader positioned on the line to parse.
+	 * @param linuxFlavor Enumeration that tells us how to parse the line.
+	 * @return InstalledPackage the package on the line, null if the line is not a package.
 	 */
-	public List<String> processListCmdOutput(BufferedReader reader, char separator,
-			String preProcessingString)
+	InstalledPackage parseListLine(ByteLineReader lines,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
 	{
-		List<String> softwareList = new ArrayList<>();
-		
-		String line;
-		int index = 0;
-		boolean preProcessed = false;
-		
-		if (preProcessingString == null)
-			preProcessed = true;
-		
-		try
+		if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.UBUNTU))
 		{
-			while ((line = reader.readLine()) != null)
+			int index = lines.indexOf('/');
+			if (index <= 0)
+				return null;
+			
+			int[] fields = findFields(lines, index + 1, 3);
+			String repo = getField(lines, fields, 0);
+			return new InstalledPackage(lines.getString(0, index), getField(lines, fields, 1),
+					getField(lines, fields, 2), (repo == null) ? "" : repo);
+		}
+		else if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
+		{
+			if (lines.indexOf(' ') <= 0)
+				return null;
+			
+			int[] fields = findFields(lines, 0, 3);
+			String nameArch = getField(lines, fields, 0);
+			int index = nameArch.lastIndexOf('.');
+			return new InstalledPackage(nameArch, getField(lines, fields, 1),
+					(index > 0) ? nameArch.substring(index + 1) : null,
+					getField(lines, fields, 2));
+		}
+		else
+		{
+			if (lines.isBlank())
+				return null;
+			
+			int[] fields = findFields(lines, 0, 2);
+			String nameVersion = getField(lines, fields, 0);
+			String arch = getField(lines, fields, 1);
+			if (arch == null)
+				return new InstalledPackage(nameVersion, null, null, null);
+			
+			int index = findAlpineVersionStart(nameVersion);
+			if (index < 0)
+				return new InstalledPackage(nameVersion, null, arch, null);
+			
+			return new InstalledPackage(nameVersion.substring(0, index - 1),
+					nameVersion.substring(index), arch, null);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to process the output of a Unix command that queries a batch of
+	 * packages at once.
+	 * 
+	 * @param process     Process associated with the Unix command.
+	 * @param linuxFlavor Enumeration that tells us the linux version we are on.
+	 * @return Map keyed by software name, containing the detail map of each package found.
+	 * @throws SBomException in the event we can NOT produce the detail maps.
+	 */
+	public Map<String, Map<String, String>> processBatchedDetailMapCommand(Process process,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		ProcessIOPump pump = new ProcessIOPump(process);
+		
+		try
+		{
+			if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
 			{
-				if(!line.trim().startsWith("WARNING:"))
-				{	
-					if (preProcessed)
-					{
-						if(separator == '\n')
-							index = line.length();
-						else
-							index = line.indexOf(separator);
-						if (index > 0)
-						{
-							line = line.substring(0, index);
-							softwareList.add(line);
-						}
-					}
-					else if (line.startsWith(preProcessingString))
-					{
-						preProcessed = true;
-					}
+				try (BufferedReader reader = pump.getOutputReader())
+				{
+					packages = generateAlpineBulkDetailMaps(reader);
+				}
+			}
+			else
+			{
+				try (ByteLineReader lines = pump.getOutputLines())
+				{
+					packages = generateBatchedDetailMaps(lines, linuxFlavor,
+							getQueryTimings());
 				}
-				else
-					logger.info("Ignoring line for package! (" + line + ").");
+			}
+			
+			int exitVal = pump.waitFor();
+			if (exitVal != 0)
+			{
+				String error = "Unexpected process exit value (" + exitVal + "), while " +
+						"attempting to generate the Detail Maps of a batch of packages!";
+				logger.error(error);
+				logErrorOutput(pump);
+				throw new SBomException(error);
 			}
 		}
-		catch (IOException ioe)
+		catch (SBomException sbom)
 		{
-			String error = "Unable to process output from unix process to get list of installed " +
-					"software on the server!";
-			logger.error(error, ioe);
-			throw new SBomException(error, ioe);
+			throw sbom;
 		}
-		return softwareList;
+		catch (Exception e)
+		{
+			String error = "Unexpected error while attempting to get the details of a batch of " +
+					"packages!";
+			logger.error(error, e);
+			throw new SBomException(error, e);
+		}
+		return packages;
 	}
 	
 	/**
-	 * (U) This method process the output of the Unix Command, that is used to build the list of
-	 * software.
+	 * (U) This method is used to process the output of a Unix command that queries every
+	 * installed package at once.
 	 * 
-	 * @param process             Unix Process to generate the list of software from.
-	 * @param cmd                 String value of the command we are running.
-	 * @param separator           Character that tells us the separator used in the output of the
-	 *                            Unix command.
-	 * @param preProcessingString String value that helps us parse the output of the Unix command.
-	 * @return List of Strings that make up the list of software.
-	 * @throws SBomException in the event we are unable to process the output of the Unix command.
+	 * @param process     Process associated with the Unix command.
+	 * @param linuxFlavor Enumeration that tells us the linux version we are on.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException in the event we can NOT produce the detail maps.
 	 */
-	public List<String> processListOfSoftware(Process process, String cmd, char separator,
-			String preProcessingString)
+	public Map<String, Map<String, String>> processBulkDetailMapCommand(Process process,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
 	{
-		List<String> softwareList = new ArrayList<>();
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		ProcessIOPump pump = new ProcessIOPump(process);
 		
-		try (BufferedReader reader = new BufferedReader(
-				new InputStreamReader(process.getInputStream())))
+		try
 		{
-			softwareList = processListCmdOutput(reader, separator, preProcessingString);
+			if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
+			{
+				try (BufferedReader reader = pump.getOutputReader())
+				{
+					packages = generateAlpineBulkDetailMaps(reader);
+				}
+			}
+			else if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
+			{
+				try (ByteLineReader records = pump.getOutputLines((byte) RPM_RECORD_SEPARATOR))
+				{
+					packages = generateRedHatBulkDetailMaps(records);
+				}
+			}
+			else
+			{
+				try (ByteLineReader lines = pump.getOutputLines())
+				{
+					packages = new DpkgStatusReader(DpkgStatusReader.DPKG_STATUS_FILE,
+							getDetailFields()).readInstalledPackages(lines);
+				}
+			}
 			
-			int exitVal = process.waitFor();
+			int exitVal = pump.waitFor();
 			if (exitVal != 0)
 			{
 				String error = "Unexpected process exit value (" + exitVal + "), while " +
-						"attempting to get the list of software installed (" +
-						cmd + ")!";
+						"attempting to generate the Detail Maps of every installed package!";
 				logger.error(error);
+				logErrorOutput(pump);
 				throw new SBomException(error);
 			}
 		}
@@ -504,48 +1011,315 @@ public class UnixSBomGenerator
 			throw sbom;
 		}
 		catch (Exception e)
+		{
+			String error = "Unexpected error while attempting to get the details of every " +
+					"installed package!";
+			logger.error(error, e);
+			throw new SBomException(error, e);
+		}
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to process a Unix command's output.
+	 * 
+	 * @param process     Process associated with the Unix command.
+	 * @param linuxFlavor Enumeration that tells us the linux version we are on.
+	 * @return Map containing the key value pairs about the software.
+	 * @throws SBomException in the event we can NOT produce the detail map of the software.
+	 */
+	public Map<String, String> processDetailMapCommand(Process process,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		Map<String, String> detailMap = new HashMap<>();
+
+		ProcessIOPump pump = new ProcessIOPump(process);
+		boolean stoppedEarly = false;
+		
+		try
+		{
+			if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.ALPINE))
+			{
+				try (BufferedReader reader = pump.getOutputReader())
+				{
+					detailMap = generateAlpineDetailMap(reader);
+				}
+			}
+			else
+			{
+				DetailMapParser parser = new DetailMapParser(linuxFlavor.equals(
+						AVAILABLE_LINUX_FLAVORS.REDHAT), getDetailFields(),
+						getRequiredDetailFields());
+				try (ByteLineReader lines = pump.getOutputLines())
+				{
+					stoppedEarly = parseDetailMap(lines, parser, linuxFlavor);
+				}
+				detailMap = parser.finish();
+			}
+			
+			// We have every field we want, the rest of the output is not worth waiting for.
+			if (stoppedEarly)
+				pump.stop();
+			else
+			{
+				int exitVal = pump.waitFor();
+				if (exitVal != 0)
+				{
+					String error = "Unexpected process exit value (" + exitVal + "), while " +
+							"attempting to generate the Detail Map!";
+					logger.error(error);
+					logErrorOutput(pump);
+					throw new SBomException(error);
+				}
+			}
+		}
+		catch (SBomException sbom)
+		{
+			throw sbom;
+		}
+		catch (Exception e)
+		{
+			String error = "Unexpected error while attempting to software details!";
+			logger.error(error, e);
+			throw new SBomException(error, e);
+		}
+		return detailMap;
+	}
+	
+	/**
+	 * (U) This method is used to run a Unix command, and process its output. Each line of the
+	 * listing becomes a package, with whatever the listing shows about it (version,
+	 * architecture, repository), so we do not have to ask about each one later.
+	 * 
+	 * @param reader              BufferedReader to read the output.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the list.
+	 * @param preProcessingString String value used to tell us when to start looking for packages.
+	 * @return List of InstalledPackage for the Software found.
+	 * @throws SBomException if we are unable to get the list of software.
+	 */
+	public List<InstalledPackage> processListCmdOutput(BufferedReader reader,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
+	{
+		List<InstalledPackage> softwareList = new ArrayList<>();
+		
+		new PackageListIterator(this, ByteLineReader.fromReader(reader), linuxFlavor,
+				preProcessingString).forEachRemaining(softwareList::add);
+		return softwareList;
+	}
+	
+	/**
+	 * (U) This method process the output of the Unix Command, that is used to build the list of
+	 * software.
+	 * 
+	 * @param process             Unix Process to generate the list of software from.
+	 * @param cmd                 List of Strings, the command (and its arguments) we are running.
+	 * @param linuxFlavor         Enumeration that tells us how to parse the output of the Unix
+	 *                            command.
+	 * @param preProcessingString String value that helps us parse the output of the Unix command.
+	 * @return List of InstalledPackage that make up the list of software.
+	 * @throws SBomException in the event we are unable to process the output of the Unix command.
+	 */
+	public List<InstalledPackage> processListOfSoftware(Process process, List<String> cmd,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor, String preProcessingString)
+	{
+		List<InstalledPackage> softwareList = new ArrayList<>();
+		
+		try (PackageListIterator packages = new PackageListIterator(this,
+				new ProcessIOPump(process), cmd, linuxFlavor, preProcessingString))
+		{
+			packages.forEachRemaining(softwareList::add);
+		}
+		catch (SBomException sbom)
+		{
+			throw sbom;
+		}
+		catch (Exception e)
 		{
 			String error = "Unexpected error while attempting to get the list of " +
-					"software installed (" + cmd + ")!";
+					"software installed (" + String.join(" ", cmd) + ")!";
 			logger.error(error, e);
 			throw new SBomException(error, e);
 		}
 		return softwareList;
 	}
 	
+	/**
+	 * (U) This method is used to produce the Detail Maps of many packages, by giving their names
+	 * to as few commands as we can (ie. "apt show a b c"), rather than running a command per
+	 * package. The names are split into batches small enough to never go over the limit on the
+	 * size of a command's arguments, and enough of them to keep our threads busy. The batches
+	 * are run at once, the same way Components are created.
+	 * 
+	 * A batch that fails is logged, and its packages left out, so the caller can ask about each
+	 * of them on its own.
+	 * 
+	 * @param cmd         List of Strings, the command (and its arguments) every batch shares.
+	 * @param software    List of Strings, the package names (or other per-package arguments).
+	 * @param linuxFlavor Enumeration that tells us how to parse the results.
+	 * @return Map keyed by software name, containing the detail map of each package found.
+	 * @throws SBomException if we are interrupted while running the batches.
+	 */
+	protected Map<String, Map<String, String>> produceBatchedDetailMaps(List<String> cmd,
+			List<String> software, AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		if (software.isEmpty())
+			return packages;
+		
+		int batchThreads = Integer.parseInt(getReplayedSetting(BATCH_THREADS_SETTING,
+				Integer.toString(getThreads())));
+		int batchSize = Math.max(1, (software.size() + (batchThreads * BATCHES_PER_THREAD) - 1) /
+				(batchThreads * BATCHES_PER_THREAD));
+		List<List<String>> batches = getCommandBatcher().batch(cmd, software, batchSize);
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Querying " + software.size() + " packages in " + batches.size() +
+					" batches via: " + String.join(" ", cmd));
+		
+		for (Map<String, Map<String, String>> batchPackages : pipelineRunner.runConcurrently(
+				batches.iterator(), batch -> produceBatchDetailMaps(cmd, batch, linuxFlavor),
+				"query the batches of packages"))
+		{
+			if (batchPackages != null)
+				packages.putAll(batchPackages);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + packages.size() + " of " + software.size() + " packages.");
+		
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to produce the Detail Maps of a batch of packages, on the thread we
+	 * are on. As many of them as fit go to each command, and the commands run one after another.
+	 * A command that fails is logged, and its packages left out, so the caller can ask about
+	 * each of them on its own.
+	 * 
+	 * @param cmd         List of Strings, the command (and its arguments) every command shares.
+	 * @param software    List of Strings, the package names (or other per-package arguments).
+	 * @param linuxFlavor Enumeration that tells us how to parse the results.
+	 * @return Map keyed by software name, containing the detail map of each package found.
+	 */
+	protected Map<String, Map<String, String>> produceDetailMaps(List<String> cmd,
+			List<String> software, AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		if (software.isEmpty())
+			return packages;
+		
+		for (List<String> batch : getCommandBatcher().batch(cmd, software, software.size()))
+			packages.putAll(produceBatchDetailMaps(cmd, batch, linuxFlavor));
+		return packages;
+	}
+	
+	/**
+	 * (U) This method is used to get the CommandBatcher to split package names between commands
+	 * with. When replaying, it splits them with the argument size limit of the host the scan was
+	 * recorded on, rather than ours.
+	 * 
+	 * @return CommandBatcher to use.
+	 */
+	private CommandBatcher getCommandBatcher()
+	{
+		long limit = Long.parseLong(getReplayedSetting(ARGUMENT_LIMIT_SETTING,
+				Long.toString(commandBatcher.getLimit())));
+		return (limit == commandBatcher.getLimit()) ? commandBatcher : new CommandBatcher(limit);
+	}
+	
+	/**
+	 * (U) This method is used to get a setting that decides which commands are run (ie. how
+	 * package names are split between them). Replaying, commands are looked up by their exact
+	 * arguments, so the value recorded with them is used in place of ours. Recording, our value
+	 * is recorded.
+	 * 
+	 * @param name  String name of the setting.
+	 * @param value String value of the setting on this host.
+	 * @return String value of the setting to use.
+	 */
+	protected String getReplayedSetting(String name, String value)
+	{
+		CommandArchive replay = commandRunner.getReplay();
+		if (replay != null)
+		{
+			String recorded = replay.getSetting(name);
+			return (recorded == null) ? value : recorded;
+		}
+		
+		CommandArchive recorder = commandRunner.getRecorder();
+		if (recorder != null)
+			recorder.setSetting(name, value);
+		return value;
+	}
+	
+	/**
+	 * (U) This method is used to produce the Detail Maps of every installed package, with a
+	 * single Unix command, rather than one (or more) command per package.
+	 * 
+	 * @param cmd         List of Strings, the command (and its arguments) to run.
+	 * @param linuxFlavor Enumeration that tells us how to parse the results.
+	 * @return Map keyed by software name, containing the detail map of each installed package.
+	 * @throws SBomException in the event we can NOT produce the detail maps.
+	 */
+	protected Map<String, Map<String, String>> produceBulkDetailMaps(List<String> cmd,
+			AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		Map<String, Map<String, String>> packages = new LinkedHashMap<>();
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Querying every installed package via: " + String.join(" ", cmd));
+		
+		try
+		{
+			Process process = commandRunner.start(cmd);
+			packages = processBulkDetailMapCommand(process, linuxFlavor);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Unable to build unix process to get the details of every installed " +
+					"package (" + String.join(" ", cmd) + ")!";
+			logger.error(error, ioe);
+			throw new SBomException(error, ioe);
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Found " + packages.size() + " installed packages.");
+		
+		return packages;
+	}
+	
 	/**
 	 * U) This method is used to produce a Detail Map of the Software in question. This will be used
 	 * to create a CycloneDx Component.
 	 * 
-	 * @param cmd         String value of the command to run.
+	 * @param cmd         List of Strings, the command (and its arguments) to run.
 	 * @param linuxFlavor Enumeration that tells us how to parse the results.
 	 * @return Map containing the key value pairs about the software.
 	 * @throws SBomException in the event we can NOT produce the detail map of the software.
 	 */
-	protected Map<String, String> produceDetailMap(String cmd,
+	protected Map<String, String> produceDetailMap(List<String> cmd,
 			AVAILABLE_LINUX_FLAVORS linuxFlavor)
 	{
 		Map<String, String> detailMap = new HashMap<>();
 		
-		ProcessBuilder processBuilder = new ProcessBuilder();
-		
-		processBuilder.command("bash", "-c", cmd);
-		
 		try
 		{
-			Process process = processBuilder.start();
+			Process process = commandRunner.query(cmd);
 			detailMap = processDetailMapCommand(process, linuxFlavor);
 		}
 		catch (SBomException sbe)
 		{
 			String error = "Unable to process Unix Command's output while attempting to get the " +
-					"software details (" + cmd + ")!";
+					"software details (" + String.join(" ", cmd) + ")!";
 			logger.error(error, sbe);
 			throw sbe;
 		}
 		catch (IOException ioe)
 		{
-			String error = "Unable to build unix process to get software details (" + cmd + ")!";
+			String error = "Unable to build unix process to get software details (" +
+					String.join(" ", cmd) + ")!";
 			logger.error(error, ioe);
 			throw new SBomException(error, ioe);
 		}
@@ -553,25 +1327,791 @@ public class UnixSBomGenerator
 	}
 	
 	/**
-	 * (U) This method is used to add the Unix Package Manger that created this component.
+	 * (U) This method is used to get how long a single Unix command may run before it is killed.
 	 * 
-	 * @param component      Component to add the package manager to.
-	 * @param packageManager String value that tells us which package manager was used.
-	 * @return Component the update Component with the package manager added to it.
+	 * @return int the timeout in seconds, 0 if commands may run as long as they like.
 	 */
-	public Component addPackageManager(Component component, String packageManager)
+	public int getCommandTimeout()
 	{
-		Property packageManagerProperty = new Property();
-		packageManagerProperty.setName("unixPropertyManager");
-		packageManagerProperty.setValue(packageManager);
-		
-		List<Property> properties = component.getProperties();
-		if (properties == null)
-			properties = new ArrayList<>();
-		properties.add(packageManagerProperty);
-		
-		component.setProperties(properties);
-		
-		return component;
+		return (int) TimeUnit.MILLISECONDS.toSeconds(commandRunner.getTimeoutMillis());
+	}
+	
+	/**
+	 * (U) This method is used to set how long a single Unix command may run before it is killed,
+	 * along with every process it started. The package we were looking up when it was killed
+	 * fails the same way it would if the command had failed. Defaults to five minutes.
+	 * 
+	 * @param seconds int the timeout in seconds, 0 to let commands run as long as they like.
+	 * @throws SBomException if the timeout is negative.
+	 */
+	public void setCommandTimeout(int seconds)
+	{
+		if (seconds < 0)
+		{
+			String error = "Invalid command timeout (" + seconds + "), must not be negative!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		commandRunner.setTimeoutMillis(TimeUnit.SECONDS.toMillis(seconds));
+	}
+	
+	/**
+	 * (U) This method is used to set how long, from now, the scan may take. Once the deadline
+	 * passes, the Unix commands still running are killed, and no more packages are looked up.
+	 * The SBOM holds the Components finished by then, and its metadata names the packages that
+	 * were not.
+	 * 
+	 * @param seconds int the number of seconds the scan may take, must be at least 1.
+	 * @throws SBomException if the number of seconds is less than 1.
+	 */
+	public void setDeadline(int seconds)
+	{
+		if (seconds < 1)
+		{
+			String error = "Invalid deadline (" + seconds + "), must be at least 1 second!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		pipelineRunner.setDeadline(deadlineNanos);
+		commandRunner.setDeadline(deadlineNanos);
+	}
+	
+	/**
+	 * (U) This method is used to get the packages the deadline left unfinished.
+	 * 
+	 * @return List of Strings, the names of the unfinished packages.
+	 */
+	public List<String> getUnfinishedSoftware()
+	{
+		return pipelineRunner.getUnfinishedSoftware();
+	}
+	
+	/**
+	 * (U) This method is used to get the packages a stage of the pipeline failed on, every time
+	 * they were tried.
+	 * 
+	 * @return List of Strings, the names of the failed packages.
+	 */
+	public List<String> getFailedSoftware()
+	{
+		return pipelineRunner.getFailedSoftware();
+	}
+	
+	/**
+	 * (U) This method is used to get how many times the packages a stage failed on are tried
+	 * again.
+	 * 
+	 * @return int the number of retries.
+	 */
+	public int getRetryFailed()
+	{
+		return pipelineRunner.getRetryFailed();
+	}
+	
+	/**
+	 * (U) This method is used to set how many times the packages a stage failed on are tried
+	 * again, once every package has been through the pipeline. Only the failed packages are
+	 * looked up again, not the whole scan.
+	 * 
+	 * @param retryFailed int the number of retries, 0 for none.
+	 * @throws SBomException if the number of retries is negative.
+	 */
+	public void setRetryFailed(int retryFailed)
+	{
+		pipelineRunner.setRetryFailed(retryFailed);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the deadline cut the scan short.
+	 * 
+	 * @return boolean true if the SBOM is missing packages because of the deadline.
+	 */
+	public boolean isIncomplete()
+	{
+		return pipelineRunner.isIncomplete();
+	}
+	
+	/**
+	 * (U) This method is used to tell if the deadline has passed.
+	 * 
+	 * @return boolean true if there is a deadline, and it has passed.
+	 */
+	public boolean isPastDeadline()
+	{
+		return pipelineRunner.isPastDeadline();
+	}
+	
+	/**
+	 * (U) This method is used to tell if the Unix commands are run with low impact.
+	 * 
+	 * @return boolean true if they are.
+	 */
+	public boolean isLowImpact()
+	{
+		return commandRunner.getLowImpactPolicy() != null;
+	}
+	
+	/**
+	 * (U) This method is used to run the Unix commands with low impact, for scanning a live
+	 * server. They are run at the lowest CPU and disk priority, and no more than
+	 * LOW_IMPACT_SPAWN_RATE are started per second (unless the spawn rate has already been set).
+	 * 
+	 * @param lowImpact boolean true to run the commands with low impact, false to run them as is.
+	 */
+	public void setLowImpact(boolean lowImpact)
+	{
+		setLowImpact(lowImpact, null, LowImpactPolicy.DEFAULT_CPU_PERCENT);
+	}
+	
+	/**
+	 * (U) This method is used to run the Unix commands with low impact, for scanning a live
+	 * server. They are run at the lowest CPU and disk priority, in a cgroup with a CPU quota
+	 * under the one delegated to us (if it allows one), and no more than LOW_IMPACT_SPAWN_RATE
+	 * are started per second (unless the spawn rate has already been set).
+	 * 
+	 * @param lowImpact  boolean true to run the commands with low impact, false to run them as
+	 *                   is.
+	 * @param delegated  Path of a cgroup (v2) delegated to us, null to not use a cgroup.
+	 * @param cpuPercent int percent of a processor the commands in the cgroup may use.
+	 * @throws SBomException if the percent is not positive.
+	 */
+	public void setLowImpact(boolean lowImpact, Path delegated, int cpuPercent)
+	{
+		LowImpactPolicy policy = commandRunner.getLowImpactPolicy();
+		if (policy != null)
+		{
+			commandRunner.setLowImpactPolicy(null);
+			policy.close();
+		}
+		
+		if (lowImpact)
+		{
+			commandRunner.setLowImpactPolicy(new LowImpactPolicy(delegated, cpuPercent));
+			if (getSpawnRate() == 0)
+				setSpawnRate(LOW_IMPACT_SPAWN_RATE);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to get the most Unix commands started per second.
+	 * 
+	 * @return int the rate, 0 if it is not limited.
+	 */
+	public int getSpawnRate()
+	{
+		return commandRunner.getSpawnRate();
+	}
+	
+	/**
+	 * (U) This method is used to set the most Unix commands to start per second, so the load
+	 * the scan puts on the host stays steady. Starts are spread out evenly over each second.
+	 * 
+	 * @param perSecond int the rate, 0 to not limit it.
+	 * @throws SBomException if the rate is negative.
+	 */
+	public void setSpawnRate(int perSecond)
+	{
+		if (perSecond < 0)
+		{
+			String error = "Invalid spawn rate (" + perSecond + "), must not be negative!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		commandRunner.setSpawnRate(perSecond);
+	}
+	
+	/**
+	 * (U) This method is used to tell if quick per-package queries are sent to shell sessions.
+	 * 
+	 * @return boolean true if they are, false if a process is started for each one.
+	 */
+	public boolean isShellSessions()
+	{
+		return commandRunner.isUsingSessions();
+	}
+	
+	/**
+	 * (U) This method is used to send the quick per-package queries to a long lived shell
+	 * session per thread, saving a process start per query, rather than starting each one as a
+	 * process of its own (the default).
+	 * 
+	 * @param shellSessions boolean true to send queries to shell sessions.
+	 */
+	public void setShellSessions(boolean shellSessions)
+	{
+		commandRunner.setUsingSessions(shellSessions);
+	}
+	
+	/**
+	 * (U) This method is used to record every Unix command run, and its response, along with
+	 * every file read, so the scan can be replayed later. The package databases are not read
+	 * while recording, so every package is found through the commands.
+	 * 
+	 * @param recorder CommandArchive to record in, null to stop recording.
+	 */
+	public void setRecorder(CommandArchive recorder)
+	{
+		commandRunner.setRecorder(recorder);
+	}
+	
+	/**
+	 * (U) This method is used to replay a recorded scan. Every Unix command is answered from the
+	 * archive, and every file is read from it, so no process is started and the host's packages
+	 * play no part.
+	 * 
+	 * @param replay CommandArchive to replay, null to scan the host again.
+	 */
+	public void setReplay(CommandArchive replay)
+	{
+		commandRunner.setReplay(replay);
+	}
+	
+	/**
+	 * (U) This method is used to get the number of packages we look up at once.
+	 * 
+	 * @return int the number of threads.
+	 */
+	public int getThreads()
+	{
+		return pipelineRunner.getThreads();
+	}
+	
+	/**
+	 * (U) This method is used to set the most packages we look up at once. Most of the time
+	 * spent looking up a package is spent waiting on the package manager, so looking up several
+	 * at once cuts the time it takes to build the SBOM. How many actually run at once adapts to
+	 * the package manager, up to this many. Defaults to the number of available processors.
+	 * 
+	 * @param threads int the number of threads, must be at least 1.
+	 * @throws SBomException if the number of threads is less than 1.
+	 */
+	public void setThreads(int threads)
+	{
+		pipelineRunner.setThreads(threads);
+	}
+	
+	/**
+	 * (U) This method is used to get the most batches of packages left waiting on a stage of the
+	 * pipeline.
+	 * 
+	 * @param stage String value of the stage, one of PipelineRunner.PIPELINE_STAGES.
+	 * @return int the queue depth of the stage.
+	 */
+	public int getQueueDepth(String stage)
+	{
+		return pipelineRunner.getQueueDepth(stage);
+	}
+	
+	/**
+	 * (U) This method is used to set the most batches of packages left waiting on every stage of
+	 * the pipeline. Defaults to PipelineRunner.DEFAULT_QUEUE_DEPTH.
+	 * 
+	 * @param queueDepth int the queue depth, must be at least 1.
+	 * @throws SBomException if the queue depth is less than 1.
+	 */
+	public void setQueueDepth(int queueDepth)
+	{
+		for (String stage : PipelineRunner.PIPELINE_STAGES)
+			setQueueDepth(stage, queueDepth);
+	}
+	
+	/**
+	 * (U) This method is used to set the most batches of packages left waiting on a stage of the
+	 * pipeline. Once its queue is full, the stage before it waits for room, so a deeper queue
+	 * lets the stages before a slow one run further ahead of it, at the cost of holding more
+	 * packages at once. The pipeline's statistics, logged once it is done, show how deep each
+	 * queue got.
+	 * 
+	 * @param stage      String value of the stage, one of PipelineRunner.PIPELINE_STAGES.
+	 * @param queueDepth int the queue depth, must be at least 1.
+	 * @throws SBomException if the stage is unknown, or the queue depth is less than 1.
+	 */
+	public void setQueueDepth(String stage, int queueDepth)
+	{
+		pipelineRunner.setQueueDepth(stage, queueDepth);
+	}
+	
+	/**
+	 * (U) This method is used to get the query timings kept from one scan to the next.
+	 * 
+	 * @return QueryTimings the timings, null if we do not keep them.
+	 */
+	public QueryTimings getQueryTimings()
+	{
+		return pipelineRunner.getQueryTimings();
+	}
+	
+	/**
+	 * (U) This method is used to set the query timings kept from one scan to the next. How long
+	 * each package takes to look up is recorded in them, and saved once the scan is done. Those
+	 * from earlier scans decide the order the packages are looked up in, longest expected
+	 * first within each PipelineRunner.SCHEDULE_WINDOW packages listed.
+	 * 
+	 * @param queryTimings QueryTimings to use, null to not keep any.
+	 */
+	public void setQueryTimings(QueryTimings queryTimings)
+	{
+		pipelineRunner.setQueryTimings(queryTimings);
+	}
+	
+	/**
+	 * (U) This method is used to get the checkpoint journal of the packages whose Components have
+	 * been built.
+	 * 
+	 * @return CheckpointJournal the journal, null if we do not keep one.
+	 */
+	public CheckpointJournal getJournal()
+	{
+		return pipelineRunner.getJournal();
+	}
+	
+	/**
+	 * (U) This method is used to set the checkpoint journal of the packages whose Components have
+	 * been built. Packages already in it, at the version listed now, are not looked up again,
+	 * and it is closed once the scan is done.
+	 * 
+	 * @param journal CheckpointJournal to use, null to not keep one.
+	 */
+	public void setJournal(CheckpointJournal journal)
+	{
+		pipelineRunner.setJournal(journal);
+	}
+	
+	/**
+	 * (U) This method is used to get the fields of a package's details that we keep. The
+	 * parsers skip every other field the package manager prints, without decoding it. Each
+	 * generator overrides this with the fields its package manager prints, that it or
+	 * createComponents() reads.
+	 * 
+	 * @return Set of the field names to keep, null to keep every field.
+	 */
+	protected Set<String> getDetailFields()
+	{
+		return null;
+	}
+	
+	/**
+	 * (U) This method is used to get the fields kept that the package manager prints for every
+	 * package. Reading about a single package stops once we have all of these, so a field that
+	 * is only printed for some packages must not be one of them, or we would always read to the
+	 * end of the output. Generators whose package manager may leave fields out override this.
+	 * 
+	 * @return Set of the field names always printed, null to keep every field.
+	 */
+	protected Set<String> getRequiredDetailFields()
+	{
+		return getDetailFields();
+	}
+	
+	/**
+	 * (U) This method is used to tell if a file exists (ie. a license file). When recording, the
+	 * answer (and the file's content) is recorded. When replaying, it comes from the archive.
+	 * 
+	 * @param path String path of the file.
+	 * @return boolean true if the file exists.
+	 */
+	protected boolean fileExists(String path)
+	{
+		CommandArchive replay = commandRunner.getReplay();
+		if (replay != null)
+			return replay.hasFile(path);
+		
+		if (commandRunner.getRecorder() == null)
+			return Files.isRegularFile(Paths.get(path));
+		
+		try
+		{
+			readFile(path);
+			return true;
+		}
+		catch (IOException ioe)
+		{
+			return false;
+		}
+	}
+	
+	/**
+	 * (U) This method is used to tell if a package database may be read. It is not read while
+	 * recording or replaying, since only the Unix commands and the files we read are in the
+	 * archive.
+	 * 
+	 * @param reader PackageDatabaseReader to check.
+	 * @return boolean true if the database may be read.
+	 */
+	protected boolean isDatabaseReadable(PackageDatabaseReader reader)
+	{
+		if ((commandRunner.getRecorder() != null) || (commandRunner.getReplay() != null))
+			return false;
+		return reader.isAvailable();
+	}
+	
+	/**
+	 * (U) This method is used to run a query about a single package, recording how long it took
+	 * in the query timings (if we keep them).
+	 * 
+	 * @param <R>      Type of the query's result.
+	 * @param software String value of the package the query is about.
+	 * @param query    Supplier that runs the query.
+	 * @return R the result of the query.
+	 * @throws SBomException if the query fails.
+	 */
+	protected <R> R timeQuery(String software, Supplier<R> query)
+	{
+		QueryTimings queryTimings = getQueryTimings();
+		if (queryTimings == null)
+			return query.get();
+		
+		long startTime = System.nanoTime();
+		try
+		{
+			return query.get();
+		}
+		finally
+		{
+			queryTimings.record(software, System.nanoTime() - startTime);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read a file (ie. a license file). When recording, its content
+	 * is recorded (or that it does not exist). When replaying, it comes from the archive.
+	 * 
+	 * @param path String path of the file.
+	 * @return byte array of the file's content.
+	 * @throws IOException if we are unable to read the file.
+	 */
+	protected byte[] readFile(String path) throws IOException
+	{
+		CommandArchive replay = commandRunner.getReplay();
+		if (replay != null)
+			return replay.readFile(path);
+		
+		CommandArchive recorder = commandRunner.getRecorder();
+		try
+		{
+			byte[] content = Files.readAllBytes(Paths.get(path));
+			if (recorder != null)
+				recorder.addFile(path, content);
+			return content;
+		}
+		catch (NoSuchFileException nsfe)
+		{
+			if (recorder != null)
+				recorder.addFile(path, null);
+			throw nsfe;
+		}
+	}
+	
+	/**
+	 * (U) This method is used to log what a failed Unix command wrote to its standard error.
+	 * 
+	 * @param pump ProcessIOPump that drained the command's output.
+	 */
+	protected void logErrorOutput(ProcessIOPump pump)
+	{
+		String errors = pump.getErrorOutput();
+		if (!errors.isEmpty())
+			logger.warn("Process error output: " + errors);
+	}
+	
+	/**
+	 * (U) This method is used to record, in the SBOM's metadata, that the deadline cut the scan
+	 * short, and which packages it left unfinished, along with the packages that failed. An
+	 * SBOM that is complete, without failures, is left as is.
+	 * 
+	 * @param bom Bom to add the scan status to.
+	 */
+	protected void addScanStatus(Bom bom)
+	{
+		List<String> failed = getFailedSoftware();
+		boolean incomplete = isIncomplete();
+		if ((!incomplete) && (failed.isEmpty()))
+			return;
+		
+		Metadata metadata = bom.getMetadata();
+		if (metadata == null)
+		{
+			metadata = new Metadata();
+			bom.setMetadata(metadata);
+		}
+		
+		List<Property> properties = metadata.getProperties();
+		if (properties == null)
+			properties = new ArrayList<>();
+		
+		if (incomplete)
+		{
+			properties.add(createProperty("unixSbomGenerator:incomplete", "true"));
+			for (String software : getUnfinishedSoftware())
+				properties.add(createProperty("unixSbomGenerator:unfinished", software));
+		}
+		for (String software : failed)
+			properties.add(createProperty("unixSbomGenerator:failed", software));
+		
+		metadata.setProperties(properties);
+	}
+	
+	/**
+	 * (U) This method is used when the scan fails. If the deadline has passed, that is why, so
+	 * we carry on with what we have. Otherwise the failure is passed on.
+	 * 
+	 * @param sbe SBomException the scan failed with.
+	 * @throws SBomException the exception passed in, unless the deadline has passed.
+	 */
+	protected void checkDeadline(SBomException sbe)
+	{
+		pipelineRunner.checkDeadline(sbe);
+	}
+	
+	/**
+	 * (U) This method is used once we are done running Unix commands. It ends any shell
+	 * sessions, saves the query timings (if we keep them), closes the checkpoint journal (if we
+	 * keep one), removes the low impact cgroup (if any), and logs how many commands we ran, and
+	 * how long they took.
+	 */
+	protected void finishCommands()
+	{
+		commandRunner.close();
+		
+		// Failing to save them only costs the next scan its ordering, not this scan.
+		try
+		{
+			QueryTimings queryTimings = getQueryTimings();
+			if (queryTimings != null)
+				queryTimings.save();
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to save the query timings.", ioe);
+		}
+		
+		try
+		{
+			CheckpointJournal journal = getJournal();
+			if (journal != null)
+				journal.close();
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to write to the checkpoint journal.", ioe);
+		}
+		
+		LowImpactPolicy policy = commandRunner.getLowImpactPolicy();
+		if (policy != null)
+			policy.close();
+		if (logger.isInfoEnabled())
+			logger.info(commandRunner.getStatistics());
+	}
+	
+	/**
+	 * (U) This method is used to add the Unix Package Manger that created this component.
+	 * 
+	 * @param component      Component to add the package manager to.
+	 * @param packageManager String value that tells us which package manager was used.
+	 * @return Component the update Component with the package manager added to it.
+	 */
+	public Component addPackageManager(Component component, String packageManager)
+	{
+		Property packageManagerProperty = createProperty("unixPropertyManager", packageManager);
+		
+		List<Property> properties = component.getProperties();
+		if (properties == null)
+			properties = new ArrayList<>();
+		properties.add(packageManagerProperty);
+		
+		component.setProperties(properties);
+		
+		return component;
+	}
+	
+	/**
+	 * (U) This method is used to add the detail map of a single package, from the rpm bulk query,
+	 * to the map of installed packages. Packages are keyed by their full name, as "rpm -q" shows
+	 * it (name-[epoch:]version-release.arch), so versions installed side by side (ie. several
+	 * kernels) are all kept.
+	 * 
+	 * @param packages  Map of installed packages to add the package to.
+	 * @param detailMap Map containing the fields of a single package.
+	 */
+	private void addRedHatPackage(Map<String, Map<String, String>> packages,
+			Map<String, String> detailMap)
+	{
+		String name = detailMap.get("Name");
+		if (name == null)
+			return;
+		
+		StringBuilder software = new StringBuilder(name);
+		String version = detailMap.get("Version");
+		if (version != null)
+		{
+			software.append('-');
+			if (detailMap.containsKey("Epoch"))
+				software.append(detailMap.get("Epoch")).append(':');
+			software.append(version);
+		}
+		if (detailMap.containsKey("Release"))
+			software.append('-').append(detailMap.get("Release"));
+		if (detailMap.containsKey("Arch"))
+			software.append('.').append(detailMap.get("Arch"));
+		
+		packages.put(software.toString(), detailMap);
+	}
+	
+	/**
+	 * (U) This method is used to create a Property.
+	 * 
+	 * @param name  String value of the name of the property.
+	 * @param value String value of the property.
+	 * @return Property the newly created Property.
+	 */
+	private static Property createProperty(String name, String value)
+	{
+		Property property = new Property();
+		property.setName(name);
+		property.setValue(value);
+		return property;
+	}
+	
+	/**
+	 * (U) This method is used to add the detail map of a single package, from the part of a
+	 * batched query's output about it, to the packages found.
+	 * 
+	 * @param packages    Map of the packages found to add the package to.
+	 * @param detailMap   Map with the key value pairs of the package, empty if there were none.
+	 * @param linuxFlavor Enumeration that tells us how the package is named.
+	 * @return String the name of the package added, null if there was none.
+	 */
+	private String addBatchedPackage(Map<String, Map<String, String>> packages,
+			Map<String, String> detailMap, AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		String software = null;
+		if (linuxFlavor.equals(AVAILABLE_LINUX_FLAVORS.REDHAT))
+		{
+			software = detailMap.get("Name");
+			if ((software != null) && (detailMap.containsKey("Arch")))
+				software = software + "." + detailMap.get("Arch");
+		}
+		else
+			software = detailMap.get("Package");
+		
+		if (software != null)
+			packages.put(software, detailMap);
+		return software;
+	}
+	
+	/**
+	 * (U) This method is used to record how long the package manager took over a package in a
+	 * batched query: the time since it finished telling us about the package before it. So the
+	 * time it took to start, before telling us about the first package, is not counted.
+	 * 
+	 * @param timings    QueryTimings to record the time in, null if we are not timing the query.
+	 * @param software   String value of the package it finished telling us about, null if none.
+	 * @param startNanos long System.nanoTime() it finished telling us about the package before.
+	 * @return long System.nanoTime() now, when it starts telling us about the next package.
+	 */
+	private static long recordTiming(QueryTimings timings, String software, long startNanos)
+	{
+		long now = System.nanoTime();
+		if ((timings != null) && (software != null))
+			timings.record(software, now - startNanos);
+		return now;
+	}
+	
+	/**
+	 * (U) This method is used to run a single batch of a batched query.
+	 * 
+	 * @param cmd         List of Strings, the command (and its arguments) every batch shares.
+	 * @param batch       List of Strings, the package names in this batch.
+	 * @param linuxFlavor Enumeration that tells us how to parse the results.
+	 * @return Map keyed by software name, containing the detail map of each package found,
+	 *         empty if the batch failed.
+	 */
+	private Map<String, Map<String, String>> produceBatchDetailMaps(List<String> cmd,
+			List<String> batch, AVAILABLE_LINUX_FLAVORS linuxFlavor)
+	{
+		List<String> batchCmd = new ArrayList<>(cmd.size() + batch.size());
+		batchCmd.addAll(cmd);
+		batchCmd.addAll(batch);
+		
+		try
+		{
+			Process process = commandRunner.start(batchCmd);
+			return processBatchedDetailMapCommand(process, linuxFlavor);
+		}
+		catch (SBomException | IOException e)
+		{
+			logger.warn("Unable to query a batch of " + batch.size() + " packages (" +
+					String.join(" ", cmd) + " " + batch.get(0) + " ...), leaving them out.", e);
+		}
+		return new LinkedHashMap<>();
+	}
+	
+	/**
+	 * (U) This method is used to find where the version starts in an Alpine package's
+	 * name-version string (ie. "libcrypto1.1-1.1.1g-r0"). Alpine versions always end in a
+	 * release (-rN), so the version starts after the second to last dash.
+	 * 
+	 * @param nameVersion String value of the package's name and version.
+	 * @return int index of the start of the version, -1 if there is no version.
+	 */
+	private static int findAlpineVersionStart(String nameVersion)
+	{
+		int release = nameVersion.lastIndexOf('-');
+		if (release <= 0)
+			return -1;
+		
+		int version = nameVersion.lastIndexOf('-', release - 1);
+		if ((version <= 0) || (version + 1 >= release) ||
+				(!Character.isDigit(nameVersion.charAt(version + 1))))
+			return -1;
+		
+		return version + 1;
+	}
+	
+	/**
+	 * (U) This method is used to find the white space separated fields of the current line.
+	 * 
+	 * @param lines ByteLineReader positioned on the line.
+	 * @param from  int position to start looking at.
+	 * @param count int the most fields to find.
+	 * @return int array holding the start and end of each field found, -1 for those not found.
+	 */
+	private static int[] findFields(ByteLineReader lines, int from, int count)
+	{
+		int[] fields = new int[count * 2];
+		Arrays.fill(fields, -1);
+		
+		int length = lines.length();
+		for (int field = 0; field < count; field++)
+		{
+			int start = lines.skipWhitespace(from, length);
+			if (start == length)
+				break;
+			
+			int end = start;
+			while ((end < length) && (lines.byteAt(end) > ' '))
+				end++;
+			
+			fields[field * 2] = start;
+			fields[field * 2 + 1] = end;
+			from = end;
+		}
+		return fields;
+	}
+	
+	/**
+	 * (U) This method is used to decode a field found by findFields().
+	 * 
+	 * @param lines  ByteLineReader positioned on the line.
+	 * @param fields int array holding the start and end of each field.
+	 * @param field  int which field to decode.
+	 * @return String the field, null if it was not found.
+	 */
+	private static String getField(ByteLineReader lines, int[] fields, int field)
+	{
+		if (fields[field * 2] < 0)
+			return null;
+		return lines.getString(fields[field * 2], fields[field * 2 + 1]);
 	}
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleSupplier;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to limit how many package lookups run at once, finding the limit as it
+ * goes rather than having it tuned by hand. Some package managers serialize on a lock (yum and
+ * rpm on the rpmdb), so running more of them at once only makes each one slower, while others
+ * (apt) are happy to run many at once.
+ * 
+ * The limit starts at one, and grows by one each time a full limit's worth of lookups finish
+ * without the latency rising above the best latency seen so far (by more than the tolerance). If
+ * the latency climbs well above the best, or the system load average rises above the number of
+ * processors, the limit is cut by a quarter. Additive increase, multiplicative decrease.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class AdaptiveConcurrencyLimiter
+{
+	private static final Logger logger = Logger
+			.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+	
+	// Weight of the newest latency in the smoothed latency.
+	private static final double SMOOTHING = 0.3;
+	// Latency may rise this much over the best before we stop growing.
+	private static final double GROW_TOLERANCE = 1.5;
+	// Latency rising this much over the best makes us back off.
+	private static final double BACKOFF_THRESHOLD = 2.0;
+	private static final double BACKOFF_RATIO = 0.75;
+	
+	private final int maxLimit;
+	private final int processors;
+	private final DoubleSupplier loadAverage;
+	
+	private int limit = 1;
+	private int inFlight = 0;
+	private int completedSinceChange = 0;
+	private double smoothedNanos = -1;
+	private double bestNanos = Double.MAX_VALUE;
+	
+	/**
+	 * (U) Constructor, using the system load average.
+	 * 
+	 * @param maxLimit int the most lookups to ever run at once.
+	 */
+	public AdaptiveConcurrencyLimiter(int maxLimit)
+	{
+		this(maxLimit, Runtime.getRuntime().availableProcessors(),
+				() -> ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage());
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param maxLimit    int the most lookups to ever run at once.
+	 * @param processors  int the number of processors, the load average above which we back off.
+	 * @param loadAverage DoubleSupplier of the system load average, negative if not available.
+	 */
+	AdaptiveConcurrencyLimiter(int maxLimit, int processors, DoubleSupplier loadAverage)
+	{
+		this.maxLimit = Math.max(1, maxLimit);
+		this.processors = processors;
+		this.loadAverage = loadAverage;
+	}
+	
+	/**
+	 * (U) This method is used to wait until another lookup is allowed to start.
+	 * 
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	public synchronized void acquire() throws InterruptedException
+	{
+		while (inFlight >= limit)
+			wait();
+		inFlight++;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of lookups currently allowed to run at once.
+	 * 
+	 * @return int the current limit.
+	 */
+	public synchronized int getLimit()
+	{
+		return limit;
+	}
+	
+	/**
+	 * (U) This method is used to tell the limiter a lookup has finished, and how long it took.
+	 * 
+	 * @param latencyNanos long the time the lookup took, in nanoseconds.
+	 */
+	public void release(long latencyNanos)
+	{
+		release(latencyNanos, 1);
+	}
+	
+	/**
+	 * (U) This method is used to tell the limiter a lookup covering a number of packages has
+	 * finished, and how long it took. The latency is taken per package, so a batch of a few
+	 * packages is compared fairly with a batch of many. A lookup that asked the package manager
+	 * about no packages at all (they were all resumed, or skipped) frees its place without
+	 * counting towards the latency.
+	 * 
+	 * @param latencyNanos long the time the lookup took, in nanoseconds.
+	 * @param packages     int the number of packages the package manager was asked about.
+	 */
+	public synchronized void release(long latencyNanos, int packages)
+	{
+		inFlight--;
+		if (packages <= 0)
+		{
+			notifyAll();
+			return;
+		}
+		completedSinceChange++;
+		
+		double packageNanos = (double) latencyNanos / packages;
+		if (smoothedNanos < 0)
+			smoothedNanos = packageNanos;
+		else
+			smoothedNanos = (SMOOTHING * packageNanos) + ((1 - SMOOTHING) * smoothedNanos);
+		bestNanos = Math.min(bestNanos, smoothedNanos);
+		
+		double load = loadAverage.getAsDouble();
+		boolean overloaded = (load >= 0) && (load > processors);
+		
+		if ((overloaded) || (smoothedNanos > bestNanos * BACKOFF_THRESHOLD))
+		{
+			// Give the last change a full round of lookups to show its effect first.
+			if ((limit > 1) && (completedSinceChange >= limit))
+				changeLimit(Math.max(1, (int) (limit * BACKOFF_RATIO)), load);
+			else if ((limit == 1) && (!overloaded))
+			{
+				// One at a time is as fast as lookups get, these packages just take longer.
+				bestNanos = smoothedNanos;
+			}
+		}
+		else if ((smoothedNanos <= bestNanos * GROW_TOLERANCE) && (limit < maxLimit) &&
+				(completedSinceChange >= limit))
+			changeLimit(limit + 1, load);
+		
+		notifyAll();
+	}
+	
+	/**
+	 * (U) This method is used to change the limit.
+	 * 
+	 * @param newLimit int the new limit.
+	 * @param load     double the system load average, for logging.
+	 */
+	private void changeLimit(int newLimit, double load)
+	{
+		if (logger.isDebugEnabled())
+			logger.debug("Changing concurrency limit from " + limit + " to " + newLimit +
+					" (latency " + (long) (smoothedNanos / 1000000) + " ms, best " +
+					(long) (bestNanos / 1000000) + " ms, load " + load + ").");
+		limit = newLimit;
+		completedSinceChange = 0;
+	}
+}
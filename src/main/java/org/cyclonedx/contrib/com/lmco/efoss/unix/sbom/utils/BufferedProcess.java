@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * (U) This class is a Process that has already finished, holding the output and exit value of a
+ * command run in a ShellSession (or replayed from a CommandArchive). It lets the code that reads
+ * a Process read the response the same way.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class BufferedProcess extends Process
+{
+	private final byte[] output;
+	private final byte[] errorOutput;
+	private final int exitValue;
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param output      byte array of what the command wrote to its standard output.
+	 * @param errorOutput byte array of what the command wrote to its standard error.
+	 * @param exitValue   int the exit value of the command.
+	 */
+	public BufferedProcess(byte[] output, byte[] errorOutput, int exitValue)
+	{
+		this.output = output;
+		this.errorOutput = errorOutput;
+		this.exitValue = exitValue;
+	}
+	
+	/**
+	 * (U) This method does nothing, the command has already finished.
+	 */
+	@Override
+	public void destroy()
+	{
+		// Nothing to do, the command has already finished.
+	}
+	
+	/**
+	 * (U) This method is used to get the processes the command started, of which there are none
+	 * left, the command has already finished.
+	 * 
+	 * @return Stream of ProcessHandles, always empty.
+	 */
+	@Override
+	public Stream<ProcessHandle> descendants()
+	{
+		return Stream.empty();
+	}
+	
+	/**
+	 * (U) This method is used to get the exit value of the command.
+	 * 
+	 * @return int the exit value.
+	 */
+	@Override
+	public int exitValue()
+	{
+		return exitValue;
+	}
+	
+	/**
+	 * (U) This method is used to get the standard error of the command.
+	 * 
+	 * @return InputStream of the standard error.
+	 */
+	@Override
+	public InputStream getErrorStream()
+	{
+		return new ByteArrayInputStream(errorOutput);
+	}
+	
+	/**
+	 * (U) This method is used to get the standard output of the command.
+	 * 
+	 * @return InputStream of the standard output.
+	 */
+	@Override
+	public InputStream getInputStream()
+	{
+		return new ByteArrayInputStream(output);
+	}
+	
+	/**
+	 * (U) This method is used to get the standard input of the command, which has already
+	 * finished.
+	 * 
+	 * @return OutputStream that throws away anything written to it.
+	 */
+	@Override
+	public OutputStream getOutputStream()
+	{
+		return OutputStream.nullOutputStream();
+	}
+	
+	/**
+	 * (U) This method is used to wait for the command, which has already finished.
+	 * 
+	 * @return int the exit value.
+	 */
+	@Override
+	public int waitFor()
+	{
+		return exitValue;
+	}
+}
@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.input.ReaderInputStream;
+
+/**
+ * (U) This class is used to read a command's output a line at a time, straight from the bytes of
+ * the pipe. Nothing is decoded until asked for: the parser finds the colons and white space it is
+ * looking for in the bytes of the current line, and turns into a String only the parts it keeps.
+ * Package manager output is almost all ASCII, which is copied into a String as is. Anything else
+ * is decoded as UTF-8.
+ * 
+ * Lines end with a newline (a carriage return before it is dropped), or with the terminator
+ * given, so records split by some other byte (ie. the rpm record separator) can be read the same
+ * way. Positions within the current line start at 0.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class ByteLineReader implements Closeable
+{
+	private static final int BUFFER_SIZE = 8192;
+	
+	// Field names seen so far, so each is only decoded once.
+	private static final int MAX_NAMES = 64;
+	
+	private final InputStream in;
+	private final byte terminator;
+	private final String[] names = new String[MAX_NAMES];
+	private int nameCount = 0;
+	// Reused to append ASCII to a StringBuilder without a String in between.
+	private char[] chars = new char[256];
+	
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private int lineStart = 0;
+	private int lineEnd = 0;
+	private int nextStart = 0;
+	private int limit = 0;
+	private boolean eof = false;
+	
+	/**
+	 * (U) Constructor, reading lines that end with a newline.
+	 * 
+	 * @param in InputStream to read from.
+	 */
+	public ByteLineReader(InputStream in)
+	{
+		this(in, (byte) '\n');
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param in         InputStream to read from.
+	 * @param terminator byte that ends each line (or record).
+	 */
+	public ByteLineReader(InputStream in, byte terminator)
+	{
+		this.in = in;
+		this.terminator = terminator;
+	}
+	
+	/**
+	 * (U) This method is used to read lines from a Reader, encoding them as UTF-8. It is slower
+	 * than reading the bytes of a pipe, and is meant for output that is already text.
+	 * 
+	 * @param reader Reader to read from.
+	 * @return ByteLineReader reading newline terminated lines.
+	 */
+	public static ByteLineReader fromReader(Reader reader)
+	{
+		return fromReader(reader, (byte) '\n');
+	}
+	
+	/**
+	 * (U) This method is used to read lines (or records) from a Reader, encoding them as UTF-8.
+	 * 
+	 * @param reader     Reader to read from.
+	 * @param terminator byte that ends each line (or record).
+	 * @return ByteLineReader reading lines that end with the terminator.
+	 */
+	public static ByteLineReader fromReader(Reader reader, byte terminator)
+	{
+		return new ByteLineReader(new ReaderInputStream(reader, StandardCharsets.UTF_8), terminator);
+	}
+	
+	/**
+	 * (U) This method is used to read lines from a String.
+	 * 
+	 * @param text String to read from.
+	 * @return ByteLineReader reading newline terminated lines.
+	 */
+	public static ByteLineReader fromString(String text)
+	{
+		return new ByteLineReader(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+	
+	/**
+	 * (U) This method is used to close the stream being read.
+	 * 
+	 * @throws IOException if we are unable to close it.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		in.close();
+	}
+	
+	/**
+	 * (U) This method is used to move on to the next line.
+	 * 
+	 * @return boolean true if there is one, false at the end of the stream.
+	 * @throws IOException if we are unable to read the stream.
+	 */
+	public boolean nextLine() throws IOException
+	{
+		int scanned = nextStart;
+		while (true)
+		{
+			for (int i = scanned; i < limit; i++)
+			{
+				if (buffer[i] == terminator)
+				{
+					setLine(nextStart, i);
+					nextStart = i + 1;
+					return true;
+				}
+			}
+			
+			if (eof)
+			{
+				if (nextStart >= limit)
+					return false;
+				setLine(nextStart, limit);
+				nextStart = limit;
+				return true;
+			}
+			
+			scanned = limit - nextStart;
+			fill();
+			scanned += nextStart;
+		}
+	}
+	
+	/**
+	 * (U) This method is used to append part of the current line to a StringBuilder. ASCII is
+	 * appended without creating a String for it.
+	 * 
+	 * @param builder StringBuilder to append to.
+	 * @param from    int position of the first byte.
+	 * @param to      int position after the last byte.
+	 */
+	public void appendTo(StringBuilder builder, int from, int to)
+	{
+		if (from >= to)
+			return;
+		if (!isAscii(from, to))
+		{
+			builder.append(getString(from, to));
+			return;
+		}
+		
+		int length = to - from;
+		if (chars.length < length)
+			chars = new char[Math.max(length, chars.length * 2)];
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) buffer[lineStart + from + i];
+		builder.append(chars, 0, length);
+	}
+	
+	/**
+	 * (U) This method is used to append part of the current line to a StringBuilder, without the
+	 * white space at either end.
+	 * 
+	 * @param builder StringBuilder to append to.
+	 * @param from    int position of the first byte.
+	 * @param to      int position after the last byte.
+	 */
+	public void appendTrimmedTo(StringBuilder builder, int from, int to)
+	{
+		from = skipWhitespace(from, to);
+		appendTo(builder, from, trimEnd(from, to));
+	}
+	
+	/**
+	 * (U) This method is used to get a byte of the current line.
+	 * 
+	 * @param index int position of the byte.
+	 * @return int the byte, from 0 to 255.
+	 */
+	public int byteAt(int index)
+	{
+		return buffer[lineStart + index] & 0xff;
+	}
+	
+	/**
+	 * (U) This method is used to get the whole of the current line.
+	 * 
+	 * @return String the line, without its terminator.
+	 */
+	public String getLine()
+	{
+		return getString(0, length());
+	}
+	
+	/**
+	 * (U) This method is used to get a field name from the current line, without the white space
+	 * at either end. The same few names repeat for every package, so the String decoded for a
+	 * name is handed out again each time it comes up.
+	 * 
+	 * @param from int position of the first byte.
+	 * @param to   int position after the last byte.
+	 * @return String the name, trimmed and decoded.
+	 */
+	public String getName(int from, int to)
+	{
+		from = skipWhitespace(from, to);
+		to = trimEnd(from, to);
+		
+		for (int n = 0; n < nameCount; n++)
+		{
+			String name = names[n];
+			if ((name.length() == to - from) && (startsWith(name, from)))
+				return name;
+		}
+		
+		String name = getString(from, to);
+		if ((nameCount < MAX_NAMES) && (isAscii(from, to)))
+			names[nameCount++] = name;
+		return name;
+	}
+	
+	/**
+	 * (U) This method is used to get part of the current line.
+	 * 
+	 * @param from int position of the first byte.
+	 * @param to   int position after the last byte.
+	 * @return String the bytes, decoded.
+	 */
+	public String getString(int from, int to)
+	{
+		if (from >= to)
+			return "";
+		return new String(buffer, lineStart + from, to - from, isAscii(from, to) ?
+				StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * (U) This method is used to get part of the current line, without the white space at
+	 * either end (the same white space String.trim() removes).
+	 * 
+	 * @param from int position of the first byte.
+	 * @param to   int position after the last byte.
+	 * @return String the bytes, trimmed and decoded.
+	 */
+	public String getTrimmedString(int from, int to)
+	{
+		from = skipWhitespace(from, to);
+		return getString(from, trimEnd(from, to));
+	}
+	
+	/**
+	 * (U) This method is used to find a byte in the current line.
+	 * 
+	 * @param c    int the (ASCII) byte to find.
+	 * @param from int position to start looking at.
+	 * @return int position of the byte, -1 if it is not in the rest of the line.
+	 */
+	public int indexOf(int c, int from)
+	{
+		for (int i = lineStart + Math.max(0, from); i < lineEnd; i++)
+		{
+			if (buffer[i] == c)
+				return i - lineStart;
+		}
+		return -1;
+	}
+	
+	/**
+	 * (U) This method is used to find a byte in the current line.
+	 * 
+	 * @param c int the (ASCII) byte to find.
+	 * @return int position of the byte, -1 if it is not in the line.
+	 */
+	public int indexOf(int c)
+	{
+		return indexOf(c, 0);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the current line is empty, or only white space.
+	 * 
+	 * @return boolean true if it is.
+	 */
+	public boolean isBlank()
+	{
+		return skipWhitespace(0, length()) == length();
+	}
+	
+	/**
+	 * (U) This method is used to get the length of the current line.
+	 * 
+	 * @return int the number of bytes in the line, without its terminator.
+	 */
+	public int length()
+	{
+		return lineEnd - lineStart;
+	}
+	
+	/**
+	 * (U) This method is used to find the first byte, from a position on, that is not white
+	 * space.
+	 * 
+	 * @param from int position to start at.
+	 * @param to   int position to stop at.
+	 * @return int position of the byte, to if there is none.
+	 */
+	public int skipWhitespace(int from, int to)
+	{
+		while ((from < to) && (byteAt(from) <= ' '))
+			from++;
+		return from;
+	}
+	
+	/**
+	 * (U) This method is used to tell if the current line starts with an (ASCII) prefix.
+	 * 
+	 * @param prefix String the prefix.
+	 * @return boolean true if it does.
+	 */
+	public boolean startsWith(String prefix)
+	{
+		return startsWith(prefix, 0);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the current line has an (ASCII) prefix at a position.
+	 * 
+	 * @param prefix String the prefix.
+	 * @param offset int position to look for it at.
+	 * @return boolean true if it is there.
+	 */
+	public boolean startsWith(String prefix, int offset)
+	{
+		if (offset + prefix.length() > length())
+			return false;
+		
+		for (int i = 0; i < prefix.length(); i++)
+		{
+			if (buffer[lineStart + offset + i] != prefix.charAt(i))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * (U) This method is used to find where part of the line ends, without the white space at
+	 * its end.
+	 * 
+	 * @param from int position the part starts at.
+	 * @param to   int position after the part.
+	 * @return int position after the last byte that is not white space, from if there is none.
+	 */
+	public int trimEnd(int from, int to)
+	{
+		while ((to > from) && (byteAt(to - 1) <= ' '))
+			to--;
+		return to;
+	}
+	
+	/**
+	 * (U) This method is used to read more of the stream, once the buffer holds no complete
+	 * line. The start of the next line is moved to the front of the buffer, and the buffer is
+	 * grown if that line fills it.
+	 * 
+	 * @throws IOException if we are unable to read the stream.
+	 */
+	private void fill() throws IOException
+	{
+		int remaining = limit - nextStart;
+		if (nextStart > 0)
+			System.arraycopy(buffer, nextStart, buffer, 0, remaining);
+		else if (remaining == buffer.length)
+		{
+			byte[] bigger = new byte[buffer.length * 2];
+			System.arraycopy(buffer, 0, bigger, 0, remaining);
+			buffer = bigger;
+		}
+		nextStart = 0;
+		limit = remaining;
+		
+		int read = in.read(buffer, limit, buffer.length - limit);
+		if (read < 0)
+			eof = true;
+		else
+			limit += read;
+	}
+	
+	/**
+	 * (U) This method is used to tell if part of the line is all ASCII.
+	 * 
+	 * @param from int position of the first byte.
+	 * @param to   int position after the last byte.
+	 * @return boolean true if no byte has its high bit set.
+	 */
+	private boolean isAscii(int from, int to)
+	{
+		for (int i = lineStart + from; i < lineStart + to; i++)
+		{
+			if (buffer[i] < 0)
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * (U) This method is used to make a part of the buffer the current line. A carriage return
+	 * before a newline is dropped.
+	 * 
+	 * @param start int position in the buffer the line starts at.
+	 * @param end   int position in the buffer of its terminator (or the end of the stream).
+	 */
+	private void setLine(int start, int end)
+	{
+		if ((terminator == '\n') && (end > start) && (buffer[end - 1] == '\r'))
+			end--;
+		lineStart = start;
+		lineEnd = end;
+	}
+}
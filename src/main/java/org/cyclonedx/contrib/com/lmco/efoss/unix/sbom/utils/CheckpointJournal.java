@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to keep a journal of the packages whose Components have been built, as
+ * they are built, so a scan that is killed part way through (by a CI timeout, or running out of
+ * memory) does not lose everything it found. The next scan, resuming from the journal, takes the
+ * details of every package whose version has not changed from it, rather than asking the package
+ * manager for them again.
+ * 
+ * The journal is a text file, a line per package: its name, version, then the name and value of
+ * each of its details, all tab separated (tabs, new lines, and back slashes in them escaped).
+ * Each line is flushed to the file as its package finishes, so killing the scan loses nothing
+ * finished, and the file is synced to disk when the journal is closed. A line cut short by the
+ * scan being killed is ignored. A journal left by a scan that was cut short is never started
+ * over: unless it is resumed, it is kept beside the new one (with OLD_SUFFIX).
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class CheckpointJournal implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(CheckpointJournal.class.getName());
+	
+	public static final String OLD_SUFFIX = ".old";
+	
+	private static final String HEADER = "# Checkpoint journal (name<TAB>version<TAB>details).";
+	
+	private final Path file;
+	private final FileChannel channel;
+	private final BufferedWriter writer;
+	
+	// Packages journaled by earlier scans, keyed by name, only read when resuming.
+	private final Map<String, Entry> journaled;
+	
+	private int recorded = 0;
+	private int resumed = 0;
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param file      Path of the journal.
+	 * @param channel   FileChannel of the journal, opened to append to it.
+	 * @param journaled Map of the packages journaled by earlier scans.
+	 */
+	private CheckpointJournal(Path file, FileChannel channel, Map<String, Entry> journaled)
+	{
+		this.file = file;
+		this.channel = channel;
+		this.writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+		this.journaled = journaled;
+	}
+	
+	/**
+	 * (U) This method is used to open a journal. Resuming, the packages already in it are read,
+	 * and those this scan finishes are added after them. Otherwise a new journal is started, and
+	 * one left by an earlier scan is moved aside (to the same name with OLD_SUFFIX), rather than
+	 * overwritten, so it can still be resumed.
+	 * 
+	 * @param file   Path of the journal, created if it does not exist.
+	 * @param resume boolean true to resume from the packages already in the journal.
+	 * @return CheckpointJournal the open journal.
+	 * @throws IOException if we are unable to read or write the journal.
+	 */
+	public static CheckpointJournal open(Path file, boolean resume) throws IOException
+	{
+		Map<String, Entry> journaled = new HashMap<>();
+		if ((resume) && (Files.exists(file)))
+			journaled = read(file);
+		else
+		{
+			if ((Files.exists(file)) && (Files.size(file) > 0))
+			{
+				Path old = file.resolveSibling(file.getFileName() + OLD_SUFFIX);
+				logger.warn("Found the checkpoint journal (" + file + ") of a scan that was cut " +
+						"short, moving it to " + old + " rather than resuming from it.");
+				Files.move(file, old, StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.write(file, (HEADER + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+		}
+		
+		if (logger.isInfoEnabled())
+			logger.info("Journaling the packages found to " + file + (resume ? (", resuming " +
+					journaled.size() + " packages from it.") : "."));
+		
+		return new CheckpointJournal(file, FileChannel.open(file, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND), journaled);
+	}
+	
+	/**
+	 * (U) This method is used to get the details of a package journaled by an earlier scan,
+	 * unless its version has changed since.
+	 * 
+	 * @param software String value of the package name.
+	 * @param version  String value of the version installed now.
+	 * @return Map containing the key value pairs about the package, null if it was not
+	 *         journaled, or was at another version.
+	 */
+	public synchronized Map<String, String> getDetailMap(String software, String version)
+	{
+		Entry entry = journaled.get(software);
+		if ((version == null) || (entry == null) || (!version.equals(entry.version)))
+			return null;
+		
+		resumed++;
+		return entry.detailMap;
+	}
+	
+	/**
+	 * (U) This method is used to add a package, whose Component has been built, to the journal.
+	 * A package already journaled at the same version is not added again. The line is flushed
+	 * to the file straight away.
+	 * 
+	 * @param software  String value of the package name.
+	 * @param version   String value of the installed version, null if it is unknown (the
+	 *                  package is then not journaled, as it could never be resumed).
+	 * @param detailMap Map containing the key value pairs about the package.
+	 * @throws IOException if we are unable to write to the journal.
+	 */
+	public synchronized void record(String software, String version,
+			Map<String, String> detailMap) throws IOException
+	{
+		Entry entry = journaled.get(software);
+		if ((version == null) || (detailMap == null) || ((entry != null) &&
+				(version.equals(entry.version))))
+			return;
+		
+		StringBuilder line = new StringBuilder();
+		escape(line, software);
+		line.append('\t');
+		escape(line, version);
+		for (Map.Entry<String, String> detail : detailMap.entrySet())
+		{
+			if (detail.getValue() == null)
+				continue;
+			line.append('\t');
+			escape(line, detail.getKey());
+			line.append('\t');
+			escape(line, detail.getValue());
+		}
+		writer.write(line.toString());
+		writer.newLine();
+		writer.flush();
+		recorded++;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of packages this scan added to the journal.
+	 * 
+	 * @return int the number of packages.
+	 */
+	public synchronized int getRecordedCount()
+	{
+		return recorded;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of packages this scan resumed from the journal.
+	 * 
+	 * @return int the number of packages.
+	 */
+	public synchronized int getResumedCount()
+	{
+		return resumed;
+	}
+	
+	/**
+	 * (U) This method is used to sync the packages added to disk, and close the journal.
+	 * 
+	 * @throws IOException if we are unable to write to the journal.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		try
+		{
+			writer.flush();
+			channel.force(true);
+		}
+		finally
+		{
+			writer.close();
+		}
+		
+		if (logger.isInfoEnabled())
+			logger.info("Journaled " + recorded + " packages to " + file + ", and resumed " +
+					resumed + " from it.");
+	}
+	
+	/**
+	 * (U) This method is used to read the packages in a journal. A line cut short by a scan
+	 * being killed is cut from the journal, so the packages added after it start on a line of
+	 * their own.
+	 * 
+	 * @param file Path of the journal.
+	 * @return Map of the packages journaled, keyed by name.
+	 * @throws IOException if we are unable to read the journal.
+	 */
+	private static Map<String, Entry> read(Path file) throws IOException
+	{
+		byte[] content = Files.readAllBytes(file);
+		int end = content.length;
+		while ((end > 0) && (content[end - 1] != '\n'))
+			end--;
+		
+		if (end < content.length)
+		{
+			logger.warn("Ignoring the last, unfinished, line of checkpoint journal (" + file +
+					").");
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE))
+			{
+				channel.truncate(end);
+			}
+		}
+		
+		Map<String, Entry> journaled = new HashMap<>();
+		for (String line : new String(content, 0, end, StandardCharsets.UTF_8).split("\r?\n"))
+		{
+			if ((line.isEmpty()) || (line.startsWith("#")))
+				continue;
+			
+			String[] fields = line.split("\t", -1);
+			if (fields.length % 2 != 0)
+			{
+				logger.warn("Ignoring invalid line in checkpoint journal (" + file + ").");
+				continue;
+			}
+			
+			Map<String, String> detailMap = new LinkedHashMap<>();
+			for (int i = 2; i < fields.length; i += 2)
+				detailMap.put(unescape(fields[i]), unescape(fields[i + 1]));
+			journaled.put(unescape(fields[0]), new Entry(unescape(fields[1]), detailMap));
+		}
+		return journaled;
+	}
+	
+	/**
+	 * (U) This method is used to escape the tabs, new lines, and back slashes in a value, so it
+	 * stays in its field of the line.
+	 * 
+	 * @param line  StringBuilder to add the escaped value to.
+	 * @param value String to escape.
+	 */
+	private static void escape(StringBuilder line, String value)
+	{
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			switch (c)
+			{
+				case '\\':
+					line.append("\\\\");
+					break;
+				case '\t':
+					line.append("\\t");
+					break;
+				case '\n':
+					line.append("\\n");
+					break;
+				case '\r':
+					line.append("\\r");
+					break;
+				default:
+					line.append(c);
+			}
+		}
+	}
+	
+	/**
+	 * (U) This method is used to undo escape().
+	 * 
+	 * @param value String to unescape.
+	 * @return String the value, as it was before it was escaped.
+	 */
+	private static String unescape(String value)
+	{
+		if (value.indexOf('\\') < 0)
+			return value;
+		
+		StringBuilder unescaped = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if ((c == '\\') && (i + 1 < value.length()))
+			{
+				c = value.charAt(++i);
+				if (c == 't')
+					c = '\t';
+				else if (c == 'n')
+					c = '\n';
+				else if (c == 'r')
+					c = '\r';
+			}
+			unescaped.append(c);
+		}
+		return unescaped.toString();
+	}
+	
+	/**
+	 * (U) This class is a single package read from the journal.
+	 */
+	private static class Entry
+	{
+		private final String version;
+		private final Map<String, String> detailMap;
+		
+		/**
+		 * (U) Constructor.
+		 * 
+		 * @param version   String value of the version journaled.
+		 * @param detailMap Map containing the key value pairs about the package.
+		 */
+		Entry(String version, Map<String, String> detailMap)
+		{
+			this.version = version;
+			this.detailMap = detailMap;
+		}
+	}
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class holds everything a scan read from the host: each Unix command run (its
+ * standard output, standard error and exit value), each file read (ie. license files), and the
+ * contents of /etc/os-release. It is recorded during a scan, written to a compressed file, and
+ * read back to replay the scan on any machine, without running a single command.
+ * 
+ * A command run more than once is answered with its recorded responses in order, and with the
+ * last of them after that. Commands are looked up by their exact arguments, so the archive also
+ * holds the settings that decided how package names were split between commands (ie. the
+ * argument size limit of the host, and the order the packages were looked up in), for the replay
+ * to split them the same way.
+ * 
+ * The file is a gzip stream of records, each a type byte followed by its fields. Strings and
+ * byte arrays are written as their length followed by their bytes.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class CommandArchive
+{
+	private static final Logger logger = Logger.getLogger(CommandArchive.class.getName());
+	
+	private static final int MAGIC = 0x53424f4d;
+	private static final int FORMAT_VERSION = 2;
+	// Archives written before settings were recorded can still be read.
+	private static final int MIN_FORMAT_VERSION = 1;
+	
+	private static final byte OS_RELEASE_RECORD = 'O';
+	private static final byte COMMAND_RECORD = 'C';
+	private static final byte FILE_RECORD = 'F';
+	private static final byte SETTING_RECORD = 'S';
+	private static final byte END_RECORD = 'E';
+	
+	private String osRelease = "";
+	private final List<CommandRecord> commands = new ArrayList<>();
+	// Recorded content of each file, null if it did not exist.
+	private final Map<String, byte[]> files = new LinkedHashMap<>();
+	private final Map<String, String> settings = new LinkedHashMap<>();
+	
+	// The responses to each command still to be replayed, keyed by the command.
+	private final Map<String, Deque<CommandRecord>> responses = new HashMap<>();
+	
+	/**
+	 * (U) This method is used to read an archive written by write().
+	 * 
+	 * @param file Path of the archive.
+	 * @return CommandArchive the archive, ready to replay.
+	 * @throws IOException if we are unable to read the file, or it is not an archive.
+	 */
+	public static CommandArchive read(Path file) throws IOException
+	{
+		CommandArchive archive = new CommandArchive();
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(Files.newInputStream(file)))))
+		{
+			if (in.readInt() != MAGIC)
+				throw new IOException("Not a command archive (" + file + ")!");
+			int version = in.readInt();
+			if ((version < MIN_FORMAT_VERSION) || (version > FORMAT_VERSION))
+				throw new IOException("Unsupported command archive version (" + version + ") in " +
+						file + "!");
+			
+			byte type;
+			while ((type = in.readByte()) != END_RECORD)
+			{
+				if (type == OS_RELEASE_RECORD)
+					archive.setOsRelease(readString(in));
+				else if (type == COMMAND_RECORD)
+				{
+					int argumentCount = in.readInt();
+					List<String> command = new ArrayList<>(argumentCount);
+					for (int i = 0; i < argumentCount; i++)
+						command.add(readString(in));
+					int exitValue = in.readInt();
+					archive.addCommand(command, exitValue, readBytes(in), readBytes(in));
+				}
+				else if (type == FILE_RECORD)
+				{
+					String path = readString(in);
+					archive.addFile(path, in.readBoolean() ? readBytes(in) : null);
+				}
+				else if (type == SETTING_RECORD)
+				{
+					String name = readString(in);
+					archive.setSetting(name, readString(in));
+				}
+				else
+					throw new IOException("Unknown record type (" + type + ") in command archive (" +
+							file + ")!");
+			}
+		}
+		catch (EOFException eofe)
+		{
+			throw new IOException("The command archive (" + file + ") is truncated!", eofe);
+		}
+		
+		if (logger.isInfoEnabled())
+			logger.info("Read " + archive.getCommandCount() + " commands and " + archive.files
+					.size() + " files from " + file + ".");
+		return archive;
+	}
+	
+	/**
+	 * (U) This method is used to record a command that was run.
+	 * 
+	 * @param command     List of Strings, the program run followed by its arguments.
+	 * @param exitValue   int the exit value of the command.
+	 * @param output      byte array of what the command wrote to its standard output.
+	 * @param errorOutput byte array of what the command wrote to its standard error.
+	 */
+	public synchronized void addCommand(List<String> command, int exitValue, byte[] output,
+			byte[] errorOutput)
+	{
+		CommandRecord record = new CommandRecord(List.copyOf(command), exitValue, output,
+				errorOutput);
+		commands.add(record);
+		responses.computeIfAbsent(key(command), k -> new ArrayDeque<>()).add(record);
+	}
+	
+	/**
+	 * (U) This method is used to record a file that was read.
+	 * 
+	 * @param path    String path of the file.
+	 * @param content byte array of the file's content, null if it does not exist.
+	 */
+	public synchronized void addFile(String path, byte[] content)
+	{
+		files.put(path, content);
+	}
+	
+	/**
+	 * (U) This method is used to get a recorded setting.
+	 * 
+	 * @param name String name of the setting.
+	 * @return String value of the setting, null if it was not recorded.
+	 */
+	public synchronized String getSetting(String name)
+	{
+		return settings.get(name);
+	}
+	
+	/**
+	 * (U) This method is used to record a setting that decided which commands were run.
+	 * 
+	 * @param name  String name of the setting.
+	 * @param value String value of the setting.
+	 */
+	public synchronized void setSetting(String name, String value)
+	{
+		settings.put(name, value);
+	}
+	
+	/**
+	 * (U) This method is used to get the number of commands recorded.
+	 * 
+	 * @return int the number of commands.
+	 */
+	public synchronized int getCommandCount()
+	{
+		return commands.size();
+	}
+	
+	/**
+	 * (U) This method is used to get the recorded contents of /etc/os-release.
+	 * 
+	 * @return String the contents, empty if they were not recorded.
+	 */
+	public synchronized String getOsRelease()
+	{
+		return osRelease;
+	}
+	
+	/**
+	 * (U) This method is used to record the contents of /etc/os-release, which tell us which
+	 * package manager to replay.
+	 * 
+	 * @param osRelease String the contents of the file.
+	 */
+	public synchronized void setOsRelease(String osRelease)
+	{
+		this.osRelease = (osRelease == null) ? "" : osRelease;
+	}
+	
+	/**
+	 * (U) This method is used to tell if a file existed when it was recorded.
+	 * 
+	 * @param path String path of the file.
+	 * @return boolean true if it was recorded, and existed.
+	 */
+	public synchronized boolean hasFile(String path)
+	{
+		return files.get(path) != null;
+	}
+	
+	/**
+	 * (U) This method is used to get the recorded content of a file.
+	 * 
+	 * @param path String path of the file.
+	 * @return byte array of the file's content.
+	 * @throws NoSuchFileException if the file did not exist, or was not recorded.
+	 */
+	public synchronized byte[] readFile(String path) throws NoSuchFileException
+	{
+		byte[] content = files.get(path);
+		if (content == null)
+			throw new NoSuchFileException(path, null, "Not in the command archive.");
+		return content;
+	}
+	
+	/**
+	 * (U) This method is used to replay a command.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return BufferedProcess holding the command's recorded output and exit value.
+	 * @throws IOException if the command was not recorded.
+	 */
+	public synchronized BufferedProcess replay(List<String> command) throws IOException
+	{
+		Deque<CommandRecord> queue = responses.get(key(command));
+		if ((queue == null) || (queue.isEmpty()))
+			throw new IOException("No output was recorded for: " + String.join(" ", command));
+		
+		CommandRecord record = (queue.size() > 1) ? queue.poll() : queue.peek();
+		return new BufferedProcess(record.output, record.errorOutput, record.exitValue);
+	}
+	
+	/**
+	 * (U) This method is used to write the archive.
+	 * 
+	 * @param file Path to write the archive to.
+	 * @throws IOException if we are unable to write the file.
+	 */
+	public synchronized void write(Path file) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+				new GZIPOutputStream(Files.newOutputStream(file)))))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			
+			out.writeByte(OS_RELEASE_RECORD);
+			writeString(out, osRelease);
+			
+			for (Map.Entry<String, String> entry : settings.entrySet())
+			{
+				out.writeByte(SETTING_RECORD);
+				writeString(out, entry.getKey());
+				writeString(out, entry.getValue());
+			}
+			
+			for (CommandRecord record : commands)
+			{
+				out.writeByte(COMMAND_RECORD);
+				out.writeInt(record.command.size());
+				for (String argument : record.command)
+					writeString(out, argument);
+				out.writeInt(record.exitValue);
+				writeBytes(out, record.output);
+				writeBytes(out, record.errorOutput);
+			}
+			
+			for (Map.Entry<String, byte[]> entry : files.entrySet())
+			{
+				out.writeByte(FILE_RECORD);
+				writeString(out, entry.getKey());
+				out.writeBoolean(entry.getValue() != null);
+				if (entry.getValue() != null)
+					writeBytes(out, entry.getValue());
+			}
+			
+			out.writeByte(END_RECORD);
+		}
+		
+		if (logger.isInfoEnabled())
+			logger.info("Wrote " + commands.size() + " commands and " + files.size() +
+					" files to " + file + ".");
+	}
+	
+	/**
+	 * (U) This method is used to get the key a command's responses are kept under.
+	 * 
+	 * @param command List of Strings, the program run followed by its arguments.
+	 * @return String the arguments, separated by NULs (which no argument can hold).
+	 */
+	private static String key(List<String> command)
+	{
+		return String.join("\0", command);
+	}
+	
+	/**
+	 * (U) This method is used to read a length prefixed byte array.
+	 * 
+	 * @param in DataInputStream to read from.
+	 * @return byte array read.
+	 * @throws IOException if we are unable to read it.
+	 */
+	private static byte[] readBytes(DataInputStream in) throws IOException
+	{
+		int length = in.readInt();
+		if (length < 0)
+			throw new IOException("Invalid length (" + length + ") in command archive!");
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return bytes;
+	}
+	
+	/**
+	 * (U) This method is used to read a length prefixed UTF-8 string.
+	 * 
+	 * @param in DataInputStream to read from.
+	 * @return String read.
+	 * @throws IOException if we are unable to read it.
+	 */
+	private static String readString(DataInputStream in) throws IOException
+	{
+		return new String(readBytes(in), StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * (U) This method is used to write a length prefixed byte array.
+	 * 
+	 * @param out   DataOutputStream to write to.
+	 * @param bytes byte array to write.
+	 * @throws IOException if we are unable to write it.
+	 */
+	private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException
+	{
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	/**
+	 * (U) This method is used to write a length prefixed UTF-8 string.
+	 * 
+	 * @param out    DataOutputStream to write to.
+	 * @param string String to write.
+	 * @throws IOException if we are unable to write it.
+	 */
+	private static void writeString(DataOutputStream out, String string) throws IOException
+	{
+		writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * (U) This class holds a recorded command, and its response.
+	 */
+	private static class CommandRecord
+	{
+		private final List<String> command;
+		private final int exitValue;
+		private final byte[] output;
+		private final byte[] errorOutput;
+		
+		/**
+		 * (U) Constructor.
+		 * 
+		 * @param command     List of Strings, the program run followed by its arguments.
+		 * @param exitValue   int the exit value of the command.
+		 * @param output      byte array of the command's standard output.
+		 * @param errorOutput byte array of the command's standard error.
+		 */
+		private CommandRecord(List<String> command, int exitValue, byte[] output,
+				byte[] errorOutput)
+		{
+			this.command = command;
+			this.exitValue = exitValue;
+			this.output = output;
+			this.errorOutput = errorOutput;
+		}
+	}
+}
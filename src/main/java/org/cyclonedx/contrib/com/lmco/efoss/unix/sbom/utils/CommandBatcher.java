@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to split a long list of arguments (ie. package names) across as few
+ * commands as we can, without any one command going over the kernel's limit on the size of the
+ * arguments and environment of a new process (ARG_MAX). Going over it makes the command fail to
+ * start (E2BIG, "Argument list too long").
+ * 
+ * On Linux the limit is a quarter of the stack size limit, but never less than 128 KiB, and
+ * never more than 6 MiB. Each argument costs its bytes, its terminating NUL, and a pointer. Our
+ * environment is passed to every command, so it is taken off the top, along with some headroom.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class CommandBatcher
+{
+	private static final Logger logger = Logger.getLogger(CommandBatcher.class.getName());
+	
+	public static final long MIN_ARG_MAX = 128 * 1024;
+	public static final long MAX_ARG_MAX = 6 * 1024 * 1024;
+	
+	private static final Path LIMITS_FILE = Paths.get("/proc/self/limits");
+	private static final String STACK_LIMIT = "Max stack size";
+	private static final long HEADROOM = 2048;
+	private static final int POINTER_SIZE = 8;
+	
+	private final long limit;
+	
+	/**
+	 * (U) Constructor, using the limit of the system we are running on.
+	 */
+	public CommandBatcher()
+	{
+		this(readArgMax() - environmentSize() - HEADROOM);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param limit long the most bytes the arguments of a single command may take up.
+	 */
+	public CommandBatcher(long limit)
+	{
+		this.limit = Math.max(limit, HEADROOM);
+	}
+	
+	/**
+	 * (U) This method is used to split the arguments into batches, each of which can be added to
+	 * the command without going over the limit. An argument too long to share a command is put
+	 * in a batch on its own. The order of the arguments is kept.
+	 * 
+	 * @param command      List of Strings, the program to run followed by the arguments every
+	 *                     batch shares.
+	 * @param arguments    List of Strings, the arguments to split up.
+	 * @param maxArguments int the most arguments to put in a single batch, so there are enough
+	 *                     batches to run at once.
+	 * @return List of batches, each a List of the arguments it holds.
+	 */
+	public List<List<String>> batch(List<String> command, List<String> arguments,
+			int maxArguments)
+	{
+		long commandSize = 0;
+		for (String argument : command)
+			commandSize += argumentSize(argument);
+		
+		List<List<String>> batches = new ArrayList<>();
+		List<String> batch = new ArrayList<>();
+		long batchSize = commandSize;
+		
+		for (String argument : arguments)
+		{
+			long size = argumentSize(argument);
+			if ((!batch.isEmpty()) && ((batchSize + size > limit) ||
+					(batch.size() >= maxArguments)))
+			{
+				batches.add(batch);
+				batch = new ArrayList<>();
+				batchSize = commandSize;
+			}
+			batch.add(argument);
+			batchSize += size;
+		}
+		if (!batch.isEmpty())
+			batches.add(batch);
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Split " + arguments.size() + " arguments into " + batches.size() +
+					" batches (limit " + limit + " bytes).");
+		
+		return batches;
+	}
+	
+	/**
+	 * (U) This method is used to get the most bytes the arguments of a single command may take
+	 * up.
+	 * 
+	 * @return long the limit in bytes.
+	 */
+	public long getLimit()
+	{
+		return limit;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of bytes an argument takes up, once passed to a
+	 * new process.
+	 * 
+	 * @param argument String value of the argument.
+	 * @return long the size in bytes.
+	 */
+	private static long argumentSize(String argument)
+	{
+		return argument.getBytes(StandardCharsets.UTF_8).length + 1L + POINTER_SIZE;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of bytes our environment takes up, since every
+	 * command we start gets a copy of it.
+	 * 
+	 * @return long the size in bytes.
+	 */
+	private static long environmentSize()
+	{
+		long size = 0;
+		for (Map.Entry<String, String> variable : System.getenv().entrySet())
+			size += argumentSize(variable.getKey() + "=" + variable.getValue());
+		return size;
+	}
+	
+	/**
+	 * (U) This method is used to work out the ARG_MAX of the system, from our stack size limit.
+	 * If the limit can not be read we use the smallest ARG_MAX Linux has.
+	 * 
+	 * @return long ARG_MAX in bytes.
+	 */
+	private static long readArgMax()
+	{
+		try
+		{
+			for (String line : Files.readAllLines(LIMITS_FILE))
+			{
+				if (line.startsWith(STACK_LIMIT))
+				{
+					String softLimit = line.substring(STACK_LIMIT.length()).trim()
+							.split("\\s+")[0];
+					if ("unlimited".equals(softLimit))
+						return MAX_ARG_MAX;
+					return Math.min(MAX_ARG_MAX, Math.max(MIN_ARG_MAX,
+							Long.parseLong(softLimit) / 4));
+				}
+			}
+		}
+		catch (IOException | RuntimeException e)
+		{
+			if (logger.isDebugEnabled())
+				logger.debug("Unable to read the stack size limit from " + LIMITS_FILE + ".", e);
+		}
+		return MIN_ARG_MAX;
+	}
+}
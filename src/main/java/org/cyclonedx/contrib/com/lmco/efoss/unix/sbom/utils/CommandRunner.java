@@ -0,0 +1,704 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to run the Unix commands we use to find out what software is installed.
+ * Commands are given as an argument list (ie. "apt", "policy", "zip"), never as a command line,
+ * so nothing in an argument is ever interpreted by a shell.
+ * 
+ * Each thread reuses its own ProcessBuilder, and the runner keeps count of how many commands it
+ * ran and how long they took. Every command is started as a process of its own by default.
+ * Asked to, quick per-package queries are instead sent to a long lived ShellSession, one per
+ * thread, saving a process start per query. If there is no /bin/sh, each query is then still
+ * started as a process of its own.
+ * 
+ * A command that runs longer than the timeout is killed, along with every process it started, so
+ * a wedged package manager (ie. yum waiting on a dead mirror) can not hang the scan. Commands
+ * still running at the deadline are killed the same way, and no new ones are started after it.
+ * 
+ * On a live server, commands can be run with low impact (see LowImpactPolicy), and the number of
+ * commands started per second can be limited, so the cost of a scan to the rest of the host is
+ * known up front.
+ * 
+ * Every command run, and its response, can be recorded in a CommandArchive. Given an archive to
+ * replay, the runner answers each command from it instead, without starting any process.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class CommandRunner implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(CommandRunner.class.getName());
+	
+	public static final long DEFAULT_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	
+	private static final ScheduledExecutorService WATCHDOGS = Executors
+			.newSingleThreadScheduledExecutor(runnable ->
+			{
+				Thread thread = new Thread(runnable, "command-watchdog");
+				thread.setDaemon(true);
+				return thread;
+			});
+	
+	private final ThreadLocal<ProcessBuilder> processBuilders = ThreadLocal
+			.withInitial(ProcessBuilder::new);
+	private final ThreadLocal<ShellSession> sessions = new ThreadLocal<>();
+	private final List<ShellSession> openSessions = new ArrayList<>();
+	private final Set<Process> runningProcesses = ConcurrentHashMap.newKeySet();
+	
+	private volatile boolean useSessions;
+	private volatile boolean sessionsAvailable = true;
+	private volatile long timeoutMillis = DEFAULT_TIMEOUT_MILLIS;
+	private volatile LowImpactPolicy lowImpactPolicy = null;
+	private volatile SpawnRateLimiter spawnRateLimiter = null;
+	private volatile CommandArchive recorder = null;
+	private volatile CommandArchive replay = null;
+	// System.nanoTime() of the deadline, only used if hasDeadline is set.
+	private volatile long deadlineNanos = 0;
+	private volatile boolean hasDeadline = false;
+	
+	private final AtomicLong invocations = new AtomicLong();
+	private final AtomicLong sessionQueries = new AtomicLong();
+	private final AtomicLong failedStarts = new AtomicLong();
+	private final AtomicLong timedOut = new AtomicLong();
+	private final AtomicLong completed = new AtomicLong();
+	private final AtomicLong totalNanos = new AtomicLong();
+	private final AtomicLong maxNanos = new AtomicLong();
+	
+	/**
+	 * (U) Constructor, starting a process for each query.
+	 */
+	public CommandRunner()
+	{
+		this(false);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param useSessions boolean true to send queries to shell sessions, false to start a process
+	 *                    for each one.
+	 */
+	public CommandRunner(boolean useSessions)
+	{
+		this.useSessions = useSessions;
+	}
+	
+	/**
+	 * (U) This method is used to end every shell session. New ones are started if the runner is
+	 * used again.
+	 */
+	@Override
+	public void close()
+	{
+		List<ShellSession> toClose;
+		synchronized (openSessions)
+		{
+			toClose = new ArrayList<>(openSessions);
+			openSessions.clear();
+		}
+		for (ShellSession session : toClose)
+			session.close();
+	}
+	
+	/**
+	 * (U) This method is used to run a quick query, one whose output we read in full and whose
+	 * exit value we check (ie. "apt policy zip"). It is sent to this thread's shell session, and
+	 * only started as a process of its own if the session fails, or sessions are not in use.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return Process the command, which may have already finished.
+	 * @throws IOException if we are unable to run the command, or the deadline has passed.
+	 */
+	public Process query(List<String> command) throws IOException
+	{
+		if (replay != null)
+			return replay(command);
+		
+		Process process = runQuery(command);
+		return (recorder == null) ? process : record(command, process);
+	}
+	
+	/**
+	 * (U) This method is used to start a Unix command.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return Process the running command.
+	 * @throws IOException if we are unable to start the command, or the deadline has passed.
+	 */
+	public Process start(List<String> command) throws IOException
+	{
+		if (replay != null)
+			return replay(command);
+		
+		waitToSpawn(command);
+		Process process = startProcess(command);
+		return (recorder == null) ? process : record(command, process);
+	}
+	
+	/**
+	 * (U) This method is used to kill every command still running, and refuse to start any more.
+	 * It is used once the deadline has passed, and the generator has stopped waiting for them,
+	 * rather than leaving each to its own watchdog.
+	 */
+	public void cancelAll()
+	{
+		deadlineNanos = System.nanoTime();
+		hasDeadline = true;
+		
+		for (Process process : runningProcesses)
+			killTree(process);
+		
+		List<ShellSession> toKill;
+		synchronized (openSessions)
+		{
+			toKill = new ArrayList<>(openSessions);
+		}
+		for (ShellSession session : toKill)
+			session.killCommand();
+	}
+	
+	/**
+	 * (U) This method is used to get the average time a command took, from start to exit.
+	 * 
+	 * @return double the average latency in milliseconds, 0 if no command has finished.
+	 */
+	public double getAverageLatencyMillis()
+	{
+		long count = completed.get();
+		if (count == 0)
+			return 0;
+		return ((double) totalNanos.get() / count) / TimeUnit.MILLISECONDS.toNanos(1);
+	}
+	
+	/**
+	 * (U) This method is used to get the number of commands that have finished.
+	 * 
+	 * @return long the number of commands that have exited.
+	 */
+	public long getCompletedCount()
+	{
+		return completed.get();
+	}
+	
+	/**
+	 * (U) This method is used to get the number of commands we were unable to start.
+	 * 
+	 * @return long the number of commands that failed to start.
+	 */
+	public long getFailedStartCount()
+	{
+		return failedStarts.get();
+	}
+	
+	/**
+	 * (U) This method is used to get the number of commands we have been asked to run.
+	 * 
+	 * @return long the number of invocations.
+	 */
+	public long getInvocationCount()
+	{
+		return invocations.get();
+	}
+	
+	/**
+	 * (U) This method is used to get the longest time a command took, from start to exit.
+	 * 
+	 * @return long the maximum latency in milliseconds.
+	 */
+	public long getMaxLatencyMillis()
+	{
+		return TimeUnit.NANOSECONDS.toMillis(maxNanos.get());
+	}
+	
+	/**
+	 * (U) This method is used to get the low impact policy commands are run with.
+	 * 
+	 * @return LowImpactPolicy the policy, null if commands are run as is.
+	 */
+	public LowImpactPolicy getLowImpactPolicy()
+	{
+		return lowImpactPolicy;
+	}
+	
+	/**
+	 * (U) This method is used to get the archive commands are recorded in.
+	 * 
+	 * @return CommandArchive the archive, null if commands are not recorded.
+	 */
+	public CommandArchive getRecorder()
+	{
+		return recorder;
+	}
+	
+	/**
+	 * (U) This method is used to get the archive commands are answered from.
+	 * 
+	 * @return CommandArchive the archive, null if commands are run.
+	 */
+	public CommandArchive getReplay()
+	{
+		return replay;
+	}
+	
+	/**
+	 * (U) This method is used to get the most commands started per second.
+	 * 
+	 * @return int the rate, 0 if it is not limited.
+	 */
+	public int getSpawnRate()
+	{
+		SpawnRateLimiter limiter = spawnRateLimiter;
+		return (limiter == null) ? 0 : limiter.getPerSecond();
+	}
+	
+	/**
+	 * (U) This method is used to get the number of commands killed for running too long.
+	 * 
+	 * @return long the number of commands that timed out.
+	 */
+	public long getTimedOutCount()
+	{
+		return timedOut.get();
+	}
+	
+	/**
+	 * (U) This method is used to get how long a command may run before it is killed.
+	 * 
+	 * @return long the timeout in milliseconds, 0 if commands may run as long as they like.
+	 */
+	public long getTimeoutMillis()
+	{
+		return timeoutMillis;
+	}
+	
+	/**
+	 * (U) This method is used to tell if the deadline has passed.
+	 * 
+	 * @return boolean true if there is a deadline, and it has passed.
+	 */
+	public boolean isPastDeadline()
+	{
+		return (hasDeadline) && (System.nanoTime() - deadlineNanos >= 0);
+	}
+	
+	/**
+	 * (U) This method is used to tell if queries are sent to shell sessions.
+	 * 
+	 * @return boolean true if they are, false if a process is started for each one.
+	 */
+	public boolean isUsingSessions()
+	{
+		return useSessions;
+	}
+	
+	/**
+	 * (U) This method is used to set when every command must be done by. Commands still running
+	 * then are killed, and no more are started.
+	 * 
+	 * @param deadlineNanos long the System.nanoTime() of the deadline.
+	 */
+	public void setDeadline(long deadlineNanos)
+	{
+		this.deadlineNanos = deadlineNanos;
+		this.hasDeadline = true;
+	}
+	
+	/**
+	 * (U) This method is used to set the low impact policy to run commands with. Shell sessions
+	 * already started keep the priority they were started with, so it should be set before any
+	 * command is run.
+	 * 
+	 * @param lowImpactPolicy LowImpactPolicy the policy, null to run commands as is.
+	 */
+	public void setLowImpactPolicy(LowImpactPolicy lowImpactPolicy)
+	{
+		this.lowImpactPolicy = lowImpactPolicy;
+	}
+	
+	/**
+	 * (U) This method is used to record every command run, and its response, in an archive.
+	 * 
+	 * @param recorder CommandArchive to record in, null to stop recording.
+	 */
+	public void setRecorder(CommandArchive recorder)
+	{
+		this.recorder = recorder;
+	}
+	
+	/**
+	 * (U) This method is used to answer every command from an archive, instead of running it.
+	 * 
+	 * @param replay CommandArchive to replay, null to run commands again.
+	 */
+	public void setReplay(CommandArchive replay)
+	{
+		this.replay = replay;
+	}
+	
+	/**
+	 * (U) This method is used to set the most commands to start per second, counting the
+	 * queries sent to shell sessions, since each of them starts a process too.
+	 * 
+	 * @param perSecond int the rate, 0 to not limit it.
+	 */
+	public void setSpawnRate(int perSecond)
+	{
+		spawnRateLimiter = (perSecond > 0) ? new SpawnRateLimiter(perSecond) : null;
+	}
+	
+	/**
+	 * (U) This method is used to set how long a command may run before it is killed, along with
+	 * every process it started.
+	 * 
+	 * @param timeoutMillis long the timeout in milliseconds, 0 to let commands run as long as they
+	 *                      like.
+	 */
+	public void setTimeoutMillis(long timeoutMillis)
+	{
+		this.timeoutMillis = Math.max(0, timeoutMillis);
+	}
+	
+	/**
+	 * (U) This method is used to send queries to shell sessions, or to stop doing so, ending the
+	 * sessions already started.
+	 * 
+	 * @param useSessions boolean true to send queries to shell sessions, false to start a process
+	 *                    for each one.
+	 */
+	public void setUsingSessions(boolean useSessions)
+	{
+		this.useSessions = useSessions;
+		if (!useSessions)
+			close();
+	}
+	
+	/**
+	 * (U) This method is used to get the number of queries answered by shell sessions.
+	 * 
+	 * @return long the number of session queries.
+	 */
+	public long getSessionQueryCount()
+	{
+		return sessionQueries.get();
+	}
+	
+	/**
+	 * (U) This method is used to get a summary of the commands run, suitable for logging.
+	 * 
+	 * @return String the summary.
+	 */
+	public String getStatistics()
+	{
+		return String.format("Ran %d commands (%d in shell sessions, %d failed to start, %d " +
+				"finished, %d timed out), average latency %.1f ms, maximum latency %d ms.",
+				getInvocationCount(), getSessionQueryCount(), getFailedStartCount(),
+				getCompletedCount(), getTimedOutCount(), getAverageLatencyMillis(),
+				getMaxLatencyMillis());
+	}
+	
+	/**
+	 * (U) This method is used to refuse to run a command once the deadline has passed.
+	 * 
+	 * @param command List of Strings, the command we were asked to run.
+	 * @throws IOException if the deadline has passed.
+	 */
+	private void checkDeadline(List<String> command) throws IOException
+	{
+		if (isPastDeadline())
+			throw new IOException("The deadline has passed, not running: " +
+					String.join(" ", command));
+	}
+	
+	/**
+	 * (U) This method is used to get this thread's shell session, starting it if need be.
+	 * 
+	 * @return ShellSession the session, null if sessions are not in use, or can not be started.
+	 */
+	private ShellSession getSession()
+	{
+		if ((!useSessions) || (!sessionsAvailable))
+			return null;
+		
+		ShellSession session = sessions.get();
+		if ((session == null) || (!session.isOpen()))
+		{
+			try
+			{
+				LowImpactPolicy policy = lowImpactPolicy;
+				if (policy == null)
+					session = new ShellSession();
+				else
+					session = new ShellSession(policy.wrap(List.of(ShellSession.SHELL)));
+			}
+			catch (IOException ioe)
+			{
+				logger.warn("Unable to start a shell session (" + ShellSession.SHELL + "), " +
+						"starting a process for each query instead.", ioe);
+				sessionsAvailable = false;
+				return null;
+			}
+			sessions.set(session);
+			synchronized (openSessions)
+			{
+				openSessions.add(session);
+			}
+		}
+		return session;
+	}
+	
+	/**
+	 * (U) This method is used to kill a command, and every process it started. The children are
+	 * killed first, since once the command is gone they no longer belong to it.
+	 * 
+	 * @param process Process of the command to kill.
+	 */
+	private static void killTree(Process process)
+	{
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		process.destroyForcibly();
+	}
+	
+	/**
+	 * (U) This method is used to have a command killed if it is still running when it times
+	 * out, or when the deadline passes, whichever comes first.
+	 * 
+	 * @param command List of Strings, the command being watched, for logging.
+	 * @param killer  Runnable that kills the command.
+	 * @return ScheduledFuture to cancel once the command is done, null if there is neither a
+	 *         timeout nor a deadline.
+	 */
+	private ScheduledFuture<?> watch(List<String> command, Runnable killer)
+	{
+		long delayNanos = Long.MAX_VALUE;
+		if (timeoutMillis > 0)
+			delayNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		if (hasDeadline)
+			delayNanos = Math.min(delayNanos, Math.max(0, deadlineNanos - System.nanoTime()));
+		if (delayNanos == Long.MAX_VALUE)
+			return null;
+		
+		return WATCHDOGS.schedule(() ->
+		{
+			if (isPastDeadline())
+				logger.warn("The deadline has passed, killing: " + String.join(" ", command));
+			else
+			{
+				timedOut.incrementAndGet();
+				logger.warn("Command timed out after " + timeoutMillis + " ms, killing: " +
+						String.join(" ", command));
+			}
+			killer.run();
+		}, delayNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * (U) This method is used to record the time a command took, once it has exited.
+	 * 
+	 * @param nanos long the time the command took, in nanoseconds.
+	 */
+	private void recordLatency(long nanos)
+	{
+		totalNanos.addAndGet(nanos);
+		maxNanos.accumulateAndGet(nanos, Math::max);
+		completed.incrementAndGet();
+	}
+	
+	/**
+	 * (U) This method is used to record a command's response, once it is done. The command is
+	 * read in full, so the Process given back has already finished.
+	 * 
+	 * @param command List of Strings, the command run.
+	 * @param process Process of the command.
+	 * @return BufferedProcess holding the command's output and exit value.
+	 * @throws IOException if we are unable to read the command's output.
+	 */
+	private BufferedProcess record(List<String> command, Process process) throws IOException
+	{
+		ProcessIOPump pump = new ProcessIOPump(process);
+		byte[] output;
+		try (InputStream stdout = process.getInputStream())
+		{
+			output = stdout.readAllBytes();
+		}
+		
+		int exitValue;
+		try
+		{
+			exitValue = pump.waitFor();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while recording: " + String.join(" ", command), ie);
+		}
+		
+		byte[] errorOutput = pump.getErrorOutput().getBytes(StandardCharsets.UTF_8);
+		recorder.addCommand(command, exitValue, output, errorOutput);
+		return new BufferedProcess(output, errorOutput, exitValue);
+	}
+	
+	/**
+	 * (U) This method is used to answer a command from the archive being replayed.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return BufferedProcess holding the command's recorded output and exit value.
+	 * @throws IOException if the command was not recorded, or the deadline has passed.
+	 */
+	private BufferedProcess replay(List<String> command) throws IOException
+	{
+		checkDeadline(command);
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Replaying: " + String.join(" ", command));
+		
+		invocations.incrementAndGet();
+		return replay.replay(command);
+	}
+	
+	/**
+	 * (U) This method is used to run a quick query in this thread's shell session, or as a
+	 * process of its own if there is no session. A session query's watchdog is cancelled, and
+	 * its latency recorded, once its response has been read.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return Process the command, which may have already finished.
+	 * @throws IOException if we are unable to run the command, or the deadline has passed.
+	 */
+	private Process runQuery(List<String> command) throws IOException
+	{
+		waitToSpawn(command);
+		
+		ShellSession session = getSession();
+		if (session == null)
+			return startProcess(command);
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Querying: " + String.join(" ", command));
+		
+		long startTime = System.nanoTime();
+		ScheduledFuture<?> watchdog = watch(command, session::killCommand);
+		try
+		{
+			Process process = session.run(command, () ->
+			{
+				if (watchdog != null)
+					watchdog.cancel(false);
+				recordLatency(System.nanoTime() - startTime);
+			});
+			invocations.incrementAndGet();
+			sessionQueries.incrementAndGet();
+			return process;
+		}
+		catch (IOException ioe)
+		{
+			if (watchdog != null)
+				watchdog.cancel(false);
+			logger.warn("The shell session failed, running the command on its own.", ioe);
+			sessions.remove();
+			return startProcess(command);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to start a Unix command, once it may be started.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return Process the running command.
+	 * @throws IOException if we are unable to start the command, or the deadline has passed.
+	 */
+	private Process startProcess(List<String> command) throws IOException
+	{
+		checkDeadline(command);
+		
+		LowImpactPolicy policy = lowImpactPolicy;
+		ProcessBuilder processBuilder = processBuilders.get();
+		processBuilder.command((policy == null) ? command : policy.wrap(command));
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Running: " + String.join(" ", command));
+		
+		invocations.incrementAndGet();
+		long startTime = System.nanoTime();
+		
+		Process process;
+		try
+		{
+			process = processBuilder.start();
+		}
+		catch (IOException ioe)
+		{
+			failedStarts.incrementAndGet();
+			throw ioe;
+		}
+		CompletableFuture<Process> exit = process.onExit();
+		if (exit != null)
+		{
+			runningProcesses.add(process);
+			ScheduledFuture<?> watchdog = watch(command, () -> killTree(process));
+			exit.thenRun(() ->
+			{
+				runningProcesses.remove(process);
+				if (watchdog != null)
+					watchdog.cancel(false);
+				recordLatency(System.nanoTime() - startTime);
+			});
+		}
+		
+		return process;
+	}
+	
+	/**
+	 * (U) This method is used to wait until a command may be started, if the number started per
+	 * second is limited.
+	 * 
+	 * @param command List of Strings, the command we were asked to run.
+	 * @throws IOException if the deadline has passed, or we are interrupted while waiting.
+	 */
+	private void waitToSpawn(List<String> command) throws IOException
+	{
+		checkDeadline(command);
+		
+		SpawnRateLimiter limiter = spawnRateLimiter;
+		if (limiter == null)
+			return;
+		
+		try
+		{
+			limiter.acquire();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting to run: " + String.join(" ", command),
+					ie);
+		}
+		// The deadline may have passed while we waited.
+		checkDeadline(command);
+	}
+}
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This class is used to run the package manager commands at a lower priority than the rest of
+ * the host, so scanning a live server does not take CPU or disk time away from its real work.
+ * 
+ * Each command is started through nice (lowest CPU priority) and ionice (lowest best effort
+ * disk priority), if they are installed. If we are given a cgroup (v2) that has been delegated
+ * to us (ie. a systemd unit with Delegate=yes), the commands are also put in a cgroup of their
+ * own under it (sbom-low-impact-pid), with a CPU quota (half a processor by default). The host's
+ * cgroups are never rearranged: the cgroup given must not be the root one, and must already
+ * have the cpu controller enabled for its children, otherwise it is left alone. Each command is
+ * started by a shell that moves itself into the cgroup, then becomes the command, so no command
+ * runs outside it even briefly. Closing the policy removes the cgroup it created. Whatever is
+ * not available is left out, so the policy never stops a command from running.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class LowImpactPolicy implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(LowImpactPolicy.class.getName());
+	
+	public static final int NICENESS = 19;
+	// Percent of a processor the commands may use, and the period it is measured over (cpu.max).
+	public static final int DEFAULT_CPU_PERCENT = 50;
+	public static final int CPU_PERIOD = 100000;
+	
+	// Run by the shell starting each command: it moves itself into the cgroup ($0), then runs
+	// the command in its place. A failed move is ignored, the command runs regardless.
+	private static final String CONFINE_SCRIPT = "{ echo $$ >\"$0/cgroup.procs\"; } " +
+			"2>/dev/null; exec \"$@\"";
+	
+	private final List<String> prefix = new ArrayList<>();
+	private final String cpuQuota;
+	
+	// The commands' cgroup, and whether we created it (so remove it when closed).
+	private volatile Path cgroup = null;
+	private boolean createdCgroup = false;
+	
+	/**
+	 * (U) Constructor, finds out which of nice and ionice we can use.
+	 */
+	public LowImpactPolicy()
+	{
+		this(null, DEFAULT_CPU_PERCENT);
+	}
+	
+	/**
+	 * (U) Constructor, finds out which of nice and ionice we can use, and creates a cgroup with
+	 * a CPU quota under the delegated cgroup, if it allows one.
+	 * 
+	 * @param delegated  Path of a cgroup (v2) delegated to us, null to rely on nice alone.
+	 * @param cpuPercent int percent of a processor the commands may use between them.
+	 * @throws SBomException if the percent is not positive.
+	 */
+	public LowImpactPolicy(Path delegated, int cpuPercent)
+	{
+		if (cpuPercent <= 0)
+		{
+			String error = "Invalid CPU quota (" + cpuPercent + "%), must be positive!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		cpuQuota = ((long) cpuPercent * CPU_PERIOD / 100) + " " + CPU_PERIOD;
+		
+		findPrograms();
+		if (delegated != null)
+			createCgroup(delegated);
+		
+		if (logger.isInfoEnabled())
+			logger.info("Running package manager commands with low impact (" + describe() + ").");
+	}
+	
+	/**
+	 * (U) Constructor, putting the commands in a cgroup that has already been set up (and is
+	 * left as is when the policy is closed).
+	 * 
+	 * @param cgroup Path of the cgroup to put the commands in.
+	 */
+	LowImpactPolicy(Path cgroup)
+	{
+		cpuQuota = null;
+		findPrograms();
+		this.cgroup = cgroup;
+	}
+	
+	/**
+	 * (U) This method is used to remove the cgroup we created, once the commands in it are done.
+	 * The commands are run as is after that.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (!createdCgroup)
+			return;
+		
+		try
+		{
+			Files.deleteIfExists(cgroup);
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to remove cgroup (" + cgroup + ").", ioe);
+		}
+		cgroup = null;
+		createdCgroup = false;
+	}
+	
+	/**
+	 * (U) This method is used to describe what the policy does, suitable for logging.
+	 * 
+	 * @return String the description.
+	 */
+	public String describe()
+	{
+		List<String> parts = new ArrayList<>();
+		if (prefix.contains("nice"))
+			parts.add("nice " + NICENESS);
+		if (prefix.contains("ionice"))
+			parts.add("ionice best effort 7");
+		Path commandCgroup = cgroup;
+		if (commandCgroup != null)
+		{
+			String quota = (cpuQuota != null) ? (" cpu.max " + cpuQuota) : "";
+			parts.add("cgroup " + commandCgroup + quota);
+		}
+		if (parts.isEmpty())
+			return "nothing available";
+		return String.join(", ", parts);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the commands are put in a cgroup with a CPU quota.
+	 * 
+	 * @return boolean true if they are.
+	 */
+	public boolean hasCgroup()
+	{
+		return cgroup != null;
+	}
+	
+	/**
+	 * (U) This method is used to get the command to run in place of the one given, so it runs at
+	 * a lower priority, in our cgroup (if we have one) from the start.
+	 * 
+	 * @param command List of Strings, the program to run followed by its arguments.
+	 * @return List of Strings, the command run through nice and ionice.
+	 */
+	public List<String> wrap(List<String> command)
+	{
+		Path commandCgroup = cgroup;
+		if ((prefix.isEmpty()) && (commandCgroup == null))
+			return command;
+		
+		List<String> wrapped = new ArrayList<>(prefix.size() + command.size() + 4);
+		if (commandCgroup != null)
+		{
+			wrapped.add(ShellSession.SHELL);
+			wrapped.add("-c");
+			wrapped.add(CONFINE_SCRIPT);
+			wrapped.add(commandCgroup.toString());
+		}
+		wrapped.addAll(prefix);
+		wrapped.addAll(command);
+		return wrapped;
+	}
+	
+	/**
+	 * (U) This method is used to find out which of nice and ionice are installed, and build the
+	 * prefix that runs a command through them.
+	 */
+	private void findPrograms()
+	{
+		if (findProgram("nice") != null)
+		{
+			prefix.add("nice");
+			prefix.add("-n");
+			prefix.add(Integer.toString(NICENESS));
+		}
+		if (findProgram("ionice") != null)
+		{
+			prefix.add("ionice");
+			prefix.add("-c");
+			prefix.add("2");
+			prefix.add("-n");
+			prefix.add("7");
+		}
+	}
+	
+	/**
+	 * (U) This method is used to create a cgroup with a CPU quota, under the one delegated to
+	 * us. Nothing is written to the delegated cgroup itself: unless it is not the root cgroup
+	 * (which has no cgroup.type), we may create cgroups in it, and its children already have the
+	 * cpu controller, we rely on nice alone.
+	 * 
+	 * @param delegated Path of the cgroup delegated to us.
+	 */
+	private synchronized void createCgroup(Path delegated)
+	{
+		try
+		{
+			if ((!Files.exists(delegated.resolve("cgroup.type"))) ||
+					(!Files.isWritable(delegated)) ||
+					(!Files.isExecutable(Paths.get(ShellSession.SHELL))))
+			{
+				logger.warn("Unable to use cgroup (" + delegated + "), it is not one delegated " +
+						"to us, relying on nice alone.");
+				return;
+			}
+			String controllers = " " + new String(Files.readAllBytes(delegated.resolve(
+					"cgroup.subtree_control")), StandardCharsets.US_ASCII).trim() + " ";
+			if (!controllers.contains(" cpu "))
+			{
+				logger.warn("Unable to use cgroup (" + delegated + "), the cpu controller is not " +
+						"enabled for its children, relying on nice alone.");
+				return;
+			}
+			
+			cgroup = Files.createDirectory(delegated.resolve("sbom-low-impact-" +
+					ProcessHandle.current().pid()));
+			createdCgroup = true;
+			write(cgroup.resolve("cpu.max"), cpuQuota);
+		}
+		catch (IOException | RuntimeException e)
+		{
+			logger.warn("Unable to create a cgroup with a CPU quota under (" + delegated + "), " +
+					"relying on nice alone.", e);
+			close();
+		}
+	}
+	
+	/**
+	 * (U) This method is used to write a value to a cgroup file.
+	 * 
+	 * @param file  Path of the file.
+	 * @param value String value to write.
+	 * @throws IOException if the write is refused.
+	 */
+	private static void write(Path file, String value) throws IOException
+	{
+		Files.write(file, value.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	/**
+	 * (U) This method is used to find a program on the PATH.
+	 * 
+	 * @param program String name of the program.
+	 * @return Path of the program, null if it is not on the PATH.
+	 */
+	private static Path findProgram(String program)
+	{
+		String path = System.getenv("PATH");
+		if (path == null)
+			return null;
+		
+		for (String directory : path.split(File.pathSeparator))
+		{
+			if (directory.isEmpty())
+				continue;
+			Path candidate = Paths.get(directory, program);
+			if (Files.isExecutable(candidate))
+				return candidate;
+		}
+		return null;
+	}
+}
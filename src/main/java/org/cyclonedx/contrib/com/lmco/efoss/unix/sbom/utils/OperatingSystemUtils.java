@@ -34,6 +34,8 @@ public class OperatingSystemUtils
 	private static final String OS_RELEASE_FILE = "/etc/os-release";
 	
 	private Map<String, String> osMap = null;
+	
+	private String osRelease = null;
 
 	/**
 	 * (U) Base Constructor.
@@ -53,6 +55,7 @@ public class OperatingSystemUtils
 	 */
 	public OperatingSystemUtils(String fileContents)
 	{
+		osRelease = fileContents;
 		osMap = readOs(fileContents);
 	}
 	
@@ -75,6 +78,17 @@ public class OperatingSystemUtils
 		return osVendor;
 	}
 	
+	/**
+	 * (U) This method is used to get the contents of the "/etc/os-release" file the operating
+	 * system was determined from.
+	 * 
+	 * @return String the contents of the file.
+	 */
+	public String getOsRelease()
+	{
+		return osRelease;
+	}
+	
 	/**
 	 * (U) This method is used to get the operating System Name.
 	 * 
@@ -127,6 +141,7 @@ public class OperatingSystemUtils
 		try
 		{
 			String content = FileUtils.readFileToString(new File(OS_RELEASE_FILE));
+			osRelease = content;
 			
 			detailMap = readOs(content);
 		}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.TreeMap;
+
+import org.apache.log4j.Logger;
+import org.cyclonedx.contrib.com.lmco.efoss.sbom.commons.utils.StringUtils;
+
+import com.github.packageurl.MalformedPackageURLException;
+import com.github.packageurl.PackageURL;
+
+/**
+ * (U) This class is used to build the Package URL (PURL) of an operating system package from
+ * what we already know about it locally, (ie. pkg:rpm/centos/zip@3.0-11.el7?arch=x86_64). No
+ * network lookups are needed. The namespace and "distro" qualifier come from the operating
+ * system (/etc/os-release) the packages are installed on.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class PackageUrlBuilder
+{
+	private static final Logger logger = Logger.getLogger(PackageUrlBuilder.class.getName());
+	
+	private static final String APK_TYPE = "apk";
+	private static final String ALPINE_NAMESPACE = "alpine";
+	
+	private final String osId;
+	private final String distro;
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param osId      String value of the operating system id (ie. "centos", "ubuntu"), null if
+	 *                  not known.
+	 * @param osVersion String value of the operating system version (ie. "7", "20.04"), null if
+	 *                  not known.
+	 */
+	public PackageUrlBuilder(String osId, String osVersion)
+	{
+		this.osId = (StringUtils.isValid(osId)) ? osId.trim().toLowerCase() : null;
+		
+		if ((this.osId != null) && (StringUtils.isValid(osVersion)))
+			distro = this.osId + "-" + osVersion.trim();
+		else
+			distro = this.osId;
+	}
+	
+	/**
+	 * (U) This method is used to build the Package URL of an Alpine package.
+	 * 
+	 * @param name    String value of the package name.
+	 * @param version String value of the package version (ie. "1.1.24-r9").
+	 * @param arch    String value of the package architecture, null if not known.
+	 * @return String the Package URL, null if we are unable to build it.
+	 */
+	public String buildApkPurl(String name, String version, String arch)
+	{
+		TreeMap<String, String> qualifiers = new TreeMap<>();
+		putIfValid(qualifiers, "arch", arch);
+		putIfValid(qualifiers, "distro", distro);
+		
+		return build(APK_TYPE, (osId != null) ? osId : ALPINE_NAMESPACE, name, version,
+				qualifiers);
+	}
+	
+	/**
+	 * (U) This method is used to build the Package URL of a Debian (Ubuntu) package.
+	 * 
+	 * @param name    String value of the package name.
+	 * @param version String value of the package version, including any epoch (ie.
+	 *                "1:1.2.11.dfsg-2ubuntu1.2").
+	 * @param arch    String value of the package architecture, null if not known.
+	 * @return String the Package URL, null if we are unable to build it.
+	 */
+	public String buildDebPurl(String name, String version, String arch)
+	{
+		TreeMap<String, String> qualifiers = new TreeMap<>();
+		putIfValid(qualifiers, "arch", arch);
+		putIfValid(qualifiers, "distro", distro);
+		
+		return build(PackageURL.StandardTypes.DEBIAN, osId, name, version, qualifiers);
+	}
+	
+	/**
+	 * (U) This method is used to build the Package URL of an RPM package. The version is the
+	 * version and release, the epoch (if any) is a qualifier.
+	 * 
+	 * @param name    String value of the package name.
+	 * @param epoch   String value of the package epoch, null if it has none.
+	 * @param version String value of the package version.
+	 * @param release String value of the package release, null if not known.
+	 * @param arch    String value of the package architecture, null if not known.
+	 * @return String the Package URL, null if we are unable to build it.
+	 */
+	public String buildRpmPurl(String name, String epoch, String version, String release,
+			String arch)
+	{
+		String evr = version;
+		if ((StringUtils.isValid(version)) && (StringUtils.isValid(release)))
+			evr = version.trim() + "-" + release.trim();
+		
+		TreeMap<String, String> qualifiers = new TreeMap<>();
+		putIfValid(qualifiers, "arch", arch);
+		putIfValid(qualifiers, "distro", distro);
+		if ((StringUtils.isValid(epoch)) && (!"0".equals(epoch.trim())))
+			qualifiers.put("epoch", epoch.trim());
+		
+		return build(PackageURL.StandardTypes.RPM, osId, name, evr, qualifiers);
+	}
+	
+	/**
+	 * (U) This method is used to build the Package URL.
+	 * 
+	 * @param type       String value of the package type.
+	 * @param namespace  String value of the namespace, null if there is none.
+	 * @param name       String value of the package name.
+	 * @param version    String value of the package version, null if not known.
+	 * @param qualifiers TreeMap of qualifiers, may be empty.
+	 * @return String the canonical Package URL, null if we are unable to build it.
+	 */
+	private String build(String type, String namespace, String name, String version,
+			TreeMap<String, String> qualifiers)
+	{
+		if (!StringUtils.isValid(name))
+			return null;
+		
+		try
+		{
+			PackageURL packageUrl = new PackageURL(type, namespace, name.trim(),
+					(StringUtils.isValid(version)) ? version.trim() : null,
+					(qualifiers.isEmpty()) ? null : qualifiers, null);
+			return packageUrl.canonicalize();
+		}
+		catch (MalformedPackageURLException e)
+		{
+			logger.warn("Unable to build the Package URL for " + name + ".", e);
+		}
+		return null;
+	}
+	
+	/**
+	 * (U) This method is used to put a qualifier in the map, if it has a value.
+	 * 
+	 * @param qualifiers TreeMap of qualifiers to put the value in.
+	 * @param key        String value of the qualifier name.
+	 * @param value      String value of the qualifier, skipped if not valid.
+	 */
+	private static void putIfValid(TreeMap<String, String> qualifiers, String key, String value)
+	{
+		if (StringUtils.isValid(value))
+			qualifiers.put(key, value.trim());
+	}
+}
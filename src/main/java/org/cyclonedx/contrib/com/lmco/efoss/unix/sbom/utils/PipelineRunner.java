@@ -0,0 +1,1095 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.log4j.Logger;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+
+/**
+ * (U) This class is used to run the packages of a scan through a StagedPipeline: listing them,
+ * resuming them from the checkpoint journal, scheduling them by their query timings, sending
+ * them down the pipeline in batches, retrying those that failed, and stopping at the deadline.
+ * What each stage does with a package is left to the package manager's generator.
+ * 
+ * @param <T> Type of the packages sent down the pipeline.
+ * @author agent
+ * @since 17 October 2026
+ */
+public class PipelineRunner<T extends PipelineRunner.Item>
+{
+	/**
+	 * (U) This interface is implemented by a package on its way through the pipeline, so the
+	 * runner can journal, retry, and account for it.
+	 */
+	public interface Item
+	{
+		/**
+		 * (U) This method is used to get the package name.
+		 * 
+		 * @return String the package name.
+		 */
+		String getName();
+		
+		/**
+		 * (U) This method is used to get the installed version.
+		 * 
+		 * @return String the installed version, null until it is found.
+		 */
+		String getVersion();
+		
+		/**
+		 * (U) This method is used to get the details of the package.
+		 * 
+		 * @return Map containing the key value pairs about the package, null until they are
+		 *         found.
+		 */
+		Map<String, String> getDetailMap();
+		
+		/**
+		 * (U) This method is used to set the details of the package.
+		 * 
+		 * @param detailMap Map containing the key value pairs about the package.
+		 */
+		void setDetailMap(Map<String, String> detailMap);
+		
+		/**
+		 * (U) This method is used to get why a stage failed on the package.
+		 * 
+		 * @return String the stage and its error, null if no stage has failed on it.
+		 */
+		String getFailure();
+		
+		/**
+		 * (U) This method is used to set why a stage failed on the package.
+		 * 
+		 * @param failure String value of the stage and its error, null to try it again.
+		 */
+		void setFailure(String failure);
+		
+		/**
+		 * (U) This method is used to tell if the last stage is done with the package.
+		 * 
+		 * @return boolean true if the last stage has finished with it.
+		 */
+		boolean isDone();
+	}
+	
+	private static final Logger logger = Logger.getLogger(PipelineRunner.class.getName());
+	
+	// Packages looked up together while the rest are still being listed.
+	private static final int STREAMED_BATCH_SIZE = 64;
+	
+	// Packages read ahead of the pipeline, with query timings, to send the slowest first.
+	public static final int SCHEDULE_WINDOW = 8 * STREAMED_BATCH_SIZE;
+	
+	// Setting recorded in a command archive, with the order the packages were sent in, so a
+	// replay splits them between commands the same way.
+	private static final String PACKAGE_ORDER_SETTING = "packageOrder";
+	
+	// Stages of the pipeline each batch of packages is sent through.
+	public static final String DETAILS_STAGE = "details";
+	public static final String VERSION_STAGE = "version";
+	public static final String LICENSE_STAGE = "license";
+	public static final String CREATE_STAGE = "create";
+	public static final List<String> PIPELINE_STAGES = List.of(DETAILS_STAGE, VERSION_STAGE,
+			LICENSE_STAGE, CREATE_STAGE);
+	
+	// Batches waiting on each stage of the pipeline, unless told otherwise.
+	public static final int DEFAULT_QUEUE_DEPTH = 4;
+	
+	// Runs the Unix commands, looked up each time as it may be replaced.
+	private final Supplier<CommandRunner> commandRunner;
+	
+	private int threads = Runtime.getRuntime().availableProcessors();
+	
+	private final Map<String, Integer> queueDepths = new HashMap<>();
+	
+	// How long each package took to look up in earlier scans, null if we do not keep them.
+	private QueryTimings queryTimings = null;
+	
+	// Journal of the packages the pipeline is done with, null if we do not keep one.
+	private CheckpointJournal journal = null;
+	
+	// System.nanoTime() the scan must be done by, only used if hasDeadline is set.
+	private long deadlineNanos = 0;
+	private boolean hasDeadline = false;
+	
+	// Set once the deadline cuts the scan short, along with the packages it left unfinished.
+	private volatile boolean incomplete = false;
+	private final List<String> unfinishedSoftware = Collections.synchronizedList(
+			new ArrayList<>());
+	
+	// Packages a stage of the pipeline failed on, and how many times to try them again.
+	private final List<String> failedSoftware = Collections.synchronizedList(new ArrayList<>());
+	private int retryFailed = 0;
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param commandRunner Supplier of the CommandRunner running the Unix commands, for killing
+	 *                      them at the deadline, and recording or replaying the package order.
+	 */
+	public PipelineRunner(Supplier<CommandRunner> commandRunner)
+	{
+		this.commandRunner = commandRunner;
+	}
+	
+	/**
+	 * (U) This method is used to run software through a pipeline of stages (looking up its
+	 * details, reading its license, creating its Component, ...). The software is taken in
+	 * batches, each sent down the pipeline as soon as it fills, so the first packages are being
+	 * looked up while the rest are still being listed, and each stage works on its own batches,
+	 * with its own threads. The pipeline is closed once we are done with it.
+	 * 
+	 * With query timings from earlier scans, the listing is read SCHEDULE_WINDOW packages at a
+	 * time, and each window sent down the pipeline longest expected first, so the slowest
+	 * packages are not left until last. The packages still come back in the order the software
+	 * was listed.
+	 * 
+	 * A package a stage fails on is left out of the stages after it, without holding up the
+	 * rest. Once every package has been through, those that failed are sent through again, up
+	 * to "retryFailed" times. Any still failing come back with why they failed, and are
+	 * recorded as failed.
+	 * 
+	 * With a checkpoint journal, each package is journaled as soon as the pipeline is done with
+	 * it, and a package journaled by an earlier scan, at the version listed now, takes its
+	 * details from the journal rather than having them looked up again.
+	 * 
+	 * If the deadline passes first, the listing is cut short, and only the packages finished by
+	 * then come back. The software listed, but not finished, is recorded as unfinished.
+	 * 
+	 * @param software Iterator over the software, as it is listed.
+	 * @param pipeline StagedPipeline of the stages each batch goes through.
+	 * @return List of the packages finished (or failed), in the order they were listed.
+	 * @throws SBomException if we fail to list the software, or a stage fails other than on a
+	 *                       single package, before the deadline.
+	 */
+	public List<T> run(Iterator<T> software, StagedPipeline<List<T>> pipeline)
+	{
+		List<T> listed = new ArrayList<>();
+		List<List<T>> batches = new ArrayList<>();
+		Set<T> finished = Collections.newSetFromMap(new IdentityHashMap<>());
+		try (pipeline)
+		{
+			runPipeline(pipeline, batchesOf(schedule(resume(listBeforeDeadline(software)),
+					listed), batches), finished);
+			
+			for (int pass = 1; (pass <= retryFailed) && (!isPastDeadline()); pass++)
+			{
+				List<T> failed = new ArrayList<>();
+				for (T pending : listed)
+				{
+					if ((finished.contains(pending)) && (pending.getFailure() != null))
+						failed.add(pending);
+				}
+				if (failed.isEmpty())
+					break;
+				
+				logger.info("Retrying the " + failed.size() + " failed packages (" + pass +
+						" of " + retryFailed + ").");
+				for (T pending : failed)
+				{
+					pending.setFailure(null);
+					finished.remove(pending);
+				}
+				runPipeline(pipeline, batchesOf(failed.iterator(), batches), finished);
+			}
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			String error = "Interrupted while attempting to create the Components!";
+			logger.error(error, ie);
+			throw new SBomException(error, ie);
+		}
+		catch (RejectedExecutionException ree)
+		{
+			String error = "The pipeline turned away a batch of packages, unable to create " +
+					"the Components!";
+			logger.error(error, ree);
+			throw new SBomException(error, ree);
+		}
+		finally
+		{
+			if (logger.isInfoEnabled())
+				logger.info(pipeline.getStatistics());
+		}
+		
+		List<T> done = new ArrayList<>(listed.size());
+		List<String> failed = new ArrayList<>();
+		for (T pending : listed)
+		{
+			if (!finished.contains(pending))
+				unfinishedSoftware.add(pending.getName());
+			else if (pending.getFailure() != null)
+			{
+				done.add(pending);
+				failed.add(pending.getName());
+			}
+			else if (pending.isDone())
+				done.add(pending);
+			else
+				unfinishedSoftware.add(pending.getName());
+		}
+		
+		if (logger.isDebugEnabled())
+			logger.debug("Processed " + listed.size() + " software programs.");
+		
+		if (!failed.isEmpty())
+		{
+			failedSoftware.addAll(failed);
+			logger.warn(failed.size() + " of " + listed.size() + " packages failed, their " +
+					"Components only have their name and version: " + String.join(", ", failed));
+		}
+		
+		if (done.size() < listed.size())
+		{
+			incomplete = true;
+			logger.warn("The deadline passed with " + (listed.size() - done.size()) +
+					" of " + listed.size() + " Components unfinished.");
+		}
+		return done;
+	}
+	
+	/**
+	 * (U) This method is used to add a stage to a pipeline. How many threads the stage gets
+	 * depends on what it waits on: a stage running Unix commands (DETAILS_STAGE, VERSION_STAGE)
+	 * or reading files (LICENSE_STAGE) gets "threads" of them, and how many of its commands
+	 * actually run at once adapts to the package manager, while CREATE_STAGE only needs the CPU,
+	 * so gets no more threads than there are processors. Its queue holds up to its queue depth
+	 * of batches.
+	 * 
+	 * The stage works on a batch at a time. The batch task (if any) runs once for the whole
+	 * batch, then the package task for each package in it. If the batch task fails, the package
+	 * task still runs on each package, and a package the package task fails on is recorded as
+	 * failed, without failing the rest of the batch. Neither runs once the deadline has passed,
+	 * which leaves those packages unfinished.
+	 * 
+	 * @param pipeline  StagedPipeline to add the stage to.
+	 * @param stage     String value of the stage, one of PIPELINE_STAGES.
+	 * @param batchTask Consumer run once for each batch, null if there is none.
+	 * @param task      Consumer run for each package, null if there is none.
+	 */
+	public void addStage(StagedPipeline<List<T>> pipeline, String stage,
+			Consumer<List<T>> batchTask, Consumer<T> task)
+	{
+		boolean runsCommands = (stage.equals(DETAILS_STAGE) || stage.equals(VERSION_STAGE));
+		int workers = stage.equals(CREATE_STAGE) ? Math.min(threads,
+				Runtime.getRuntime().availableProcessors()) : threads;
+		AdaptiveConcurrencyLimiter limiter = runsCommands ? new AdaptiveConcurrencyLimiter(
+				threads) : null;
+		
+		pipeline.addStage(stage, workers, getQueueDepth(stage), batch -> runStage(stage, batch,
+				limiter, batchTask, task));
+	}
+	
+	/**
+	 * (U) This method is used to run a task for every item, as the items come in, with up to
+	 * "threads" of them running at once, as limited by an AdaptiveConcurrencyLimiter. Each item
+	 * is handed to a thread as soon as we have it, so the tasks run while we wait on the next
+	 * item. The results come back in the same order as the items.
+	 * 
+	 * Once the deadline passes no more tasks are started, and we stop waiting on the ones still
+	 * running. The result of every task not finished by then is null, even if it failed.
+	 * 
+	 * @param <I>         Type of the items.
+	 * @param <R>         Type of the results.
+	 * @param items       Iterator over the items to run the task for.
+	 * @param task        Function to run for each item.
+	 * @param description String value describing the work, for error messages.
+	 * @return List of the results, in the order of the items, null for the items not finished
+	 *         by the deadline.
+	 * @throws SBomException if the task fails for any of the items before the deadline, or the
+	 *                       items fail to come in.
+	 */
+	public <I, R> List<R> runConcurrently(Iterator<I> items, Function<I, R> task,
+			String description)
+	{
+		List<R> results = new ArrayList<>();
+		
+		if (threads <= 1)
+		{
+			while (items.hasNext())
+				results.add(runBeforeDeadline(items.next(), task));
+			return results;
+		}
+		
+		// The pool only starts as many threads as it has been given items.
+		ExecutorService workers = Executors.newFixedThreadPool(threads);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(threads);
+		try
+		{
+			List<Future<R>> futures = new ArrayList<>();
+			while (items.hasNext())
+			{
+				I item = items.next();
+				futures.add(workers.submit(() ->
+				{
+					limiter.acquire();
+					long startTime = System.nanoTime();
+					try
+					{
+						return runBeforeDeadline(item, task);
+					}
+					finally
+					{
+						limiter.release(System.nanoTime() - startTime);
+					}
+				}));
+			}
+			
+			for (Future<R> future : futures)
+				results.add(getResult(future, description));
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			String error = "Interrupted while attempting to " + description + "!";
+			logger.error(error, ie);
+			throw new SBomException(error, ie);
+		}
+		finally
+		{
+			workers.shutdownNow();
+			if (logger.isDebugEnabled())
+				logger.debug("Finished with a concurrency limit of " + limiter.getLimit() + ".");
+		}
+		return results;
+	}
+	
+	/**
+	 * (U) This method is used when the scan fails. If the deadline has passed, that is why, so
+	 * we carry on with what we have, and the scan is marked as incomplete. Otherwise the failure
+	 * is passed on.
+	 * 
+	 * @param sbe SBomException the scan failed with.
+	 * @throws SBomException the exception passed in, unless the deadline has passed.
+	 */
+	public void checkDeadline(SBomException sbe)
+	{
+		if (!isPastDeadline())
+			throw sbe;
+		
+		incomplete = true;
+		logger.warn("The deadline passed before every installed package was found.", sbe);
+	}
+	
+	/**
+	 * (U) This method is used to set when the scan must be done by. Once the deadline passes,
+	 * no more packages are looked up, and we stop waiting on those still being looked up.
+	 * 
+	 * @param deadlineNanos long System.nanoTime() the scan must be done by.
+	 */
+	public void setDeadline(long deadlineNanos)
+	{
+		this.deadlineNanos = deadlineNanos;
+		hasDeadline = true;
+	}
+	
+	/**
+	 * (U) This method is used to tell if the deadline has passed.
+	 * 
+	 * @return boolean true if there is a deadline, and it has passed.
+	 */
+	public boolean isPastDeadline()
+	{
+		return (hasDeadline) && (System.nanoTime() - deadlineNanos >= 0);
+	}
+	
+	/**
+	 * (U) This method is used to tell if the deadline cut the scan short.
+	 * 
+	 * @return boolean true if packages are missing because of the deadline.
+	 */
+	public boolean isIncomplete()
+	{
+		return incomplete;
+	}
+	
+	/**
+	 * (U) This method is used to get the packages the deadline left unfinished.
+	 * 
+	 * @return List of Strings, the names of the unfinished packages.
+	 */
+	public List<String> getUnfinishedSoftware()
+	{
+		synchronized (unfinishedSoftware)
+		{
+			return new ArrayList<>(unfinishedSoftware);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to get the packages a stage of the pipeline failed on, every time
+	 * they were tried.
+	 * 
+	 * @return List of Strings, the names of the failed packages.
+	 */
+	public List<String> getFailedSoftware()
+	{
+		synchronized (failedSoftware)
+		{
+			return new ArrayList<>(failedSoftware);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to get how many times the packages a stage failed on are tried
+	 * again.
+	 * 
+	 * @return int the number of retries.
+	 */
+	public int getRetryFailed()
+	{
+		return retryFailed;
+	}
+	
+	/**
+	 * (U) This method is used to set how many times the packages a stage failed on are tried
+	 * again, once every package has been through the pipeline. Only the failed packages are
+	 * looked up again, not the whole scan.
+	 * 
+	 * @param retryFailed int the number of retries, 0 for none.
+	 * @throws SBomException if the number of retries is negative.
+	 */
+	public void setRetryFailed(int retryFailed)
+	{
+		if (retryFailed < 0)
+		{
+			String error = "Invalid number of retries (" + retryFailed + "), must be at least 0!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		this.retryFailed = retryFailed;
+	}
+	
+	/**
+	 * (U) This method is used to get the number of packages we look up at once.
+	 * 
+	 * @return int the number of threads.
+	 */
+	public int getThreads()
+	{
+		return threads;
+	}
+	
+	/**
+	 * (U) This method is used to set the most packages we look up at once. How many actually
+	 * run at once adapts to the package manager, up to this many. Defaults to the number of
+	 * available processors.
+	 * 
+	 * @param threads int the number of threads, must be at least 1.
+	 * @throws SBomException if the number of threads is less than 1.
+	 */
+	public void setThreads(int threads)
+	{
+		if (threads < 1)
+		{
+			String error = "Invalid number of threads (" + threads + "), must be at least 1!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		this.threads = threads;
+	}
+	
+	/**
+	 * (U) This method is used to get the most batches of packages left waiting on a stage of the
+	 * pipeline.
+	 * 
+	 * @param stage String value of the stage, one of PIPELINE_STAGES.
+	 * @return int the queue depth of the stage.
+	 */
+	public int getQueueDepth(String stage)
+	{
+		return queueDepths.getOrDefault(stage, DEFAULT_QUEUE_DEPTH);
+	}
+	
+	/**
+	 * (U) This method is used to set the most batches of packages left waiting on a stage of the
+	 * pipeline. Once its queue is full, the stage before it waits for room.
+	 * 
+	 * @param stage      String value of the stage, one of PIPELINE_STAGES.
+	 * @param queueDepth int the queue depth, must be at least 1.
+	 * @throws SBomException if the stage is unknown, or the queue depth is less than 1.
+	 */
+	public void setQueueDepth(String stage, int queueDepth)
+	{
+		if (!PIPELINE_STAGES.contains(stage))
+		{
+			String error = "Unknown pipeline stage (" + stage + "), must be one of " +
+					PIPELINE_STAGES + "!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		if (queueDepth < 1)
+		{
+			String error = "Invalid queue depth (" + queueDepth + ") for the " + stage +
+					" stage, must be at least 1!";
+			logger.error(error);
+			throw new SBomException(error);
+		}
+		queueDepths.put(stage, queueDepth);
+	}
+	
+	/**
+	 * (U) This method is used to get the query timings kept from one scan to the next.
+	 * 
+	 * @return QueryTimings the timings, null if we do not keep them.
+	 */
+	public QueryTimings getQueryTimings()
+	{
+		return queryTimings;
+	}
+	
+	/**
+	 * (U) This method is used to set the query timings from earlier scans, which decide the
+	 * order the packages are sent down the pipeline in.
+	 * 
+	 * @param queryTimings QueryTimings to use, null to not keep any.
+	 */
+	public void setQueryTimings(QueryTimings queryTimings)
+	{
+		this.queryTimings = queryTimings;
+	}
+	
+	/**
+	 * (U) This method is used to get the checkpoint journal of the packages the pipeline is done
+	 * with.
+	 * 
+	 * @return CheckpointJournal the journal, null if we do not keep one.
+	 */
+	public CheckpointJournal getJournal()
+	{
+		return journal;
+	}
+	
+	/**
+	 * (U) This method is used to set the checkpoint journal of the packages the pipeline is done
+	 * with. Packages already in it, at the version listed now, take their details from it.
+	 * 
+	 * @param journal CheckpointJournal to use, null to not keep one.
+	 */
+	public void setJournal(CheckpointJournal journal)
+	{
+		this.journal = journal;
+	}
+	
+	/**
+	 * (U) This method is used to send batches of software down a pipeline, and wait for them to
+	 * come out the other end, no longer than the deadline. Each batch is journaled (if we keep a
+	 * journal) as it comes out. Once the deadline has passed, the commands the batches left in
+	 * the pipeline are still running are killed, as nothing is waiting for them any more.
+	 * 
+	 * @param pipeline StagedPipeline to send the batches down.
+	 * @param batches  Iterator over the batches to send.
+	 * @param finished Set to add the software of each batch that came out to.
+	 * @throws InterruptedException       if we are interrupted while waiting.
+	 * @throws RejectedExecutionException if the pipeline turns a batch away.
+	 * @throws SBomException              if a stage fails on a batch before the deadline.
+	 */
+	private void runPipeline(StagedPipeline<List<T>> pipeline, Iterator<List<T>> batches,
+			Set<T> finished) throws InterruptedException
+	{
+		List<Future<List<T>>> futures = new ArrayList<>();
+		while (batches.hasNext())
+			futures.add(pipeline.submit(batches.next()).thenApply(this::checkpoint));
+		
+		// A batch we stopped waiting on may still be in the pipeline, so it is left out.
+		for (Future<List<T>> future : futures)
+		{
+			List<T> batch = getResult(future, "create the Components");
+			if (batch != null)
+				finished.addAll(batch);
+		}
+		
+		if (isPastDeadline())
+			commandRunner.get().cancelAll();
+	}
+	
+	/**
+	 * (U) This method is used to add the packages of a batch the pipeline is done with to the
+	 * checkpoint journal. Failing to write to the journal only costs a resumed scan the time to
+	 * look them up again, so it does not fail this one.
+	 * 
+	 * @param batch List of packages that came out of the pipeline.
+	 * @return List the batch passed in.
+	 */
+	private List<T> checkpoint(List<T> batch)
+	{
+		if (journal == null)
+			return batch;
+		
+		try
+		{
+			for (T pending : batch)
+			{
+				if ((pending.getFailure() == null) && (pending.isDone()))
+					journal.record(pending.getName(), pending.getVersion(),
+							pending.getDetailMap());
+			}
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to write to the checkpoint journal.", ioe);
+		}
+		return batch;
+	}
+	
+	/**
+	 * (U) This method is used to run a stage of the pipeline on a batch, unless the deadline has
+	 * passed. Packages an earlier stage failed on are skipped, and those this stage fails on
+	 * are recorded as failed.
+	 * 
+	 * The stage's limiter is given the time the batch took per package actually looked up, so
+	 * batches of resumed or retried packages do not look faster than they are. A batch that
+	 * fell back to looking up each package on its own, or was cut short by the deadline, is no
+	 * fair measure, so is not counted.
+	 * 
+	 * @param stage     String value of the stage, for recording failures.
+	 * @param batch     List of packages to run the stage on.
+	 * @param limiter   AdaptiveConcurrencyLimiter of the stage, null if it has none.
+	 * @param batchTask Consumer run once for the batch, null if there is none.
+	 * @param task      Consumer run for each package, null if there is none.
+	 * @throws SBomException if we are interrupted.
+	 */
+	private void runStage(String stage, List<T> batch, AdaptiveConcurrencyLimiter limiter,
+			Consumer<List<T>> batchTask, Consumer<T> task)
+	{
+		long startTime = 0;
+		int lookups = (limiter == null) ? 0 : countLookups(stage, batch);
+		try
+		{
+			if (limiter != null)
+				limiter.acquire();
+			startTime = System.nanoTime();
+			
+			if (batchTask != null)
+			{
+				try
+				{
+					runBeforeDeadline(batch, items ->
+					{
+						batchTask.accept(items);
+						return items;
+					});
+				}
+				catch (SBomException sbe)
+				{
+					lookups = 0;
+					if (task == null)
+					{
+						for (T pending : batch)
+							recordFailure(stage, pending, sbe);
+					}
+					else
+						logger.warn("The " + stage + " stage failed on a batch of " +
+								batch.size() + " packages, trying each on its own.", sbe);
+				}
+			}
+			if (task != null)
+			{
+				for (T pending : batch)
+				{
+					if (pending.getFailure() != null)
+						continue;
+					
+					try
+					{
+						runBeforeDeadline(pending, item ->
+						{
+							task.accept(item);
+							return item;
+						});
+					}
+					catch (SBomException sbe)
+					{
+						recordFailure(stage, pending, sbe);
+					}
+				}
+			}
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			String error = "Interrupted while attempting to create the Components!";
+			logger.error(error, ie);
+			throw new SBomException(error, ie);
+		}
+		finally
+		{
+			if ((limiter != null) && (startTime != 0))
+				limiter.release(System.nanoTime() - startTime, isPastDeadline() ? 0 : lookups);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to count the packages in a batch a stage has to ask the package
+	 * manager about: those no earlier stage failed on, still missing what the stage looks up
+	 * (their details were not resumed from the journal, or their version was not listed).
+	 * 
+	 * @param <T>   Type of the packages.
+	 * @param stage String value of the stage.
+	 * @param batch List of packages the stage is about to run on.
+	 * @return int the number of packages to look up.
+	 */
+	private static <T extends Item> int countLookups(String stage, List<T> batch)
+	{
+		int lookups = 0;
+		for (T pending : batch)
+		{
+			if (pending.getFailure() != null)
+				continue;
+			if ((stage.equals(DETAILS_STAGE)) ? (pending.getDetailMap() == null) :
+					(pending.getVersion() == null))
+				lookups++;
+		}
+		return lookups;
+	}
+	
+	/**
+	 * (U) This method is used to record that a stage failed on a package, so the stages after it
+	 * leave the package alone.
+	 * 
+	 * @param stage    String value of the stage that failed.
+	 * @param software T the package it failed on.
+	 * @param sbe      SBomException it failed with.
+	 */
+	private void recordFailure(String stage, T software, SBomException sbe)
+	{
+		logger.warn("The " + stage + " stage failed on package (" + software.getName() + "), " +
+				"carrying on without it.", sbe);
+		software.setFailure(stage + ": " + sbe.getMessage());
+	}
+	
+	/**
+	 * (U) This method is used to give software, as it is listed, the details journaled by an
+	 * earlier scan, if it is still at the version journaled. Its details are then not looked up
+	 * again.
+	 * 
+	 * @param software Iterator over the software, as it is listed.
+	 * @return Iterator over the same software.
+	 */
+	private Iterator<T> resume(Iterator<T> software)
+	{
+		if (journal == null)
+			return software;
+		
+		return new Iterator<T>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return software.hasNext();
+			}
+			
+			@Override
+			public T next()
+			{
+				T pending = software.next();
+				if (pending.getDetailMap() == null)
+					pending.setDetailMap(journal.getDetailMap(pending.getName(),
+							pending.getVersion()));
+				return pending;
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to decide the order the software is sent down the pipeline in,
+	 * keeping the order it was listed in. Without query timings from earlier scans, it goes in
+	 * the order it is listed, as it is listed. With them, the listing is read a window of
+	 * SCHEDULE_WINDOW packages at a time, and each window sent longest expected first. That
+	 * costs a package slow to look up its place at the front when it is listed late, but the
+	 * first packages are looked up while the rest are still being listed, however long the
+	 * listing.
+	 * 
+	 * The order decides which packages share a command, so it is recorded in the command archive
+	 * (if we are recording). Replaying, each window is sent in the recorded order (or the order
+	 * listed, if none was recorded), whatever query timings we have.
+	 * 
+	 * @param software Iterator over the software, as it is listed.
+	 * @param listed   List to keep the software in, in the order it was listed.
+	 * @return Iterator over the software, in the order to send it down the pipeline.
+	 */
+	private Iterator<T> schedule(Iterator<T> software, List<T> listed)
+	{
+		CommandArchive replay = commandRunner.get().getReplay();
+		String recordedOrder = (replay == null) ? null : replay.getSetting(
+				PACKAGE_ORDER_SETTING);
+		boolean timed = ((replay == null) && (queryTimings != null) && (!queryTimings
+				.isEmpty()));
+		
+		if ((recordedOrder == null) && (!timed))
+		{
+			return new Iterator<T>()
+			{
+				@Override
+				public boolean hasNext()
+				{
+					return software.hasNext();
+				}
+				
+				@Override
+				public T next()
+				{
+					T pending = software.next();
+					listed.add(pending);
+					return pending;
+				}
+			};
+		}
+		
+		Map<String, Deque<Integer>> recorded = (recordedOrder == null) ? null :
+				readRecordedOrder(recordedOrder);
+		CommandArchive recorder = commandRunner.get().getRecorder();
+		StringBuilder order = ((recorded == null) && (recorder != null)) ? new StringBuilder() :
+				null;
+		
+		return new Iterator<T>()
+		{
+			private Iterator<T> window = Collections.emptyIterator();
+			
+			@Override
+			public boolean hasNext()
+			{
+				return (window.hasNext()) || (software.hasNext());
+			}
+			
+			@Override
+			public T next()
+			{
+				if (!window.hasNext())
+				{
+					List<T> scheduled = new ArrayList<>(SCHEDULE_WINDOW);
+					while ((scheduled.size() < SCHEDULE_WINDOW) && (software.hasNext()))
+						scheduled.add(software.next());
+					listed.addAll(scheduled);
+					
+					if (recorded != null)
+						sortByRecordedOrder(scheduled, recorded);
+					else
+					{
+						scheduled.sort(Comparator.comparingLong((T pending) ->
+								queryTimings.getExpectedNanos(pending.getName())).reversed());
+						if (order != null)
+						{
+							for (T pending : scheduled)
+								order.append(pending.getName()).append('\n');
+							recorder.setSetting(PACKAGE_ORDER_SETTING, order.toString());
+						}
+					}
+					window = scheduled.iterator();
+				}
+				return window.next();
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to read the order recorded with the scan we are replaying.
+	 * 
+	 * @param recordedOrder String of the recorded package names, one per line.
+	 * @return Map of each package name to its positions in the order, first to last.
+	 */
+	private static Map<String, Deque<Integer>> readRecordedOrder(String recordedOrder)
+	{
+		Map<String, Deque<Integer>> recorded = new HashMap<>();
+		String[] names = recordedOrder.split("\n");
+		for (int i = 0; i < names.length; i++)
+			recorded.computeIfAbsent(names[i], name -> new ArrayDeque<>()).add(i);
+		return recorded;
+	}
+	
+	/**
+	 * (U) This method is used to sort a window of the software listed into the order recorded
+	 * with the scan we are replaying. A package listed more than once takes each of its
+	 * recorded positions in turn, and a package not recorded goes last.
+	 * 
+	 * @param <T>      Type of the packages.
+	 * @param window   List of packages, in the order they were listed.
+	 * @param recorded Map of each package name to its recorded positions not taken yet.
+	 */
+	private static <T extends Item> void sortByRecordedOrder(List<T> window,
+			Map<String, Deque<Integer>> recorded)
+	{
+		Map<T, Integer> positions = new IdentityHashMap<>();
+		for (T pending : window)
+		{
+			Deque<Integer> queue = recorded.get(pending.getName());
+			Integer position = (queue == null) ? null : queue.poll();
+			positions.put(pending, (position == null) ? Integer.MAX_VALUE : position);
+		}
+		window.sort(Comparator.comparingInt(positions::get));
+	}
+	
+	/**
+	 * (U) This method is used to split software, as it is listed, into batches. Each batch is
+	 * handed out as soon as it fills (or the listing ends), and kept in the List given, so the
+	 * results of each batch can be matched up with its software.
+	 * 
+	 * @param <I>      Type of the software.
+	 * @param software Iterator over the software, as it is listed.
+	 * @param batches  List to keep each batch handed out in.
+	 * @return Iterator over the batches.
+	 */
+	private static <I> Iterator<List<I>> batchesOf(Iterator<I> software, List<List<I>> batches)
+	{
+		return new Iterator<List<I>>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return software.hasNext();
+			}
+			
+			@Override
+			public List<I> next()
+			{
+				List<I> batch = new ArrayList<>(STREAMED_BATCH_SIZE);
+				do
+					batch.add(software.next());
+				while ((batch.size() < STREAMED_BATCH_SIZE) && (software.hasNext()));
+				
+				batches.add(batch);
+				return batch;
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to stop listing software once the deadline has passed. The listing
+	 * command is killed at the deadline, so instead of its failure ending the scan, the listing
+	 * just ends there, and the scan is marked as incomplete.
+	 * 
+	 * @param <I>      Type of the software.
+	 * @param software Iterator over the software, as it is listed.
+	 * @return Iterator over the software listed before the deadline.
+	 * @throws SBomException if the listing fails before the deadline.
+	 */
+	private <I> Iterator<I> listBeforeDeadline(Iterator<I> software)
+	{
+		return new Iterator<I>()
+		{
+			private boolean cutShort = false;
+			
+			@Override
+			public boolean hasNext()
+			{
+				try
+				{
+					return ((!cutShort) && (software.hasNext()));
+				}
+				catch (SBomException sbe)
+				{
+					checkDeadline(sbe);
+					cutShort = true;
+					return false;
+				}
+			}
+			
+			@Override
+			public I next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return software.next();
+			}
+		};
+	}
+	
+	/**
+	 * (U) This method is used to wait for the result of a task, no longer than the deadline.
+	 * 
+	 * @param <R>         Type of the result.
+	 * @param future      Future of the task.
+	 * @param description String value describing the work, for error messages.
+	 * @return R the result of the task, null if it did not finish by the deadline.
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 * @throws SBomException        if the task failed before the deadline.
+	 */
+	private <R> R getResult(Future<R> future, String description) throws InterruptedException
+	{
+		try
+		{
+			if (!hasDeadline)
+				return future.get();
+			return future.get(Math.max(0, deadlineNanos - System.nanoTime()),
+					TimeUnit.NANOSECONDS);
+		}
+		catch (TimeoutException te)
+		{
+			return null;
+		}
+		catch (ExecutionException ee)
+		{
+			if (isPastDeadline())
+				return null;
+			
+			if (ee.getCause() instanceof SBomException)
+				throw (SBomException) ee.getCause();
+			
+			String error = "Unexpected error while attempting to " + description + "!";
+			logger.error(error, ee.getCause());
+			throw new SBomException(error, ee.getCause());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to run a task, unless the deadline has passed.
+	 * 
+	 * @param <I>  Type of the item.
+	 * @param <R>  Type of the result.
+	 * @param item I to run the task for.
+	 * @param task Function to run.
+	 * @return R the result of the task, null if the deadline passed before it finished.
+	 * @throws SBomException if the task fails before the deadline.
+	 */
+	private <I, R> R runBeforeDeadline(I item, Function<I, R> task)
+	{
+		if (isPastDeadline())
+			return null;
+		
+		try
+		{
+			return task.apply(item);
+		}
+		catch (SBomException sbe)
+		{
+			if (isPastDeadline())
+				return null;
+			throw sbe;
+		}
+	}
+}
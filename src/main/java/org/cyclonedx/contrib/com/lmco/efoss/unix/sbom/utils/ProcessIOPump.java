@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to keep both output streams of a Unix command flowing, so the command
+ * never stalls writing to a full pipe. The standard output is read by whoever parses it, the
+ * standard error is drained in the background into a bounded buffer, kept for diagnostics.
+ * Whatever standard output the parser did not read is thrown away before we wait for the
+ * command to exit.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class ProcessIOPump
+{
+	private static final Logger logger = Logger.getLogger(ProcessIOPump.class.getName());
+	
+	public static final int DEFAULT_ERROR_LIMIT = 64 * 1024;
+	
+	private static final int BUFFER_SIZE = 8192;
+	
+	private static final ExecutorService PUMPS = Executors.newCachedThreadPool(runnable ->
+	{
+		Thread thread = new Thread(runnable, "process-stderr-pump");
+		thread.setDaemon(true);
+		return thread;
+	});
+	
+	private final Process process;
+	private final InputStream output;
+	private final int errorLimit;
+	private final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+	private final Future<?> errorPump;
+	
+	private long errorBytesDropped = 0;
+	
+	/**
+	 * (U) Constructor, keeping up to DEFAULT_ERROR_LIMIT bytes of the standard error.
+	 * 
+	 * @param process Process to pump the output streams of.
+	 */
+	public ProcessIOPump(Process process)
+	{
+		this(process, DEFAULT_ERROR_LIMIT);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param process    Process to pump the output streams of.
+	 * @param errorLimit int the maximum number of bytes of standard error to keep, the rest is
+	 *                   drained and dropped.
+	 */
+	public ProcessIOPump(Process process, int errorLimit)
+	{
+		this.process = process;
+		this.errorLimit = errorLimit;
+		
+		InputStream stdout = process.getInputStream();
+		output = (stdout != null) ? stdout : InputStream.nullInputStream();
+		
+		InputStream stderr = process.getErrorStream();
+		if (stderr != null)
+			errorPump = PUMPS.submit(() -> pumpErrors(stderr));
+		else
+			errorPump = null;
+	}
+	
+	/**
+	 * (U) This method is used to get the standard error the command wrote, up to the limit.
+	 * 
+	 * @return String the standard error, empty if there was none.
+	 */
+	public synchronized String getErrorOutput()
+	{
+		String errors = errorOutput.toString().trim();
+		if (errorBytesDropped > 0)
+			errors = errors + " ... (" + errorBytesDropped + " more bytes)";
+		return errors;
+	}
+	
+	/**
+	 * (U) This method is used to get a reader of the command's standard output, decoded as
+	 * UTF-8.
+	 * 
+	 * @return BufferedReader to read the standard output with.
+	 */
+	public BufferedReader getOutputReader()
+	{
+		return new BufferedReader(new InputStreamReader(output, StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * (U) This method is used to read the command's standard output a line at a time, straight
+	 * from its bytes.
+	 * 
+	 * @return ByteLineReader to read the standard output with.
+	 */
+	public ByteLineReader getOutputLines()
+	{
+		return new ByteLineReader(output);
+	}
+	
+	/**
+	 * (U) This method is used to read the command's standard output a record at a time, straight
+	 * from its bytes.
+	 * 
+	 * @param terminator byte that ends each record.
+	 * @return ByteLineReader to read the standard output with.
+	 */
+	public ByteLineReader getOutputLines(byte terminator)
+	{
+		return new ByteLineReader(output, terminator);
+	}
+	
+	/**
+	 * (U) This method is used to wait for the command to exit. Any standard output that has not
+	 * been read is drained first, and we wait for the standard error to be drained.
+	 * 
+	 * @return int the exit value of the command.
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	public int waitFor() throws InterruptedException
+	{
+		drainOutput();
+		
+		int exitVal = process.waitFor();
+		
+		waitForErrorPump();
+		return exitVal;
+	}
+	
+	/**
+	 * (U) This method is used to end the command early, once the parser has all it needs from
+	 * its standard output. The command, and every process it started, is killed rather than left
+	 * to write the rest, and we wait for it to exit. Its exit value means nothing after that.
+	 * 
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	public void stop() throws InterruptedException
+	{
+		// The children first, or they would hold the standard error open once the command is gone.
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+		process.destroyForcibly();
+		process.waitFor();
+		
+		waitForErrorPump();
+	}
+	
+	/**
+	 * (U) This method is used to read and throw away whatever standard output is left.
+	 */
+	private void drainOutput()
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try
+		{
+			while (output.read(buffer) != -1)
+			{
+				// Nothing to do, the parser is done with it.
+			}
+		}
+		catch (IOException ioe)
+		{
+			// The reader has already been closed, so there is nothing left to drain.
+			if (logger.isDebugEnabled())
+				logger.debug("Unable to drain the standard output of the process.", ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to wait for the standard error to be drained.
+	 * 
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	private void waitForErrorPump() throws InterruptedException
+	{
+		if (errorPump == null)
+			return;
+		
+		try
+		{
+			errorPump.get();
+		}
+		catch (ExecutionException ee)
+		{
+			logger.warn("Unable to drain the standard error of the process.", ee);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to drain the standard error, keeping up to the limit.
+	 * 
+	 * @param stderr InputStream of the command's standard error.
+	 */
+	private void pumpErrors(InputStream stderr)
+	{
+		byte[] buffer = new byte[BUFFER_SIZE];
+		try (InputStream errors = stderr)
+		{
+			int read;
+			while ((read = errors.read(buffer)) != -1)
+			{
+				synchronized (this)
+				{
+					int kept = Math.max(0, Math.min(read, errorLimit - errorOutput.size()));
+					errorOutput.write(buffer, 0, kept);
+					errorBytesDropped += read - kept;
+				}
+			}
+		}
+		catch (IOException ioe)
+		{
+			if (logger.isDebugEnabled())
+				logger.debug("Standard error of the process closed.", ioe);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is used to keep how long the package manager took to tell us about each
+ * package, from one scan to the next, so the packages expected to take longest can be looked up
+ * first. A few slow packages (the kernel, glibc, large -devel packages) otherwise end up looked
+ * up last, and the scan waits on them alone.
+ * 
+ * The times are kept in a small text file, a line per package ("name", a tab, then the
+ * microseconds it is expected to take). Each scan's time for a package is averaged with what
+ * was expected of it, so one slow scan does not outweigh every scan before it.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class QueryTimings
+{
+	private static final Logger logger = Logger.getLogger(QueryTimings.class.getName());
+	
+	private static final String HEADER = "# Package query timings (name<TAB>microseconds).";
+	
+	// Weight of this scan's time, against what was expected from the scans before it.
+	private static final double LATEST_WEIGHT = 0.5;
+	
+	private final Path file;
+	
+	// Microseconds each package is expected to take, from the scans before this one.
+	private final Map<String, Long> expectedMicros = new TreeMap<>();
+	private long averageNanos = 0;
+	
+	// Nanoseconds each package has taken this scan.
+	private final Map<String, Long> measuredNanos = new ConcurrentHashMap<>();
+	
+	/**
+	 * (U) Constructor, for timings that are not kept in a file.
+	 */
+	public QueryTimings()
+	{
+		this(null);
+	}
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param file Path of the file the timings are saved to, null for none.
+	 */
+	private QueryTimings(Path file)
+	{
+		this.file = file;
+	}
+	
+	/**
+	 * (U) This method is used to read the timings saved by an earlier scan. If there are none
+	 * yet, we start without any, and save this scan's to the file.
+	 * 
+	 * @param file Path of the timings file.
+	 * @return QueryTimings the timings read, saved back to the same file.
+	 * @throws IOException if the file exists, but we are unable to read it.
+	 */
+	public static QueryTimings read(Path file) throws IOException
+	{
+		QueryTimings timings = new QueryTimings(file);
+		
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8))
+		{
+			String line;
+			while ((line = reader.readLine()) != null)
+			{
+				int index = line.lastIndexOf('\t');
+				if ((line.startsWith("#")) || (index <= 0))
+					continue;
+				
+				try
+				{
+					timings.expectedMicros.put(line.substring(0, index), Long.parseLong(
+							line.substring(index + 1).trim()));
+				}
+				catch (NumberFormatException nfe)
+				{
+					logger.warn("Ignoring invalid query timing (" + line + ") in " + file + ".");
+				}
+			}
+		}
+		catch (NoSuchFileException nsfe)
+		{
+			if (logger.isInfoEnabled())
+				logger.info("No query timings (" + file + ") yet, they will be saved after this " +
+						"scan.");
+		}
+		
+		timings.averageNanos = TimeUnit.MICROSECONDS.toNanos(Math.round(
+				timings.expectedMicros.values().stream().mapToLong(Long::longValue).average()
+						.orElse(0)));
+		
+		if (logger.isInfoEnabled())
+			logger.info("Read the query timings of " + timings.expectedMicros.size() +
+					" packages from " + file + ".");
+		return timings;
+	}
+	
+	/**
+	 * (U) This method is used to tell if we have any timings from earlier scans.
+	 * 
+	 * @return boolean true if we have none.
+	 */
+	public boolean isEmpty()
+	{
+		return expectedMicros.isEmpty();
+	}
+	
+	/**
+	 * (U) This method is used to get how long a package is expected to take, from earlier scans.
+	 * A package none of them timed is expected to take as long as the average package.
+	 * 
+	 * @param software String value of the package name.
+	 * @return long the nanoseconds it is expected to take.
+	 */
+	public long getExpectedNanos(String software)
+	{
+		Long micros = expectedMicros.get(software);
+		return (micros != null) ? TimeUnit.MICROSECONDS.toNanos(micros) : averageNanos;
+	}
+	
+	/**
+	 * (U) This method is used to record how long a package took this scan. A package timed more
+	 * than once (its details, then its version) took as long as all of them together.
+	 * 
+	 * @param software String value of the package name.
+	 * @param nanos    long the nanoseconds it took.
+	 */
+	public void record(String software, long nanos)
+	{
+		measuredNanos.merge(software, Math.max(0, nanos), Long::sum);
+	}
+	
+	/**
+	 * (U) This method is used to get the number of packages timed this scan.
+	 * 
+	 * @return int the number of packages.
+	 */
+	public int getMeasuredCount()
+	{
+		return measuredNanos.size();
+	}
+	
+	/**
+	 * (U) This method is used to save the timings, those of this scan averaged into what was
+	 * expected from the earlier ones. The file is replaced in one go, so a scan that dies while
+	 * saving leaves the old timings as they were. Nothing is saved if there is no file, or this
+	 * scan did not time any packages.
+	 * 
+	 * @throws IOException if we are unable to write the file.
+	 */
+	public synchronized void save() throws IOException
+	{
+		if ((file == null) || (measuredNanos.isEmpty()))
+			return;
+		
+		Map<String, Long> timings = new TreeMap<>(expectedMicros);
+		for (Map.Entry<String, Long> measured : measuredNanos.entrySet())
+		{
+			long micros = TimeUnit.NANOSECONDS.toMicros(measured.getValue());
+			Long expected = timings.get(measured.getKey());
+			if (expected != null)
+				micros = Math.round((LATEST_WEIGHT * micros) + ((1 - LATEST_WEIGHT) * expected));
+			timings.put(measured.getKey(), micros);
+		}
+		
+		Path directory = file.toAbsolutePath().getParent();
+		if (directory != null)
+			Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try
+		{
+			try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8))
+			{
+				writer.write(HEADER);
+				writer.newLine();
+				for (Map.Entry<String, Long> timing : timings.entrySet())
+				{
+					writer.write(timing.getKey());
+					writer.write('\t');
+					writer.write(Long.toString(timing.getValue()));
+					writer.newLine();
+				}
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			Files.deleteIfExists(temp);
+		}
+		
+		if (logger.isInfoEnabled())
+			logger.info("Saved the query timings of " + measuredNanos.size() + " packages to " +
+					file + ".");
+	}
+}
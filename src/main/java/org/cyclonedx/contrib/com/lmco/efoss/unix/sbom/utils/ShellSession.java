@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.log4j.Logger;
+
+/**
+ * (U) This class is a long lived shell (/bin/sh) we send commands to one at a time, so looking up
+ * N packages costs one shell instead of N processes started from Java. After each command the
+ * shell prints a marker, unique to the session, and the command's exit value, ending the line.
+ * That is how we know where one response ends.
+ * 
+ * A command's output is read a line at a time as the command writes it, not once it has
+ * finished, so a reader that has all it needs can destroy the command part way through: the
+ * command (and everything it started) is killed, and the rest of its response thrown away up
+ * to the marker.
+ * 
+ * Each command's standard input is /dev/null, so no command can read the commands meant for the
+ * shell. Each command's standard error goes to a file of the session's, read back once the
+ * command finishes, so it is handed back with the command's output. Anything the shell itself
+ * writes to its standard error is logged when the session ends.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class ShellSession implements Closeable
+{
+	private static final Logger logger = Logger.getLogger(ShellSession.class.getName());
+	
+	public static final String SHELL = "/bin/sh";
+	
+	private final String marker = "__SBOM_SESSION_" + UUID.randomUUID().toString()
+			.replace("-", "") + "__";
+	private final byte[] markerBytes = (marker + " ").getBytes(StandardCharsets.US_ASCII);
+	
+	private final Path errorFile;
+	private final Process process;
+	private final OutputStream commands;
+	private final InputStream responses;
+	private final ProcessIOPump pump;
+	
+	// Whether commands may be sent, and whether the session has been cleaned up.
+	private volatile boolean open = true;
+	private boolean closed = false;
+	
+	// The response of the last command sent, which may not have been read to its end yet.
+	private Response response = null;
+	
+	/**
+	 * (U) Constructor, starts the shell.
+	 * 
+	 * @throws IOException if we are unable to start the shell.
+	 */
+	public ShellSession() throws IOException
+	{
+		this(List.of(SHELL));
+	}
+	
+	/**
+	 * (U) Constructor, starts the shell with the command given (ie. the shell run through nice).
+	 * Every command sent to the session is started by it, so inherits its priority.
+	 * 
+	 * @param shellCommand List of Strings, the command that starts the shell.
+	 * @throws IOException if we are unable to start the shell.
+	 */
+	public ShellSession(List<String> shellCommand) throws IOException
+	{
+		errorFile = Files.createTempFile("sbom-session-", ".err");
+		try
+		{
+			process = new ProcessBuilder(shellCommand).start();
+		}
+		catch (IOException ioe)
+		{
+			Files.deleteIfExists(errorFile);
+			throw ioe;
+		}
+		commands = process.getOutputStream();
+		responses = new BufferedInputStream(process.getInputStream());
+		pump = new ProcessIOPump(process);
+	}
+	
+	/**
+	 * (U) This method is used to end the session.
+	 */
+	@Override
+	public synchronized void close()
+	{
+		if (closed)
+			return;
+		closed = true;
+		open = false;
+		
+		try
+		{
+			commands.close();
+			if (!process.waitFor(1, TimeUnit.SECONDS))
+				process.destroy();
+		}
+		catch (IOException ioe)
+		{
+			process.destroy();
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+			process.destroy();
+		}
+		
+		String errors = pump.getErrorOutput();
+		if ((!errors.isEmpty()) && (logger.isDebugEnabled()))
+			logger.debug("Shell session error output: " + errors);
+		
+		try
+		{
+			Files.deleteIfExists(errorFile);
+		}
+		catch (IOException ioe)
+		{
+			logger.warn("Unable to delete the shell session's error file (" + errorFile + ").",
+					ioe);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to tell if the session can still run commands.
+	 * 
+	 * @return boolean true if it can, false if it has been closed, or has failed.
+	 */
+	public boolean isOpen()
+	{
+		return open;
+	}
+	
+	/**
+	 * (U) This method is used to kill the command the session is running (and every process it
+	 * started), without ending the session. The shell goes on to report the command's exit
+	 * value, so whoever is waiting on the command gets its response.
+	 */
+	public void killCommand()
+	{
+		process.descendants().forEach(ProcessHandle::destroyForcibly);
+	}
+	
+	/**
+	 * (U) This method is used to run a command in the session. The response of the command
+	 * before it is read to its end first (and thrown away, if it was not read).
+	 * 
+	 * @param command  List of Strings, the program to run followed by its arguments.
+	 * @param whenDone Runnable run once the command's response has been read to its end, or
+	 *                 thrown away, null if there is nothing to run.
+	 * @return Process of the command, whose standard output is read as the command writes it.
+	 *         Its standard error and exit value are only known once that has been read to its
+	 *         end.
+	 * @throws IOException if the session is closed, or ends before the command is sent. The
+	 *                     session can not be used after that.
+	 */
+	public synchronized Process run(List<String> command, Runnable whenDone) throws IOException
+	{
+		if (response != null)
+			response.finish(false);
+		if (!open)
+			throw new IOException("The shell session is closed!");
+		
+		StringBuilder line = new StringBuilder();
+		for (String argument : command)
+			line.append(quote(argument)).append(' ');
+		line.append("</dev/null 2>").append(quote(errorFile.toString()));
+		line.append("; printf '%s %d\\n' '").append(marker).append("' \"$?\"\n");
+		
+		try
+		{
+			commands.write(line.toString().getBytes(StandardCharsets.UTF_8));
+			commands.flush();
+		}
+		catch (IOException ioe)
+		{
+			close();
+			throw ioe;
+		}
+		
+		response = new Response(whenDone);
+		return response;
+	}
+	
+	/**
+	 * (U) This method is used to read the standard error the last command left in the error
+	 * file, up to ProcessIOPump.DEFAULT_ERROR_LIMIT of it.
+	 * 
+	 * @return byte array of the command's standard error.
+	 * @throws IOException if we are unable to read the error file.
+	 */
+	private byte[] readErrorOutput() throws IOException
+	{
+		try (InputStream errors = Files.newInputStream(errorFile))
+		{
+			return errors.readNBytes(ProcessIOPump.DEFAULT_ERROR_LIMIT);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to find our marker in a line. A command whose output does not end
+	 * in a newline leaves the marker part way through the line.
+	 * 
+	 * @param line byte array of the line, ending in a newline.
+	 * @return int the position of the marker in the line, -1 if it is not there.
+	 */
+	private int findMarker(byte[] line)
+	{
+		for (int start = 0; start + markerBytes.length < line.length; start++)
+		{
+			int i = 0;
+			while ((i < markerBytes.length) && (line[start + i] == markerBytes[i]))
+				i++;
+			if (i == markerBytes.length)
+				return start;
+		}
+		return -1;
+	}
+	
+	/**
+	 * (U) This method is used to quote an argument, so the shell passes it on as is.
+	 * 
+	 * @param argument String value of the argument.
+	 * @return String the argument in single quotes.
+	 */
+	private static String quote(String argument)
+	{
+		return "'" + argument.replace("'", "'\\''") + "'";
+	}
+	
+	/**
+	 * (U) This class is the response of a command run in the session, read from the shell's
+	 * standard output as the command writes it, up to the marker.
+	 */
+	private class Response extends Process
+	{
+		private final Runnable whenDone;
+		private final InputStream output = new CommandOutput();
+		
+		// Output read from the shell, ready to be read from the command's standard output.
+		private byte[] ready = new byte[0];
+		private int readyPosition = 0;
+		
+		private boolean outputClosed = false;
+		private volatile boolean done = false;
+		private int exitValue = -1;
+		private byte[] errorOutput = new byte[0];
+		
+		/**
+		 * (U) Constructor.
+		 * 
+		 * @param whenDone Runnable run once the response has been read to its end, null if
+		 *                 there is nothing to run.
+		 */
+		Response(Runnable whenDone)
+		{
+			this.whenDone = whenDone;
+		}
+		
+		/**
+		 * (U) This method is used to kill the command (and every process it started), and
+		 * throw away the rest of its response.
+		 */
+		@Override
+		public void destroy()
+		{
+			if (done)
+				return;
+			killCommand();
+			finish(false);
+		}
+		
+		/**
+		 * (U) This method is used to get the processes the command started. The command is run
+		 * by the session's shell, so destroy() kills them along with the command instead.
+		 * 
+		 * @return Stream of ProcessHandles, always empty.
+		 */
+		@Override
+		public Stream<ProcessHandle> descendants()
+		{
+			return Stream.empty();
+		}
+		
+		/**
+		 * (U) This method is used to get the exit value of the command.
+		 * 
+		 * @return int the exit value, -1 if the session ended before the command did.
+		 * @throws IllegalThreadStateException if the response has not been read to its end.
+		 */
+		@Override
+		public synchronized int exitValue()
+		{
+			if (!done)
+				throw new IllegalThreadStateException("The command has not finished.");
+			return exitValue;
+		}
+		
+		/**
+		 * (U) This method is used to get the standard error of the command. Reading it waits
+		 * for the response to be read to its end.
+		 * 
+		 * @return InputStream of the standard error.
+		 */
+		@Override
+		public InputStream getErrorStream()
+		{
+			return new InputStream()
+			{
+				private int position = 0;
+				
+				@Override
+				public int read() throws IOException
+				{
+					byte[] errors = waitForErrorOutput();
+					return (position < errors.length) ? (errors[position++] & 0xff) : -1;
+				}
+				
+				@Override
+				public int read(byte[] buffer, int offset, int length) throws IOException
+				{
+					byte[] errors = waitForErrorOutput();
+					if (position >= errors.length)
+						return -1;
+					int count = Math.min(length, errors.length - position);
+					System.arraycopy(errors, position, buffer, offset, count);
+					position += count;
+					return count;
+				}
+			};
+		}
+		
+		/**
+		 * (U) This method is used to get the standard output of the command.
+		 * 
+		 * @return InputStream of the standard output.
+		 */
+		@Override
+		public InputStream getInputStream()
+		{
+			return output;
+		}
+		
+		/**
+		 * (U) This method is used to get the standard input of the command, which is
+		 * /dev/null.
+		 * 
+		 * @return OutputStream that throws away anything written to it.
+		 */
+		@Override
+		public OutputStream getOutputStream()
+		{
+			return OutputStream.nullOutputStream();
+		}
+		
+		/**
+		 * (U) This method is used to tell if the command is still running.
+		 * 
+		 * @return boolean true until the response has been read to its end.
+		 */
+		@Override
+		public synchronized boolean isAlive()
+		{
+			return !done;
+		}
+		
+		/**
+		 * (U) This method is used to wait for the command to finish. Whatever output has not
+		 * been read yet is kept for the standard output to give back.
+		 * 
+		 * @return int the exit value.
+		 */
+		@Override
+		public synchronized int waitFor()
+		{
+			finish(true);
+			return exitValue;
+		}
+		
+		/**
+		 * (U) This method is used to read the response to its end.
+		 * 
+		 * @param keep boolean true to keep the output not read yet, false to throw it away.
+		 */
+		synchronized void finish(boolean keep)
+		{
+			ByteArrayOutputStream kept = new ByteArrayOutputStream();
+			if ((keep) && (!outputClosed))
+				kept.write(ready, readyPosition, ready.length - readyPosition);
+			
+			try
+			{
+				while (!done)
+				{
+					fill();
+					if ((keep) && (!outputClosed))
+						kept.write(ready, 0, ready.length);
+				}
+			}
+			catch (IOException ioe)
+			{
+				if (logger.isDebugEnabled())
+					logger.debug("Unable to read the rest of a command's response.", ioe);
+			}
+			ready = kept.toByteArray();
+			readyPosition = 0;
+		}
+		
+		/**
+		 * (U) This method is used to read the next line of the response from the shell, making
+		 * it ready to be read. On reaching the marker, the command's exit value and standard
+		 * error are read, and the response is done.
+		 * 
+		 * @throws IOException if the session ends before the marker. The session can not be used
+		 *                     after that.
+		 */
+		private void fill() throws IOException
+		{
+			ready = new byte[0];
+			readyPosition = 0;
+			
+			try
+			{
+				byte[] line = readLine();
+				int markerStart = findMarker(line);
+				if (markerStart < 0)
+				{
+					ready = line;
+					return;
+				}
+				
+				ready = Arrays.copyOf(line, markerStart);
+				int valueStart = markerStart + markerBytes.length;
+				complete(Integer.parseInt(new String(line, valueStart, line.length - valueStart,
+						StandardCharsets.US_ASCII).trim()));
+			}
+			catch (IOException | NumberFormatException e)
+			{
+				open = false;
+				complete(-1);
+				throw new IOException("The shell session ended unexpectedly!", e);
+			}
+		}
+		
+		/**
+		 * (U) This method is used to read a line from the shell's standard output.
+		 * 
+		 * @return byte array of the line, ending in a newline.
+		 * @throws IOException if the shell's standard output ends first.
+		 */
+		private byte[] readLine() throws IOException
+		{
+			ByteArrayOutputStream line = new ByteArrayOutputStream();
+			int c;
+			while ((c = responses.read()) != -1)
+			{
+				line.write(c);
+				if (c == '\n')
+					return line.toByteArray();
+			}
+			throw new IOException("The shell's standard output ended.");
+		}
+		
+		/**
+		 * (U) This method is used to finish the response, once the marker is read.
+		 * 
+		 * @param value int the command's exit value.
+		 */
+		private void complete(int value)
+		{
+			exitValue = value;
+			try
+			{
+				if (value >= 0)
+					errorOutput = readErrorOutput();
+			}
+			catch (IOException ioe)
+			{
+				logger.warn("Unable to read the standard error of a command.", ioe);
+			}
+			done = true;
+			notifyAll();
+			
+			if (whenDone != null)
+				whenDone.run();
+		}
+		
+		/**
+		 * (U) This method is used to wait for the response to be read to its end, to get the
+		 * command's standard error.
+		 * 
+		 * @return byte array of the standard error.
+		 * @throws IOException if we are interrupted while waiting.
+		 */
+		private synchronized byte[] waitForErrorOutput() throws IOException
+		{
+			try
+			{
+				while (!done)
+					wait();
+			}
+			catch (InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted waiting for a command to finish.");
+			}
+			return errorOutput;
+		}
+		
+		/**
+		 * (U) This class is the standard output of the command.
+		 */
+		private class CommandOutput extends InputStream
+		{
+			@Override
+			public int read() throws IOException
+			{
+				synchronized (Response.this)
+				{
+					if (!hasOutput())
+						return -1;
+					return ready[readyPosition++] & 0xff;
+				}
+			}
+			
+			@Override
+			public int read(byte[] buffer, int offset, int length) throws IOException
+			{
+				if (length == 0)
+					return 0;
+				
+				synchronized (Response.this)
+				{
+					if (!hasOutput())
+						return -1;
+					int count = Math.min(length, ready.length - readyPosition);
+					System.arraycopy(ready, readyPosition, buffer, offset, count);
+					readyPosition += count;
+					return count;
+				}
+			}
+			
+			@Override
+			public void close()
+			{
+				synchronized (Response.this)
+				{
+					outputClosed = true;
+				}
+			}
+			
+			/**
+			 * (U) This method is used to make sure there is output ready to be read.
+			 * 
+			 * @return boolean true if there is, false at the end of the output.
+			 * @throws IOException if the stream is closed, or the session ends.
+			 */
+			private boolean hasOutput() throws IOException
+			{
+				if (outputClosed)
+					throw new IOException("Stream closed");
+				while (readyPosition >= ready.length)
+				{
+					if (done)
+						return false;
+					fill();
+				}
+				return true;
+			}
+		}
+	}
+}
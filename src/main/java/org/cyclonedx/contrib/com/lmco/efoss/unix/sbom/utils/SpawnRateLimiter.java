@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * (U) This class is used to limit how many commands we start per second. Starts are spread out
+ * evenly, one every 1/rate seconds, rather than let through in bursts, so the load we put on the
+ * host stays steady. A thread asking to start a command while another is waiting is given the
+ * next free slot after it.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+public class SpawnRateLimiter
+{
+	private final int perSecond;
+	private final long intervalNanos;
+	
+	// System.nanoTime() of the next free slot.
+	private long nextSlotNanos = System.nanoTime();
+	
+	/**
+	 * (U) Constructor.
+	 * 
+	 * @param perSecond int the most commands to start per second, must be at least 1.
+	 * @throws IllegalArgumentException if the rate is less than 1.
+	 */
+	public SpawnRateLimiter(int perSecond)
+	{
+		if (perSecond < 1)
+			throw new IllegalArgumentException("Invalid spawn rate (" + perSecond + "), must be " +
+					"at least 1 per second!");
+		
+		this.perSecond = perSecond;
+		this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+	}
+	
+	/**
+	 * (U) This method is used to wait until we may start the next command.
+	 * 
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	public void acquire() throws InterruptedException
+	{
+		long waitNanos;
+		synchronized (this)
+		{
+			long now = System.nanoTime();
+			long slot = Math.max(now, nextSlotNanos);
+			nextSlotNanos = slot + intervalNanos;
+			waitNanos = slot - now;
+		}
+		if (waitNanos > 0)
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+	}
+	
+	/**
+	 * (U) This method is used to get the most commands we start per second.
+	 * 
+	 * @return int the rate.
+	 */
+	public int getPerSecond()
+	{
+		return perSecond;
+	}
+}
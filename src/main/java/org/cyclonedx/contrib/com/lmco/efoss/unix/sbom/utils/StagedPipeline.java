@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * (U) This class is used to run items through a series of stages, each with its own threads and
+ * its own bounded queue of items waiting on it. Stages that wait on Unix commands, on the disk,
+ * or on the CPU can then each be given the threads they need, and a slow stage only holds up the
+ * items that have reached it: the stages before it carry on with the items behind.
+ * 
+ * Once a stage's queue is full, whoever hands it the next item (the stage before it, or the
+ * caller for the first stage) waits for room. So no stage runs further ahead of a slower one than
+ * its queue depth, and we never hold more items in flight than the queues (and threads) allow.
+ * 
+ * @param <T> Type of the items passed along the stages.
+ * @author agent
+ * @since 17 October 2026
+ */
+public class StagedPipeline<T> implements Closeable
+{
+	private final List<Stage<T>> stages = new ArrayList<>();
+	
+	/**
+	 * (U) This method is used to add a stage, after those already added.
+	 * 
+	 * @param name       String value of the stage's name, for its threads and statistics.
+	 * @param workers    int the number of threads working on the stage.
+	 * @param queueDepth int the most items waiting on the stage, before the stage before it has
+	 *                   to wait.
+	 * @param task       Consumer run on each item in the stage.
+	 * @return StagedPipeline this pipeline, to add the next stage to.
+	 */
+	public StagedPipeline<T> addStage(String name, int workers, int queueDepth, Consumer<T> task)
+	{
+		stages.add(new Stage<>(name, Math.max(1, workers), Math.max(1, queueDepth), task));
+		return this;
+	}
+	
+	/**
+	 * (U) This method is used to send an item through every stage. If the first stage's queue
+	 * is full, we wait for room.
+	 * 
+	 * @param item T to send through the stages.
+	 * @return CompletableFuture completed with the item once the last stage is done with it, or
+	 *         with the exception of the stage that failed (the stages after it are skipped).
+	 * @throws RejectedExecutionException if the pipeline has been closed, or we are interrupted
+	 *                                    waiting for room.
+	 */
+	public CompletableFuture<T> submit(T item)
+	{
+		CompletableFuture<T> future = CompletableFuture.completedFuture(item);
+		for (Stage<T> stage : stages)
+			future = future.thenApplyAsync(stage::run, stage);
+		return future;
+	}
+	
+	/**
+	 * (U) This method is used to get the most items that were ever waiting on a stage.
+	 * 
+	 * @param name String value of the stage's name.
+	 * @return int the most items waiting at once, -1 if there is no such stage.
+	 */
+	public int getPeakQueueDepth(String name)
+	{
+		for (Stage<T> stage : stages)
+		{
+			if (stage.name.equals(name))
+				return stage.peakQueued.get();
+		}
+		return -1;
+	}
+	
+	/**
+	 * (U) This method is used to describe how busy each stage was, and how deep its queue got,
+	 * for tuning the queue depths. A stage whose queue filled up is the one holding the rest up.
+	 * 
+	 * @return String one line per stage.
+	 */
+	public String getStatistics()
+	{
+		StringBuilder statistics = new StringBuilder("Pipeline stages:");
+		for (Stage<T> stage : stages)
+		{
+			statistics.append("\n\t").append(stage.name).append(": ").append(stage.workers)
+					.append(" threads, ").append(stage.items.sum()).append(" items in ")
+					.append(TimeUnit.NANOSECONDS.toMillis(stage.busyNanos.sum()))
+					.append(" ms, queue depth ").append(stage.peakQueued.get()).append(" of ")
+					.append(stage.queueDepth).append(".");
+		}
+		return statistics.toString();
+	}
+	
+	/**
+	 * (U) This method is used to stop every stage. Items still in the pipeline are dropped, and
+	 * their futures never complete.
+	 */
+	@Override
+	public void close()
+	{
+		for (Stage<T> stage : stages)
+			stage.executor.shutdownNow();
+	}
+	
+	/**
+	 * (U) This class is a single stage of the pipeline, with its threads and bounded queue.
+	 * 
+	 * @param <T> Type of the items passed along the stages.
+	 */
+	private static class Stage<T> implements Executor
+	{
+		private final String name;
+		private final int workers;
+		private final int queueDepth;
+		private final Consumer<T> task;
+		private final ThreadPoolExecutor executor;
+		
+		private final AtomicInteger peakQueued = new AtomicInteger();
+		private final LongAdder items = new LongAdder();
+		private final LongAdder busyNanos = new LongAdder();
+		
+		/**
+		 * (U) Constructor.
+		 * 
+		 * @param name       String value of the stage's name.
+		 * @param workers    int the number of threads working on the stage.
+		 * @param queueDepth int the most items waiting on the stage.
+		 * @param task       Consumer run on each item in the stage.
+		 */
+		Stage(String name, int workers, int queueDepth, Consumer<T> task)
+		{
+			this.name = name;
+			this.workers = workers;
+			this.queueDepth = queueDepth;
+			this.task = task;
+			
+			AtomicInteger threadCount = new AtomicInteger();
+			executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+					new ArrayBlockingQueue<>(queueDepth), runnable ->
+					{
+						Thread thread = new Thread(runnable, "pipeline-" + name + "-" +
+								threadCount.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}, Stage::waitForRoom);
+		}
+		
+		/**
+		 * (U) This method is used to queue an item's work on the stage, waiting for room if the
+		 * queue is full.
+		 * 
+		 * @param command Runnable the work to queue.
+		 * @throws RejectedExecutionException if the stage has been stopped, or we are interrupted
+		 *                                    waiting for room.
+		 */
+		@Override
+		public void execute(Runnable command)
+		{
+			executor.execute(command);
+			peakQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+		}
+		
+		/**
+		 * (U) This method is used to run the stage's task on an item.
+		 * 
+		 * @param item T to run the task on.
+		 * @return T the item, passed on to the next stage.
+		 */
+		private T run(T item)
+		{
+			long startTime = System.nanoTime();
+			try
+			{
+				task.accept(item);
+			}
+			finally
+			{
+				items.increment();
+				busyNanos.add(System.nanoTime() - startTime);
+			}
+			return item;
+		}
+		
+		/**
+		 * (U) This method is used, once the queue is full, to wait for room in it rather than
+		 * turning the work away.
+		 * 
+		 * @param command  Runnable the work to queue.
+		 * @param executor ThreadPoolExecutor whose queue is full.
+		 * @throws RejectedExecutionException if the stage has been stopped, or we are interrupted
+		 *                                    waiting for room.
+		 */
+		private static void waitForRoom(Runnable command, ThreadPoolExecutor executor)
+		{
+			if (executor.isShutdown())
+				throw new RejectedExecutionException("The pipeline has been closed.");
+			
+			try
+			{
+				executor.getQueue().put(command);
+			}
+			catch (InterruptedException ie)
+			{
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException("Interrupted waiting for room in the queue.",
+						ie);
+			}
+		}
+	}
+}
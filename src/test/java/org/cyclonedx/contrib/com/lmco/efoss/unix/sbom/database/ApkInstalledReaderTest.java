@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
+
+/**
+ * (U) Test cases for the APK installed database reader.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class ApkInstalledReaderTest
+{
+	private static final String LOG4J_FILE = "ApkInstalledReaderTestLog4J.xml";
+	
+	private static final String INSTALLED_FILE = "/database/apk/installed";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	private ApkInstalledReader reader = new ApkInstalledReader();
+	
+	/**
+	 * (U) This method is used to test that every package block is read, in file order.
+	 */
+	@Test
+	void readInstalledPackagesTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		List<String> expectedPackages = List.of("musl", "zlib");
+		
+		try (BufferedReader installedReader = new BufferedReader(new InputStreamReader(
+				ApkInstalledReaderTest.class.getResourceAsStream(INSTALLED_FILE))))
+		{
+			Map<String, Map<String, String>> packages = reader.readInstalledPackages(
+					installedReader);
+			
+			List<String> actualPackages = new ArrayList<>(packages.keySet());
+			
+			if (expectedPackages.equals(actualPackages))
+				watcher.getLogger().debug("Got the expected packages " + actualPackages + ".");
+			else
+				watcher.getLogger().debug("Did NOT get the expected packages.\n	Expected: " +
+						expectedPackages + "\n	Actual: " + actualPackages);
+			
+			Assert.assertEquals(expectedPackages, actualPackages);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Our Test case readInstalledPackagesTest failed to read the " +
+					"installed database(" + INSTALLED_FILE + ").";
+			watcher.getLogger().error(error, ioe);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test the fields read for a single package.
+	 */
+	@Test
+	void detailMapTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			ApkInstalledReader fileReader = new ApkInstalledReader(Paths.get(
+					ApkInstalledReaderTest.class.getResource(INSTALLED_FILE).toURI()).toString());
+			
+			Assert.assertTrue(fileReader.isAvailable());
+			
+			Map<String, String> detailMap = fileReader.readInstalledPackages().get("musl");
+			
+			Assert.assertNotNull(detailMap);
+			Assert.assertEquals("1.1.24-r8", detailMap.get("Version"));
+			Assert.assertEquals("x86_64", detailMap.get("Architecture"));
+			Assert.assertEquals("the musl c library (libc) implementation",
+					detailMap.get("Description"));
+			Assert.assertEquals("https://musl.libc.org/", detailMap.get("URL"));
+			Assert.assertEquals("MIT", detailMap.get("License"));
+			Assert.assertEquals("musl", detailMap.get("Origin"));
+			Assert.assertFalse(detailMap.containsKey("R"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case detailMapTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
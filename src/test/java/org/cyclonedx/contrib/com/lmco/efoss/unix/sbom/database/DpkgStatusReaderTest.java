@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
+
+/**
+ * (U) Test cases for the dpkg status file reader.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class DpkgStatusReaderTest
+{
+	private static final String LOG4J_FILE = "DpkgStatusReaderTestLog4J.xml";
+	
+	private static final String STATUS_FILE = "/database/dpkg/status";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	private DpkgStatusReader reader = new DpkgStatusReader();
+	
+	/**
+	 * (U) This method is used to test that only installed packages are read, in file order, with
+	 * a second architecture keyed as name:arch.
+	 */
+	@Test
+	void readInstalledPackagesTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		List<String> expectedPackages = List.of("zip", "libc6", "libc6:i386");
+		
+		try (BufferedReader statusReader = new BufferedReader(new InputStreamReader(
+				DpkgStatusReaderTest.class.getResourceAsStream(STATUS_FILE))))
+		{
+			Map<String, Map<String, String>> packages = reader.readInstalledPackages(
+					statusReader);
+			
+			List<String> actualPackages = new ArrayList<>(packages.keySet());
+			
+			if (expectedPackages.equals(actualPackages))
+				watcher.getLogger().debug("Got the expected packages " + actualPackages + ".");
+			else
+				watcher.getLogger().debug("Did NOT get the expected packages.\n	Expected: " +
+						expectedPackages + "\n	Actual: " + actualPackages);
+			
+			Assert.assertEquals(expectedPackages, actualPackages);
+		}
+		catch (IOException ioe)
+		{
+			String error = "Our Test case readInstalledPackagesTest failed to read the status " +
+					"file(" + STATUS_FILE + ").";
+			watcher.getLogger().error(error, ioe);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that the detail map read from the status file carries the
+	 * same keys and values that "apt show" gives us.
+	 */
+	@Test
+	void detailMapTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			DpkgStatusReader fileReader = new DpkgStatusReader(Paths.get(
+					DpkgStatusReaderTest.class.getResource(STATUS_FILE).toURI()).toString());
+			
+			Assert.assertTrue(fileReader.isAvailable());
+			
+			Map<String, String> detailMap = fileReader.readInstalledPackages().get("zip");
+			
+			Assert.assertNotNull(detailMap);
+			Assert.assertEquals("3.0-11build1", detailMap.get("Version"));
+			Assert.assertEquals("optional", detailMap.get("Priority"));
+			Assert.assertEquals("http://www.info-zip.org/Zip.html", detailMap.get("Homepage"));
+			Assert.assertEquals("Archiver for .zip files This is InfoZIP's zip program. It " +
+					"produces files that are fully compatible with the popular PKZIP program; " +
+					"however, the command line options are not identical. In other words, the " +
+					"end result is the same, but the methods differ. :-) . This version " +
+					"supports encryption.", detailMap.get("Description"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case detailMapTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that only the fields asked for are kept, along with those
+	 * the reader needs itself, and that a field skipped takes the lines carrying it on with it.
+	 */
+	@Test
+	void fieldsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			DpkgStatusReader fieldReader = new DpkgStatusReader(Paths.get(
+					DpkgStatusReaderTest.class.getResource(STATUS_FILE).toURI()).toString(),
+					Set.of("Version"));
+			
+			Map<String, Map<String, String>> packages = fieldReader.readInstalledPackages();
+			
+			Assert.assertEquals(List.of("zip", "libc6", "libc6:i386"), new ArrayList<>(packages
+					.keySet()));
+			Assert.assertEquals(Set.of("Architecture", "Package", "Status", "Version"), packages
+					.get("zip").keySet());
+			Assert.assertEquals("3.0-11build1", packages.get("zip").get("Version"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case fieldsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a missing status file is reported as unavailable.
+	 */
+	@Test
+	void notAvailableTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			DpkgStatusReader missingReader = new DpkgStatusReader("./does/not/exist/status");
+			
+			Assert.assertFalse(missingReader.isAvailable());
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
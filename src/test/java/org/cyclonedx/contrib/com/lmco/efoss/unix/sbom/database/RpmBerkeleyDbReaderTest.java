@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
+
+/**
+ * (U) Test cases for the BerkeleyDB Packages reader. The test database holds 12 packages spread
+ * over two hash pages, small headers are stored on the hash page itself and large ones on chains
+ * of overflow pages.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class RpmBerkeleyDbReaderTest
+{
+	private static final String LOG4J_FILE = "RpmBerkeleyDbReaderTestLog4J.xml";
+	
+	private static final String DATABASE_FILE = "/database/rpm/Packages";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test reading every package out of the database, including both
+	 * kernels installed side by side.
+	 */
+	@Test
+	void readInstalledPackagesTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			RpmBerkeleyDbReader reader = new RpmBerkeleyDbReader(Paths.get(
+					RpmBerkeleyDbReaderTest.class.getResource(DATABASE_FILE).toURI()).toString());
+			
+			Assert.assertTrue(reader.isAvailable());
+			
+			Map<String, Map<String, String>> packages = reader.readInstalledPackages();
+			
+			watcher.getLogger().debug("Read " + packages.size() + " packages.");
+			
+			Assert.assertEquals(14, packages.size());
+			
+			Map<String, String> zip = packages.get("zip-3.0-11.el7.x86_64");
+			Assert.assertNotNull(zip);
+			Assert.assertEquals("3.0", zip.get("Version"));
+			Assert.assertEquals("11.el7", zip.get("Release"));
+			Assert.assertEquals("BSD", zip.get("License"));
+			Assert.assertEquals("http://www.info-zip.org/Zip.html", zip.get("URL"));
+			Assert.assertEquals("Red Hat, Inc.", zip.get("Vendor"));
+			Assert.assertFalse(zip.containsKey("Epoch"));
+			
+			Map<String, String> networkManager = packages.get(
+					"NetworkManager-1:1.18.0-5.el7_7.1.x86_64");
+			Assert.assertNotNull(networkManager);
+			Assert.assertEquals("1", networkManager.get("Epoch"));
+			Assert.assertEquals("1.18.0", networkManager.get("Version"));
+			Assert.assertTrue(networkManager.get("Description").length() > 8192);
+			
+			Map<String, String> filler = packages.get("filler09-1.9-1.el7.noarch");
+			Assert.assertNotNull(filler);
+			Assert.assertEquals("1.9", filler.get("Version"));
+			
+			Assert.assertEquals("1062.el7", packages.get("kernel-3.10.0-1062.el7.x86_64").get(
+					"Release"));
+			Assert.assertEquals("1160.el7", packages.get("kernel-3.10.0-1160.el7.x86_64").get(
+					"Release"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case readInstalledPackagesTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a file that is not a BerkeleyDB hash database is
+	 * rejected.
+	 */
+	@Test
+	void notBerkeleyDbTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("rpmdb");
+			Path database = directory.resolve("Packages");
+			Files.write(database, new byte[8192]);
+			
+			RpmBerkeleyDbReader reader = new RpmBerkeleyDbReader(database.toString());
+			
+			Assert.assertTrue(reader.isAvailable());
+			reader.readInstalledPackages();
+			
+			Assert.fail("Expected an SBomException to be thrown.");
+		}
+		catch (SBomException sbe)
+		{
+			watcher.getLogger().debug("Got expected exception.", sbe);
+			Assert.assertEquals("Unable to read the RPM Packages file (" +
+					directory.resolve("Packages") + ")!", sbe.getMessage());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case notBerkeleyDbTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
+
+/**
+ * (U) Test cases for the RPM header decoder.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class RpmHeaderTest
+{
+	private static final String LOG4J_FILE = "RpmHeaderTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test decoding tags from a header whose index is not sorted by
+	 * tag, held in a direct (off heap) buffer.
+	 */
+	@Test
+	void unsortedDirectBufferTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			byte[] blob = buildHeader(new int[] { RpmHeader.TAG_VERSION, RpmHeader.TAG_EPOCH,
+					RpmHeader.TAG_NAME, RpmHeader.TAG_ARCH }, new String[] { "1.2.3", null, "zip",
+							"x86_64" }, 7);
+			
+			ByteBuffer direct = ByteBuffer.allocateDirect(blob.length + 4);
+			direct.putInt(0xDEADBEEF);
+			direct.put(blob);
+			direct.position(4);
+			
+			RpmHeader header = new RpmHeader(direct);
+			
+			Assert.assertEquals("zip", header.getString(RpmHeader.TAG_NAME));
+			Assert.assertEquals("1.2.3", header.getString(RpmHeader.TAG_VERSION));
+			Assert.assertEquals(Integer.valueOf(7), header.getInt(RpmHeader.TAG_EPOCH));
+			Assert.assertNull(header.getString(RpmHeader.TAG_LICENSE));
+			Assert.assertNull(header.getString(RpmHeader.TAG_EPOCH));
+			Assert.assertEquals("zip.x86_64", header.getSoftwareName());
+			Assert.assertEquals("zip-7:1.2.3.x86_64", header.getNevra());
+			
+			Map<String, String> detailMap = header.toDetailMap();
+			Assert.assertEquals("7", detailMap.get("Epoch"));
+			Assert.assertEquals(4, detailMap.size());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case unsortedDirectBufferTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to build a header blob. A null value is written as the 32 bit
+	 * integer epoch, every other value as a string.
+	 * 
+	 * @param tags   int array of the tags, in index order.
+	 * @param values String array of the values of the tags.
+	 * @param epoch  int value of the epoch.
+	 * @return byte array containing the header blob.
+	 */
+	private static byte[] buildHeader(int[] tags, String[] values, int epoch)
+	{
+		ByteBuffer data = ByteBuffer.allocate(1024);
+		ByteBuffer index = ByteBuffer.allocate(tags.length * 16);
+		
+		for (int i = 0; i < tags.length; i++)
+		{
+			if (values[i] == null)
+			{
+				while ((data.position() % 4) != 0)
+					data.put((byte) 0);
+				index.putInt(tags[i]).putInt(4).putInt(data.position()).putInt(1);
+				data.putInt(epoch);
+			}
+			else
+			{
+				index.putInt(tags[i]).putInt(6).putInt(data.position()).putInt(1);
+				data.put(values[i].getBytes(StandardCharsets.UTF_8)).put((byte) 0);
+			}
+		}
+		
+		ByteBuffer blob = ByteBuffer.allocate(8 + index.capacity() + data.position());
+		blob.putInt(tags.length).putInt(data.position());
+		blob.put(index.array());
+		blob.put(data.array(), 0, data.position());
+		return blob.array();
+	}
+}
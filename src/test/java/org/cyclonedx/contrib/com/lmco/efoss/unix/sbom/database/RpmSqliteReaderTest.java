@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.database;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
+
+/**
+ * (U) Test cases for the rpmdb.sqlite reader. The test database holds 62 packages, enough to
+ * need interior b-tree pages, and one header large enough to spill onto overflow pages.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class RpmSqliteReaderTest
+{
+	private static final String LOG4J_FILE = "RpmSqliteReaderTestLog4J.xml";
+	
+	private static final String DATABASE_FILE = "/database/rpm/rpmdb.sqlite";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test reading every package out of the database, including each
+	 * version of a package installed side by side.
+	 */
+	@Test
+	void readInstalledPackagesTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			RpmSqliteReader reader = new RpmSqliteReader(Paths.get(
+					RpmSqliteReaderTest.class.getResource(DATABASE_FILE).toURI()).toString());
+			
+			Assert.assertTrue(reader.isAvailable());
+			
+			Map<String, Map<String, String>> packages = reader.readInstalledPackages();
+			
+			watcher.getLogger().debug("Read " + packages.size() + " packages.");
+			
+			Assert.assertEquals(64, packages.size());
+			
+			Map<String, String> zip = packages.get("zip-3.0-11.el7.x86_64");
+			Assert.assertNotNull(zip);
+			Assert.assertEquals("3.0", zip.get("Version"));
+			Assert.assertEquals("11.el7", zip.get("Release"));
+			Assert.assertEquals("BSD", zip.get("License"));
+			Assert.assertEquals("http://www.info-zip.org/Zip.html", zip.get("URL"));
+			Assert.assertEquals("Red Hat, Inc.", zip.get("Vendor"));
+			Assert.assertEquals("A file compression and packaging utility compatible with " +
+					"PKZIP", zip.get("Summary"));
+			Assert.assertFalse(zip.containsKey("Epoch"));
+			
+			Map<String, String> networkManager = packages.get(
+					"NetworkManager-1:1.18.0-5.el7_7.1.x86_64");
+			Assert.assertNotNull(networkManager);
+			Assert.assertEquals("1", networkManager.get("Epoch"));
+			Assert.assertTrue(networkManager.get("Description").length() > 8192);
+			
+			Map<String, String> oldKernel = packages.get("kernel-core-4.18.0-348.el8.x86_64");
+			Map<String, String> newKernel = packages.get(
+					"kernel-core-4.18.0-372.9.1.el8.x86_64");
+			Assert.assertNotNull(oldKernel);
+			Assert.assertNotNull(newKernel);
+			Assert.assertEquals("348.el8", oldKernel.get("Release"));
+			Assert.assertEquals("372.9.1.el8", newKernel.get("Release"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case readInstalledPackagesTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a database with a non-empty write ahead log is not
+	 * read directly.
+	 */
+	@Test
+	void pendingWriteAheadLogTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("rpmdb");
+			Path database = directory.resolve("rpmdb.sqlite");
+			Files.copy(Paths.get(RpmSqliteReaderTest.class.getResource(DATABASE_FILE).toURI()),
+					database);
+			Files.write(directory.resolve("rpmdb.sqlite-wal"), new byte[] { 1, 2, 3 });
+			
+			RpmSqliteReader reader = new RpmSqliteReader(database.toString());
+			
+			Assert.assertFalse(reader.isAvailable());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case pendingWriteAheadLogTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
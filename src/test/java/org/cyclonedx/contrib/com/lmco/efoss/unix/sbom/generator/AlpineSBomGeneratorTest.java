@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.jupiter.api.Assertions;
@@ -26,6 +27,7 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandRunner;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
@@ -45,7 +47,7 @@ class AlpineSBomGeneratorTest extends BaseSBomGeneratorTest
 	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
 	
 	@Mock
-	private ProcessBuilder pbMock = new ProcessBuilder();
+	private CommandRunner runnerMock = new CommandRunner();
 	
 	@InjectMocks
 	private AlpineSBomGenerator generator = new AlpineSBomGenerator();
@@ -222,7 +224,7 @@ class AlpineSBomGeneratorTest extends BaseSBomGeneratorTest
 			
 			Process process = TestUtils.mockProcess(stream, null, null);
 			
-			Mockito.when(pbMock.start()).thenReturn(process);
+			Mockito.when(runnerMock.query(List.of("apk", "policy", "musl"))).thenReturn(process);
 			
 			String version = generator.getVersion("musl");
 			
@@ -13,6 +13,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -29,6 +30,8 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator.UnixSBomGenerator.AVAILABLE_LINUX_FLAVORS;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandRunner;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
@@ -52,7 +55,7 @@ class RedHatSBomGeneratorTest extends BaseSBomGeneratorTest
 	private RedHatSBomGenerator generator = new RedHatSBomGenerator();
 	
 	@Mock
-	private ProcessBuilder pbMock = new ProcessBuilder();
+	private CommandRunner runnerMock = new CommandRunner();
 	
 	/**
 	 * (U) This method is used to test the parsing of the Map into External References.
@@ -129,7 +132,7 @@ class RedHatSBomGeneratorTest extends BaseSBomGeneratorTest
 			
 			openMocks = MockitoAnnotations.openMocks(this);
 			
-			Mockito.when(pbMock.start()).thenReturn(process);
+			Mockito.when(runnerMock.query(List.of("yumdownloader", "--urls", "zip"))).thenReturn(process);
 			
 			String version = generator.getPurl("zip");
 			
@@ -158,6 +161,53 @@ class RedHatSBomGeneratorTest extends BaseSBomGeneratorTest
 		}
 	}
 	
+	/**
+	 * (U) This method is used to test that reading about a package stops once yum has printed
+	 * every field it always prints, even though it left out some of those we keep (Epoch).
+	 */
+	@Test
+	void detailMapStopsEarlyTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String output = "Installed Packages\n" +
+				"Name        : zip\n" +
+				"Arch        : x86_64\n" +
+				"Version     : 3.0\n" +
+				"Release     : 11.el7\n" +
+				"From repo   : rhel-7-server-rhui-rpms\n" +
+				"URL         : http://www.info-zip.org/Zip.html\n" +
+				"License     : BSD\n" +
+				"Description : The zip program is a compression and file packaging utility.\n" +
+				"\n" +
+				"Name        : unread\n";
+		
+		try (BufferedReader reader = new BufferedReader(new StringReader(output)))
+		{
+			Map<String, String> detailMap = generator.generateDetailMap(reader,
+					AVAILABLE_LINUX_FLAVORS.REDHAT);
+			
+			Assert.assertEquals("zip", detailMap.get("Name"));
+			Assert.assertEquals("rhel-7-server-rhui-rpms", detailMap.get("From repo"));
+			Assert.assertFalse(detailMap.containsKey("Epoch"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case detailMapStopsEarlyTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
 	/**
 	 * (U) This method is used to test the reading of a Purl from the process.
 	 */
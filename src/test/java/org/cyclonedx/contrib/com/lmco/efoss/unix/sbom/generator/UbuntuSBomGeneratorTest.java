@@ -30,6 +30,7 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandRunner;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
@@ -50,7 +51,7 @@ class UbuntuSBomGeneratorTest extends BaseSBomGeneratorTest
 	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
 	
 	@Mock
-	private ProcessBuilder pbMock = new ProcessBuilder();
+	private CommandRunner runnerMock = new CommandRunner();
 	
 	@InjectMocks
 	private UbuntuSBomGenerator generator = new UbuntuSBomGenerator();
@@ -336,7 +337,7 @@ class UbuntuSBomGeneratorTest extends BaseSBomGeneratorTest
 			
 			Process process = TestUtils.mockProcess(stream, null, null);
 			
-			Mockito.when(pbMock.start()).thenReturn(process);
+			Mockito.when(runnerMock.query(List.of("apt", "policy", "curl"))).thenReturn(process);
 			
 			String version = generator.getInstalledVersion("curl");
 			
@@ -13,13 +13,20 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.io.IOUtils;
+import org.cyclonedx.model.Bom;
 import org.cyclonedx.model.Component;
 import org.cyclonedx.model.Component.Scope;
 import org.cyclonedx.model.Component.Type;
@@ -31,8 +38,14 @@ import org.junit.jupiter.api.Test;
 
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.exceptions.SBomException;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.generator.UnixSBomGenerator.AVAILABLE_LINUX_FLAVORS;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CheckpointJournal;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandArchive;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.CommandBatcher;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.DateUtils;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.Log4JTestWatcher;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.PipelineRunner;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.QueryTimings;
+import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.StagedPipeline;
 import org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils.TestUtils;
 
 /**
@@ -380,8 +393,8 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 		{
 			List<String> expectedSoftwareList = getPackageList(
 					"/packageList/expectedAlpinePackages.txt");
-			List<String> actualSoftwareList = generator.processListCmdOutput(reader, '\n',
-					null);
+			List<String> actualSoftwareList = getPackageNames(generator.processListCmdOutput(
+					reader, AVAILABLE_LINUX_FLAVORS.ALPINE, null));
 			
 			Collections.sort(expectedSoftwareList);
 			Collections.sort(actualSoftwareList);
@@ -446,6 +459,22 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 		return expectedPackages;
 	}
 	
+	/**
+	 * (U) This method is used to get the names of the packages found.
+	 * 
+	 * @param installedPackages List of InstalledPackage to get the names of.
+	 * @return List of Strings that are the names of the packages.
+	 */
+	private List<String> getPackageNames(List<InstalledPackage> installedPackages)
+	{
+		List<String> names = new ArrayList<String>();
+		
+		for (InstalledPackage installedPackage : installedPackages)
+			names.add(installedPackage.getName());
+		
+		return names;
+	}
+	
 	/**
 	 * (U) This test is used to generate the IOException that a detail map might throw.
 	 */
@@ -620,8 +649,8 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 		{
 			List<String> expectedSoftwareList = getPackageList(
 					"/packageList/expectedRedhatPackages.txt");
-			List<String> actualSoftwareList = generator.processListCmdOutput(reader, ' ',
-					"Installed Packages");
+			List<String> actualSoftwareList = getPackageNames(generator.processListCmdOutput(
+					reader, AVAILABLE_LINUX_FLAVORS.REDHAT, "Installed Packages"));
 			
 			Collections.sort(expectedSoftwareList);
 			Collections.sort(actualSoftwareList);
@@ -939,8 +968,9 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 		{
 			Process process = TestUtils.mockProcess(stream, null, null);
 			
-			List<String> actualSoftwareList = generator.processListOfSoftware(process,
-					UbuntuSBomGenerator.SOFTWARE_LIST_CMD, '/', "");
+			List<String> actualSoftwareList = getPackageNames(generator.processListOfSoftware(
+					process, UbuntuSBomGenerator.SOFTWARE_LIST_CMD, AVAILABLE_LINUX_FLAVORS.UBUNTU,
+					""));
 			
 			List<String> expectedSoftwareList = getPackageList(
 					"/packageList/expectedUbuntuPackages.txt");
@@ -1028,7 +1058,8 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 		{
 			List<String> expectedSoftwareList = getPackageList(
 					"/packageList/expectedUbuntuPackages.txt");
-			List<String> actualSoftwareList = generator.processListCmdOutput(reader, '/', "");
+			List<String> actualSoftwareList = getPackageNames(generator.processListCmdOutput(
+					reader, AVAILABLE_LINUX_FLAVORS.UBUNTU, ""));
 			
 			Collections.sort(expectedSoftwareList);
 			Collections.sort(actualSoftwareList);
@@ -1062,4 +1093,1113 @@ class UnixSBomGeneratorTest extends BaseSBomGeneratorTest
 			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
 		}
 	}
+	
+	/**
+	 * (U) This method is used to test the parsing of the Alpine bulk query output into the detail
+	 * maps of every installed package.
+	 */
+	@Test
+	void alpineBulkDetailMapsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/alpineBulk.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(stream)))
+		{
+			Map<String, Map<String, String>> packages = generator.generateBulkDetailMaps(
+					reader, AVAILABLE_LINUX_FLAVORS.ALPINE);
+			
+			watcher.getLogger().debug("Found " + packages.size() + " packages.");
+			
+			Assert.assertEquals(4, packages.size());
+			
+			Map<String, String> libcrypto = packages.get("libcrypto1.1");
+			Assert.assertNotNull(libcrypto);
+			Assert.assertEquals("1.1.1g-r0", libcrypto.get("Version"));
+			Assert.assertEquals("Crypto library from openssl", libcrypto.get("Description"));
+			Assert.assertEquals("https://www.openssl.org", libcrypto.get("URL"));
+			
+			Map<String, String> bundle = packages.get("ca-certificates-bundle");
+			Assert.assertNotNull(bundle);
+			Assert.assertEquals("20191127-r4", bundle.get("Version"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the Alpine bulk detail maps failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test the parsing of the rpm bulk query output, from a process,
+	 * into the detail maps of every installed package.
+	 */
+	@Test
+	void redhatBulkDetailMapsFromProcessTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/redhatBulk.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file))
+		{
+			Process process = TestUtils.mockProcess(stream, null, null);
+			
+			Map<String, Map<String, String>> packages = generator.processBulkDetailMapCommand(
+					process, AVAILABLE_LINUX_FLAVORS.REDHAT);
+			
+			watcher.getLogger().debug("Found " + packages.size() + " packages.");
+			
+			Assert.assertEquals(6, packages.size());
+			
+			Map<String, String> zip = packages.get("zip-3.0-11.el7.x86_64");
+			Assert.assertNotNull(zip);
+			Assert.assertEquals("3.0", zip.get("Version"));
+			Assert.assertEquals("11.el7", zip.get("Release"));
+			Assert.assertEquals("BSD", zip.get("License"));
+			Assert.assertFalse(zip.containsKey("Epoch"));
+			Assert.assertTrue(zip.get("Description").contains("\nMS-DOS systems)."));
+			
+			Assert.assertEquals("1", packages.get("NetworkManager-1:1.18.0-5.el7_7.1.x86_64")
+					.get("Epoch"));
+			
+			Assert.assertEquals("1062.el7", packages.get("kernel-3.10.0-1062.el7.x86_64")
+					.get("Release"));
+			Assert.assertEquals("1160.el7", packages.get("kernel-3.10.0-1160.el7.x86_64")
+					.get("Release"));
+			
+			Map<String, String> pubkey = packages.get("gpg-pubkey-f4a80eb5-53a7ff4b");
+			Assert.assertNotNull(pubkey);
+			Assert.assertFalse(pubkey.containsKey("URL"));
+			Assert.assertNotNull(packages.get("gpg-pubkey-352c64e5-52ae6884"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the RedHat bulk detail maps failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test the parsing of the dpkg-query bulk query output into the
+	 * detail maps of every installed package.
+	 */
+	@Test
+	void ubuntuBulkDetailMapsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/ubuntuBulk.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(stream)))
+		{
+			Map<String, Map<String, String>> packages = generator.generateBulkDetailMaps(
+					reader, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			
+			watcher.getLogger().debug("Found " + packages.size() + " packages.");
+			
+			Assert.assertEquals(2, packages.size());
+			Assert.assertFalse(packages.containsKey("nano"));
+			
+			Map<String, String> adduser = packages.get("adduser");
+			Assert.assertNotNull(adduser);
+			Assert.assertEquals("3.118ubuntu2", adduser.get("Version"));
+			Assert.assertFalse(adduser.containsKey("Homepage"));
+			
+			Assert.assertEquals("http://zlib.net/", packages.get("zlib1g").get("Homepage"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the Ubuntu bulk detail maps failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test splitting the output of a yum query about a batch of
+	 * packages back into the detail map of each installed package.
+	 */
+	@Test
+	void redhatBatchedDetailMapsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/redhatBatch.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file))
+		{
+			Process process = TestUtils.mockProcess(stream, null, null);
+			
+			Map<String, Map<String, String>> packages = generator
+					.processBatchedDetailMapCommand(process, AVAILABLE_LINUX_FLAVORS.REDHAT);
+			
+			watcher.getLogger().debug("Found " + packages.size() + " packages.");
+			
+			Assert.assertEquals(2, packages.size());
+			
+			Map<String, String> zip = packages.get("zip.x86_64");
+			Assert.assertNotNull(zip);
+			Assert.assertEquals("3.0", zip.get("Version"));
+			Assert.assertEquals("BSD", zip.get("License"));
+			Assert.assertTrue(zip.get("Description").endsWith("MS-DOS systems)."));
+			
+			// Only the installed unzip, not the one available to update to.
+			Assert.assertEquals("21.el7", packages.get("unzip.x86_64").get("Release"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the RedHat batched detail maps failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test splitting the output of an apt query about a batch of
+	 * packages back into the detail map of each package.
+	 */
+	@Test
+	void ubuntuBatchedDetailMapsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/ubuntuBatch.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(stream)))
+		{
+			Map<String, Map<String, String>> packages = generator.generateBatchedDetailMaps(
+					reader, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			
+			watcher.getLogger().debug("Found " + packages.size() + " packages.");
+			
+			Assert.assertEquals(2, packages.size());
+			
+			Map<String, String> curl = packages.get("curl");
+			Assert.assertNotNull(curl);
+			Assert.assertEquals("7.58.0-2ubuntu3.16", curl.get("Version"));
+			Assert.assertEquals("http://curl.haxx.se", curl.get("Homepage"));
+			Assert.assertTrue(curl.get("Description").endsWith("with URL syntax."));
+			
+			Assert.assertEquals("3.0-11build1", packages.get("zip").get("Version"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the Ubuntu batched detail maps failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a large batch, parsed with the same buffers from
+	 * start to end, gives every package exactly the detail map it gets when asked about alone.
+	 */
+	@Test
+	void ubuntuLargeBatchedDetailMapsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String file = "/packageDetails/ubuntu.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file))
+		{
+			String stanza = IOUtils.toString(stream).trim();
+			Map<String, String> expected = generator.generateUbuntuDetailMap(
+					new BufferedReader(new StringReader(stanza)));
+			
+			StringBuilder output = new StringBuilder();
+			for (int i = 0; i < 1000; i++)
+				output.append(stanza.replace("Package: zip", "Package: zip" + i)).append("\n\n");
+			
+			Map<String, Map<String, String>> packages = generator.generateBatchedDetailMaps(
+					new BufferedReader(new StringReader(output.toString())),
+					AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			
+			Assert.assertEquals(1000, packages.size());
+			for (int i = 0; i < 1000; i++)
+			{
+				Map<String, String> detailMap = packages.get("zip" + i);
+				Assert.assertNotNull(detailMap);
+				Assert.assertEquals(expected.size(), detailMap.size());
+				for (Map.Entry<String, String> entry : expected.entrySet())
+				{
+					if (!"Package".equals(entry.getKey()))
+						Assert.assertEquals(entry.getValue(), detailMap.get(entry.getKey()));
+				}
+			}
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case, to generate the detail maps of a large batch " +
+					"failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a failed bulk query process is reported.
+	 */
+	@Test
+	void bulkDetailMapsFailFromProcessTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String expectedMessage = "Unexpected process exit value (-1), while attempting to " +
+				"generate the Detail Maps of every installed package!";
+		
+		String file = "/packageDetails/ubuntuBulk.txt";
+		
+		try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(file))
+		{
+			Exception exception = Assertions.assertThrows(SBomException.class, () ->
+			{
+				Process process = TestUtils.mockFailedProcess(stream, null, null);
+				generator.processBulkDetailMapCommand(process, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			});
+			Assert.assertEquals(expectedMessage, exception.getMessage());
+		}
+		catch (Exception e)
+		{
+			String error = "Our test case to read the bulk detail maps from a failed process, " +
+					"failed unexpectedly!";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This test case is used to test the parsing of the output of "apk list --installed"
+	 * into a list of packages, with their versions.
+	 */
+	@Test
+	void alpineInstalledListTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String alpineFile = "/packageList/alpineInstalled.txt";
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+				UnixSBomGeneratorTest.class.getResourceAsStream(alpineFile))))
+		{
+			List<InstalledPackage> softwareList = generator.processListCmdOutput(reader,
+					AVAILABLE_LINUX_FLAVORS.ALPINE, null);
+			
+			Assert.assertEquals(5, softwareList.size());
+			
+			InstalledPackage libcrypto = softwareList.get(3);
+			Assert.assertEquals("libcrypto1.1", libcrypto.getName());
+			Assert.assertEquals("1.1.1g-r0", libcrypto.getVersion());
+			Assert.assertEquals("x86_64", libcrypto.getArch());
+			
+			InstalledPackage bundle = softwareList.get(4);
+			Assert.assertEquals("ca-certificates-bundle", bundle.getName());
+			Assert.assertEquals("20191127-r4", bundle.getVersion());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case alpineInstalledListTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This test case is used to test that the version, architecture and repository are
+	 * pulled from the apt and yum listings, including a yum package whose long name pushed the
+	 * rest of it to the next line.
+	 */
+	@Test
+	void listRecordsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			InstalledPackage acpid = generator.parseListLine(
+					"acpid/bionic,now 1:2.0.28-1ubuntu1 amd64 [installed,automatic]",
+					AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			Assert.assertEquals("acpid", acpid.getName());
+			Assert.assertEquals("1:2.0.28-1ubuntu1", acpid.getVersion());
+			Assert.assertEquals("amd64", acpid.getArch());
+			Assert.assertEquals("bionic,now", acpid.getRepo());
+			
+			String yumOutput = "Installed Packages\n" +
+					"GeoIP.x86_64          1.5.0-14.el7          @rhel-7-server-rhui-rpms\n" +
+					"Red_Hat_Enterprise_Linux-Release_Notes-7-en-US.noarch\n" +
+					"                      7-2.el7               @anaconda/7.7\n";
+			List<InstalledPackage> softwareList = generator.processListCmdOutput(
+					new BufferedReader(new StringReader(yumOutput)),
+					AVAILABLE_LINUX_FLAVORS.REDHAT, "Installed Packages");
+			
+			Assert.assertEquals(2, softwareList.size());
+			Assert.assertEquals("x86_64", softwareList.get(0).getArch());
+			Assert.assertEquals("@rhel-7-server-rhui-rpms", softwareList.get(0).getRepo());
+			
+			InstalledPackage notes = softwareList.get(1);
+			Assert.assertEquals("Red_Hat_Enterprise_Linux-Release_Notes-7-en-US.noarch",
+					notes.getName());
+			Assert.assertEquals("7-2.el7", notes.getVersion());
+			Assert.assertEquals("noarch", notes.getArch());
+			Assert.assertEquals("@anaconda/7.7", notes.getRepo());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case listRecordsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that the Components created on several threads come back in
+	 * the order the software was listed, even when later batches finish first.
+	 */
+	@Test
+	void createPipelinedComponentsOrderTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = new LinkedHashMap<>();
+			for (int i = 0; i < 200; i++)
+				installedPackages.put("software" + i, Map.of("Version", "1." + i));
+			
+			UnixSBomGenerator parallelGenerator = new UnixSBomGenerator();
+			parallelGenerator.setThreads(4);
+			
+			// The first batch takes the longest, the last the shortest.
+			StagedPipeline<List<PendingComponent>> pipeline = parallelGenerator.createPipeline();
+			parallelGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, batch ->
+			{
+				int first = Integer.parseInt(batch.get(0).getName().substring(8));
+				try
+				{
+					Thread.sleep(200L - first);
+				}
+				catch (InterruptedException ie)
+				{
+					Thread.currentThread().interrupt();
+				}
+			}, null);
+			parallelGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null,
+					software ->
+					{
+						Component component = new Component();
+						component.setName(software.getName());
+						software.setComponent(component);
+					});
+			List<Component> components = parallelGenerator.createPipelinedComponents(
+					PendingComponent.of(installedPackages), pipeline);
+			
+			Assert.assertEquals(200, components.size());
+			for (int i = 0; i < 200; i++)
+				Assert.assertEquals("software" + i, components.get(i).getName());
+			
+			Assertions.assertThrows(SBomException.class, () -> parallelGenerator.setThreads(0));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case createPipelinedComponentsOrderTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that software goes through the pipeline in batches as it is
+	 * listed, and that the Components come back in the order it was listed. A listing command
+	 * that fails still fails the scan, and so does a stage that fails.
+	 */
+	@Test
+	void createPipelinedComponentsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		List<String> listCmd = List.of("sh", "-c", "for i in $(seq 0 149); do " +
+				"echo \"software$i/focal 1.$i amd64 [installed]\"; done");
+		try
+		{
+			UnixSBomGenerator streamingGenerator = new UnixSBomGenerator();
+			streamingGenerator.setThreads(4);
+			streamingGenerator.setQueueDepth(UnixSBomGenerator.CREATE_STAGE, 1);
+			Assert.assertEquals(1, streamingGenerator.getQueueDepth(
+					UnixSBomGenerator.CREATE_STAGE));
+			Assert.assertEquals(PipelineRunner.DEFAULT_QUEUE_DEPTH,
+					streamingGenerator.getQueueDepth(UnixSBomGenerator.DETAILS_STAGE));
+			
+			List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+			List<Component> components;
+			try (PackageListIterator softwareList = streamingGenerator.streamListOfSoftware(
+					listCmd, AVAILABLE_LINUX_FLAVORS.UBUNTU, null))
+			{
+				StagedPipeline<List<PendingComponent>> pipeline =
+						streamingGenerator.createPipeline();
+				streamingGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE,
+						batch -> batchSizes.add(batch.size()), software ->
+								software.setDetailMap(Map.of("Version", software.getVersion())));
+				streamingGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null,
+						software ->
+						{
+							Component component = new Component();
+							component.setName(software.getName());
+							component.setVersion(software.getDetailMap().get("Version"));
+							software.setComponent(component);
+						});
+				components = streamingGenerator.createPipelinedComponents(
+						PendingComponent.of(softwareList), pipeline);
+			}
+			
+			Assert.assertEquals(150, components.size());
+			for (int i = 0; i < 150; i++)
+			{
+				Assert.assertEquals("software" + i, components.get(i).getName());
+				Assert.assertEquals("1." + i, components.get(i).getVersion());
+			}
+			Assert.assertEquals(3, batchSizes.size());
+			Assert.assertEquals(150, batchSizes.stream().mapToInt(Integer::intValue).sum());
+			Assert.assertFalse(streamingGenerator.isIncomplete());
+			
+			Assertions.assertThrows(SBomException.class, () ->
+			{
+				try (PackageListIterator softwareList = streamingGenerator.streamListOfSoftware(
+						List.of("sh", "-c", "echo \"zip/focal 3.0 amd64\"; exit 3"),
+						AVAILABLE_LINUX_FLAVORS.UBUNTU, null))
+				{
+					StagedPipeline<List<PendingComponent>> pipeline =
+							streamingGenerator.createPipeline();
+					streamingGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null,
+							software -> software.setComponent(new Component()));
+					streamingGenerator.createPipelinedComponents(PendingComponent.of(
+							softwareList), pipeline);
+				}
+			});
+			
+			// Only an SBomException is put down to the package, anything else ends the scan.
+			Assertions.assertThrows(SBomException.class, () ->
+			{
+				StagedPipeline<List<PendingComponent>> pipeline =
+						streamingGenerator.createPipeline();
+				streamingGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null,
+						software ->
+						{
+							throw new IllegalStateException("No details for " +
+									software.getName());
+						});
+				streamingGenerator.createPipelinedComponents(PendingComponent.of(
+						Map.of("zip", Map.of("Version", "3.0"))), pipeline);
+			});
+			
+			Assertions.assertThrows(SBomException.class,
+					() -> streamingGenerator.setQueueDepth("purl", 4));
+			Assertions.assertThrows(SBomException.class,
+					() -> streamingGenerator.setQueueDepth(0));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case createPipelinedComponentsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a package a stage fails on does not fail the rest,
+	 * gets a Component saying why it failed, and is listed in the SBOM's metadata, and that
+	 * only the failed packages are tried again.
+	 */
+	@Test
+	void failedPackagesTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = new LinkedHashMap<>();
+			for (String software : List.of("zip", "bash", "curl"))
+				installedPackages.put(software, Map.of("Version", "1.0"));
+			
+			UnixSBomGenerator failingGenerator = new UnixSBomGenerator();
+			failingGenerator.setThreads(1);
+			List<String> lookedUp = Collections.synchronizedList(new ArrayList<>());
+			List<Component> components = failingGenerator.createPipelinedComponents(
+					PendingComponent.of(installedPackages), createFailingPipeline(
+							failingGenerator, lookedUp, Integer.MAX_VALUE));
+			
+			Assert.assertEquals(3, components.size());
+			Assert.assertEquals("bash", components.get(1).getName());
+			Assert.assertEquals("1.0", components.get(1).getVersion());
+			Assert.assertEquals("unixSbomGenerator:failed",
+					components.get(1).getProperties().get(0).getName());
+			Assert.assertEquals("details: Unable to look up bash!",
+					components.get(1).getProperties().get(0).getValue());
+			Assert.assertNull(components.get(2).getProperties());
+			Assert.assertEquals(List.of("bash"), failingGenerator.getFailedSoftware());
+			Assert.assertFalse(failingGenerator.isIncomplete());
+			
+			Bom bom = new Bom();
+			failingGenerator.addScanStatus(bom);
+			
+			List<Property> properties = bom.getMetadata().getProperties();
+			Assert.assertEquals(1, properties.size());
+			Assert.assertEquals("unixSbomGenerator:failed", properties.get(0).getName());
+			Assert.assertEquals("bash", properties.get(0).getValue());
+			
+			UnixSBomGenerator retryingGenerator = new UnixSBomGenerator();
+			retryingGenerator.setThreads(1);
+			retryingGenerator.setRetryFailed(2);
+			lookedUp.clear();
+			components = retryingGenerator.createPipelinedComponents(PendingComponent.of(
+					installedPackages), createFailingPipeline(retryingGenerator, lookedUp, 1));
+			
+			Assert.assertEquals(List.of("zip", "bash", "curl", "bash"), lookedUp);
+			Assert.assertEquals(3, components.size());
+			Assert.assertNull(components.get(1).getProperties());
+			Assert.assertTrue(retryingGenerator.getFailedSoftware().isEmpty());
+			
+			Assertions.assertThrows(SBomException.class,
+					() -> retryingGenerator.setRetryFailed(-1));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case failedPackagesTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to create a pipeline whose details stage fails on bash, the
+	 * first times it is looked up.
+	 * 
+	 * @param generator UnixSBomGenerator to create the pipeline for.
+	 * @param lookedUp  List to add each package looked up to.
+	 * @param failures  int the number of times bash fails.
+	 * @return StagedPipeline with a details and create stage.
+	 */
+	private static StagedPipeline<List<PendingComponent>> createFailingPipeline(
+			UnixSBomGenerator generator, List<String> lookedUp, int failures)
+	{
+		StagedPipeline<List<PendingComponent>> pipeline = generator.createPipeline();
+		generator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null, software ->
+		{
+			lookedUp.add(software.getName());
+			if ((software.getName().equals("bash")) &&
+					(Collections.frequency(lookedUp, "bash") <= failures))
+				throw new SBomException("Unable to look up bash!");
+		});
+		generator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null, software ->
+		{
+			Component component = new Component();
+			component.setName(software.getName());
+			component.setVersion(software.getVersion());
+			software.setComponent(component);
+		});
+		return pipeline;
+	}
+	
+	/**
+	 * (U) This method is used to test that the packages a scan finishes are journaled, and that
+	 * a scan resuming from the journal only looks up those whose version has changed.
+	 */
+	@Test
+	void checkpointJournalTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("checkpointJournal");
+			Path file = directory.resolve("checkpoint.journal");
+			List<String> lookedUp = Collections.synchronizedList(new ArrayList<>());
+			
+			List<Component> components = scanWithJournal(CheckpointJournal.open(file, false),
+					List.of(new InstalledPackage("zip", "3.0", null, null),
+							new InstalledPackage("bash", "5.0", null, null)), lookedUp);
+			Assert.assertEquals(2, components.size());
+			Assert.assertEquals(List.of("zip", "bash"), lookedUp);
+			
+			lookedUp.clear();
+			components = scanWithJournal(CheckpointJournal.open(file, true),
+					List.of(new InstalledPackage("zip", "3.0", null, null),
+							new InstalledPackage("bash", "5.1", null, null)), lookedUp);
+			Assert.assertEquals(2, components.size());
+			Assert.assertEquals("zip", components.get(0).getName());
+			Assert.assertEquals("3.0", components.get(0).getVersion());
+			Assert.assertEquals("5.1", components.get(1).getVersion());
+			Assert.assertEquals(List.of("bash"), lookedUp);
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case checkpointJournalTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to run a scan of the software listed, keeping a checkpoint
+	 * journal, whose details stage looks up each package we do not have the details of.
+	 * 
+	 * @param journal  CheckpointJournal to keep, closed once the scan is done.
+	 * @param listing  List of InstalledPackage, the software listed.
+	 * @param lookedUp List to add each package looked up to.
+	 * @return List of Components, in the order the software was listed.
+	 */
+	private static List<Component> scanWithJournal(CheckpointJournal journal,
+			List<InstalledPackage> listing, List<String> lookedUp)
+	{
+		UnixSBomGenerator journalingGenerator = new UnixSBomGenerator();
+		journalingGenerator.setThreads(1);
+		journalingGenerator.setJournal(journal);
+		
+		StagedPipeline<List<PendingComponent>> pipeline = journalingGenerator.createPipeline();
+		journalingGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null, software ->
+		{
+			if (software.getDetailMap() == null)
+			{
+				lookedUp.add(software.getName());
+				software.setDetailMap(Map.of("Version", software.getVersion()));
+			}
+		});
+		journalingGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null, software ->
+		{
+			Component component = new Component();
+			component.setName(software.getName());
+			component.setVersion(software.getDetailMap().get("Version"));
+			software.setComponent(component);
+		});
+		
+		List<Component> components = journalingGenerator.createPipelinedComponents(
+				PendingComponent.of(listing.iterator()), pipeline);
+		journalingGenerator.finishCommands();
+		return components;
+	}
+	
+	/**
+	 * (U) This method is used to test that, with timings from an earlier scan, the software is
+	 * looked up longest expected first (within each window of the listing), yet the Components
+	 * come back in the order it was listed, and that each package of a batched query is timed.
+	 */
+	@Test
+	void queryTimingsTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("queryTimings");
+			Path file = directory.resolve("timings.tsv");
+			Files.write(file, "zip\t1000\ncurl\t500000\n".getBytes(StandardCharsets.UTF_8));
+			
+			QueryTimings timings = QueryTimings.read(file);
+			UnixSBomGenerator timedGenerator = new UnixSBomGenerator();
+			timedGenerator.setThreads(1);
+			timedGenerator.setQueryTimings(timings);
+			
+			Map<String, Map<String, String>> installedPackages = new LinkedHashMap<>();
+			for (String software : List.of("zip", "bash", "curl"))
+				installedPackages.put(software, Map.of("Version", "1.0"));
+			
+			List<String> lookedUp = Collections.synchronizedList(new ArrayList<>());
+			StagedPipeline<List<PendingComponent>> pipeline = timedGenerator.createPipeline();
+			timedGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null,
+					software -> lookedUp.add(software.getName()));
+			timedGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null, software ->
+			{
+				Component component = new Component();
+				component.setName(software.getName());
+				software.setComponent(component);
+			});
+			List<Component> components = timedGenerator.createPipelinedComponents(
+					PendingComponent.of(installedPackages), pipeline);
+			
+			// bash has no timing, so is expected to take as long as the average package.
+			Assert.assertEquals(List.of("curl", "bash", "zip"), lookedUp);
+			Assert.assertEquals(3, components.size());
+			Assert.assertEquals("zip", components.get(0).getName());
+			Assert.assertEquals("bash", components.get(1).getName());
+			Assert.assertEquals("curl", components.get(2).getName());
+			
+			// Only a window of the listing is sorted, so curl, listed after it, waits for it.
+			Map<String, Map<String, String>> longListing = new LinkedHashMap<>();
+			longListing.put("zip", Map.of("Version", "1.0"));
+			for (int i = 1; i < PipelineRunner.SCHEDULE_WINDOW; i++)
+				longListing.put("software" + i, Map.of("Version", "1.0"));
+			longListing.put("curl", Map.of("Version", "1.0"));
+			
+			lookedUp.clear();
+			pipeline = timedGenerator.createPipeline();
+			timedGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null,
+					software -> lookedUp.add(software.getName()));
+			timedGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null,
+					software -> software.setComponent(new Component()));
+			components = timedGenerator.createPipelinedComponents(PendingComponent.of(
+					longListing), pipeline);
+			
+			Assert.assertEquals(PipelineRunner.SCHEDULE_WINDOW + 1, components.size());
+			Assert.assertEquals("zip", lookedUp.get(PipelineRunner.SCHEDULE_WINDOW - 1));
+			Assert.assertEquals("curl", lookedUp.get(PipelineRunner.SCHEDULE_WINDOW));
+			
+			try (InputStream stream = UnixSBomGeneratorTest.class.getResourceAsStream(
+					"/packageDetails/redhatBatch.txt"))
+			{
+				timedGenerator.processBatchedDetailMapCommand(TestUtils.mockProcess(stream, null,
+						null), AVAILABLE_LINUX_FLAVORS.REDHAT);
+			}
+			Assert.assertEquals(2, timings.getMeasuredCount());
+			
+			timedGenerator.finishCommands();
+			QueryTimings saved = QueryTimings.read(file);
+			Assert.assertTrue(saved.getExpectedNanos("zip.x86_64") >= 0);
+			Assert.assertEquals(TimeUnit.MICROSECONDS.toNanos(500000), saved.getExpectedNanos(
+					"curl"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case queryTimingsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a scan recorded with one set of query timings, on a
+	 * host with one argument size limit, replays with another of each. The package names must
+	 * be split between the commands the same way, or the commands are not in the archive.
+	 */
+	@Test
+	void replayTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("replay");
+			Path archiveFile = directory.resolve("scan.gz");
+			Path recordedTimings = directory.resolve("recorded.tsv");
+			Path replayedTimings = directory.resolve("replayed.tsv");
+			
+			// Names long enough that a small argument size limit splits them between commands.
+			List<String> names = new ArrayList<>();
+			for (int i = 0; i < 12; i++)
+				names.add("package" + i + "-" + "x".repeat(200));
+			Files.write(recordedTimings, (names.get(0) + "\t500000\n").getBytes(
+					StandardCharsets.UTF_8));
+			Files.write(replayedTimings, (names.get(11) + "\t500000\n").getBytes(
+					StandardCharsets.UTF_8));
+			
+			CommandArchive recorder = new CommandArchive();
+			List<Component> recorded = scanWithArchive(names, QueryTimings.read(recordedTimings),
+					recorder, null, 2048);
+			recorder.write(archiveFile);
+			Assert.assertTrue(recorder.getCommandCount() > 1);
+			
+			List<Component> replayed = scanWithArchive(names, QueryTimings.read(replayedTimings),
+					null, CommandArchive.read(archiveFile), new CommandBatcher().getLimit());
+			
+			Assert.assertEquals(names.size(), replayed.size());
+			for (int i = 0; i < names.size(); i++)
+			{
+				Assert.assertEquals(names.get(i), replayed.get(i).getName());
+				Assert.assertEquals("1.0", recorded.get(i).getVersion());
+				Assert.assertEquals("1.0", replayed.get(i).getVersion());
+			}
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case replayTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to run a scan of the packages named, recording or replaying it,
+	 * whose details stage asks a command (printf, standing in for "apt show") about as many of
+	 * a batch's packages at once as fit.
+	 * 
+	 * @param names         List of Strings, the names of the packages listed.
+	 * @param timings       QueryTimings from an earlier scan.
+	 * @param recorder      CommandArchive to record in, null if we are not recording.
+	 * @param replay        CommandArchive to replay, null if we are not replaying.
+	 * @param argumentLimit long the most bytes the arguments of a single command may take up.
+	 * @return List of Components, in the order the packages were listed.
+	 */
+	private static List<Component> scanWithArchive(List<String> names, QueryTimings timings,
+			CommandArchive recorder, CommandArchive replay, long argumentLimit)
+	{
+		UnixSBomGenerator archiveGenerator = new UnixSBomGenerator();
+		archiveGenerator.setThreads(1);
+		archiveGenerator.setQueryTimings(timings);
+		archiveGenerator.setRecorder(recorder);
+		archiveGenerator.setReplay(replay);
+		archiveGenerator.commandBatcher = new CommandBatcher(argumentLimit);
+		
+		List<String> cmd = List.of("printf", "Package: %s\\nVersion: 1.0\\n\\n");
+		StagedPipeline<List<PendingComponent>> pipeline = archiveGenerator.createPipeline();
+		archiveGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, batch ->
+		{
+			List<String> batchNames = new ArrayList<>();
+			for (PendingComponent software : batch)
+				batchNames.add(software.getName());
+			Map<String, Map<String, String>> detailMaps = archiveGenerator.produceDetailMaps(
+					cmd, batchNames, AVAILABLE_LINUX_FLAVORS.UBUNTU);
+			for (PendingComponent software : batch)
+				software.setDetailMap(detailMaps.get(software.getName()));
+		}, null);
+		archiveGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null, software ->
+		{
+			Component component = new Component();
+			component.setName(software.getName());
+			if (software.getDetailMap() != null)
+				component.setVersion(software.getDetailMap().get("Version"));
+			software.setComponent(component);
+		});
+		
+		List<InstalledPackage> listing = new ArrayList<>();
+		for (String name : names)
+			listing.add(new InstalledPackage(name, null, null, null));
+		List<Component> components = archiveGenerator.createPipelinedComponents(
+				PendingComponent.of(listing.iterator()), pipeline);
+		archiveGenerator.finishCommands();
+		return components;
+	}
+	
+	/**
+	 * (U) This method is used to test that once the deadline passes, the Components finished by
+	 * then come back, and the rest are recorded in the SBOM's metadata as unfinished.
+	 */
+	@Test
+	void createPipelinedComponentsDeadlineTest()
+	{
+		String methodName = new Object()
+		{}.getClass().getEnclosingMethod().getName();
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			Map<String, Map<String, String>> installedPackages = new LinkedHashMap<>();
+			for (int i = 0; i < 100; i++)
+				installedPackages.put("software" + i, Map.of("Version", "1.0"));
+			
+			UnixSBomGenerator deadlineGenerator = new UnixSBomGenerator();
+			deadlineGenerator.setThreads(1);
+			deadlineGenerator.setDeadline(1);
+			
+			// The second batch starts with a package that takes longer than the deadline.
+			StagedPipeline<List<PendingComponent>> pipeline = deadlineGenerator.createPipeline();
+			deadlineGenerator.addStage(pipeline, UnixSBomGenerator.DETAILS_STAGE, null,
+					software ->
+					{
+						if ("software64".equals(software.getName()))
+						{
+							try
+							{
+								Thread.sleep(1500L);
+							}
+							catch (InterruptedException ie)
+							{
+								Thread.currentThread().interrupt();
+							}
+						}
+					});
+			deadlineGenerator.addStage(pipeline, UnixSBomGenerator.CREATE_STAGE, null,
+					software ->
+					{
+						Component component = new Component();
+						component.setName(software.getName());
+						software.setComponent(component);
+					});
+			List<Component> components = deadlineGenerator.createPipelinedComponents(
+					PendingComponent.of(installedPackages), pipeline);
+			
+			Assert.assertEquals(64, components.size());
+			Assert.assertEquals("software63", components.get(63).getName());
+			Assert.assertTrue(deadlineGenerator.isIncomplete());
+			List<String> unfinished = deadlineGenerator.getUnfinishedSoftware();
+			Assert.assertEquals(36, unfinished.size());
+			Assert.assertEquals("software64", unfinished.get(0));
+			
+			Bom bom = new Bom();
+			deadlineGenerator.addScanStatus(bom);
+			
+			List<Property> properties = bom.getMetadata().getProperties();
+			Assert.assertEquals(37, properties.size());
+			Assert.assertEquals("unixSbomGenerator:incomplete", properties.get(0).getName());
+			Assert.assertEquals("unixSbomGenerator:unfinished", properties.get(1).getName());
+			Assert.assertEquals("software64", properties.get(1).getValue());
+			
+			Assertions.assertThrows(SBomException.class, () -> deadlineGenerator.setDeadline(0));
+			Assertions.assertThrows(SBomException.class,
+					() -> deadlineGenerator.setCommandTimeout(-1));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case createPipelinedComponentsDeadlineTest failed " +
+					"unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Adaptive Concurrency Limiter.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class AdaptiveConcurrencyLimiterTest
+{
+	private static final String LOG4J_FILE = "AdaptiveConcurrencyLimiterTestLog4J.xml";
+	
+	private static final long FAST = 10000000L;
+	private static final long SLOW = 100000000L;
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that the limit grows while the latency stays flat, and
+	 * backs off when it rises.
+	 */
+	@Test
+	void latencyTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 4, () -> 0.5);
+			Assert.assertEquals(1, limiter.getLimit());
+			
+			runLookups(limiter, 60, FAST);
+			Assert.assertEquals(8, limiter.getLimit());
+			
+			runLookups(limiter, 1, SLOW);
+			Assert.assertEquals(6, limiter.getLimit());
+			
+			runLookups(limiter, 15, SLOW);
+			Assert.assertEquals(1, limiter.getLimit());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case latencyTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that the limit backs off, and stays down, while the system
+	 * load average is above the number of processors.
+	 */
+	@Test
+	void loadAverageTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			double[] load = { -1 };
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 4,
+					() -> load[0]);
+			
+			runLookups(limiter, 60, FAST);
+			Assert.assertEquals(8, limiter.getLimit());
+			
+			load[0] = 12.0;
+			runLookups(limiter, 60, FAST);
+			Assert.assertEquals(1, limiter.getLimit());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case loadAverageTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that batches of different sizes are compared per package,
+	 * so a small batch (or one that looked nothing up) does not make the full batches after it
+	 * look slow.
+	 */
+	@Test
+	void batchTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 4, () -> 0.5);
+			
+			runLookups(limiter, 60, 64, FAST);
+			Assert.assertEquals(8, limiter.getLimit());
+			
+			runLookups(limiter, 4, 2, FAST);
+			runLookups(limiter, 4, 0, FAST);
+			runLookups(limiter, 60, 64, FAST);
+			Assert.assertEquals(8, limiter.getLimit());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case batchTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to run a number of lookups, one after another, each taking the same
+	 * time.
+	 * 
+	 * @param limiter      AdaptiveConcurrencyLimiter to run the lookups through.
+	 * @param lookups      int the number of lookups to run.
+	 * @param latencyNanos long the time each lookup takes, in nanoseconds.
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	private void runLookups(AdaptiveConcurrencyLimiter limiter, int lookups, long latencyNanos)
+			throws InterruptedException
+	{
+		for (int i = 0; i < lookups; i++)
+		{
+			limiter.acquire();
+			limiter.release(latencyNanos);
+		}
+	}
+	
+	/**
+	 * (U) This method is used to run a number of batched lookups, one after another, each taking
+	 * the same time per package.
+	 * 
+	 * @param limiter      AdaptiveConcurrencyLimiter to run the lookups through.
+	 * @param lookups      int the number of lookups to run.
+	 * @param packages     int the number of packages each lookup asks about.
+	 * @param packageNanos long the time each package takes, in nanoseconds.
+	 * @throws InterruptedException if we are interrupted while waiting.
+	 */
+	private void runLookups(AdaptiveConcurrencyLimiter limiter, int lookups, int packages,
+			long packageNanos) throws InterruptedException
+	{
+		for (int i = 0; i < lookups; i++)
+		{
+			limiter.acquire();
+			limiter.release(packageNanos * Math.max(1, packages), packages);
+		}
+	}
+}
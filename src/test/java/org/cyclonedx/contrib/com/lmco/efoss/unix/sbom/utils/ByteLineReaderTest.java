@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Byte Line Reader.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class ByteLineReaderTest
+{
+	private static final String LOG4J_FILE = "ByteLineReaderTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that lines are split on newlines (dropping a carriage
+	 * return before one), that the last line need not end with one, and that lines longer than
+	 * the buffer come through whole.
+	 */
+	@Test
+	void readLinesTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		String longLine = "x".repeat(20000);
+		try (ByteLineReader lines = ByteLineReader.fromString("Package: zip\r\n\n" + longLine +
+				"\n  \nlast"))
+		{
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertEquals("Package: zip", lines.getLine());
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertEquals(0, lines.length());
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertEquals(longLine, lines.getLine());
+			StringBuilder builder = new StringBuilder();
+			lines.appendTo(builder, 0, lines.length());
+			Assert.assertEquals(longLine, builder.toString());
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertTrue(lines.isBlank());
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertEquals("last", lines.getLine());
+			Assert.assertFalse(lines.nextLine());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case readLinesTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test picking a field apart, ASCII and UTF-8 alike, and that
+	 * the same field name is handed out each time it comes up.
+	 */
+	@Test
+	void parseFieldsTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (ByteLineReader lines = ByteLineReader.fromString("Maintainer : Zo\u00eb M\u00fcller" +
+				"  \nMaintainer: Ubuntu Developers\n"))
+		{
+			Assert.assertTrue(lines.nextLine());
+			int colon = lines.indexOf(':');
+			Assert.assertEquals(11, colon);
+			String name = lines.getName(0, colon);
+			Assert.assertEquals("Maintainer", name);
+			Assert.assertEquals("Zo\u00eb M\u00fcller", lines.getTrimmedString(colon + 1,
+					lines.length()));
+			
+			StringBuilder value = new StringBuilder("[");
+			lines.appendTrimmedTo(value, colon + 1, lines.length());
+			Assert.assertEquals("[Zo\u00eb M\u00fcller", value.toString());
+			
+			Assert.assertTrue(lines.nextLine());
+			Assert.assertTrue(lines.startsWith("Maintainer"));
+			Assert.assertTrue(lines.startsWith("Ubuntu", 12));
+			Assert.assertSame(name, lines.getName(0, lines.indexOf(':')));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case parseFieldsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test reading records that end with some other byte, the way
+	 * the rpm bulk query separates its packages.
+	 */
+	@Test
+	void recordTerminatorTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		byte[] output = "zip\u001fline one\nline two\u001eunzip\u001e".getBytes(
+				StandardCharsets.UTF_8);
+		try (ByteLineReader records = new ByteLineReader(new ByteArrayInputStream(output),
+				(byte) 0x1e))
+		{
+			Assert.assertTrue(records.nextLine());
+			int separator = records.indexOf(0x1f);
+			Assert.assertEquals("zip", records.getString(0, separator));
+			Assert.assertEquals("line one\nline two", records.getString(separator + 1, records
+					.length()));
+			Assert.assertTrue(records.nextLine());
+			Assert.assertEquals("unzip", records.getLine());
+			Assert.assertFalse(records.nextLine());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case recordTerminatorTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
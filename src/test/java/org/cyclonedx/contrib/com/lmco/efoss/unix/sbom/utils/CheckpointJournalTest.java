@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Checkpoint Journal.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class CheckpointJournalTest
+{
+	private static final String LOG4J_FILE = "CheckpointJournalTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that the packages journaled by one scan are resumed by the
+	 * next, only at the same version, that a line cut short by a killed scan is dropped, and
+	 * that a scan not resuming starts the journal over.
+	 */
+	@Test
+	void resumeTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("checkpointJournal");
+			Path file = directory.resolve("checkpoint.journal");
+			
+			Map<String, String> zip = new LinkedHashMap<>();
+			zip.put("Package", "zip");
+			zip.put("Version", "3.0-11");
+			zip.put("Description", "Archiver for .zip files\n\tThis is InfoZIP's zip\\unzip.");
+			
+			try (CheckpointJournal first = CheckpointJournal.open(file, true))
+			{
+				first.record("zip", "3.0-11", zip);
+				first.record("bash", null, Map.of("Package", "bash"));
+				first.record("curl", "7.68.0", Map.of("Package", "curl"));
+				Assert.assertEquals(2, first.getRecordedCount());
+			}
+			Files.write(file, "gzip\t1.10\tPack".getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.APPEND);
+			
+			try (CheckpointJournal second = CheckpointJournal.open(file, true))
+			{
+				Assert.assertEquals(zip, second.getDetailMap("zip", "3.0-11"));
+				Assert.assertNull(second.getDetailMap("curl", "7.68.1"));
+				Assert.assertNull(second.getDetailMap("gzip", "1.10"));
+				Assert.assertNull(second.getDetailMap("zip", null));
+				Assert.assertEquals(1, second.getResumedCount());
+				
+				second.record("zip", "3.0-11", zip);
+				second.record("curl", "7.68.1", Map.of("Package", "curl"));
+				Assert.assertEquals(1, second.getRecordedCount());
+			}
+			
+			try (CheckpointJournal third = CheckpointJournal.open(file, true))
+			{
+				Assert.assertEquals(zip, third.getDetailMap("zip", "3.0-11"));
+				Assert.assertEquals("curl", third.getDetailMap("curl", "7.68.1").get("Package"));
+			}
+			
+			try (CheckpointJournal restarted = CheckpointJournal.open(file, false))
+			{
+				Assert.assertNull(restarted.getDetailMap("zip", "3.0-11"));
+				restarted.record("bash", "5.0", Map.of("Package", "bash"));
+				
+				// Each package is in the file as soon as it is recorded, not only once closed.
+				String content = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+				Assert.assertTrue(content.contains("bash\t5.0\tPackage\tbash"));
+			}
+			try (CheckpointJournal fourth = CheckpointJournal.open(file, true))
+			{
+				Assert.assertNull(fourth.getDetailMap("zip", "3.0-11"));
+				Assert.assertEquals("bash", fourth.getDetailMap("bash", "5.0").get("Package"));
+			}
+			
+			// The journal started over was moved aside, not overwritten.
+			Path old = directory.resolve("checkpoint.journal" + CheckpointJournal.OLD_SUFFIX);
+			try (CheckpointJournal moved = CheckpointJournal.open(old, true))
+			{
+				Assert.assertEquals(zip, moved.getDetailMap("zip", "3.0-11"));
+			}
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case resumeTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Command Archive.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class CommandArchiveTest
+{
+	private static final String LOG4J_FILE = "CommandArchiveTestLog4J.xml";
+	
+	private static final String OS_RELEASE = "NAME=\"Red Hat Enterprise Linux\"\n" +
+			"VERSION_ID=\"8.4\"\n";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that the commands recorded while running them, and the
+	 * files and settings recorded, are replayed the same once written out and read back.
+	 */
+	@Test
+	void recordReplayTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("archive");
+			Path file = directory.resolve("scan.gz");
+			
+			CommandArchive archive = new CommandArchive();
+			archive.setOsRelease(OS_RELEASE);
+			try (CommandRunner runner = new CommandRunner())
+			{
+				runner.setRecorder(archive);
+				
+				Process process = runner.query(List.of("echo", "first"));
+				Assert.assertEquals("first\n", readStream(process.getInputStream()));
+				
+				process = runner.start(List.of("sh", "-c", "echo out; echo err >&2; exit 3"));
+				Assert.assertEquals(3, process.waitFor());
+				Assert.assertEquals("out\n", readStream(process.getInputStream()));
+			}
+			archive.addCommand(List.of("yum", "info", "zip"), 0, "first".getBytes(), new byte[0]);
+			archive.addCommand(List.of("yum", "info", "zip"), 1, "second".getBytes(), new byte[0]);
+			archive.addFile("/usr/share/doc/zip/LICENSE", "MIT".getBytes());
+			archive.addFile("/usr/share/doc/zip/COPYING", null);
+			archive.setSetting("argumentLimit", "131072");
+			archive.write(file);
+			
+			CommandArchive replay = CommandArchive.read(file);
+			Assert.assertEquals(OS_RELEASE, replay.getOsRelease());
+			Assert.assertEquals(4, replay.getCommandCount());
+			Assert.assertEquals("131072", replay.getSetting("argumentLimit"));
+			Assert.assertNull(replay.getSetting("packageOrder"));
+			
+			try (CommandRunner runner = new CommandRunner())
+			{
+				runner.setReplay(replay);
+				
+				Process process = runner.query(List.of("echo", "first"));
+				Assert.assertEquals(0, process.waitFor());
+				Assert.assertEquals("first\n", readStream(process.getInputStream()));
+				
+				process = runner.start(List.of("sh", "-c", "echo out; echo err >&2; exit 3"));
+				Assert.assertEquals(3, process.waitFor());
+				Assert.assertEquals("out\n", readStream(process.getInputStream()));
+				Assert.assertEquals("err", readStream(process.getErrorStream()));
+				
+				// Repeated commands get their responses in order, then the last one again.
+				List<String> repeated = List.of("yum", "info", "zip");
+				Assert.assertEquals("first", readStream(runner.query(repeated).getInputStream()));
+				Assert.assertEquals("second", readStream(runner.query(repeated).getInputStream()));
+				Assert.assertEquals("second", readStream(runner.query(repeated).getInputStream()));
+				
+				Assertions.assertThrows(IOException.class, () -> runner.query(List.of("rpm",
+						"-qa")));
+			}
+			
+			Assert.assertTrue(replay.hasFile("/usr/share/doc/zip/LICENSE"));
+			Assert.assertEquals("MIT", new String(replay.readFile("/usr/share/doc/zip/LICENSE")));
+			Assert.assertFalse(replay.hasFile("/usr/share/doc/zip/COPYING"));
+			Assertions.assertThrows(NoSuchFileException.class, () -> replay.readFile(
+					"/usr/share/doc/zip/COPYING"));
+			Assert.assertFalse(replay.hasFile("/usr/share/doc/unzip/LICENSE"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case recordReplayTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a file that is not a command archive is refused.
+	 */
+	@Test
+	void notAnArchiveTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("archive");
+			Path file = directory.resolve("scan.gz");
+			Files.write(file, "not an archive".getBytes());
+			
+			Assertions.assertThrows(IOException.class, () -> CommandArchive.read(file));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case notAnArchiveTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read all of a stream.
+	 * 
+	 * @param stream InputStream to read.
+	 * @return String what was read.
+	 * @throws IOException if we are unable to read the stream.
+	 */
+	private String readStream(InputStream stream) throws IOException
+	{
+		try (InputStream in = stream)
+		{
+			return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+}
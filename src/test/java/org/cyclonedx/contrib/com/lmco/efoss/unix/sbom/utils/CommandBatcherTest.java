@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Command Batcher.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class CommandBatcherTest
+{
+	private static final String LOG4J_FILE = "CommandBatcherTestLog4J.xml";
+	
+	private static final List<String> COMMAND = List.of("apt", "show");
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that no batch goes over the limit, and that every argument
+	 * ends up in a batch, in order.
+	 */
+	@Test
+	void sizeLimitTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			List<String> arguments = new ArrayList<>();
+			for (int i = 0; i < 50; i++)
+				arguments.add(String.format("package-%091d", i));
+			
+			// Each argument takes up 99 bytes, plus its NUL and pointer, 108 bytes in all.
+			CommandBatcher batcher = new CommandBatcher(4096);
+			List<List<String>> batches = batcher.batch(COMMAND, arguments, 1000);
+			
+			watcher.getLogger().debug("Split into " + batches.size() + " batches.");
+			
+			Assert.assertEquals(2, batches.size());
+			Assert.assertEquals(37, batches.get(0).size());
+			
+			List<String> joined = new ArrayList<>();
+			for (List<String> batch : batches)
+				joined.addAll(batch);
+			Assert.assertEquals(arguments, joined);
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case sizeLimitTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that batches are also limited to the number of arguments
+	 * asked for, and that an argument too long to share a command gets a batch of its own.
+	 */
+	@Test
+	void maxArgumentsTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			CommandBatcher batcher = new CommandBatcher(4096);
+			
+			List<List<String>> batches = batcher.batch(COMMAND, List.of("a", "b", "c", "d", "e"),
+					2);
+			Assert.assertEquals(List.of(List.of("a", "b"), List.of("c", "d"), List.of("e")),
+					batches);
+			
+			String huge = String.join("", Collections.nCopies(5000, "x"));
+			batches = batcher.batch(COMMAND, List.of("a", huge, "b"), 10);
+			Assert.assertEquals(List.of(List.of("a"), List.of(huge), List.of("b")), batches);
+			
+			Assert.assertTrue(batcher.batch(COMMAND, List.of(), 10).isEmpty());
+			
+			Assert.assertTrue(new CommandBatcher().getLimit() > 0);
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case maxArgumentsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
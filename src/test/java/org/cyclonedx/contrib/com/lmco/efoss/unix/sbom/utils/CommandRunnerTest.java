@@ -0,0 +1,466 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Command Runner.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class CommandRunnerTest
+{
+	private static final String LOG4J_FILE = "CommandRunnerTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that arguments are passed to the command as is, and not
+	 * interpreted by a shell.
+	 */
+	@Test
+	void noShellTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			CommandRunner runner = new CommandRunner();
+			
+			Process process = runner.start(List.of("echo", "$HOME && 'quoted'"));
+			
+			String line = null;
+			try (BufferedReader reader = new BufferedReader(
+					new InputStreamReader(process.getInputStream())))
+			{
+				line = reader.readLine();
+			}
+			
+			Assert.assertEquals(0, process.waitFor());
+			Assert.assertEquals("$HOME && 'quoted'", line);
+			Assert.assertEquals(1, runner.getInvocationCount());
+			Assert.assertEquals(0, runner.getFailedStartCount());
+			
+			// Queries are started as processes of their own too, unless sessions are asked for.
+			Assert.assertFalse(runner.isUsingSessions());
+			process = runner.query(List.of("echo", "$HOME"));
+			Assert.assertEquals("$HOME\n", readOutput(process));
+			Assert.assertEquals(0, runner.getSessionQueryCount());
+			
+			watcher.getLogger().debug(runner.getStatistics());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case noShellTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a command that does not exist is counted, and its
+	 * IOException passed back.
+	 */
+	@Test
+	void failedStartTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		CommandRunner runner = new CommandRunner();
+		try
+		{
+			runner.start(List.of("/nonexistent/command", "--version"));
+			
+			Assert.fail("Expected an IOException to be thrown.");
+		}
+		catch (IOException ioe)
+		{
+			watcher.getLogger().debug("Got expected exception.", ioe);
+			Assert.assertEquals(1, runner.getInvocationCount());
+			Assert.assertEquals(1, runner.getFailedStartCount());
+			Assert.assertEquals(0, runner.getCompletedCount());
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test queries answered by a shell session. Arguments must come
+	 * through as is, output (and error output) must come back exactly as written, with the right
+	 * exit value, and a command reading its standard input must not read the session's commands.
+	 */
+	@Test
+	void sessionQueryTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (CommandRunner runner = new CommandRunner(true))
+		{
+			Process process = runner.query(List.of("echo", "$HOME && 'quoted'"));
+			Assert.assertEquals(0, process.waitFor());
+			Assert.assertEquals("$HOME && 'quoted'\n", readOutput(process));
+			
+			process = runner.query(List.of("printf", "no newline"));
+			Assert.assertEquals("no newline", readOutput(process));
+			
+			process = runner.query(List.of("cat"));
+			Assert.assertEquals("", readOutput(process));
+			
+			process = runner.query(List.of("sh", "-c", "echo failing; echo why >&2; exit 3"));
+			Assert.assertEquals(3, process.waitFor());
+			Assert.assertEquals("failing\n", readOutput(process));
+			try (InputStream errors = process.getErrorStream())
+			{
+				Assert.assertEquals("why\n", new String(errors.readAllBytes()));
+			}
+			
+			Assert.assertEquals(4, runner.getInvocationCount());
+			Assert.assertEquals(4, runner.getSessionQueryCount());
+			
+			watcher.getLogger().debug(runner.getStatistics());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case sessionQueryTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a session query's output is read as it is written,
+	 * so stopping it once we have what we need kills it, rather than waiting for it to finish,
+	 * and leaves the session ready for the next query.
+	 */
+	@Test
+	void sessionEarlyStopTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (CommandRunner runner = new CommandRunner(true))
+		{
+			long startTime = System.nanoTime();
+			Process process = runner.query(List.of("sh", "-c", "echo first; sleep 30; echo last"));
+			ProcessIOPump pump = new ProcessIOPump(process);
+			BufferedReader reader = pump.getOutputReader();
+			Assert.assertEquals("first", reader.readLine());
+			pump.stop();
+			Assert.assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(10));
+			
+			process = runner.query(List.of("echo", "next"));
+			Assert.assertEquals(0, process.waitFor());
+			Assert.assertEquals("next\n", readOutput(process));
+			
+			Assert.assertEquals(2, runner.getSessionQueryCount());
+			Assert.assertEquals(2, runner.getCompletedCount());
+			
+			watcher.getLogger().debug(runner.getStatistics());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case sessionEarlyStopTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that commands are run at the lowest CPU priority (when
+	 * nice is installed), and that no more commands are started per second than asked for.
+	 */
+	@Test
+	void lowImpactTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		LowImpactPolicy policy = new LowImpactPolicy();
+		try (CommandRunner runner = new CommandRunner())
+		{
+			runner.setLowImpactPolicy(policy);
+			runner.setSpawnRate(20);
+			Assert.assertEquals(20, runner.getSpawnRate());
+			
+			boolean niceAvailable = policy.describe().contains("nice " + LowImpactPolicy.NICENESS);
+			
+			long startTime = System.nanoTime();
+			for (int i = 0; i < 3; i++)
+			{
+				Process process = runner.query(List.of("nice"));
+				String niceness = readOutput(process).trim();
+				if (niceAvailable)
+					Assert.assertEquals(Integer.toString(LowImpactPolicy.NICENESS), niceness);
+			}
+			Process process = runner.start(List.of("nice"));
+			String niceness = readOutput(process).trim();
+			if (niceAvailable)
+				Assert.assertEquals(Integer.toString(LowImpactPolicy.NICENESS), niceness);
+			
+			// Four starts at 20 per second, the last no sooner than 150 ms after the first.
+			Assert.assertTrue(System.nanoTime() - startTime >= 150000000L);
+			
+			runner.setSpawnRate(0);
+			Assert.assertEquals(0, runner.getSpawnRate());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case lowImpactTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			policy.close();
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that commands started with a cgroup are put in it before
+	 * they run, in a shell session or on their own, and still run if they can not be.
+	 */
+	@Test
+	void cgroupTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (CommandRunner runner = new CommandRunner(true))
+		{
+			// A plain directory stands in for the cgroup, its cgroup.procs gets the last pid.
+			Path cgroup = Files.createTempDirectory("cgroup");
+			Path procs = cgroup.resolve("cgroup.procs");
+			runner.setLowImpactPolicy(new LowImpactPolicy(cgroup));
+			
+			Process process = runner.start(List.of("sh", "-c", "echo $$"));
+			String pid = readOutput(process).trim();
+			Assert.assertEquals(pid, new String(Files.readAllBytes(procs)).trim());
+			
+			process = runner.query(List.of("sh", "-c", "echo $PPID"));
+			String sessionPid = readOutput(process).trim();
+			Assert.assertEquals(sessionPid, new String(Files.readAllBytes(procs)).trim());
+			runner.close();
+			
+			runner.setLowImpactPolicy(new LowImpactPolicy(cgroup.resolve("missing")));
+			process = runner.start(List.of("echo", "unconfined"));
+			Assert.assertEquals(0, process.waitFor());
+			Assert.assertEquals("unconfined\n", readOutput(process));
+			try (InputStream errors = process.getErrorStream())
+			{
+				Assert.assertEquals("", new String(errors.readAllBytes()));
+			}
+			
+			Files.delete(procs);
+			Files.delete(cgroup);
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case cgroupTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a cgroup with a CPU quota is only created under a
+	 * delegated cgroup that already has the cpu controller for its children, and that the
+	 * delegated cgroup itself is never written to.
+	 */
+	@Test
+	void delegatedCgroupTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			// Plain directories stand in for the cgroups, the root one has no cgroup.type.
+			Path delegated = Files.createTempDirectory("cgroup");
+			Path controllers = delegated.resolve("cgroup.subtree_control");
+			Files.write(controllers, "memory pids\n".getBytes());
+			
+			LowImpactPolicy policy = new LowImpactPolicy(delegated, 25);
+			Assert.assertFalse(policy.hasCgroup());
+			policy.close();
+			
+			Files.write(delegated.resolve("cgroup.type"), "domain\n".getBytes());
+			policy = new LowImpactPolicy(delegated, 25);
+			Assert.assertFalse(policy.hasCgroup());
+			Assert.assertEquals("memory pids\n", new String(Files.readAllBytes(controllers)));
+			policy.close();
+			
+			Files.write(controllers, "cpu memory pids\n".getBytes());
+			policy = new LowImpactPolicy(delegated, 25);
+			Assert.assertTrue(policy.hasCgroup());
+			Path cgroup = delegated.resolve("sbom-low-impact-" + ProcessHandle.current().pid());
+			Assert.assertEquals("25000 " + LowImpactPolicy.CPU_PERIOD, new String(Files
+					.readAllBytes(cgroup.resolve("cpu.max"))));
+			Assert.assertEquals("cpu memory pids\n", new String(Files.readAllBytes(controllers)));
+			
+			// A real cgroup's files go with it, a plain directory's must be removed first.
+			Files.delete(cgroup.resolve("cpu.max"));
+			policy.close();
+			Assert.assertFalse(Files.exists(cgroup));
+			Assert.assertFalse(policy.hasCgroup());
+			
+			Files.delete(controllers);
+			Files.delete(delegated.resolve("cgroup.type"));
+			Files.delete(delegated);
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case delegatedCgroupTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a command running past its timeout is killed, in a
+	 * shell session or on its own, and that no command is run once the deadline has passed.
+	 */
+	@Test
+	void timeoutTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (CommandRunner runner = new CommandRunner(true))
+		{
+			runner.setTimeoutMillis(200);
+			
+			long startTime = System.nanoTime();
+			Process process = runner.query(List.of("sleep", "30"));
+			Assert.assertNotEquals(0, process.waitFor());
+			
+			// The session survives losing its command.
+			process = runner.query(List.of("echo", "still here"));
+			Assert.assertEquals("still here\n", readOutput(process));
+			
+			process = runner.start(List.of("sh", "-c", "sleep 30 & sleep 30"));
+			Assert.assertNotEquals(0, new ProcessIOPump(process).waitFor());
+			
+			Assert.assertTrue(System.nanoTime() - startTime < 10000000000L);
+			Assert.assertEquals(2, runner.getTimedOutCount());
+			
+			runner.setDeadline(System.nanoTime());
+			Assert.assertTrue(runner.isPastDeadline());
+			Assertions.assertThrows(IOException.class, () -> runner.start(List.of("true")));
+			Assertions.assertThrows(IOException.class, () -> runner.query(List.of("true")));
+			
+			watcher.getLogger().debug(runner.getStatistics());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case timeoutTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to read all of a process's standard output.
+	 * 
+	 * @param process Process to read the output of.
+	 * @return String the output.
+	 * @throws IOException if we are unable to read the output.
+	 */
+	private String readOutput(Process process) throws IOException
+	{
+		try (InputStream output = process.getInputStream())
+		{
+			return new String(output.readAllBytes());
+		}
+	}
+}
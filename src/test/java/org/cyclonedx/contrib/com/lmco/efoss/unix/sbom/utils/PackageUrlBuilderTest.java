@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.Date;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Package URL builder.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class PackageUrlBuilderTest
+{
+	private static final String LOG4J_FILE = "PackageUrlBuilderTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test building RPM Package URLs, with and without an epoch.
+	 */
+	@Test
+	void rpmPurlTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			PackageUrlBuilder builder = new PackageUrlBuilder("centos", "7");
+			
+			Assert.assertEquals("pkg:rpm/centos/zip@3.0-11.el7?arch=x86_64&distro=centos-7",
+					builder.buildRpmPurl("zip", null, "3.0", "11.el7", "x86_64"));
+			Assert.assertEquals("pkg:rpm/centos/NetworkManager@1.18.0-5.el7_7.1?arch=x86_64&" +
+					"distro=centos-7&epoch=1", builder.buildRpmPurl("NetworkManager", "1",
+							"1.18.0", "5.el7_7.1", "x86_64"));
+			Assert.assertEquals("pkg:rpm/centos/bash@4.2.46-33.el7?arch=x86_64&distro=centos-7",
+					builder.buildRpmPurl("bash", "0", "4.2.46", "33.el7", "x86_64"));
+			Assert.assertNull(builder.buildRpmPurl(null, null, "1.0", "1", "noarch"));
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test building Debian and Alpine Package URLs.
+	 */
+	@Test
+	void debAndApkPurlTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			PackageUrlBuilder ubuntu = new PackageUrlBuilder("ubuntu", "20.04");
+			Assert.assertEquals("pkg:deb/ubuntu/adduser@3.118ubuntu2?arch=all&" +
+					"distro=ubuntu-20.04", ubuntu.buildDebPurl("adduser", "3.118ubuntu2", "all"));
+			
+			PackageUrlBuilder alpine = new PackageUrlBuilder("alpine", "3.12.0");
+			Assert.assertEquals("pkg:apk/alpine/musl@1.1.24-r9?arch=x86_64&" +
+					"distro=alpine-3.12.0", alpine.buildApkPurl("musl", "1.1.24-r9", "x86_64"));
+			
+			PackageUrlBuilder unknown = new PackageUrlBuilder(null, null);
+			Assert.assertEquals("pkg:apk/alpine/musl@1.1.24-r9", unknown.buildApkPurl("musl",
+					"1.1.24-r9", null));
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.io.BufferedReader;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Process I/O Pump.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class ProcessIOPumpTest
+{
+	private static final String LOG4J_FILE = "ProcessIOPumpTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that a command writing far more to its standard error than
+	 * a pipe holds does not stall, and that only the limit is kept.
+	 */
+	@Test
+	void chattyErrorOutputTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			Process process = new CommandRunner().start(List.of("sh", "-c",
+					"head -c 300000 /dev/zero | tr '\\000' e >&2; echo done"));
+			
+			ProcessIOPump pump = new ProcessIOPump(process, 1024);
+			
+			String line = null;
+			try (BufferedReader reader = pump.getOutputReader())
+			{
+				line = reader.readLine();
+				Assert.assertEquals(0, pump.waitFor());
+			}
+			
+			Assert.assertEquals("done", line);
+			Assert.assertTrue(pump.getErrorOutput().startsWith("eeee"));
+			Assert.assertTrue(pump.getErrorOutput().endsWith("... (298976 more bytes)"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case chattyErrorOutputTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that a command is not stalled by standard output nobody
+	 * reads.
+	 */
+	@Test
+	void unreadOutputTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			Process process = new CommandRunner().start(List.of("head", "-c", "1000000",
+					"/dev/zero"));
+			
+			ProcessIOPump pump = new ProcessIOPump(process);
+			
+			try (BufferedReader reader = pump.getOutputReader())
+			{
+				Assert.assertEquals(0, pump.waitFor());
+			}
+			Assert.assertEquals("", pump.getErrorOutput());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case unreadOutputTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test a process without any streams (ie. a mock).
+	 */
+	@Test
+	void noStreamsTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try
+		{
+			ProcessIOPump pump = new ProcessIOPump(TestUtils.mockProcess(null, null, null));
+			
+			try (BufferedReader reader = pump.getOutputReader())
+			{
+				Assert.assertNull(reader.readLine());
+				Assert.assertEquals(0, pump.waitFor());
+			}
+			Assert.assertEquals("", pump.getErrorOutput());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case noStreamsTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
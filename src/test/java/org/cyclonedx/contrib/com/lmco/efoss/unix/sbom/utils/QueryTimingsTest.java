@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Query Timings.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class QueryTimingsTest
+{
+	private static final String LOG4J_FILE = "QueryTimingsTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that the timings of a scan are saved, read back by the
+	 * next, and averaged with what it expected, and that a package no scan has timed is expected
+	 * to take as long as the average package.
+	 */
+	@Test
+	void saveAndReadTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		Path directory = null;
+		try
+		{
+			directory = Files.createTempDirectory("queryTimings");
+			Path file = directory.resolve("timings.tsv");
+			
+			QueryTimings first = QueryTimings.read(file);
+			Assert.assertTrue(first.isEmpty());
+			first.save();
+			Assert.assertFalse(Files.exists(file));
+			
+			first.record("glibc", TimeUnit.MILLISECONDS.toNanos(4));
+			first.record("glibc", TimeUnit.MILLISECONDS.toNanos(4));
+			first.record("zip", TimeUnit.MILLISECONDS.toNanos(2));
+			Assert.assertEquals(2, first.getMeasuredCount());
+			first.save();
+			
+			QueryTimings second = QueryTimings.read(file);
+			Assert.assertFalse(second.isEmpty());
+			Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(8), second.getExpectedNanos("glibc"));
+			Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), second.getExpectedNanos("curl"));
+			
+			second.record("glibc", TimeUnit.MILLISECONDS.toNanos(2));
+			second.save();
+			
+			Files.write(file, "not a timing\nbash\tslow\n".getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.APPEND);
+			QueryTimings third = QueryTimings.read(file);
+			Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), third.getExpectedNanos("glibc"));
+			Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(2), third.getExpectedNanos("zip"));
+			
+			QueryTimings unsaved = new QueryTimings();
+			unsaved.record("zip", 1);
+			unsaved.save();
+			Assert.assertTrue(unsaved.isEmpty());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case saveAndReadTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.deleteDirectory(directory);
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+}
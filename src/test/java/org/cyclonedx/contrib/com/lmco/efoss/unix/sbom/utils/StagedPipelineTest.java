@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2018,2019 Lockheed Martin Corporation.
+ *
+ * This work is owned by Lockheed Martin Corporation. Lockheed Martin personnel are permitted to use and
+ * modify this software.  Lockheed Martin personnel may also deliver this source code to any US Government
+ * customer Agency under a "US Government Purpose Rights" license.
+ *
+ * See the LICENSE file distributed with this work for licensing and distribution terms
+ */
+package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.jupiter.api.Test;
+
+/**
+ * (U) Test cases for the Staged Pipeline.
+ * 
+ * @author agent
+ * @since 17 October 2026
+ */
+class StagedPipelineTest
+{
+	private static final String LOG4J_FILE = "StagedPipelineTestLog4J.xml";
+	
+	public Log4JTestWatcher watcher = new Log4JTestWatcher(LOG4J_FILE, this.getClass().getName());
+	
+	/**
+	 * (U) This method is used to test that every item goes through every stage, in the order
+	 * the stages were added, and that no stage's queue gets deeper than it was allowed, even
+	 * when the last stage is much slower than the first.
+	 */
+	@Test
+	void stagesTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (StagedPipeline<List<String>> pipeline = new StagedPipeline<>())
+		{
+			pipeline.addStage("fast", 4, 8, item -> item.add("fast"))
+					.addStage("slow", 1, 2, item ->
+					{
+						pause(5);
+						item.add("slow");
+					});
+			
+			List<CompletableFuture<List<String>>> futures = new ArrayList<>();
+			for (int i = 0; i < 30; i++)
+				futures.add(pipeline.submit(new ArrayList<>(List.of("item" + i))));
+			
+			for (int i = 0; i < 30; i++)
+				Assert.assertEquals(List.of("item" + i, "fast", "slow"), futures.get(i).get());
+			
+			Assert.assertTrue(pipeline.getPeakQueueDepth("fast") <= 8);
+			Assert.assertTrue(pipeline.getPeakQueueDepth("slow") <= 2);
+			Assert.assertEquals(-1, pipeline.getPeakQueueDepth("missing"));
+			Assert.assertTrue(pipeline.getStatistics().contains("slow: 1 threads, 30 items"));
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case stagesTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to test that an item a stage fails on skips the stages after it,
+	 * and its future fails with the stage's exception, while the other items carry on.
+	 */
+	@Test
+	void failureTest()
+	{
+		// @formatter:off
+		String methodName = new Object(){}.getClass().getEnclosingMethod().getName();
+		// @formatter:on
+		
+		Date startDate = DateUtils.rightNowDate();
+		
+		TestUtils.logTestStart(methodName, watcher.getLogger());
+		
+		try (StagedPipeline<Integer> pipeline = new StagedPipeline<>())
+		{
+			AtomicInteger created = new AtomicInteger();
+			pipeline.addStage("details", 2, 4, item ->
+			{
+				if (item == 3)
+					throw new IllegalStateException("No details for " + item);
+			}).addStage("create", 2, 4, item -> created.incrementAndGet());
+			
+			List<CompletableFuture<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < 6; i++)
+				futures.add(pipeline.submit(i));
+			
+			for (int i = 0; i < 6; i++)
+			{
+				if (i == 3)
+				{
+					try
+					{
+						futures.get(i).get();
+						Assert.fail("Expected the details stage to fail.");
+					}
+					catch (ExecutionException ee)
+					{
+						Assert.assertTrue(ee.getCause() instanceof IllegalStateException);
+					}
+				}
+				else
+					Assert.assertEquals(Integer.valueOf(i), futures.get(i).get());
+			}
+			Assert.assertEquals(5, created.get());
+		}
+		catch (Exception e)
+		{
+			String error = "Our Test case failureTest failed unexpectedly.";
+			watcher.getLogger().error(error, e);
+			Assert.fail(error);
+		}
+		finally
+		{
+			TestUtils.logTestFinish(methodName, startDate, watcher.getLogger());
+		}
+	}
+	
+	/**
+	 * (U) This method is used to pause a stage, as if it were waiting on a command.
+	 * 
+	 * @param millis long the time to pause for, in milliseconds.
+	 */
+	private static void pause(long millis)
+	{
+		try
+		{
+			Thread.sleep(millis);
+		}
+		catch (InterruptedException ie)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -12,10 +12,13 @@ package org.cyclonedx.contrib.com.lmco.efoss.unix.sbom.utils;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.Date;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Logger;
 
 
@@ -105,4 +108,23 @@ public class TestUtils
 		return subProcess;
 	}
 	
+	/**
+	 * (U) This method is used to clean up a temporary directory created by a test.
+	 * 
+	 * @param directory Path of the directory to delete, nothing is done if it is null.
+	 */
+	public static void deleteDirectory(Path directory)
+	{
+		if (directory != null)
+		{
+			try
+			{
+				FileUtils.deleteDirectory(directory.toFile());
+			}
+			catch (IOException ioe)
+			{
+				System.out.println("Unable to delete temporary directory (" + directory + ").");
+			}
+		}
+	}
 }